@@ -1,16 +1,50 @@
 package sg.edu.nus.iss.profile_service;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import sg.edu.nus.iss.profile_service.factory.LocationServiceUnavailableException;
 
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final String LOCATION_RETRY_AFTER_SECONDS = "10";
+    private static final Pattern EMAIL_INDEX = Pattern.compile("ux_(customer|merchant|delivery_partner)_email_blind_index");
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    @ExceptionHandler(LocationServiceUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleLocationServiceUnavailable(LocationServiceUnavailableException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Service Unavailable");
+        errorResponse.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, LOCATION_RETRY_AFTER_SECONDS)
+                .body(errorResponse);
+    }
+
+    // A concurrent request registered the same email between the lookup and the insert, and the unique blind
+    // index turned this one away. The database message is not passed on: it names the index value. Any other
+    // violation (not null, length, foreign key) is no duplicate and goes to the generic handler.
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Map<String, String>> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        if (!isDuplicateEmail(ex)) {
+            return handleAllExceptions(ex);
+        }
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Conflict");
+        errorResponse.put("message", "The profile conflicts with an existing one");
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleAllExceptions(Exception ex) {
         Map<String, String> errorResponse = new HashMap<>();
@@ -18,4 +52,16 @@ public class GlobalExceptionHandler {
         errorResponse.put("message", ex.getMessage());
         return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    private static boolean isDuplicateEmail(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException && ((ConstraintViolationException) cause).getConstraintName() != null) {
+                return EMAIL_INDEX.matcher(((ConstraintViolationException) cause).getConstraintName()).matches();
+            }
+            if (cause instanceof SQLException && UNIQUE_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return cause.getMessage() != null && EMAIL_INDEX.matcher(cause.getMessage()).find();
+            }
+        }
+        return false;
+    }
 }
@@ -1,14 +1,91 @@
 package sg.edu.nus.iss.profile_service.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
+import sg.edu.nus.iss.profile_service.util.CircuitBreaker;
+import sg.edu.nus.iss.profile_service.util.RequestHedger;
+import sg.edu.nus.iss.profile_service.util.WorkerThreads;
+
+import java.time.Duration;
 
 @Configuration
 public class AppConfig {
 
+    // Pooled keep-alive connections with bounded waits, so a slow location service cannot hold request threads
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(
+            @Value("${location.http.max-connections:100}") int maxConnections,
+            @Value("${location.http.max-connections-per-route:50}") int maxConnectionsPerRoute,
+            @Value("${location.http.connect-timeout:1s}") Duration connectTimeout,
+            @Value("${location.http.read-timeout:2s}") Duration readTimeout,
+            @Value("${location.http.connection-ttl:5m}") Duration connectionTtl,
+            MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(connectionTtl))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        // httpcomponents.httpclient.pool.* gauges: leased, available and pending connections
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "location-service").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager,
+                                          @Value("${location.http.pool-acquire-timeout:500ms}") Duration poolAcquireTimeout,
+                                          @Value("${location.http.read-timeout:2s}") Duration readTimeout,
+                                          @Value("${location.http.idle-eviction:30s}") Duration idleEviction) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEviction))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    @Bean
+    public CircuitBreaker locationCircuitBreaker(@Value("${location.circuit-breaker.window-size:50}") int windowSize,
+                                                 @Value("${location.circuit-breaker.minimum-calls:20}") int minimumCalls,
+                                                 @Value("${location.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                                                 @Value("${location.circuit-breaker.open-duration:10s}") Duration openDuration,
+                                                 @Value("${location.circuit-breaker.half-open-calls:5}") int halfOpenCalls,
+                                                 MeterRegistry meterRegistry) {
+        return new CircuitBreaker("location-service", windowSize, minimumCalls, failureRateThreshold, openDuration,
+                halfOpenCalls, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public RequestHedger locationRequestHedger(@Value("${location.hedge.max-threads:100}") int maxThreads,
+                                               @Value("${location.hedge.percentile:0.95}") double percentile,
+                                               @Value("${location.hedge.min-delay:20ms}") Duration minDelay,
+                                               @Value(WorkerThreads.VIRTUAL_THREADS) boolean virtualThreads,
+                                               MeterRegistry meterRegistry) {
+        return new RequestHedger("location-service", maxThreads, percentile, minDelay, virtualThreads, meterRegistry);
     }
 }
@@ -9,6 +9,7 @@ import org.springframework.context.annotation.Primary;
 import sg.edu.nus.iss.profile_service.repository.CustomerRepository;
 import sg.edu.nus.iss.profile_service.repository.DeliveryPartnerRepository;
 import sg.edu.nus.iss.profile_service.repository.MerchantRepository;
+import sg.edu.nus.iss.profile_service.repository.ProfileBulkReader;
 
 @Configuration
 @ConditionalOnProperty(name = "spring.profiles.active", havingValue = "zapscan")
@@ -31,4 +32,10 @@ public class MockRepositoryConfig {
     public DeliveryPartnerRepository deliveryPartnerRepository() {
         return Mockito.mock(DeliveryPartnerRepository.class);
     }
+
+    @Bean
+    @Primary
+    public ProfileBulkReader profileBulkReader() {
+        return Mockito.mock(ProfileBulkReader.class);
+    }
 } 
\ No newline at end of file
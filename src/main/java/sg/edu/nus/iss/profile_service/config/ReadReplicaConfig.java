@@ -0,0 +1,118 @@
+package sg.edu.nus.iss.profile_service.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import sg.edu.nus.iss.profile_service.util.BoundedDataSource;
+import sg.edu.nus.iss.profile_service.util.ReadReplicaRouter;
+import sg.edu.nus.iss.profile_service.util.ReadYourWritesInterceptor;
+import sg.edu.nus.iss.profile_service.util.WorkerThreads;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Splits database traffic between the primary and the read replicas listed in {@code datasource.replica.urls}.
+ * Read-only transactions run on a replica, everything else on the primary: the application data source defers
+ * taking a physical connection until the first statement, by which time a read-only transaction has marked it
+ * read-only. Without replica URLs this configuration is off and Spring Boot's single pool is used as before; the
+ * property set but empty fails startup.
+ *
+ * <p>Replica pools start from the primary's {@code spring.datasource.hikari.*} settings, overridable under
+ * {@code datasource.replica.hikari.*}. Every pool reports the {@code hikaricp.connections.*} meters tagged with
+ * its pool name. With virtual threads each pool gets its own {@link BoundedDataSource}, sized as
+ * {@link VirtualThreadConfig} sizes the single pool, reporting {@code db.concurrency.*} under the same name.
+ */
+@Configuration
+@ConditionalOnProperty(name = ReadReplicaConfig.REPLICA_URLS)
+public class ReadReplicaConfig implements WebMvcConfigurer {
+
+    static final String REPLICA_URLS = "datasource.replica.urls";
+
+    private static final String PRIMARY_POOL = "primary";
+
+    @Value(WorkerThreads.VIRTUAL_THREADS)
+    private boolean virtualThreads;
+
+    @Value("${datasource.replica.read-your-writes.client-header:X-Client-Id}")
+    private String clientHeader;
+
+    @Value("${datasource.replica.read-your-writes.window:5s}")
+    private Duration readYourWritesWindow;
+
+    @Bean(destroyMethod = "close")
+    public ReadReplicaRouter readReplicaRouter(DataSourceProperties properties, Environment environment,
+                                               @Value("${datasource.replica.urls}") List<String> replicaUrls,
+                                               @Value("${datasource.replica.max-lag:2s}") Duration maxLag,
+                                               @Value("${datasource.replica.lag-check-interval:1s}") Duration lagCheckInterval,
+                                               MeterRegistry meterRegistry) {
+        // An empty value still switches this configuration on, but would leave nothing to route reads to
+        List<String> urls = replicaUrls.stream().map(String::trim).filter(url -> !url.isEmpty()).toList();
+        if (urls.isEmpty()) {
+            throw new IllegalStateException(REPLICA_URLS + " lists no replica; remove it to run without replicas");
+        }
+        Binder binder = Binder.get(environment);
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName(PRIMARY_POOL);
+        primary.setMetricsTrackerFactory(metrics);
+
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setJdbcUrl(url);
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setReadOnly(true);
+            binder.bind("datasource.replica.hikari", Bindable.ofInstance(config));
+            replicas.add(new HikariDataSource(config));
+        }
+        Function<HikariDataSource, DataSource> connections = pool -> {
+            if (!virtualThreads) {
+                return pool;
+            }
+            BoundedDataSource bounded = VirtualThreadConfig.bound(pool, pool.getPoolName(), pool.getMaximumPoolSize(),
+                    environment);
+            bounded.bindTo(meterRegistry);
+            return bounded;
+        };
+        return new ReadReplicaRouter(primary, replicas, connections, maxLag, lagCheckInterval, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRouter readReplicaRouter) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        // Set up front so the proxy does not open a connection at startup to look them up
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource.setTargetDataSource(readReplicaRouter.primaryDataSource());
+        dataSource.setReadOnlyDataSource(readReplicaRouter.readOnlyDataSource());
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(clientHeader, readYourWritesWindow));
+    }
+}
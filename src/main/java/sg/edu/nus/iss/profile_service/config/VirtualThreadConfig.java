@@ -0,0 +1,66 @@
+package sg.edu.nus.iss.profile_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import sg.edu.nus.iss.profile_service.util.BoundedDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Database side of {@code spring.threads.virtual.enabled}. Spring Boot runs Tomcat requests, task executors and
+ * scheduling on virtual threads with that switch, and the geocoding workers, request hedgers and background jobs
+ * follow it through {@code WorkerThreads}. Request threads then stop being the limit on concurrency, so each
+ * connection pool is wrapped in a {@link BoundedDataSource} that lets at most as many threads hold a connection as
+ * the pool has, or {@code db.max-concurrency} when set, and queues the rest instead of letting them all pile into
+ * Hikari's connection wait. With read replicas {@link ReadReplicaConfig} bounds the primary and every replica
+ * pool on its own, so reads queued for a replica never take the primary's slots.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    // Static so the post-processor is registered before the data source is created
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!DATA_SOURCE_BEAN.equals(beanName) || !(bean instanceof DataSource) || bean instanceof BoundedDataSource
+                        || environment.containsProperty(ReadReplicaConfig.REPLICA_URLS)) {
+                    return bean;
+                }
+                int poolSize = bean instanceof HikariDataSource
+                        ? ((HikariDataSource) bean).getMaximumPoolSize()
+                        : environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                return bound((DataSource) bean, DATA_SOURCE_BEAN, poolSize, environment);
+            }
+        };
+    }
+
+    /**
+     * Wraps one connection pool of {@code poolSize} connections.
+     */
+    static BoundedDataSource bound(DataSource pool, String name, int poolSize, Environment environment) {
+        int maxConcurrency = environment.getProperty("db.max-concurrency", Integer.class, poolSize);
+        Duration acquireTimeout = environment.getProperty("db.acquire-timeout", Duration.class, Duration.ofSeconds(30));
+        return new BoundedDataSource(pool, name, maxConcurrency, acquireTimeout);
+    }
+
+    // With read replicas the application data source is the routing proxy, and ReadReplicaConfig reports the pools
+    @Bean
+    public MeterBinder boundedDataSourceMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof BoundedDataSource) {
+                ((BoundedDataSource) dataSource).bindTo(registry);
+            }
+        };
+    }
+}
@@ -11,17 +11,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import sg.edu.nus.iss.profile_service.dto.BatchItemResultDTO;
 import sg.edu.nus.iss.profile_service.dto.CustomerDTO;
 import sg.edu.nus.iss.profile_service.factory.ProfileServiceFactory;
 import sg.edu.nus.iss.profile_service.model.Customer;
 import sg.edu.nus.iss.profile_service.model.Profile;
 import sg.edu.nus.iss.profile_service.model.Rewards;
 import sg.edu.nus.iss.profile_service.util.LogMasker;
+import sg.edu.nus.iss.profile_service.util.PageCursor;
+import sg.edu.nus.iss.profile_service.util.ProfileStreamWriter;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -52,15 +58,34 @@ public class CustomerController {
     @Operation(summary = "Retrieve all customers")
     public ResponseEntity<?> getAllCustomers(
             @RequestParam(value = "page", required = false) Integer page,
-            @RequestParam(value = "size", required = false) Integer size) {
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        // A cursor selects keyset pagination, with no offset scan and no count query; an empty cursor starts at the
+        // first slice. Without one, page and size keep their old meaning
+        if (cursor != null) {
+            UUID after;
+            try {
+                after = PageCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+            }
+            log.info("{\"message\": \"Fetching customers with cursor pagination\"}");
+            int sliceSize = size != null ? size : ProfileServiceFactory.DEFAULT_SLICE_SIZE;
+            return ResponseEntity.ok(profileServiceFactory.getProfilesAfter(CUSTOMER_TYPE, after, sliceSize));
+        }
 
         // If pagination parameters are not provided, return list of customers
+        // Without pagination every profile is streamed to the response as it is read, never held as a list
         if (page == null || size == null) {
-            log.info("{\"message\": \"Fetching all customers with no pagination"+"\"}");
-            List<Customer> customerList = profileServiceFactory.getProfilesByType(CUSTOMER_TYPE).stream()
-                    .map(Customer.class::cast)
-                    .toList();
-            return ResponseEntity.ok(customerList);
+            log.info("{\"message\": \"Streaming all customers with no pagination\"}");
+            boolean ndjson = ProfileStreamWriter.acceptsNdjson(accept);
+            StreamingResponseBody body = ProfileStreamWriter.write(mapper, ndjson,
+                    sink -> profileServiceFactory.streamProfilesByType(CUSTOMER_TYPE, sink));
+            return ResponseEntity.ok()
+                    .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                    .body(body);
         }
 
         // If pagination parameters are provided, return a page of customers
@@ -157,6 +182,19 @@ public class CustomerController {
             return ResponseEntity.status(HttpStatus.CREATED).body("Created customer");
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Register customers in bulk", description = "Each customer is accepted or rejected on its own; the response lists the outcome per item")
+    public ResponseEntity<?> registerCustomers(@RequestBody List<Customer> customers) {
+        int maxBatchSize = profileServiceFactory.getMaxBatchSize();
+        if (customers.isEmpty() || customers.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("A batch holds 1 to " + maxBatchSize + " customers");
+        }
+        log.info("{\"message\": \"Registering {} new customers in bulk\"}", customers.size());
+        List<BatchItemResultDTO> results = profileServiceFactory.createProfiles(CUSTOMER_TYPE, customers);
+        boolean allCreated = results.stream().allMatch(result -> BatchItemResultDTO.CREATED.equals(result.getStatus()));
+        return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+    }
+
     // add an API to get profile by email address
 
     @GetMapping("/email/{email}")
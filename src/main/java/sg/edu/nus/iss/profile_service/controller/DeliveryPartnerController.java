@@ -11,16 +11,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import sg.edu.nus.iss.profile_service.dto.BatchItemResultDTO;
 import sg.edu.nus.iss.profile_service.dto.DeliveryPartnerDTO;
 import sg.edu.nus.iss.profile_service.factory.ProfileServiceFactory;
 import sg.edu.nus.iss.profile_service.model.DeliveryPartner;
 import sg.edu.nus.iss.profile_service.model.Profile;
 import sg.edu.nus.iss.profile_service.util.LogMasker;
+import sg.edu.nus.iss.profile_service.util.PageCursor;
+import sg.edu.nus.iss.profile_service.util.ProfileStreamWriter;
 
 import java.util.*;
 
@@ -51,15 +57,33 @@ public class DeliveryPartnerController {
     @Operation(summary = "Retrieve all delivery partners profile")
     public ResponseEntity<?> getAllDeliveryPartners(
             @RequestParam(value = "page", required = false) Integer page,
-            @RequestParam(value = "size", required = false) Integer size) {
-
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        // A cursor selects keyset pagination, with no offset scan and no count query; an empty cursor starts at the
+        // first slice. Without one, page and size keep their old meaning
+        if (cursor != null) {
+            UUID after;
+            try {
+                after = PageCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+            }
+            log.info("{\"message\": \"Fetching delivery partners with cursor pagination\"}");
+            int sliceSize = size != null ? size : ProfileServiceFactory.DEFAULT_SLICE_SIZE;
+            return ResponseEntity.ok(profileServiceFactory.getProfilesAfter(DELIVERY_STRING, after, sliceSize));
+        }
 
+        // Without pagination every profile is streamed to the response as it is read, never held as a list
         if (page == null || size == null) {
-            log.info("{\"message\": \"Fetching all delivery partners with no pagination"+"\"}");
-            List<DeliveryPartner> deliveryPartnerList = profileServiceFactory.getProfilesByType(DELIVERY_STRING).stream()
-                    .map(DeliveryPartner.class::cast)
-                    .toList();
-            return ResponseEntity.ok(deliveryPartnerList);
+            log.info("{\"message\": \"Streaming all delivery partners with no pagination\"}");
+            boolean ndjson = ProfileStreamWriter.acceptsNdjson(accept);
+            StreamingResponseBody body = ProfileStreamWriter.write(mapper, ndjson,
+                    sink -> profileServiceFactory.streamProfilesByType(DELIVERY_STRING, sink));
+            return ResponseEntity.ok()
+                    .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                    .body(body);
         }
         log.info("{\"message\": \"Fetching all delivery partners with pagination\"}", page, size);
         Pageable pageable = PageRequest.of(page, size);
@@ -165,6 +189,19 @@ public class DeliveryPartnerController {
         return ResponseEntity.status(HttpStatus.CREATED).body("Created Delivery Partner");
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Register delivery partners in bulk", description = "Each delivery partner is accepted or rejected on its own; the response lists the outcome per item")
+    public ResponseEntity<?> registerDeliveryPartners(@RequestBody List<DeliveryPartner> deliveryPartners) {
+        int maxBatchSize = profileServiceFactory.getMaxBatchSize();
+        if (deliveryPartners.isEmpty() || deliveryPartners.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("A batch holds 1 to " + maxBatchSize + " delivery partners");
+        }
+        log.info("{\"message\": \"Registering {} new delivery partners in bulk\"}", deliveryPartners.size());
+        List<BatchItemResultDTO> results = profileServiceFactory.createProfiles(DELIVERY_STRING, deliveryPartners);
+        boolean allCreated = results.stream().allMatch(result -> BatchItemResultDTO.CREATED.equals(result.getStatus()));
+        return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+    }
+
     @GetMapping("/email/{email}")
     @Operation(summary = "Retrieve Delivery Partner by email address")
     public ResponseEntity<?> getDeliveryPartnerByEmail(@PathVariable String email) {
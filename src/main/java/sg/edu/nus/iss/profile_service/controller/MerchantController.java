@@ -11,16 +11,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import sg.edu.nus.iss.profile_service.dto.BatchItemResultDTO;
 import sg.edu.nus.iss.profile_service.dto.MerchantDTO;
 import sg.edu.nus.iss.profile_service.factory.ProfileServiceFactory;
 import sg.edu.nus.iss.profile_service.model.Merchant;
 import sg.edu.nus.iss.profile_service.model.Profile;
 import sg.edu.nus.iss.profile_service.util.LogMasker;
+import sg.edu.nus.iss.profile_service.util.PageCursor;
+import sg.edu.nus.iss.profile_service.util.ProfileStreamWriter;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -51,15 +57,33 @@ public class MerchantController {
     @Operation(summary = "Retrieve all merchants")
     public ResponseEntity<?> getAllMerchants(
             @RequestParam(value = "page", required = false) Integer page,
-            @RequestParam(value = "size", required = false) Integer size) {
-
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        // A cursor selects keyset pagination, with no offset scan and no count query; an empty cursor starts at the
+        // first slice. Without one, page and size keep their old meaning
+        if (cursor != null) {
+            UUID after;
+            try {
+                after = PageCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+            }
+            log.info("{\"message\": \"Fetching merchants with cursor pagination\"}");
+            int sliceSize = size != null ? size : ProfileServiceFactory.DEFAULT_SLICE_SIZE;
+            return ResponseEntity.ok(profileServiceFactory.getProfilesAfter(MERCHANT_STRING, after, sliceSize));
+        }
 
+        // Without pagination every profile is streamed to the response as it is read, never held as a list
         if (page == null || size == null) {
-            log.info("{\"message\": \"Fetching all merchants with no pagination"+"\"}");
-            List<Merchant> merchantList = profileServiceFactory.getProfilesByType(MERCHANT_STRING).stream()
-                    .map(Merchant.class::cast)
-                    .toList();
-            return ResponseEntity.ok(merchantList);
+            log.info("{\"message\": \"Streaming all merchants with no pagination\"}");
+            boolean ndjson = ProfileStreamWriter.acceptsNdjson(accept);
+            StreamingResponseBody body = ProfileStreamWriter.write(mapper, ndjson,
+                    sink -> profileServiceFactory.streamProfilesByType(MERCHANT_STRING, sink));
+            return ResponseEntity.ok()
+                    .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                    .body(body);
         }
         log.info("{\"message\": \"Fetching all merchants with pagination\"}", page, size);
         // If pagination parameters are provided, return a page of merchants
@@ -171,6 +195,19 @@ public class MerchantController {
         return ResponseEntity.status(HttpStatus.CREATED).body("Created Merchant");
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Register merchants in bulk", description = "Each merchant is accepted or rejected on its own; the response lists the outcome per item")
+    public ResponseEntity<?> registerMerchants(@RequestBody List<Merchant> merchants) {
+        int maxBatchSize = profileServiceFactory.getMaxBatchSize();
+        if (merchants.isEmpty() || merchants.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("A batch holds 1 to " + maxBatchSize + " merchants");
+        }
+        log.info("{\"message\": \"Registering {} new merchants in bulk\"}", merchants.size());
+        List<BatchItemResultDTO> results = profileServiceFactory.createProfiles(MERCHANT_STRING, merchants);
+        boolean allCreated = results.stream().allMatch(result -> BatchItemResultDTO.CREATED.equals(result.getStatus()));
+        return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+    }
+
     @GetMapping("/email/{email}")
     @Operation(summary = "Retrieve merchant by email address")
     public ResponseEntity<?> getMerchantByEmail(@PathVariable String email) {
@@ -0,0 +1,19 @@
+package sg.edu.nus.iss.profile_service.dto;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class BatchItemResultDTO {
+
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+
+    // Position of the profile in the request body
+    private int index;
+    private String status;
+    private UUID id;
+    private String error;
+
+}
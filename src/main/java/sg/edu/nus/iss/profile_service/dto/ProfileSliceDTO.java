@@ -0,0 +1,17 @@
+package sg.edu.nus.iss.profile_service.dto;
+
+import lombok.Data;
+import sg.edu.nus.iss.profile_service.model.Profile;
+
+import java.util.List;
+
+@Data
+public class ProfileSliceDTO {
+
+    private List<Profile> content;
+    private int size;
+    private boolean hasNext;
+    // Pass back as the cursor parameter to fetch the following slice; null on the last one
+    private String nextCursor;
+
+}
@@ -1,39 +1,430 @@
 package sg.edu.nus.iss.profile_service.factory;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
-import sg.edu.nus.iss.profile_service.controller.CustomerController;
 import sg.edu.nus.iss.profile_service.model.LatLng;
+import sg.edu.nus.iss.profile_service.model.PincodeGeocode;
+import sg.edu.nus.iss.profile_service.repository.PincodeGeocodeRepository;
+import sg.edu.nus.iss.profile_service.util.CircuitBreaker;
+import sg.edu.nus.iss.profile_service.util.RequestHedger;
+import sg.edu.nus.iss.profile_service.util.WorkerThreads;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 public class ExternalLocationService {
     @Value("${location.service.url}")
     private String locationServiceUrl;
 
+    // Distinct pincodes missed within one window go to the location service as one batch call
+    @Value("${location.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    @Value("${location.batch.window:5ms}")
+    private Duration batchWindow;
+
+    @Value("${location.batch.max-size:50}")
+    private int batchMaxSize;
+
+    @Value("${location.batch.path:/location/coordinates/batch}")
+    private String batchPath;
+
+    // Attempts per lookup, each one through the circuit breaker and the hedger
+    @Value("${location.retry.max-attempts:2}")
+    private int retryAttempts;
+
+    @Value("${location.retry.backoff:50ms}")
+    private Duration retryBackoff;
+
+    // Rows of the shared pincode_geocode table older than this are fetched again
+    @Value("${location.store.ttl:30d}")
+    private Duration storeTtl;
+
+    @Value("${location.store.warm-up-size:5000}")
+    private int warmUpSize;
+
+    // Hits on the shared table are counted in memory and added to its lookup counts at this interval
+    @Value("${location.store.lookup-flush-interval:1m}")
+    private Duration lookupFlushInterval;
+
+    @Value(WorkerThreads.VIRTUAL_THREADS)
+    private boolean virtualThreads;
+
+    private static final String STORE_SOURCE = "location-service";
+
     private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
+    private final RequestHedger requestHedger;
+    private final PincodeGeocodeRepository pincodeGeocodeRepository;
+    private final PostalSectorCentroids postalSectorCentroids;
+    private final Counter storeHits;
+    private final Counter storeMisses;
+
+    // Pincode -> coordinates; an empty value records a pincode the location service does not know. Holding
+    // futures lets concurrent misses for a pincode wait on the one lookup already in flight
+    private final AsyncCache<String, Optional<LatLng>> coordinatesCache;
+
+    private static final ParameterizedTypeReference<Map<String, LatLng>> BATCH_RESPONSE = new ParameterizedTypeReference<>() {
+    };
+
+    // Pincode -> shared table hits not yet added to its row
+    private final Map<String, Long> pendingLookups = new ConcurrentHashMap<>();
+    private ScheduledExecutorService lookupFlusher;
+
+    private final Object batchLock = new Object();
+    private Map<String, CompletableFuture<Optional<LatLng>>> openBatch = new LinkedHashMap<>();
 
     private static final Logger log = LoggerFactory.getLogger(ExternalLocationService.class);
 
 
 
     @Autowired
-    public ExternalLocationService(RestTemplate restTemplate) {
+    public ExternalLocationService(RestTemplate restTemplate, MeterRegistry meterRegistry,
+                                   @Value("${location.cache.maximum-size:150000}") long maximumSize,
+                                   @Value("${location.cache.ttl:7d}") Duration ttl,
+                                   @Value("${location.cache.negative-ttl:5m}") Duration negativeTtl,
+                                   CircuitBreaker locationCircuitBreaker, RequestHedger locationRequestHedger,
+                                   PincodeGeocodeRepository pincodeGeocodeRepository,
+                                   PostalSectorCentroids postalSectorCentroids) {
         this.restTemplate = restTemplate;
+        this.circuitBreaker = locationCircuitBreaker;
+        this.requestHedger = locationRequestHedger;
+        this.pincodeGeocodeRepository = pincodeGeocodeRepository;
+        this.postalSectorCentroids = postalSectorCentroids;
+        this.storeHits = Counter.builder("pincode.geocode.store")
+                .description("Cache misses looked up in the shared pincode_geocode table")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.storeMisses = Counter.builder("pincode.geocode.store")
+                .description("Cache misses looked up in the shared pincode_geocode table")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        // Postal codes map to fixed points, so hits live long; unknown pincodes are retried soon in case they were just added
+        this.coordinatesCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new CoordinatesExpiry(ttl, negativeTtl))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, coordinatesCache, "pincode.coordinates");
+    }
+
+    /**
+     * Loads the most looked-up pincodes of the shared table into the cache, so a new replica starts warm.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmUpSize <= 0) {
+            return;
+        }
+        try {
+            int loaded = 0;
+            for (PincodeGeocode row : pincodeGeocodeRepository.findAllByOrderByLookupsDesc(Limit.of(warmUpSize))) {
+                if (!isStale(row)) {
+                    coordinatesCache.put(row.getPincode(), CompletableFuture.completedFuture(Optional.of(new LatLng(row.getLatitude(), row.getLongitude()))));
+                    loaded++;
+                }
+            }
+            log.info("{\"message\": \"Warmed pincode cache with {} pincodes\"}", loaded);
+        } catch (RuntimeException e) {
+            log.error("{\"message\": \"Could not warm pincode cache from pincode_geocode\"}", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLookupFlush() {
+        lookupFlusher = Executors.newSingleThreadScheduledExecutor(WorkerThreads.factory("pincode-lookup-flush", virtualThreads));
+        lookupFlusher.scheduleWithFixedDelay(this::flushLookupCounts, lookupFlushInterval.toMillis(),
+                lookupFlushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (lookupFlusher != null) {
+            lookupFlusher.shutdownNow();
+        }
+        flushLookupCounts();
+    }
+
+    /**
+     * Adds the shared table hits counted since the last flush to the rows' lookup counts, which rank pincodes for
+     * warm-up. Counts that cannot be written are kept for the next flush.
+     */
+    void flushLookupCounts() {
+        for (String pincode : pendingLookups.keySet()) {
+            Long lookups = pendingLookups.remove(pincode);
+            if (lookups == null) {
+                continue;
+            }
+            try {
+                pincodeGeocodeRepository.addLookups(pincode, lookups);
+            } catch (RuntimeException e) {
+                pendingLookups.merge(pincode, lookups, Long::sum);
+                log.warn("{\"message\": \"Could not write pincode_geocode lookup counts\"}", e);
+                return;
+            }
+        }
     }
 
+    /**
+     * Returns the coordinates of a pincode, or null when the location service does not know it. Lookups are served
+     * from the cache, then the shared pincode_geocode table, then the location service; failed lookups are not
+     * cached.
+     */
     public LatLng getCoordinates(String pincode) {
+        CompletableFuture<Optional<LatLng>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<LatLng>> lookup = coordinatesCache.get(pincode, (key, executor) -> created);
+        if (lookup == created) {
+            // This caller missed first and runs the lookup, on its own thread, for everyone waiting on it
+            try {
+                LatLng stored = findStored(pincode);
+                if (stored != null) {
+                    created.complete(Optional.of(stored));
+                } else if (batchEnabled) {
+                    joinBatch(pincode, created);
+                } else {
+                    complete(created, () -> fetchCoordinates(pincode));
+                }
+            } catch (Throwable e) {
+                // Whatever went wrong, the callers waiting on this lookup are answered
+                created.completeExceptionally(e);
+            }
+        }
+        try {
+            return lookup.join().orElse(null);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a pincode to the open batch. The caller that opens a batch waits out the window and then sends it; a
+     * caller that fills a batch sends it at once. Everyone else just waits on their own future.
+     */
+    private void joinBatch(String pincode, CompletableFuture<Optional<LatLng>> future) {
+        Map<String, CompletableFuture<Optional<LatLng>>> batch;
+        boolean opened;
+        synchronized (batchLock) {
+            batch = openBatch;
+            opened = batch.isEmpty();
+            batch.put(pincode, future);
+            if (batch.size() >= batchMaxSize) {
+                openBatch = new LinkedHashMap<>();
+                opened = false;
+            } else if (!opened) {
+                return;
+            }
+        }
+        if (opened) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(batchWindow.toNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (batchLock) {
+                if (openBatch != batch) {
+                    // Filled up and sent by another caller meanwhile
+                    return;
+                }
+                openBatch = new LinkedHashMap<>();
+            }
+        }
+        fetchBatch(batch);
+    }
+
+    private void fetchBatch(Map<String, CompletableFuture<Optional<LatLng>>> batch) {
+        if (batch.size() == 1) {
+            Map.Entry<String, CompletableFuture<Optional<LatLng>>> only = batch.entrySet().iterator().next();
+            complete(only.getValue(), () -> fetchCoordinates(only.getKey()));
+            return;
+        }
+        String url = locationServiceUrl + batchPath;
+        log.info("{\"message\": \"Fetching coordinates of {} pincodes from external service: {}\"}", batch.size(), url);
+        Map<String, LatLng> found;
+        try {
+            HttpEntity<List<String>> request = new HttpEntity<>(List.copyOf(batch.keySet()));
+            found = callLocationService(() -> restTemplate.exchange(url, HttpMethod.POST, request, BATCH_RESPONSE).getBody());
+        } catch (HttpClientErrorException e) {
+            // The batch was turned away, most likely over one bad pincode; asking for each alone leaves only that
+            // one unresolved
+            log.info("{\"message\": \"Batch rejected by external service with status {}, fetching pincodes singly\"}",
+                    e.getStatusCode().value());
+            batch.forEach((pincode, future) -> complete(future, () -> fetchCoordinates(pincode)));
+            return;
+        } catch (Exception e) {
+            RuntimeException failure = unavailable(e);
+            batch.values().forEach(future -> future.completeExceptionally(failure));
+            return;
+        }
+        // Pincodes missing from the response are unknown to the location service. Every caller is answered before
+        // the shared table is written, so a failing write cannot leave the rest of the batch waiting
+        batch.forEach((pincode, future) -> future.complete(Optional.ofNullable(found == null ? null : found.get(pincode))));
+        if (found != null) {
+            batch.keySet().forEach(pincode -> store(pincode, found.get(pincode)));
+        }
+    }
+
+    private static void complete(CompletableFuture<Optional<LatLng>> future, Supplier<Optional<LatLng>> lookup) {
+        try {
+            future.complete(lookup.get());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private Optional<LatLng> fetchCoordinates(String pincode) {
         String url = locationServiceUrl+"/location/coordinates?pincode=" + pincode;
 
         log.info("{\"message\": \"Fetching coordinates from external service: {}\"}", url);
         try {
-            return restTemplate.getForObject(url, LatLng.class);
+            LatLng coordinates = callLocationService(() -> restTemplate.getForObject(url, LatLng.class));
+            store(pincode, coordinates);
+            return Optional.ofNullable(coordinates);
+        } catch (HttpClientErrorException e) {
+            // Unknown or malformed: the service answered, so neither a retry nor a centroid would do better
+            log.info("{\"message\": \"Pincode rejected by external service with status {}: {}\"}",
+                    e.getStatusCode().value(), pincode);
+            return Optional.empty();
         } catch (Exception e) {
-            log.error("{\"message\": \"Error fetching coordinates from external service\"}");
-            throw new RuntimeException("Error fetching coordinates from external service", e);
+            throw unavailable(e);
+        }
+    }
+
+    // The shared table is an optimisation only: when the database is unavailable, whether from a data access error or
+    // a transaction that could not be started, lookups go to the location service
+    private LatLng findStored(String pincode) {
+        try {
+            PincodeGeocode row = pincodeGeocodeRepository.findById(pincode).orElse(null);
+            if (row == null || isStale(row)) {
+                storeMisses.increment();
+                return null;
+            }
+            storeHits.increment();
+            pendingLookups.merge(pincode, 1L, Long::sum);
+            return new LatLng(row.getLatitude(), row.getLongitude());
+        } catch (RuntimeException e) {
+            log.warn("{\"message\": \"Could not read pincode_geocode, asking the location service\"}", e);
+            return null;
+        }
+    }
+
+    // Runs once per coordinate fetched from the location service, so each one is folded into its centroid once
+    private void store(String pincode, LatLng coordinates) {
+        if (coordinates == null || coordinates.getLat() == null || coordinates.getLng() == null) {
+            return;
+        }
+        postalSectorCentroids.record(pincode, coordinates);
+        try {
+            pincodeGeocodeRepository.upsert(pincode, coordinates.getLat(), coordinates.getLng(), STORE_SOURCE);
+        } catch (RuntimeException e) {
+            log.warn("{\"message\": \"Could not write pincode_geocode\"}", e);
+        }
+    }
+
+    private boolean isStale(PincodeGeocode row) {
+        return row.getLatitude() == null || row.getLongitude() == null
+                || (storeTtl != null && row.getFetchedAt() != null && row.getFetchedAt().isBefore(Instant.now().minus(storeTtl)));
+    }
+
+    private static LocationServiceUnavailableException unavailable(Exception e) {
+        if (e instanceof LocationServiceUnavailableException) {
+            log.warn("{\"message\": \"Location service circuit breaker is open, failing fast\"}");
+            return (LocationServiceUnavailableException) e;
+        }
+        log.error("{\"message\": \"Error fetching coordinates from external service\"}");
+        return new LocationServiceUnavailableException("Error fetching coordinates from external service", e);
+    }
+
+    /**
+     * Runs a call to the location service behind the circuit breaker, hedging slow attempts and retrying failed
+     * ones after a jittered backoff. A client error means the service answered, so it counts as a success.
+     */
+    private <T> T callLocationService(Supplier<T> call) {
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                throw new LocationServiceUnavailableException("Location service circuit breaker is open");
+            }
+            try {
+                T result = requestHedger.call(call);
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (HttpClientErrorException e) {
+                circuitBreaker.onSuccess();
+                throw e;
+            } catch (RuntimeException e) {
+                circuitBreaker.onFailure();
+                if (attempt >= retryAttempts) {
+                    throw e;
+                }
+                long backoff = retryBackoff.toMillis() << Math.min(attempt - 1, 10);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static final class CoordinatesExpiry implements Expiry<String, Optional<LatLng>> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        private CoordinatesExpiry(Duration ttl, Duration negativeTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String pincode, Optional<LatLng> coordinates, long currentTime) {
+            return coordinates.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String pincode, Optional<LatLng> coordinates, long currentTime, long currentDuration) {
+            return expireAfterCreate(pincode, coordinates, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String pincode, Optional<LatLng> coordinates, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
 }
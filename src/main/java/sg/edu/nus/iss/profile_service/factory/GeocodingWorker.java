@@ -0,0 +1,133 @@
+package sg.edu.nus.iss.profile_service.factory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sg.edu.nus.iss.profile_service.model.LatLng;
+import sg.edu.nus.iss.profile_service.util.WorkerThreads;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Background pool that geocodes profiles saved with {@code location.geocoding.mode=async}. At most
+ * {@code location.geocoding.async.queue-capacity} lookups are outstanding at a time; failed lookups are retried
+ * with jittered exponential backoff on the same threads, so retries never add to the pool.
+ */
+@Component
+public class GeocodingWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(GeocodingWorker.class);
+
+    private static final int MAX_BACKOFF_DOUBLINGS = 20;
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final Semaphore capacity;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Counter resolved;
+    private final Counter unresolved;
+    private final Counter retried;
+    private final Counter rejected;
+
+    @Autowired
+    public GeocodingWorker(@Value("${location.geocoding.async.pool-size:4}") int poolSize,
+                           @Value("${location.geocoding.async.queue-capacity:10000}") int queueCapacity,
+                           @Value("${location.geocoding.async.max-attempts:6}") int maxAttempts,
+                           @Value("${location.geocoding.async.initial-backoff:1s}") Duration initialBackoff,
+                           @Value("${location.geocoding.async.max-backoff:1m}") Duration maxBackoff,
+                           @Value(WorkerThreads.VIRTUAL_THREADS) boolean virtualThreads,
+                           MeterRegistry meterRegistry) {
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, poolSize), WorkerThreads.factory("geocoding", virtualThreads));
+        this.executor.setRemoveOnCancelPolicy(true);
+        this.capacity = new Semaphore(queueCapacity);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.resolved = outcome(meterRegistry, "resolved");
+        this.unresolved = outcome(meterRegistry, "unresolved");
+        this.retried = outcome(meterRegistry, "retried");
+        this.rejected = outcome(meterRegistry, "rejected");
+        Gauge.builder("profile.geocode.async.outstanding", () -> queueCapacity - capacity.availablePermits())
+                .description("Queued or retrying background geocode lookups")
+                .register(meterRegistry);
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("profile.geocode.async")
+                .description("Background geocode lookups by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a lookup of the pincode. {@code onResolved} receives the coordinates; {@code onUnresolved} runs when
+     * the pincode is unknown or every attempt failed. Returns false, without queueing, when the worker is full.
+     */
+    public boolean submit(String pincode, Function<String, LatLng> lookup, Consumer<LatLng> onResolved,
+                          Runnable onUnresolved) {
+        if (!capacity.tryAcquire()) {
+            rejected.increment();
+            log.warn("{\"message\": \"Geocoding queue full, pincode {} left pending\"}", pincode);
+            return false;
+        }
+        executor.execute(() -> attempt(pincode, lookup, onResolved, onUnresolved, 1));
+        return true;
+    }
+
+    private void attempt(String pincode, Function<String, LatLng> lookup, Consumer<LatLng> onResolved,
+                         Runnable onUnresolved, int attempt) {
+        LatLng coordinates;
+        try {
+            coordinates = lookup.apply(pincode);
+        } catch (RuntimeException e) {
+            if (attempt < maxAttempts) {
+                retried.increment();
+                long delay = backoffMillis(attempt);
+                log.info("{\"message\": \"Geocoding pincode {} failed on attempt {}, retrying in {} ms\"}", pincode, attempt, delay);
+                executor.schedule(() -> attempt(pincode, lookup, onResolved, onUnresolved, attempt + 1),
+                        delay, TimeUnit.MILLISECONDS);
+                return;
+            }
+            log.error("{\"message\": \"Geocoding pincode {} failed after {} attempts\"}", pincode, attempt, e);
+            coordinates = null;
+        }
+        try {
+            if (coordinates != null) {
+                onResolved.accept(coordinates);
+                resolved.increment();
+            } else {
+                onUnresolved.run();
+                unresolved.increment();
+            }
+        } catch (RuntimeException e) {
+            log.error("{\"message\": \"Could not store geocoding result for pincode {}\"}", pincode, e);
+        } finally {
+            capacity.release();
+        }
+    }
+
+    // Half-jittered doubling from the initial backoff, capped, so retries against a recovering service spread out
+    private long backoffMillis(int attempt) {
+        long doubled = initialBackoff.toMillis() << Math.min(attempt - 1, MAX_BACKOFF_DOUBLINGS);
+        long capped = Math.max(1, Math.min(doubled, maxBackoff.toMillis()));
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
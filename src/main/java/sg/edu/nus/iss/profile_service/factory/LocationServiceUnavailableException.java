@@ -0,0 +1,16 @@
+package sg.edu.nus.iss.profile_service.factory;
+
+/**
+ * The location service could not answer: it failed or timed out on every attempt, or its circuit breaker is open.
+ * Reported to clients as 503 so they retry later, unlike an unknown pincode.
+ */
+public class LocationServiceUnavailableException extends RuntimeException {
+
+    public LocationServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public LocationServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
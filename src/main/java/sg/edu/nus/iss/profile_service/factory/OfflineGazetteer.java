@@ -0,0 +1,102 @@
+package sg.edu.nus.iss.profile_service.factory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sg.edu.nus.iss.profile_service.model.LatLng;
+import sg.edu.nus.iss.profile_service.util.GazetteerFileBuilder;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Optional local geocoder backed by the binary gazetteer file written by {@link GazetteerFileBuilder}. The file
+ * is memory-mapped once at startup and copied into three primitive arrays, so a lookup is a binary search with no
+ * I/O and no allocation beyond the result. Disabled when {@code location.gazetteer.path} is not set.
+ */
+@Component
+public class OfflineGazetteer {
+
+    private static final Logger log = LoggerFactory.getLogger(OfflineGazetteer.class);
+
+    private static final int HEADER_LENGTH = GazetteerFileBuilder.MAGIC.length + 2 * Integer.BYTES;
+
+    private final int[] pincodes;
+    private final int[] latitudes;
+    private final int[] longitudes;
+
+    @Autowired
+    public OfflineGazetteer(@Value("${location.gazetteer.path:}") String path) {
+        int[][] sections = path == null || path.isBlank() ? new int[3][0] : load(Path.of(path));
+        this.pincodes = sections[0];
+        this.latitudes = sections[1];
+        this.longitudes = sections[2];
+    }
+
+    /**
+     * Returns the coordinates of a pincode, or null when the gazetteer does not have it.
+     */
+    public LatLng getCoordinates(String pincode) {
+        if (pincodes.length == 0 || pincode == null || pincode.length() != 6) {
+            return null;
+        }
+        int key;
+        try {
+            key = Integer.parseInt(pincode);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        int index = Arrays.binarySearch(pincodes, key);
+        if (index < 0) {
+            return null;
+        }
+        return new LatLng(latitudes[index] / GazetteerFileBuilder.MICRODEGREES, longitudes[index] / GazetteerFileBuilder.MICRODEGREES);
+    }
+
+    /**
+     * Calls the visitor with every pincode in the gazetteer and its coordinates, in pincode order.
+     */
+    public void forEachEntry(EntryVisitor visitor) {
+        for (int i = 0; i < pincodes.length; i++) {
+            visitor.visit(pincodes[i], latitudes[i] / GazetteerFileBuilder.MICRODEGREES, longitudes[i] / GazetteerFileBuilder.MICRODEGREES);
+        }
+    }
+
+    public interface EntryVisitor {
+        void visit(int pincode, double latitude, double longitude);
+    }
+
+    private static int[][] load(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] magic = new byte[GazetteerFileBuilder.MAGIC.length];
+            buffer.get(magic);
+            int version = buffer.getInt();
+            if (!Arrays.equals(magic, GazetteerFileBuilder.MAGIC) || version != GazetteerFileBuilder.FORMAT_VERSION) {
+                throw new IllegalStateException("Not a supported gazetteer file: " + path);
+            }
+            int count = buffer.getInt();
+            if (channel.size() != HEADER_LENGTH + 3L * count * Integer.BYTES) {
+                throw new IllegalStateException("Truncated gazetteer file: " + path);
+            }
+            IntBuffer ints = buffer.asIntBuffer();
+            int[][] sections = new int[3][count];
+            for (int[] section : sections) {
+                ints.get(section);
+            }
+            log.info("{\"message\": \"Loaded offline gazetteer with {} pincodes from {}\"}", count, path);
+            return sections;
+        } catch (IOException e) {
+            // Geocoding still works through the location service, only without the local shortcut
+            log.error("{\"message\": \"Could not load offline gazetteer from {}, falling back to the location service\"}", path, e);
+            return new int[3][0];
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package sg.edu.nus.iss.profile_service.factory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import sg.edu.nus.iss.profile_service.model.LatLng;
+
+/**
+ * Approximate coordinates for a pincode while the location service is unavailable: the centroid of its postal
+ * sector, the first two digits of the 6-digit pincode. Centroids are averaged over the offline gazetteer at startup
+ * and over every exact coordinate the location service returns afterwards, so the table fills in as traffic flows
+ * even without a gazetteer. Sectors no exact coordinate was ever seen for have no centroid.
+ */
+@Component
+public class PostalSectorCentroids {
+
+    private static final Logger log = LoggerFactory.getLogger(PostalSectorCentroids.class);
+
+    private static final int SECTORS = 100;
+    private static final int SECTOR_DIVISOR = 10_000;
+
+    private final double[] latitudeSums = new double[SECTORS];
+    private final double[] longitudeSums = new double[SECTORS];
+    private final long[] counts = new long[SECTORS];
+
+    @Autowired
+    public PostalSectorCentroids(OfflineGazetteer offlineGazetteer) {
+        offlineGazetteer.forEachEntry((pincode, latitude, longitude) -> add(pincode / SECTOR_DIVISOR, latitude, longitude));
+        int seeded = 0;
+        for (long count : counts) {
+            seeded += count > 0 ? 1 : 0;
+        }
+        log.info("{\"message\": \"Postal sector centroids seeded for {} sectors\"}", seeded);
+    }
+
+    /**
+     * Returns the centroid of the pincode's sector, or null when the pincode is malformed or its sector is unknown.
+     */
+    public LatLng approximate(String pincode) {
+        int sector = sectorOf(pincode);
+        if (sector < 0) {
+            return null;
+        }
+        synchronized (this) {
+            long count = counts[sector];
+            return count == 0 ? null : new LatLng(latitudeSums[sector] / count, longitudeSums[sector] / count);
+        }
+    }
+
+    /**
+     * Folds an exact coordinate returned by the location service into its sector's centroid.
+     */
+    public void record(String pincode, LatLng coordinates) {
+        int sector = sectorOf(pincode);
+        if (sector >= 0 && coordinates != null && coordinates.getLat() != null && coordinates.getLng() != null) {
+            add(sector, coordinates.getLat(), coordinates.getLng());
+        }
+    }
+
+    private synchronized void add(int sector, double latitude, double longitude) {
+        latitudeSums[sector] += latitude;
+        longitudeSums[sector] += longitude;
+        counts[sector]++;
+    }
+
+    private static int sectorOf(String pincode) {
+        if (pincode == null || pincode.length() != 6) {
+            return -1;
+        }
+        char first = pincode.charAt(0);
+        char second = pincode.charAt(1);
+        if (first < '0' || first > '9' || second < '0' || second > '9') {
+            return -1;
+        }
+        return (first - '0') * 10 + (second - '0');
+    }
+}
@@ -1,22 +1,56 @@
 package sg.edu.nus.iss.profile_service.factory;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
+import sg.edu.nus.iss.profile_service.dto.BatchItemResultDTO;
+import sg.edu.nus.iss.profile_service.dto.ProfileSliceDTO;
 import sg.edu.nus.iss.profile_service.model.*;
 import sg.edu.nus.iss.profile_service.repository.CustomerRepository;
 import sg.edu.nus.iss.profile_service.repository.DeliveryPartnerRepository;
 import sg.edu.nus.iss.profile_service.repository.MerchantRepository;
+import sg.edu.nus.iss.profile_service.repository.ProfileBulkReader;
 import sg.edu.nus.iss.profile_service.service.ProfileService;
+import sg.edu.nus.iss.profile_service.util.BlindIndexUtility;
+import sg.edu.nus.iss.profile_service.util.BulkEncryptor;
+import sg.edu.nus.iss.profile_service.util.EncryptedString;
 import sg.edu.nus.iss.profile_service.util.LogMasker;
+import sg.edu.nus.iss.profile_service.util.PageCursor;
+import sg.edu.nus.iss.profile_service.util.ReadReplicaRouter;
+import sg.edu.nus.iss.profile_service.util.WorkerThreads;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProfileServiceFactory implements ProfileService {
@@ -25,22 +59,84 @@ public class ProfileServiceFactory implements ProfileService {
 
     @Autowired
     LogMasker logMasker;
+
+    // "async" saves new and re-addressed profiles as pending and geocodes them on the GeocodingWorker
+    @Value("${location.geocoding.mode:sync}")
+    String geocodingMode;
+
+    // Upper bound on any page or slice a client can ask the list endpoints for
+    @Value("${profile.pagination.max-size:100}")
+    int maxPageSize = DEFAULT_MAX_PAGE_SIZE;
+
+    @Autowired
+    Validator validator;
+
+    @Value("${profile.batch.max-size:500}")
+    int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    // Distinct pincodes of one bulk registration looked up at the same time
+    @Value("${profile.batch.geocode-parallelism:16}")
+    int batchGeocodeParallelism = DEFAULT_BATCH_GEOCODE_PARALLELISM;
+
+    @Value(WorkerThreads.VIRTUAL_THREADS)
+    boolean virtualThreads;
     private final MerchantRepository merchantRepository;
     private final DeliveryPartnerRepository deliveryPartnerRepository;
     private final CustomerRepository customerRepository;
     private final ExternalLocationService externalLocationService;
+    private final OfflineGazetteer offlineGazetteer;
+    private final BlindIndexUtility blindIndexUtility;
+    private final ProfileBulkReader profileBulkReader;
+    private final GeocodingWorker geocodingWorker;
+    private final PostalSectorCentroids postalSectorCentroids;
+    private final BulkEncryptor bulkEncryptor;
+    private final Counter geocodeSkippedAddressUntouched;
+    private final Counter geocodeSkippedPincodeUnchanged;
+    private final Counter geocodeApproximated;
+    private final Counter batchCreated;
+    private final Counter batchRejected;
 
     private static final String MERCHANT = "merchant";
     private static final String DELIVERY_PARTNER = "deliveryPartner";
     private static final String CUSTOMER = "customer";
     private static final String INVALID_PROFILE_TYPE = "Invalid profile type";
+    private static final String ASYNC_GEOCODING = "async";
+    private static final int DEFAULT_MAX_PAGE_SIZE = 100;
+    public static final int DEFAULT_SLICE_SIZE = 20;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 500;
+    private static final int DEFAULT_BATCH_GEOCODE_PARALLELISM = 16;
 
     @Autowired
-    public ProfileServiceFactory(MerchantRepository merchantRepository, CustomerRepository customerRepository, DeliveryPartnerRepository deliveryPartnerRepository, ExternalLocationService externalLocationService) {
+    public ProfileServiceFactory(MerchantRepository merchantRepository, CustomerRepository customerRepository, DeliveryPartnerRepository deliveryPartnerRepository, ExternalLocationService externalLocationService, OfflineGazetteer offlineGazetteer, BlindIndexUtility blindIndexUtility, ProfileBulkReader profileBulkReader, GeocodingWorker geocodingWorker, PostalSectorCentroids postalSectorCentroids, BulkEncryptor bulkEncryptor, MeterRegistry meterRegistry) {
         this.merchantRepository = merchantRepository;
         this.customerRepository = customerRepository;
         this.deliveryPartnerRepository = deliveryPartnerRepository;
         this.externalLocationService = externalLocationService;
+        this.offlineGazetteer = offlineGazetteer;
+        this.blindIndexUtility = blindIndexUtility;
+        this.profileBulkReader = profileBulkReader;
+        this.geocodingWorker = geocodingWorker;
+        this.postalSectorCentroids = postalSectorCentroids;
+        this.bulkEncryptor = bulkEncryptor;
+        this.geocodeSkippedAddressUntouched = Counter.builder("profile.geocode.skipped")
+                .description("Profile updates that kept their coordinates without a location lookup")
+                .tag("reason", "address_untouched")
+                .register(meterRegistry);
+        this.geocodeSkippedPincodeUnchanged = Counter.builder("profile.geocode.skipped")
+                .description("Profile updates that kept their coordinates without a location lookup")
+                .tag("reason", "pincode_unchanged")
+                .register(meterRegistry);
+        this.geocodeApproximated = Counter.builder("profile.geocode.approximated")
+                .description("Profiles given their postal sector centroid because the location service was unavailable")
+                .register(meterRegistry);
+        this.batchCreated = Counter.builder("profile.batch.items")
+                .description("Profiles submitted through the bulk registration endpoints")
+                .tag("outcome", "created")
+                .register(meterRegistry);
+        this.batchRejected = Counter.builder("profile.batch.items")
+                .description("Profiles submitted through the bulk registration endpoints")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
     }
 
     @Override
@@ -48,41 +144,299 @@ public class ProfileServiceFactory implements ProfileService {
         if (profile instanceof Merchant ) {
             Merchant merchant = (Merchant) profile;
             log.info("{\"message\": \"Creating merchant profile : {}\"}", logMasker.maskEntity(merchant));
+            if (geocodesLater()) {
+                markGeocodingPending(merchant);
+                Merchant saved = merchantRepository.save(merchant);
+                queueGeocoding(saved.getPincode(), saved.getMerchantId(), merchantRepository);
+                return saved;
+            }
             setMerchantCoordinates(merchant);
-            return merchantRepository.save(merchant);
+            Merchant saved = merchantRepository.save(merchant);
+            if (merchant.getGeocodingStatus() == GeocodingStatus.APPROXIMATE) {
+                queueGeocoding(saved.getPincode(), saved.getMerchantId(), merchantRepository);
+            }
+            return saved;
         } else if (profile instanceof Customer) {
             Customer customer = (Customer) profile;
             log.info("{\"message\": \"Creating customer profile : {}\"}", logMasker.maskEntity(customer));
+            if (geocodesLater()) {
+                markGeocodingPending(customer);
+                Customer saved = customerRepository.save(customer);
+                queueGeocoding(saved.getPincode(), saved.getCustomerId(), customerRepository);
+                return saved;
+            }
             setCustomerCoordinates(customer);
-            return customerRepository.save(customer);
+            Customer saved = customerRepository.save(customer);
+            if (customer.getGeocodingStatus() == GeocodingStatus.APPROXIMATE) {
+                queueGeocoding(saved.getPincode(), saved.getCustomerId(), customerRepository);
+            }
+            return saved;
         }else if (profile instanceof DeliveryPartner ) {
             DeliveryPartner deliveryPartner = (DeliveryPartner) profile;
             log.info("{\"message\": \"Creating delivery partner profile : {}\"}", logMasker.maskEntity(deliveryPartner));
+            if (geocodesLater()) {
+                markGeocodingPending(deliveryPartner);
+                DeliveryPartner saved = deliveryPartnerRepository.save(deliveryPartner);
+                queueGeocoding(saved.getPincode(), saved.getDeliveryPartnerId(), deliveryPartnerRepository);
+                return saved;
+            }
             setDeliveryPartnerCoordinates(deliveryPartner);
-            return deliveryPartnerRepository.save(deliveryPartner);
+            DeliveryPartner saved = deliveryPartnerRepository.save(deliveryPartner);
+            if (deliveryPartner.getGeocodingStatus() == GeocodingStatus.APPROXIMATE) {
+                queueGeocoding(saved.getPincode(), saved.getDeliveryPartnerId(), deliveryPartnerRepository);
+            }
+            return saved;
         }
         throw new IllegalArgumentException(INVALID_PROFILE_TYPE);
     }
 
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public List<BatchItemResultDTO> createProfiles(String type, List<? extends Profile> profiles) {
+        if (profiles.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch larger than " + maxBatchSize + " profiles");
+        }
+        if (MERCHANT.equalsIgnoreCase(type)) {
+            log.info("{\"message\": \"Creating {} merchant profiles in bulk\"}", profiles.size());
+            return createAll(profiles, Merchant.class, merchantRepository, Merchant::getMerchantId, Merchant::setMerchantId,
+                    merchantRepository::findByEmailBlindIndexInAndDeletedFalse);
+        } else if (CUSTOMER.equalsIgnoreCase(type)) {
+            log.info("{\"message\": \"Creating {} customer profiles in bulk\"}", profiles.size());
+            return createAll(profiles, Customer.class, customerRepository, Customer::getCustomerId, Customer::setCustomerId,
+                    customerRepository::findByEmailBlindIndexInAndDeletedFalse);
+        } else if (DELIVERY_PARTNER.equalsIgnoreCase(type)) {
+            log.info("{\"message\": \"Creating {} delivery partner profiles in bulk\"}", profiles.size());
+            return createAll(profiles, DeliveryPartner.class, deliveryPartnerRepository, DeliveryPartner::getDeliveryPartnerId, DeliveryPartner::setDeliveryPartnerId,
+                    deliveryPartnerRepository::findByEmailBlindIndexInAndDeletedFalse);
+        } else {
+            throw new IllegalArgumentException(INVALID_PROFILE_TYPE);
+        }
+    }
+
+    /**
+     * Bulk counterpart of {@link #createProfile}: validates every item, checks all emails with one query, looks up
+     * each distinct pincode once, encrypts them in parallel and inserts the accepted profiles with one
+     * batched saveAll. Items are accepted or rejected individually.
+     */
+    private <T extends PiiProfile & Geolocated> List<BatchItemResultDTO> createAll(
+            List<? extends Profile> profiles, Class<T> type, JpaRepository<T, UUID> repository, Function<T, UUID> idOf,
+            BiConsumer<T, UUID> assignId, Function<Collection<String>, List<T>> findByEmailIndexes) {
+        BatchItemResultDTO[] results = new BatchItemResultDTO[profiles.size()];
+        Map<String, Integer> byEmailIndex = new LinkedHashMap<>();
+        for (int i = 0; i < profiles.size(); i++) {
+            Profile profile = profiles.get(i);
+            if (!type.isInstance(profile)) {
+                results[i] = rejected(i, INVALID_PROFILE_TYPE);
+                continue;
+            }
+            String violations = validator.validate(profile).stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            if (!violations.isEmpty()) {
+                results[i] = rejected(i, violations);
+            } else if (byEmailIndex.putIfAbsent(blindIndexUtility.emailIndex(type.cast(profile).getEmailAddress()), i) != null) {
+                results[i] = rejected(i, "Email appears more than once in the batch");
+            }
+        }
+        if (!byEmailIndex.isEmpty()) {
+            for (T existing : findByEmailIndexes.apply(byEmailIndex.keySet())) {
+                Integer i = byEmailIndex.remove(existing.getEmailBlindIndex());
+                if (i != null) {
+                    results[i] = rejected(i, "Email already registered");
+                }
+            }
+        }
+
+        List<Integer> accepted = new ArrayList<>(byEmailIndex.values());
+        List<T> toSave = new ArrayList<>(accepted.size());
+        if (geocodesLater()) {
+            accepted.forEach(i -> {
+                T profile = type.cast(profiles.get(i));
+                markGeocodingPending(profile);
+                toSave.add(profile);
+            });
+        } else {
+            Map<String, CompletableFuture<LatLng>> lookups = lookupAll(accepted.stream()
+                    .map(i -> type.cast(profiles.get(i)).getPincode())
+                    .collect(Collectors.toSet()));
+            for (Iterator<Integer> it = accepted.iterator(); it.hasNext(); ) {
+                int i = it.next();
+                T profile = type.cast(profiles.get(i));
+                String error = applyCoordinates(profile, lookups.get(profile.getPincode()));
+                if (error != null) {
+                    results[i] = rejected(i, error);
+                    it.remove();
+                } else {
+                    toSave.add(profile);
+                }
+            }
+        }
+
+        bulkEncryptor.encryptAll(toSave);
+        List<T> saved = saveAll(repository, toSave, assignId);
+        for (int n = 0; n < accepted.size(); n++) {
+            int i = accepted.get(n);
+            T profile = saved.get(n);
+            if (profile == null) {
+                results[i] = rejected(i, "Profile could not be stored");
+                continue;
+            }
+            results[i] = created(i, idOf.apply(profile));
+            if (needsGeocoding(profile)) {
+                queueGeocoding(profile.getPincode(), idOf.apply(profile), repository);
+            }
+        }
+        batchCreated.increment(Arrays.stream(results).filter(result -> BatchItemResultDTO.CREATED.equals(result.getStatus())).count());
+        batchRejected.increment(Arrays.stream(results).filter(result -> BatchItemResultDTO.REJECTED.equals(result.getStatus())).count());
+        return Arrays.asList(results);
+    }
+
+    // A bounded number at once, on virtual threads when they are enabled and on a pool of that size otherwise;
+    // concurrent misses still share ExternalLocationService batches
+    private Map<String, CompletableFuture<LatLng>> lookupAll(Set<String> pincodes) {
+        Map<String, CompletableFuture<LatLng>> lookups = new HashMap<>();
+        int parallelism = Math.max(1, batchGeocodeParallelism);
+        Semaphore permits = new Semaphore(parallelism);
+        ThreadFactory threads = WorkerThreads.factory("batch-geocode", virtualThreads);
+        try (ExecutorService executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(threads) : Executors.newFixedThreadPool(parallelism, threads)) {
+            for (String pincode : pincodes) {
+                lookups.put(pincode, CompletableFuture.supplyAsync(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        return lookupCoordinates(pincode);
+                    } finally {
+                        permits.release();
+                    }
+                }, executor));
+            }
+        }
+        return lookups;
+    }
+
+    // Same outcomes as setMerchantCoordinates and friends, reported as an item error instead of thrown
+    private String applyCoordinates(Geolocated profile, CompletableFuture<LatLng> lookup) {
+        try {
+            LatLng coordinates = lookup.join();
+            if (coordinates == null) {
+                return "Invalid pincode: " + profile.getPincode();
+            }
+            profile.setLatitude(coordinates.getLat());
+            profile.setLongitude(coordinates.getLng());
+            profile.setGeocodingStatus(GeocodingStatus.RESOLVED);
+            return null;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof LocationServiceUnavailableException && approximateCoordinates(profile)) {
+                return null;
+            }
+            return "Error fetching coordinates for pincode: " + profile.getPincode();
+        }
+    }
+
+    // One batched insert; when it fails the profiles are retried one by one so only the offending ones are rejected
+    private <T> List<T> saveAll(JpaRepository<T, UUID> repository, List<T> profiles, BiConsumer<T, UUID> assignId) {
+        if (profiles.isEmpty()) {
+            return profiles;
+        }
+        try {
+            return repository.saveAll(profiles);
+        } catch (DataAccessException e) {
+            log.warn("{\"message\": \"Batched insert of {} profiles failed, storing them one by one\"}", profiles.size(), e);
+            List<T> saved = new ArrayList<>(profiles.size());
+            for (T profile : profiles) {
+                // The failed insert assigned ids that were rolled back; with one left, save would merge, not insert
+                assignId.accept(profile, null);
+                try {
+                    saved.add(repository.save(profile));
+                } catch (DataAccessException single) {
+                    saved.add(null);
+                }
+            }
+            return saved;
+        }
+    }
+
+    private static BatchItemResultDTO created(int index, UUID id) {
+        BatchItemResultDTO result = new BatchItemResultDTO();
+        result.setIndex(index);
+        result.setStatus(BatchItemResultDTO.CREATED);
+        result.setId(id);
+        return result;
+    }
+
+    private static BatchItemResultDTO rejected(int index, String error) {
+        BatchItemResultDTO result = new BatchItemResultDTO();
+        result.setIndex(index);
+        result.setStatus(BatchItemResultDTO.REJECTED);
+        result.setError(error);
+        return result;
+    }
+
     @Override
     public void updateProfile(Profile profile) {
         if (profile instanceof Merchant ) {
             Merchant merchant = (Merchant) profile;
-            log.info("{\"message\": \"Updating merchant profile : {}\"}", logMasker.maskEntity(merchant));
-            setProfileCoordinates(merchant);
+            log.info("{\"message\": \"Updating merchant profile with ID: {}\"}", merchant.getMerchantId());
+            if (!keepsCoordinates(merchant)) {
+                Merchant stored = merchant.getMerchantId() == null ? null : merchantRepository.findById(merchant.getMerchantId()).orElse(null);
+                if (stored != null && stored != merchant && samePincode(stored, merchant.getPincode())) {
+                    merchant.setLatitude(stored.getLatitude());
+                    merchant.setLongitude(stored.getLongitude());
+                    merchant.setGeocodingStatus(stored.getGeocodingStatus());
+                } else if (geocodesLater()) {
+                    markGeocodingPending(merchant);
+                } else {
+                    setMerchantCoordinates(merchant);
+                }
+            }
             merchantRepository.save(merchant);
+            if (needsGeocoding(merchant)) {
+                queueGeocoding(merchant.getPincode(), merchant.getMerchantId(), merchantRepository);
+            }
             return;
         } else if (profile instanceof Customer) {
             Customer customer = (Customer) profile;
-            log.info("{\"message\": \"Updating customer profile : {}\"}", logMasker.maskEntity(customer));
-            setCustomerCoordinates(customer);
+            log.info("{\"message\": \"Updating customer profile with ID: {}\"}", customer.getCustomerId());
+            if (!keepsCoordinates(customer)) {
+                Customer stored = customer.getCustomerId() == null ? null : customerRepository.findById(customer.getCustomerId()).orElse(null);
+                if (stored != null && stored != customer && samePincode(stored, customer.getPincode())) {
+                    customer.setLatitude(stored.getLatitude());
+                    customer.setLongitude(stored.getLongitude());
+                    customer.setGeocodingStatus(stored.getGeocodingStatus());
+                } else if (geocodesLater()) {
+                    markGeocodingPending(customer);
+                } else {
+                    setCustomerCoordinates(customer);
+                }
+            }
             customerRepository.save(customer);
+            if (needsGeocoding(customer)) {
+                queueGeocoding(customer.getPincode(), customer.getCustomerId(), customerRepository);
+            }
             return;
         }else if (profile instanceof DeliveryPartner ) {
             DeliveryPartner deliveryPartner = (DeliveryPartner) profile;
-            log.info("{\"message\": \"Updating delivery partner profile : {}\"}", logMasker.maskEntity(deliveryPartner));
-            setDeliveryPartnerCoordinates(deliveryPartner);
+            log.info("{\"message\": \"Updating delivery partner profile with ID: {}\"}", deliveryPartner.getDeliveryPartnerId());
+            if (!keepsCoordinates(deliveryPartner)) {
+                DeliveryPartner stored = deliveryPartner.getDeliveryPartnerId() == null ? null : deliveryPartnerRepository.findById(deliveryPartner.getDeliveryPartnerId()).orElse(null);
+                if (stored != null && stored != deliveryPartner && samePincode(stored, deliveryPartner.getPincode())) {
+                    deliveryPartner.setLatitude(stored.getLatitude());
+                    deliveryPartner.setLongitude(stored.getLongitude());
+                    deliveryPartner.setGeocodingStatus(stored.getGeocodingStatus());
+                } else if (geocodesLater()) {
+                    markGeocodingPending(deliveryPartner);
+                } else {
+                    setDeliveryPartnerCoordinates(deliveryPartner);
+                }
+            }
             deliveryPartnerRepository.save(deliveryPartner);
+            if (needsGeocoding(deliveryPartner)) {
+                queueGeocoding(deliveryPartner.getPincode(), deliveryPartner.getDeliveryPartnerId(), deliveryPartnerRepository);
+            }
             return;
         }
         throw new IllegalArgumentException(INVALID_PROFILE_TYPE);
@@ -201,31 +555,52 @@ public class ProfileServiceFactory implements ProfileService {
     public List<Profile> getProfilesByType(String type) {
         if (MERCHANT.equalsIgnoreCase(type)) {
             log.info("{\"message\": \"Fetching all merchants\"}");
-            return new ArrayList<>(merchantRepository.findAllByDeletedFalse());
+            return new ArrayList<>(profileBulkReader.findAllMerchants());
         } else if (CUSTOMER.equalsIgnoreCase(type)) {
             log.info("{\"message\": \"Fetching all customers\"}");
-            return new ArrayList<>(customerRepository.findAllByDeletedFalse());
+            return new ArrayList<>(profileBulkReader.findAllCustomers());
         } else if (DELIVERY_PARTNER.equalsIgnoreCase(type)) {
             log.info("{\"message\": \"Fetching all delivery partners\"}");
-            return new ArrayList<>(deliveryPartnerRepository.findAllByDeletedFalse());
+            return new ArrayList<>(profileBulkReader.findAllDeliveryPartners());
         }else {
             throw new IllegalArgumentException(INVALID_PROFILE_TYPE);
         }
     }
 
+    @Override
+    public void streamProfilesByType(String type, Consumer<? super Profile> sink) {
+        if (MERCHANT.equalsIgnoreCase(type)) {
+            log.info("{\"message\": \"Streaming all merchants\"}");
+            profileBulkReader.streamAllMerchants(sink);
+        } else if (CUSTOMER.equalsIgnoreCase(type)) {
+            log.info("{\"message\": \"Streaming all customers\"}");
+            profileBulkReader.streamAllCustomers(sink);
+        } else if (DELIVERY_PARTNER.equalsIgnoreCase(type)) {
+            log.info("{\"message\": \"Streaming all delivery partners\"}");
+            profileBulkReader.streamAllDeliveryPartners(sink);
+        } else {
+            throw new IllegalArgumentException(INVALID_PROFILE_TYPE);
+        }
+    }
+
     @Override
     public Page<Profile> getProfilesWithPagination(String type, Pageable pageable) {
+        if (pageable.getPageSize() > maxPageSize) {
+            pageable = PageRequest.of(pageable.getPageNumber(), maxPageSize, pageable.getSort());
+        }
+        // The bulk reader only knows the unsorted repository order; sorted requests stay on the repositories
+        boolean bulkRead = pageable.getSort().isUnsorted();
         if (MERCHANT.equalsIgnoreCase(type)) {
             log.info("{\"message\": \"Fetching merchants with pagination attributes: page {} and size {}\"}", pageable.getPageNumber(), pageable.getPageSize());
-            Page<Merchant> merchantPage = merchantRepository.findAllByDeletedFalse(pageable);
+            Page<Merchant> merchantPage = bulkRead ? profileBulkReader.findMerchants(pageable) : merchantRepository.findAllByDeletedFalse(pageable);
             return merchantPage.map(merchant -> (Profile) merchant);
         } else if (CUSTOMER.equalsIgnoreCase(type)) {
             log.info("{\"message\": \"Fetching customers with pagination attributes: page {} and size {}\"}", pageable.getPageNumber(), pageable.getPageSize());
-            Page<Customer> customerPage = customerRepository.findAllByDeletedFalse(pageable);
+            Page<Customer> customerPage = bulkRead ? profileBulkReader.findCustomers(pageable) : customerRepository.findAllByDeletedFalse(pageable);
             return customerPage.map(customer -> (Profile) customer);
         } else if (DELIVERY_PARTNER.equalsIgnoreCase(type)) {
             log.info("{\"message\": \"Fetching delivery partners with pagination attributes: page {} and size {}\"}", pageable.getPageNumber(), pageable.getPageSize());
-            Page<DeliveryPartner> deliveryPartnerPage = deliveryPartnerRepository.findAllByDeletedFalse(pageable);
+            Page<DeliveryPartner> deliveryPartnerPage = bulkRead ? profileBulkReader.findDeliveryPartners(pageable) : deliveryPartnerRepository.findAllByDeletedFalse(pageable);
             return deliveryPartnerPage.map(deliveryPartner -> (Profile) deliveryPartner);
         }else {
             throw new IllegalArgumentException(INVALID_PROFILE_TYPE);
@@ -233,29 +608,153 @@ public class ProfileServiceFactory implements ProfileService {
     }
 
 
+    @Override
+    public ProfileSliceDTO getProfilesAfter(String type, UUID after, int size) {
+        int limit = Math.max(1, Math.min(size, maxPageSize));
+        // One row past the slice tells whether another follows, so no count query is needed
+        if (MERCHANT.equalsIgnoreCase(type)) {
+            log.info("{\"message\": \"Fetching merchants after cursor {} with size {}\"}", after, limit);
+            return toSlice(profileBulkReader.findMerchantsAfter(after, limit + 1), limit, Merchant::getMerchantId);
+        } else if (CUSTOMER.equalsIgnoreCase(type)) {
+            log.info("{\"message\": \"Fetching customers after cursor {} with size {}\"}", after, limit);
+            return toSlice(profileBulkReader.findCustomersAfter(after, limit + 1), limit, Customer::getCustomerId);
+        } else if (DELIVERY_PARTNER.equalsIgnoreCase(type)) {
+            log.info("{\"message\": \"Fetching delivery partners after cursor {} with size {}\"}", after, limit);
+            return toSlice(profileBulkReader.findDeliveryPartnersAfter(after, limit + 1), limit, DeliveryPartner::getDeliveryPartnerId);
+        } else {
+            throw new IllegalArgumentException(INVALID_PROFILE_TYPE);
+        }
+    }
+
+    private static <T extends Profile> ProfileSliceDTO toSlice(List<T> rows, int limit, Function<T, UUID> id) {
+        boolean hasNext = rows.size() > limit;
+        List<T> content = hasNext ? rows.subList(0, limit) : rows;
+        ProfileSliceDTO slice = new ProfileSliceDTO();
+        slice.setContent(new ArrayList<>(content));
+        slice.setSize(limit);
+        slice.setHasNext(hasNext);
+        slice.setNextCursor(hasNext ? PageCursor.encode(id.apply(content.get(content.size() - 1))) : null);
+        return slice;
+    }
+
     @Override
     public Optional<Profile> getProfileByEmailAddress(String email, String type) {
+        // Email is stored encrypted with a random IV, so lookups go through its blind index
+        String emailBlindIndex = blindIndexUtility.emailIndex(email);
 
         if (MERCHANT.equalsIgnoreCase(type)) {
             log.info("{\"message\": \"Fetching merchant with email: {}\"}", logMasker.maskEmail(email));
-            Optional<Merchant> merchant = merchantRepository.findByEmailAddressAndDeletedFalse(email);
+            Optional<Merchant> merchant = merchantRepository.findByEmailBlindIndexAndDeletedFalse(emailBlindIndex);
             return Optional.ofNullable(merchant.orElse(null));
         }else if (CUSTOMER.equalsIgnoreCase(type)) {
             log.info("{\"message\": \"Fetching customer with email: {}\"}", logMasker.maskEmail(email));
-            Optional<Customer> customer = customerRepository.findByEmailAddressAndDeletedFalse(email);
+            Optional<Customer> customer = customerRepository.findByEmailBlindIndexAndDeletedFalse(emailBlindIndex);
             return Optional.ofNullable(customer.orElse(null));
         }else if (DELIVERY_PARTNER.equalsIgnoreCase(type)) {
             log.info("{\"message\": \"Fetching delivery partner with email: {}\"}", logMasker.maskEmail(email));
-            Optional<DeliveryPartner> deliveryPartner = deliveryPartnerRepository.findByEmailAddressAndDeletedFalse(email);
+            Optional<DeliveryPartner> deliveryPartner = deliveryPartnerRepository.findByEmailBlindIndexAndDeletedFalse(emailBlindIndex);
             return Optional.ofNullable(deliveryPartner.orElse(null));
         }else {
             throw new IllegalArgumentException(INVALID_PROFILE_TYPE);
         }
     }
 
+    // A loaded profile whose pincode was never set again (reward and earnings updates) keeps its coordinates as is,
+    // unless they are only approximate
+    private <T extends PiiProfile & Geolocated> boolean keepsCoordinates(T profile) {
+        if (!hasExactCoordinates(profile) || EncryptedString.isChanged(profile.encryptedPii()[PiiProfile.PINCODE])) {
+            return false;
+        }
+        geocodeSkippedAddressUntouched.increment();
+        return true;
+    }
+
+    // Full updates carry every field; the stored coordinates still hold when the pincode is the persisted one
+    private boolean samePincode(Geolocated stored, String pincode) {
+        if (!hasExactCoordinates(stored) || !Objects.equals(stored.getPincode(), pincode)) {
+            return false;
+        }
+        geocodeSkippedPincodeUnchanged.increment();
+        return true;
+    }
+
+    private static boolean hasExactCoordinates(Geolocated profile) {
+        return profile.getLatitude() != null && profile.getLongitude() != null
+                && profile.getGeocodingStatus() != GeocodingStatus.APPROXIMATE;
+    }
+
+    private static boolean needsGeocoding(Geolocated profile) {
+        return profile.getGeocodingStatus() == GeocodingStatus.PENDING || profile.getGeocodingStatus() == GeocodingStatus.APPROXIMATE;
+    }
+
+    // Degraded mode: the sector centroid keeps registrations going during an outage, the exact lookup follows
+    private boolean approximateCoordinates(Geolocated profile) {
+        LatLng centroid = postalSectorCentroids.approximate(profile.getPincode());
+        if (centroid == null) {
+            return false;
+        }
+        log.warn("{\"message\": \"Location service unavailable, using postal sector centroid for pincode: {}\"}", profile.getPincode());
+        profile.setLatitude(centroid.getLat());
+        profile.setLongitude(centroid.getLng());
+        profile.setGeocodingStatus(GeocodingStatus.APPROXIMATE);
+        geocodeApproximated.increment();
+        return true;
+    }
+
+    private boolean geocodesLater() {
+        return ASYNC_GEOCODING.equalsIgnoreCase(geocodingMode);
+    }
+
+    private static void markGeocodingPending(Geolocated profile) {
+        profile.setLatitude(null);
+        profile.setLongitude(null);
+        profile.setGeocodingStatus(GeocodingStatus.PENDING);
+    }
+
+    private <T extends Geolocated> void queueGeocoding(String pincode, UUID id, JpaRepository<T, UUID> repository) {
+        geocodingWorker.submit(pincode, this::lookupCoordinates,
+                coordinates -> storeGeocodingResult(pincode, id, repository, coordinates),
+                () -> storeGeocodingResult(pincode, id, repository, null));
+    }
+
+    private <T extends Geolocated> void storeGeocodingResult(String pincode, UUID id, JpaRepository<T, UUID> repository, LatLng coordinates) {
+        // Read-modify-write: a lagging replica could hand back a row the request that queued this has since changed
+        ReadReplicaRouter.pinToPrimary(true);
+        try {
+            repository.findById(id).ifPresent(profile -> {
+                // Re-addressed meanwhile: the lookup queued by that update owns the coordinates now
+                if (!Objects.equals(profile.getPincode(), pincode)) {
+                    return;
+                }
+                if (coordinates == null && profile.getGeocodingStatus() == GeocodingStatus.APPROXIMATE) {
+                    // Still unreachable after every retry: keep the centroid, the next address update tries again
+                    return;
+                }
+                if (coordinates != null) {
+                    profile.setLatitude(coordinates.getLat());
+                    profile.setLongitude(coordinates.getLng());
+                }
+                profile.setGeocodingStatus(coordinates != null ? GeocodingStatus.RESOLVED : GeocodingStatus.FAILED);
+                repository.save(profile);
+                log.info("{\"message\": \"Stored geocoding result for profile {}: {}\"}", id, profile.getGeocodingStatus());
+            });
+        } finally {
+            ReadReplicaRouter.pinToPrimary(false);
+        }
+    }
+
+    // Local gazetteer first; only pincodes it does not have go to the location service
+    private LatLng lookupCoordinates(String pincode) {
+        LatLng coordinates = offlineGazetteer.getCoordinates(pincode);
+        if (coordinates != null) {
+            return coordinates;
+        }
+        return externalLocationService.getCoordinates(pincode);
+    }
+
     private void setMerchantCoordinates(Merchant merchant) {
         try {
-            LatLng coordinates = externalLocationService.getCoordinates(merchant.getPincode());
+            LatLng coordinates = lookupCoordinates(merchant.getPincode());
 
             if (coordinates == null) {
                 throw new IllegalArgumentException("Coordinates not found for pincode: " + merchant.getPincode());
@@ -264,9 +763,14 @@ public class ProfileServiceFactory implements ProfileService {
             log.info("{\"message\": \"Setting coordinates for merchant with pincode: {} - {}\"}", logMasker.maskEmail(merchant.getPincode()), coordinates);
             merchant.setLatitude(coordinates.getLat());
             merchant.setLongitude(coordinates.getLng());
+            merchant.setGeocodingStatus(GeocodingStatus.RESOLVED);
 
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid pincode: " + merchant.getPincode(), e);
+        } catch (LocationServiceUnavailableException e) {
+            if (!approximateCoordinates(merchant)) {
+                throw e;
+            }
         } catch (RuntimeException e) {
             throw new RuntimeException("Error fetching coordinates from external service for pincode: " + merchant.getPincode(), e);
         }
@@ -276,7 +780,7 @@ public class ProfileServiceFactory implements ProfileService {
 
     private void setDeliveryPartnerCoordinates(DeliveryPartner deliveryPartner) {
         try {
-            LatLng coordinates = externalLocationService.getCoordinates(deliveryPartner.getPincode());
+            LatLng coordinates = lookupCoordinates(deliveryPartner.getPincode());
 
             if (coordinates == null) {
                 throw new IllegalArgumentException("Coordinates not found for pincode: " + deliveryPartner.getPincode());
@@ -285,9 +789,14 @@ public class ProfileServiceFactory implements ProfileService {
             log.info("{\"message\": \"Setting coordinates for delivery partner with pincode: {} - {}\"}", deliveryPartner.getPincode(), coordinates);
             deliveryPartner.setLatitude(coordinates.getLat());
             deliveryPartner.setLongitude(coordinates.getLng());
+            deliveryPartner.setGeocodingStatus(GeocodingStatus.RESOLVED);
 
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid pincode: " + deliveryPartner.getPincode(), e);
+        } catch (LocationServiceUnavailableException e) {
+            if (!approximateCoordinates(deliveryPartner)) {
+                throw e;
+            }
         } catch (RuntimeException e) {
             throw new RuntimeException("Error fetching coordinates from external service for pincode: " + deliveryPartner.getPincode(), e);
         }
@@ -295,7 +804,7 @@ public class ProfileServiceFactory implements ProfileService {
 
     private void setCustomerCoordinates(Customer customer) {
         try {
-            LatLng coordinates = externalLocationService.getCoordinates(customer.getPincode());
+            LatLng coordinates = lookupCoordinates(customer.getPincode());
 
             if (coordinates == null) {
                 throw new IllegalArgumentException("Coordinates not found for pincode: " + customer.getPincode());
@@ -305,9 +814,14 @@ public class ProfileServiceFactory implements ProfileService {
             log.info("{\"message\": \"Setting coordinates for customer with pincode: {} - {}\"}", customer.getPincode(), coordinates);
             customer.setLatitude(coordinates.getLat());
             customer.setLongitude(coordinates.getLng());
+            customer.setGeocodingStatus(GeocodingStatus.RESOLVED);
 
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid pincode: " + customer.getPincode(), e);
+        } catch (LocationServiceUnavailableException e) {
+            if (!approximateCoordinates(customer)) {
+                throw e;
+            }
         } catch (RuntimeException e) {
             throw new RuntimeException("Error fetching coordinates from external service for pincode: " + customer.getPincode(), e);
         }
@@ -0,0 +1,110 @@
+package sg.edu.nus.iss.profile_service.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import sg.edu.nus.iss.profile_service.model.LegacyPiiColumns;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+import sg.edu.nus.iss.profile_service.util.EncryptionUtility;
+import sg.edu.nus.iss.profile_service.util.WorkerThreads;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves the PII of rows written before the binary columns existed out of the Base64 varchar columns and into the
+ * {@code *_bin} bytea columns. Values are only re-framed, never decrypted, so a batch costs little more than the
+ * row writes. Runs in the background after startup in primary-key order, one short transaction per batch; rows
+ * the application rewrites in the meantime are skipped, since every JPA write already clears the legacy columns.
+ * Once a run moves zero rows in every table the legacy columns can be dropped. Finding the remaining rows scans
+ * every table, so the job is off unless {@code ciphertext-migration.enabled} is set, as for an upgrade.
+ */
+@Component
+@ConditionalOnProperty(name = "ciphertext-migration.enabled", havingValue = "true")
+public class BinaryCiphertextMigrationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryCiphertextMigrationJob.class);
+
+    private static final UUID LOWEST_UUID = new UUID(0L, 0L);
+
+
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${ciphertext-migration.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${ciphertext-migration.pause-millis:20}")
+    private long pauseMillis;
+
+    @Value(WorkerThreads.VIRTUAL_THREADS)
+    private boolean virtualThreads;
+
+    @Autowired
+    public BinaryCiphertextMigrationJob(TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate) {
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        WorkerThreads.start("binary-ciphertext-migration", virtualThreads, this::run);
+    }
+
+    public void run() {
+        try {
+            migrate("customer", "customer_id");
+            migrate("merchant", "merchant_id");
+            migrate("delivery_partner", "delivery_partner_id");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("{\"message\": \"Binary ciphertext migration failed\"}", e);
+        }
+    }
+
+    private void migrate(String table, String idColumn) throws InterruptedException {
+        String select = "SELECT " + idColumn + ", pii_record IS NOT NULL, " + String.join(", ", PiiProfile.LEGACY_COLUMNS)
+                + " FROM " + table + " WHERE " + LegacyPiiColumns.PRESENT_CONDITION + " AND " + idColumn + " > ?"
+                + " ORDER BY " + idColumn + " LIMIT ?";
+        // The legacy text guard skips rows the application rewrote after they were selected
+        String update = "UPDATE " + table + " SET " + String.join(" = ?, ", PiiProfile.BINARY_COLUMNS) + " = ?, "
+                + String.join(" = NULL, ", PiiProfile.LEGACY_COLUMNS) + " = NULL WHERE " + idColumn + " = ? AND "
+                + LegacyPiiColumns.PRESENT_CONDITION;
+
+        UUID cursor = LOWEST_UUID;
+        int total = 0;
+        while (true) {
+            List<Object[]> batch = jdbcTemplate.query(select, (rs, rowNum) -> {
+                Object[] params = new Object[PiiProfile.BINARY_COLUMNS.size() + 1];
+                // Rows sealed into a row-level record already hold their PII there; only the stale text is dropped
+                if (!rs.getBoolean(2)) {
+                    for (int i = 0; i < PiiProfile.BINARY_COLUMNS.size(); i++) {
+                        params[i] = EncryptionUtility.binaryFromBase64(rs.getString(i + 3));
+                    }
+                }
+                params[PiiProfile.BINARY_COLUMNS.size()] = rs.getObject(1, UUID.class);
+                return params;
+            }, cursor, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(update, batch));
+
+            total += batch.size();
+            cursor = (UUID) batch.get(batch.size() - 1)[PiiProfile.BINARY_COLUMNS.size()];
+            if (pauseMillis > 0) {
+                Thread.sleep(pauseMillis);
+            }
+        }
+        log.info("{\"message\": \"Binary ciphertext migration complete for {}: {} rows\"}", table, total);
+    }
+}
@@ -0,0 +1,102 @@
+package sg.edu.nus.iss.profile_service.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import sg.edu.nus.iss.profile_service.repository.CustomerRepository;
+import sg.edu.nus.iss.profile_service.repository.DeliveryPartnerRepository;
+import sg.edu.nus.iss.profile_service.repository.MerchantRepository;
+import sg.edu.nus.iss.profile_service.util.BlindIndexListener;
+import sg.edu.nus.iss.profile_service.util.WorkerThreads;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Populates the email/phone blind-index columns for rows written before they existed; the indexes over them come
+ * with the schema migrations. Enable it once after upgrading a database from before blind indexes; it runs in the
+ * background after startup and skips rows that already have an index, so restarting it is cheap. A batch holding a
+ * second live profile with the same email is rejected by the unique email index and stops the run for that table.
+ */
+@Component
+@ConditionalOnProperty(name = "blind-index.backfill.enabled", havingValue = "true")
+public class BlindIndexBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BlindIndexBackfillJob.class);
+
+    private static final UUID LOWEST_UUID = new UUID(0L, 0L);
+
+    private final CustomerRepository customerRepository;
+    private final MerchantRepository merchantRepository;
+    private final DeliveryPartnerRepository deliveryPartnerRepository;
+    private final BlindIndexListener blindIndexListener;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${blind-index.backfill.batch-size:500}")
+    private int batchSize;
+
+    @Value(WorkerThreads.VIRTUAL_THREADS)
+    private boolean virtualThreads;
+
+    @Autowired
+    public BlindIndexBackfillJob(CustomerRepository customerRepository, MerchantRepository merchantRepository,
+                                 DeliveryPartnerRepository deliveryPartnerRepository, BlindIndexListener blindIndexListener,
+                                 TransactionTemplate transactionTemplate) {
+        this.customerRepository = customerRepository;
+        this.merchantRepository = merchantRepository;
+        this.deliveryPartnerRepository = deliveryPartnerRepository;
+        this.blindIndexListener = blindIndexListener;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        WorkerThreads.start("blind-index-backfill", virtualThreads, this::run);
+    }
+
+    public void run() {
+        try {
+            backfill("customer",
+                    customerRepository::findByEmailBlindIndexIsNullAndCustomerIdGreaterThanOrderByCustomerId,
+                    customer -> customer.getCustomerId(), customerRepository::saveAll);
+            backfill("merchant",
+                    merchantRepository::findByEmailBlindIndexIsNullAndMerchantIdGreaterThanOrderByMerchantId,
+                    merchant -> merchant.getMerchantId(), merchantRepository::saveAll);
+            backfill("delivery_partner",
+                    deliveryPartnerRepository::findByEmailBlindIndexIsNullAndDeliveryPartnerIdGreaterThanOrderByDeliveryPartnerId,
+                    deliveryPartner -> deliveryPartner.getDeliveryPartnerId(), deliveryPartnerRepository::saveAll);
+        } catch (RuntimeException e) {
+            log.error("{\"message\": \"Blind index backfill failed\"}", e);
+        }
+    }
+
+    private <T> void backfill(String table, BiFunction<UUID, Limit, List<T>> nextBatch, Function<T, UUID> idOf,
+                              Function<List<T>, List<T>> saveAll) {
+        UUID cursor = LOWEST_UUID;
+        int total = 0;
+        while (true) {
+            UUID after = cursor;
+            List<T> batch = transactionTemplate.execute(status -> {
+                List<T> rows = nextBatch.apply(after, Limit.of(batchSize));
+                rows.forEach(blindIndexListener::updateBlindIndexes);
+                saveAll.apply(rows);
+                return rows;
+            });
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            total += batch.size();
+            cursor = idOf.apply(batch.get(batch.size() - 1));
+        }
+        log.info("{\"message\": \"Blind index backfill complete for {}: {} rows\"}", table, total);
+    }
+}
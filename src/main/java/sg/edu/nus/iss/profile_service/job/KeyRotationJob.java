@@ -0,0 +1,190 @@
+package sg.edu.nus.iss.profile_service.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import sg.edu.nus.iss.profile_service.model.LegacyPiiColumns;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+import sg.edu.nus.iss.profile_service.util.EncryptionUtility;
+import sg.edu.nus.iss.profile_service.util.WorkerThreads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-encrypts stored PII under the active key after {@code encryption.active-key-version} changes. Walks
+ * {@code customer}, {@code merchant} and {@code delivery_partner} in primary-key order, paced to
+ * {@code key-rotation.rows-per-second} so it never competes with live traffic. Each batch locks only its own rows
+ * for the length of one short transaction, and records its position in {@code key_rotation_checkpoint} in that
+ * same transaction, so a restart resumes where the last batch committed. Application writes always re-encrypt
+ * under the active key themselves, so rows already passed stay rotated.
+ */
+@Component
+@ConditionalOnProperty(name = "key-rotation.enabled", havingValue = "true")
+public class KeyRotationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyRotationJob.class);
+
+    private static final UUID LOWEST_UUID = new UUID(0L, 0L);
+    private static final int PROGRESS_LOG_INTERVAL = 100;
+
+    private final EncryptionUtility encryptionUtility;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${key-rotation.batch-size:200}")
+    private int batchSize;
+
+    @Value("${key-rotation.rows-per-second:500}")
+    private int rowsPerSecond;
+
+    @Value(WorkerThreads.VIRTUAL_THREADS)
+    private boolean virtualThreads;
+
+    @Autowired
+    public KeyRotationJob(EncryptionUtility encryptionUtility, TransactionTemplate transactionTemplate,
+                          JdbcTemplate jdbcTemplate) {
+        this.encryptionUtility = encryptionUtility;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        WorkerThreads.start("key-rotation", virtualThreads, this::run);
+    }
+
+    public void run() {
+        try {
+            rotate("customer", "customer_id");
+            rotate("merchant", "merchant_id");
+            rotate("delivery_partner", "delivery_partner_id");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("{\"message\": \"Key rotation failed\"}", e);
+        }
+    }
+
+    private void rotate(String table, String idColumn) throws InterruptedException {
+        int keyVersion = encryptionUtility.getActiveKeyVersion();
+        UUID cursor = LOWEST_UUID;
+        List<Map<String, Object>> checkpoint = jdbcTemplate.queryForList(
+                "SELECT last_id, completed FROM key_rotation_checkpoint WHERE table_name = ? AND key_version = ?",
+                table, keyVersion);
+        if (!checkpoint.isEmpty()) {
+            if (Boolean.TRUE.equals(checkpoint.get(0).get("completed"))) {
+                log.info("{\"message\": \"Key rotation to version {} already complete for {}\"}", keyVersion, table);
+                return;
+            }
+            cursor = (UUID) checkpoint.get(0).get("last_id");
+            log.info("{\"message\": \"Resuming key rotation to version {} for {} after {}\"}", keyVersion, table, cursor);
+        }
+
+        // Legacy text columns hold key-1 values of rows the binary migration has not reached; they are moved along
+        String select = "SELECT " + idColumn + ", " + String.join(", ", PiiProfile.BINARY_COLUMNS) + ", "
+                + String.join(", ", PiiProfile.LEGACY_COLUMNS) + ", pii_record FROM " + table
+                + " WHERE " + idColumn + " > ? ORDER BY " + idColumn + " LIMIT ? FOR UPDATE";
+        String update = "UPDATE " + table + " SET " + String.join(" = ?, ", PiiProfile.BINARY_COLUMNS) + " = ?, "
+                + String.join(" = NULL, ", PiiProfile.LEGACY_COLUMNS) + " = NULL, pii_record = ? WHERE " + idColumn + " = ?";
+
+        long nanosPerRow = TimeUnit.SECONDS.toNanos(1) / Math.max(rowsPerSecond, 1);
+        long scanned = 0;
+        long rewritten = 0;
+        int batches = 0;
+        while (true) {
+            long batchStart = System.nanoTime();
+            UUID after = cursor;
+            BatchResult result = transactionTemplate.execute(status -> {
+                BatchResult batch = rotateBatch(select, update, after);
+                if (batch.scanned > 0) {
+                    saveCheckpoint(table, keyVersion, batch.lastId, false);
+                }
+                return batch;
+            });
+            if (result == null || result.scanned == 0) {
+                break;
+            }
+            cursor = result.lastId;
+            scanned += result.scanned;
+            rewritten += result.rewritten;
+            if (++batches % PROGRESS_LOG_INTERVAL == 0) {
+                log.info("{\"message\": \"Key rotation to version {} for {}: {} rows scanned, {} rewritten\"}",
+                        keyVersion, table, scanned, rewritten);
+            }
+
+            // Pace to the configured budget: the batch may not finish faster than its share of a second
+            long remaining = result.scanned * nanosPerRow - (System.nanoTime() - batchStart);
+            if (remaining > 0) {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            }
+        }
+        saveCheckpoint(table, keyVersion, cursor, true);
+        log.info("{\"message\": \"Key rotation to version {} complete for {}: {} rows scanned, {} rewritten\"}",
+                keyVersion, table, scanned, rewritten);
+    }
+
+    private BatchResult rotateBatch(String select, String update, UUID after) {
+        int fieldCount = PiiProfile.PII_FIELD_COUNT;
+        List<Object[]> updates = new ArrayList<>();
+        List<UUID> ids = jdbcTemplate.query(select, (rs, rowNum) -> {
+            UUID id = rs.getObject(1, UUID.class);
+            byte[] record = rs.getBytes("pii_record");
+            boolean legacy = LegacyPiiColumns.present(rs);
+            Object[] params = new Object[fieldCount + 2];
+            boolean changed = legacy;
+            // A row sealed into a record keeps its PII only there; any legacy text left beside it is just dropped
+            if (record == null) {
+                for (int i = 0; i < fieldCount; i++) {
+                    byte[] stored = legacy
+                            ? EncryptionUtility.binaryFromBase64(rs.getString(PiiProfile.LEGACY_COLUMNS.get(i)))
+                            : rs.getBytes(PiiProfile.BINARY_COLUMNS.get(i));
+                    byte[] rotated = encryptionUtility.reEncrypt(stored);
+                    changed |= rotated != stored;
+                    params[i] = rotated;
+                }
+            }
+            byte[] rotatedRecord = encryptionUtility.reEncrypt(record);
+            changed |= rotatedRecord != record;
+            params[fieldCount] = rotatedRecord;
+            params[fieldCount + 1] = id;
+            if (changed) {
+                updates.add(params);
+            }
+            return id;
+        }, after, batchSize);
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(update, updates);
+        }
+        return new BatchResult(ids.size(), updates.size(), ids.isEmpty() ? after : ids.get(ids.size() - 1));
+    }
+
+    private void saveCheckpoint(String table, int keyVersion, UUID lastId, boolean completed) {
+        jdbcTemplate.update("INSERT INTO key_rotation_checkpoint (table_name, key_version, last_id, completed, updated_at)"
+                + " VALUES (?, ?, ?, ?, now()) ON CONFLICT (table_name) DO UPDATE SET key_version = EXCLUDED.key_version,"
+                + " last_id = EXCLUDED.last_id, completed = EXCLUDED.completed, updated_at = EXCLUDED.updated_at",
+                table, keyVersion, lastId, completed);
+    }
+
+    private static final class BatchResult {
+        private final int scanned;
+        private final int rewritten;
+        private final UUID lastId;
+
+        private BatchResult(int scanned, int rewritten, UUID lastId) {
+            this.scanned = scanned;
+            this.rewritten = rewritten;
+            this.lastId = lastId;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package sg.edu.nus.iss.profile_service.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import sg.edu.nus.iss.profile_service.model.LegacyPiiColumns;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+import sg.edu.nus.iss.profile_service.util.EncryptionUtility;
+import sg.edu.nus.iss.profile_service.util.PiiRecordCodec;
+import sg.edu.nus.iss.profile_service.util.WorkerThreads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves rows written in per-column storage mode into the sealed row record once {@code encryption.storage-mode=row}
+ * is switched on. Works through each table in primary-key order in small transactions, so the service keeps
+ * serving traffic; rows already carrying a record, or updated by the application in the meantime, are left alone.
+ */
+@Component
+@ConditionalOnExpression("'${encryption.storage-mode:column}' == 'row' and '${pii-record.migration.enabled:false}' == 'true'")
+public class PiiRecordMigrationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PiiRecordMigrationJob.class);
+
+    private static final UUID LOWEST_UUID = new UUID(0L, 0L);
+
+
+    private final EncryptionUtility encryptionUtility;
+    private final PiiRecordCodec piiRecordCodec;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${pii-record.migration.batch-size:500}")
+    private int batchSize;
+
+    @Value("${pii-record.migration.pause-millis:50}")
+    private long pauseMillis;
+
+    @Value(WorkerThreads.VIRTUAL_THREADS)
+    private boolean virtualThreads;
+
+    @Autowired
+    public PiiRecordMigrationJob(EncryptionUtility encryptionUtility, PiiRecordCodec piiRecordCodec,
+                                 TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate) {
+        this.encryptionUtility = encryptionUtility;
+        this.piiRecordCodec = piiRecordCodec;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        WorkerThreads.start("pii-record-migration", virtualThreads, this::run);
+    }
+
+    public void run() {
+        try {
+            migrate("customer", "customer_id");
+            migrate("merchant", "merchant_id");
+            migrate("delivery_partner", "delivery_partner_id");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("{\"message\": \"PII record migration failed\"}", e);
+        }
+    }
+
+    private void migrate(String table, String idColumn) throws InterruptedException {
+        String select = "SELECT " + idColumn + ", " + String.join(", ", PiiProfile.BINARY_COLUMNS) + ", "
+                + String.join(", ", PiiProfile.LEGACY_COLUMNS) + " FROM " + table
+                + " WHERE pii_record IS NULL AND " + idColumn + " > ? ORDER BY " + idColumn + " LIMIT ?";
+        // The pii_record IS NULL guard skips rows the application sealed after they were selected
+        String update = "UPDATE " + table + " SET pii_record = ?, " + String.join(" = NULL, ", PiiProfile.BINARY_COLUMNS) + " = NULL, "
+                + String.join(" = NULL, ", PiiProfile.LEGACY_COLUMNS) + " = NULL WHERE " + idColumn + " = ? AND pii_record IS NULL";
+
+        UUID cursor = LOWEST_UUID;
+        int total = 0;
+        while (true) {
+            List<ColumnRow> batch = jdbcTemplate.query(select, (rs, rowNum) -> {
+                // Rows not yet moved to the binary columns still carry Base64 text in the legacy ones
+                boolean legacy = LegacyPiiColumns.present(rs);
+                byte[][] columns = new byte[PiiProfile.PII_FIELD_COUNT][];
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = legacy
+                            ? EncryptionUtility.binaryFromBase64(rs.getString(PiiProfile.LEGACY_COLUMNS.get(i)))
+                            : rs.getBytes(PiiProfile.BINARY_COLUMNS.get(i));
+                }
+                return new ColumnRow(rs.getObject(1, UUID.class), columns);
+            }, cursor, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> updates = new ArrayList<>(batch.size());
+            for (ColumnRow row : batch) {
+                String[] plaintext = new String[row.columns.length];
+                for (int i = 0; i < plaintext.length; i++) {
+                    plaintext[i] = encryptionUtility.decryptBinary(row.columns[i]);
+                }
+                updates.add(new Object[] {piiRecordCodec.seal(plaintext), row.id});
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(update, updates));
+
+            total += batch.size();
+            cursor = batch.get(batch.size() - 1).id;
+            if (pauseMillis > 0) {
+                Thread.sleep(pauseMillis);
+            }
+        }
+        log.info("{\"message\": \"PII record migration complete for {}: {} rows\"}", table, total);
+    }
+
+    private static final class ColumnRow {
+        private final UUID id;
+        private final byte[][] columns;
+
+        private ColumnRow(UUID id, byte[][] columns) {
+            this.id = id;
+            this.columns = columns;
+        }
+    }
+}
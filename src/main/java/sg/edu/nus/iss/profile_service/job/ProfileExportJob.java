@@ -0,0 +1,308 @@
+package sg.edu.nus.iss.profile_service.job;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import sg.edu.nus.iss.profile_service.model.Customer;
+import sg.edu.nus.iss.profile_service.model.DeliveryPartner;
+import sg.edu.nus.iss.profile_service.model.Merchant;
+import sg.edu.nus.iss.profile_service.model.Profile;
+import sg.edu.nus.iss.profile_service.repository.ProfileBulkReader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a snapshot of every non-deleted profile of one type to compressed part files, for analytics teams that
+ * would otherwise page through the list endpoints. Started by setting {@code profile-export.dir}, as a one-off run
+ * of the service jar like {@link ProfileImportJob}; the service exits when the export ends.
+ *
+ * <p>Rows come from one server-side cursor in id order through {@link ProfileBulkReader}, decrypted in parallel one
+ * fetch at a time, so memory stays at a fetch of profiles plus the compressor's buffers however large the table.
+ * Each part of {@code profile-export.part-rows} rows is written under a temporary name and renamed once complete,
+ * then the last id and part number are saved in {@code <table>.export-checkpoint} beside it. A rerun resumes after
+ * the last complete part; delete the directory to start over. Output is NDJSON in the API's JSON shape, or CSV with
+ * the same fields and a header line in every part, compressed with gzip unless {@code profile-export.compression=none}.
+ */
+@Component
+@ConditionalOnProperty(name = "profile-export.dir")
+public class ProfileExportJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfileExportJob.class);
+
+    private static final String NDJSON = "ndjson";
+    private static final String GZIP = "gzip";
+    private static final int OUTPUT_BUFFER_BYTES = 1 << 16;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+    private final Map<String, Source> sources;
+
+    @Value("${profile-export.dir}")
+    private String dir;
+
+    @Value("${profile-export.table:merchant}")
+    private String table;
+
+    @Value("${profile-export.format:ndjson}")
+    private String format;
+
+    @Value("${profile-export.compression:gzip}")
+    private String compression;
+
+    @Value("${profile-export.part-rows:1000000}")
+    private long partRows;
+
+    @Value("${profile-export.progress-interval:100000}")
+    private long progressInterval;
+
+    @Autowired
+    public ProfileExportJob(ProfileBulkReader profileBulkReader, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                            ConfigurableApplicationContext context) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.context = context;
+        this.sources = Map.of(
+                "customer", new Source(profileBulkReader::streamCustomersAfter, profile -> ((Customer) profile).getCustomerId()),
+                "merchant", new Source(profileBulkReader::streamMerchantsAfter, profile -> ((Merchant) profile).getMerchantId()),
+                "delivery_partner", new Source(profileBulkReader::streamDeliveryPartnersAfter,
+                        profile -> ((DeliveryPartner) profile).getDeliveryPartnerId()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        int exitCode = run() ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    /**
+     * Exports the configured table and returns whether it finished.
+     */
+    public boolean run() {
+        Source source = sources.get(table);
+        if (source == null) {
+            log.error("{\"message\": \"Profile export needs one of the tables {}\"}", sources.keySet());
+            return false;
+        }
+        Path directory = Path.of(dir);
+        Path checkpointFile = directory.resolve(table + ".export-checkpoint");
+        Export export = new Export(source);
+        try {
+            Files.createDirectories(directory);
+            if (Files.exists(checkpointFile)) {
+                Properties checkpoint = new Properties();
+                try (Reader in = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+                    checkpoint.load(in);
+                }
+                if (Boolean.parseBoolean(checkpoint.getProperty("completed"))) {
+                    log.info("{\"message\": \"Profile export of {} to {} already complete\"}", table, directory);
+                    return true;
+                }
+                export.lastId = UUID.fromString(checkpoint.getProperty("last-id"));
+                export.part = Integer.parseInt(checkpoint.getProperty("parts"));
+                export.rows = Long.parseLong(checkpoint.getProperty("rows"));
+                log.info("{\"message\": \"Resuming profile export of {} after part {} ({} rows)\"}", table, export.part, export.rows);
+            }
+            export.estimatedRows = estimateRows();
+            export.directory = directory;
+            export.checkpointFile = checkpointFile;
+
+            source.streamer.accept(export.lastId, export::write);
+            export.finishPart();
+            saveCheckpoint(export, true);
+        } catch (IOException | RuntimeException e) {
+            export.abandonPart();
+            log.error("{\"message\": \"Profile export of {} stopped after part {} ({} rows); rerun to resume\"}",
+                    table, export.part, export.rows, e);
+            return false;
+        }
+        double seconds = Math.max((System.nanoTime() - export.started) / 1e9, 0.001);
+        log.info("{\"message\": \"Profile export of {} to {} complete: {} rows in {} parts, {} rows/s\"}",
+                table, directory, export.rows, export.part, Math.round(export.exportedThisRun / seconds));
+        return true;
+    }
+
+    // Planner statistics rather than count(*): only used in the progress log, and free on any table size
+    private long estimateRows() {
+        Long estimate = jdbcTemplate.queryForObject("SELECT reltuples::bigint FROM pg_class WHERE relname = ?", Long.class, table);
+        return estimate != null ? Math.max(estimate, 0L) : 0L;
+    }
+
+    private void saveCheckpoint(Export export, boolean completed) throws IOException {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("parts", Integer.toString(export.part));
+        checkpoint.setProperty("rows", Long.toString(export.rows));
+        checkpoint.setProperty("last-id", String.valueOf(export.lastId));
+        checkpoint.setProperty("completed", Boolean.toString(completed));
+        Path temp = export.checkpointFile.resolveSibling(export.checkpointFile.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            checkpoint.store(out, null);
+        }
+        Files.move(temp, export.checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void appendCsv(Writer out, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static final class Source {
+        private final BiConsumer<UUID, Consumer<Profile>> streamer;
+        private final Function<Profile, UUID> idOf;
+
+        private Source(BiConsumer<UUID, Consumer<Profile>> streamer, Function<Profile, UUID> idOf) {
+            this.streamer = streamer;
+            this.idOf = idOf;
+        }
+    }
+
+    /**
+     * Position of a running export and the part file currently open.
+     */
+    private final class Export {
+        private final Source source;
+        // The part writer outlives each value, so Jackson must neither flush nor close it
+        private final ObjectWriter jsonWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        private final long started = System.nanoTime();
+        private Path directory;
+        private Path checkpointFile;
+        private long estimatedRows;
+        private UUID lastId;
+        private int part;
+        private long rows;
+        private long exportedThisRun;
+        private Writer out;
+        private Path partFile;
+        private Path partTemp;
+        private long partRowCount;
+
+        private Export(Source source) {
+            this.source = source;
+        }
+
+        private void write(Profile profile) {
+            try {
+                if (out == null) {
+                    openPart();
+                }
+                if (NDJSON.equalsIgnoreCase(format)) {
+                    jsonWriter.writeValue(out, profile);
+                } else {
+                    writeCsv((ObjectNode) objectMapper.valueToTree(profile));
+                }
+                out.write('\n');
+                lastId = source.idOf.apply(profile);
+                rows++;
+                exportedThisRun++;
+                if (++partRowCount >= partRows) {
+                    finishPart();
+                    saveCheckpoint(this, false);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (exportedThisRun % Math.max(progressInterval, 1) == 0) {
+                double seconds = Math.max((System.nanoTime() - started) / 1e9, 0.001);
+                log.info("{\"message\": \"Profile export of {}: {} of about {} rows, {} rows/s\"}",
+                        table, rows, Math.max(estimatedRows, rows), Math.round(exportedThisRun / seconds));
+            }
+        }
+
+        private void writeCsv(ObjectNode node) throws IOException {
+            if (partRowCount == 0) {
+                Iterator<String> names = node.fieldNames();
+                while (names.hasNext()) {
+                    appendCsv(out, names.next());
+                    out.write(names.hasNext() ? "," : "\n");
+                }
+            }
+            Iterator<JsonNode> values = node.elements();
+            while (values.hasNext()) {
+                JsonNode value = values.next();
+                if (!value.isNull()) {
+                    appendCsv(out, value.asText());
+                }
+                if (values.hasNext()) {
+                    out.write(',');
+                }
+            }
+        }
+
+        private void openPart() throws IOException {
+            part++;
+            String name = String.format("%s-%05d.%s%s", table, part, NDJSON.equalsIgnoreCase(format) ? NDJSON : "csv",
+                    GZIP.equalsIgnoreCase(compression) ? ".gz" : "");
+            partFile = directory.resolve(name);
+            partTemp = directory.resolve(name + ".tmp");
+            OutputStream file = Files.newOutputStream(partTemp);
+            OutputStream stream = GZIP.equalsIgnoreCase(compression) ? new GZIPOutputStream(file, OUTPUT_BUFFER_BYTES) : file;
+            out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), OUTPUT_BUFFER_BYTES);
+            partRowCount = 0;
+        }
+
+        private void finishPart() throws IOException {
+            if (out == null) {
+                return;
+            }
+            out.close();
+            out = null;
+            Files.move(partTemp, partFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            partRowCount = 0;
+        }
+
+        // The half-written part is dropped; the rerun writes it again from the checkpoint
+        private void abandonPart() {
+            if (out == null) {
+                return;
+            }
+            part--;
+            rows -= partRowCount;
+            try {
+                out.close();
+                Files.deleteIfExists(partTemp);
+            } catch (IOException e) {
+                log.warn("{\"message\": \"Could not remove incomplete export part {}\"}", partTemp, e);
+            }
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package sg.edu.nus.iss.profile_service.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import sg.edu.nus.iss.profile_service.factory.OfflineGazetteer;
+import sg.edu.nus.iss.profile_service.factory.PostalSectorCentroids;
+import sg.edu.nus.iss.profile_service.model.Customer;
+import sg.edu.nus.iss.profile_service.model.DeliveryPartner;
+import sg.edu.nus.iss.profile_service.model.GeocodingStatus;
+import sg.edu.nus.iss.profile_service.model.LatLng;
+import sg.edu.nus.iss.profile_service.model.Merchant;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+import sg.edu.nus.iss.profile_service.util.BinaryEncryptionConverter;
+import sg.edu.nus.iss.profile_service.util.BlindIndexUtility;
+import sg.edu.nus.iss.profile_service.util.EncryptedString;
+import sg.edu.nus.iss.profile_service.util.EncryptionUtility;
+import sg.edu.nus.iss.profile_service.util.PiiRecordCodec;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Offline bulk loader for legacy profile data, far faster than the REST API for millions of rows. Started by
+ * setting {@code profile-import.file}, typically as a one-off run of the service jar:
+ *
+ * <pre>
+ * java -jar profile-service.jar --spring.main.web-application-type=none \
+ *     --profile-import.file=merchants.csv --profile-import.table=merchant
+ * </pre>
+ *
+ * <p>The file is CSV with a header line or NDJSON (see {@link ProfileImportReader}). Three bounded stages run
+ * concurrently: a reader thread cuts the input into chunks, a pool validates, geocodes and encrypts them, and this
+ * thread streams each chunk into Postgres with {@code COPY ... FROM STDIN}. At most
+ * {@code profile-import.queue-capacity} chunks are in flight, so a slow database holds back the reader rather than
+ * filling the heap. Chunks are written in input order, each in its own transaction together with the number of
+ * records consumed so far in {@code profile_import_checkpoint}; a rerun with the same file skips what committed.
+ *
+ * <p>Coordinates come from the offline gazetteer, then the {@code pincode_geocode} store, then the postal sector
+ * centroid; the location service is never called. Records failing the entity validation are skipped and logged by
+ * record number. Duplicate emails are not checked here: an email already stored fails its whole chunk on the
+ * unique blind index, so deduplicate the file first. The service exits when the import ends.
+ */
+@Component
+@ConditionalOnProperty(name = "profile-import.file")
+public class ProfileImportJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfileImportJob.class);
+
+    private static final Map<String, Target> TARGETS = Map.of(
+            "customer", new Target("customer_id", "reward_points", "0", Customer::new),
+            "merchant", new Target("merchant_id", "blacklisted,earnings", "false,0", Merchant::new),
+            "delivery_partner", new Target("delivery_partner_id", "blacklisted", "false", DeliveryPartner::new));
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final EncryptionUtility encryptionUtility;
+    private final PiiRecordCodec piiRecordCodec;
+    private final BlindIndexUtility blindIndexUtility;
+    private final OfflineGazetteer offlineGazetteer;
+    private final PostalSectorCentroids postalSectorCentroids;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+    private final boolean rowMode;
+
+    private final Map<String, LatLng> storedGeocodes = new HashMap<>();
+
+    @Value("${profile-import.file}")
+    private String file;
+
+    @Value("${profile-import.table:merchant}")
+    private String table;
+
+    // csv or ndjson; taken from the file extension when empty
+    @Value("${profile-import.format:}")
+    private String format;
+
+    @Value("${profile-import.chunk-size:2000}")
+    private int chunkSize;
+
+    // Transform threads; 0 uses one per core
+    @Value("${profile-import.transform-threads:0}")
+    private int transformThreads;
+
+    @Value("${profile-import.queue-capacity:8}")
+    private int queueCapacity;
+
+    @Autowired
+    public ProfileImportJob(EncryptionUtility encryptionUtility, PiiRecordCodec piiRecordCodec,
+                            BlindIndexUtility blindIndexUtility, OfflineGazetteer offlineGazetteer,
+                            PostalSectorCentroids postalSectorCentroids, JdbcTemplate jdbcTemplate, DataSource dataSource,
+                            Validator validator, ObjectMapper objectMapper, ConfigurableApplicationContext context,
+                            @Value("${encryption.storage-mode:column}") String storageMode) {
+        this.encryptionUtility = encryptionUtility;
+        this.piiRecordCodec = piiRecordCodec;
+        this.blindIndexUtility = blindIndexUtility;
+        this.offlineGazetteer = offlineGazetteer;
+        this.postalSectorCentroids = postalSectorCentroids;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.context = context;
+        this.rowMode = BinaryEncryptionConverter.ROW_MODE.equalsIgnoreCase(storageMode);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        int exitCode = run() ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    /**
+     * Imports the configured file and returns whether every chunk committed.
+     */
+    public boolean run() {
+        Target target = TARGETS.get(table);
+        Path path = Path.of(file).toAbsolutePath().normalize();
+        if (target == null || !Files.isReadable(path)) {
+            log.error("{\"message\": \"Profile import needs a readable file and one of the tables {}\"}", TARGETS.keySet());
+            return false;
+        }
+        String source = path.toString();
+        List<Map<String, Object>> checkpoint = jdbcTemplate.queryForList(
+                "SELECT records, completed FROM profile_import_checkpoint WHERE source = ? AND table_name = ?", source, table);
+        long skip = 0;
+        if (!checkpoint.isEmpty()) {
+            if (Boolean.TRUE.equals(checkpoint.get(0).get("completed"))) {
+                log.info("{\"message\": \"Profile import of {} into {} already complete\"}", source, table);
+                return true;
+            }
+            skip = ((Number) checkpoint.get(0).get("records")).longValue();
+            log.info("{\"message\": \"Resuming profile import of {} into {} after record {}\"}", source, table, skip);
+        }
+        loadStoredGeocodes();
+
+        int threads = transformThreads > 0 ? transformThreads : Runtime.getRuntime().availableProcessors();
+        ExecutorService transformers = Executors.newFixedThreadPool(threads);
+        BlockingQueue<Future<Chunk>> chunks = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+        String fileFormat = format == null || format.isBlank() ? ProfileImportReader.formatOf(path) : format;
+        long firstRecord = skip;
+        Thread reader = new Thread(() -> read(path, fileFormat, firstRecord, target, transformers, chunks), "profile-import-reader");
+        reader.setDaemon(true);
+        long started = System.nanoTime();
+        Totals totals = new Totals();
+        reader.start();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            String copy = "COPY " + table + " (" + target.idColumn + ", " + String.join(", ", PiiProfile.BINARY_COLUMNS)
+                    + ", pii_record, email_blind_index, phone_blind_index, latitude, longitude, geocoding_status, deleted, "
+                    + target.extraColumns + ") FROM STDIN (FORMAT csv)";
+            Chunk chunk;
+            while ((chunk = chunks.take().get()) != Chunk.END) {
+                write(connection, copyManager, copy, source, chunk);
+                totals.add(chunk);
+            }
+            saveCheckpoint(connection, source, skip + totals.records, true);
+            connection.commit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | SQLException | IOException | RuntimeException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.error("{\"message\": \"Profile import of {} into {} stopped after record {}; rerun to resume\"}",
+                    source, table, skip + totals.records, cause);
+            return false;
+        } finally {
+            reader.interrupt();
+            transformers.shutdownNow();
+        }
+        double seconds = Math.max((System.nanoTime() - started) / 1e9, 0.001);
+        log.info("{\"message\": \"Profile import of {} into {} complete: {} records, {} loaded, {} rejected, {} approximate"
+                        + " and {} without coordinates, {} rows/s\"}", source, table, totals.records, totals.loaded,
+                totals.rejected, totals.approximate, totals.ungeocoded, Math.round(totals.loaded / seconds));
+        return true;
+    }
+
+    private void loadStoredGeocodes() {
+        // Small enough to hold whole (one row per pincode), and read once instead of once per record
+        jdbcTemplate.query("SELECT pincode, latitude, longitude FROM pincode_geocode WHERE latitude IS NOT NULL", rs -> {
+            storedGeocodes.put(rs.getString(1), new LatLng(rs.getDouble(2), rs.getDouble(3)));
+        });
+        storedGeocodes.forEach(postalSectorCentroids::record);
+        log.info("{\"message\": \"Profile import using {} stored geocodes\"}", storedGeocodes.size());
+    }
+
+    private void read(Path path, String fileFormat, long skip, Target target, ExecutorService transformers,
+                      BlockingQueue<Future<Chunk>> chunks) {
+        try (ProfileImportReader in = new ProfileImportReader(path, fileFormat, objectMapper)) {
+            long record = 0;
+            List<String[]> batch = new ArrayList<>(chunkSize);
+            String[] values;
+            while ((values = in.next()) != null) {
+                if (++record <= skip) {
+                    continue;
+                }
+                batch.add(values);
+                if (batch.size() == chunkSize) {
+                    submit(batch, record, target, transformers, chunks);
+                    batch = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(batch, record, target, transformers, chunks);
+            }
+            chunks.put(CompletableFuture.completedFuture(Chunk.END));
+        } catch (InterruptedException e) {
+            // The writer gave up and stopped the pipeline
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            try {
+                chunks.put(CompletableFuture.failedFuture(e));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void submit(List<String[]> batch, long lastRecord, Target target, ExecutorService transformers,
+                        BlockingQueue<Future<Chunk>> chunks) throws InterruptedException {
+        // Blocks while the queue is full, which is what keeps the reader from running ahead of the database
+        chunks.put(transformers.submit(() -> transform(batch, lastRecord, target)));
+    }
+
+    private Chunk transform(List<String[]> records, long lastRecord, Target target) {
+        Chunk chunk = new Chunk(records.size(), lastRecord);
+        long firstRecord = lastRecord - records.size() + 1;
+        StringBuilder rows = new StringBuilder(records.size() * 768);
+        for (int r = 0; r < records.size(); r++) {
+            String[] values = records.get(r);
+            EncryptedString[] fields = new EncryptedString[values.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = values[i] == null || values[i].isBlank() ? null : values[i].trim();
+                fields[i] = EncryptedString.ofPlaintext(values[i]);
+            }
+            PiiProfile profile = target.profileSupplier.get();
+            profile.restoreEncryptedPii(fields);
+            Set<ConstraintViolation<PiiProfile>> violations = validator.validate(profile);
+            if (!violations.isEmpty()) {
+                // Messages only, never the rejected values
+                log.warn("{\"message\": \"Skipping record {}: {}\"}", firstRecord + r,
+                        violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; ")));
+                chunk.rejected++;
+                continue;
+            }
+            appendRow(rows, values, target, chunk);
+            chunk.loaded++;
+        }
+        chunk.rows = rows.toString().getBytes(StandardCharsets.UTF_8);
+        return chunk;
+    }
+
+    private void appendRow(StringBuilder rows, String[] values, Target target, Chunk chunk) {
+        rows.append(UUID.randomUUID());
+        for (String value : values) {
+            rows.append(',');
+            if (!rowMode) {
+                appendBytes(rows, encryptionUtility.encryptBinary(value));
+            }
+        }
+        rows.append(',');
+        if (rowMode) {
+            appendBytes(rows, piiRecordCodec.seal(values));
+        }
+        rows.append(',').append(blindIndexUtility.emailIndex(values[PiiProfile.EMAIL_ADDRESS]));
+        String phoneIndex = blindIndexUtility.phoneIndex(values[PiiProfile.PHONE_NUMBER]);
+        rows.append(',').append(phoneIndex == null ? "" : phoneIndex);
+
+        String pincode = values[PiiProfile.PINCODE];
+        LatLng coordinates = null;
+        GeocodingStatus status = null;
+        if (pincode != null) {
+            coordinates = offlineGazetteer.getCoordinates(pincode);
+            if (coordinates == null) {
+                coordinates = storedGeocodes.get(pincode);
+            }
+            status = GeocodingStatus.RESOLVED;
+            if (coordinates == null) {
+                // Approximate rows get their exact lookup queued the next time the profile is updated
+                coordinates = postalSectorCentroids.approximate(pincode);
+                status = coordinates != null ? GeocodingStatus.APPROXIMATE : GeocodingStatus.FAILED;
+            }
+            chunk.approximate += status == GeocodingStatus.APPROXIMATE ? 1 : 0;
+            chunk.ungeocoded += status == GeocodingStatus.FAILED ? 1 : 0;
+        }
+        rows.append(',');
+        if (coordinates != null) {
+            rows.append(coordinates.getLat()).append(',').append(coordinates.getLng());
+        } else {
+            rows.append(',');
+        }
+        rows.append(',').append(status == null ? "" : status.name());
+        rows.append(",false,").append(target.extraValues).append('\n');
+    }
+
+    private static void appendBytes(StringBuilder rows, byte[] bytes) {
+        // bytea hex input format; COPY csv leaves the backslash alone outside quotes
+        if (bytes != null) {
+            rows.append("\\x");
+            HEX.formatHex(rows, bytes);
+        }
+    }
+
+    private void write(Connection connection, CopyManager copyManager, String copy, String source, Chunk chunk)
+            throws SQLException, IOException {
+        try {
+            if (chunk.loaded > 0) {
+                copyManager.copyIn(copy, new ByteArrayInputStream(chunk.rows));
+            }
+            saveCheckpoint(connection, source, chunk.lastRecord, false);
+            connection.commit();
+        } catch (SQLException | IOException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    private void saveCheckpoint(Connection connection, String source, long records, boolean completed) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO profile_import_checkpoint (source, table_name, records, completed, updated_at)"
+                        + " VALUES (?, ?, ?, ?, now()) ON CONFLICT (source, table_name) DO UPDATE SET"
+                        + " records = EXCLUDED.records, completed = EXCLUDED.completed, updated_at = EXCLUDED.updated_at")) {
+            statement.setString(1, source);
+            statement.setString(2, table);
+            statement.setLong(3, records);
+            statement.setBoolean(4, completed);
+            statement.executeUpdate();
+        }
+    }
+
+    private static final class Target {
+        private final String idColumn;
+        private final String extraColumns;
+        private final String extraValues;
+        private final Supplier<PiiProfile> profileSupplier;
+
+        private Target(String idColumn, String extraColumns, String extraValues, Supplier<PiiProfile> profileSupplier) {
+            this.idColumn = idColumn;
+            this.extraColumns = extraColumns;
+            this.extraValues = extraValues;
+            this.profileSupplier = profileSupplier;
+        }
+    }
+
+    /**
+     * One transformed slice of the input: the COPY rows of its valid records, and where it ends in the file.
+     */
+    private static final class Chunk {
+        private static final Chunk END = new Chunk(0, 0);
+
+        private final int records;
+        private final long lastRecord;
+        private byte[] rows;
+        private int loaded;
+        private int rejected;
+        private int approximate;
+        private int ungeocoded;
+
+        private Chunk(int records, long lastRecord) {
+            this.records = records;
+            this.lastRecord = lastRecord;
+        }
+    }
+
+    private static final class Totals {
+        private long records;
+        private long loaded;
+        private long rejected;
+        private long approximate;
+        private long ungeocoded;
+
+        private void add(Chunk chunk) {
+            records += chunk.records;
+            loaded += chunk.loaded;
+            rejected += chunk.rejected;
+            approximate += chunk.approximate;
+            ungeocoded += chunk.ungeocoded;
+        }
+    }
+}
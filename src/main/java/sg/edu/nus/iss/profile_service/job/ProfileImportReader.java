@@ -0,0 +1,177 @@
+package sg.edu.nus.iss.profile_service.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Reads profile records from a CSV file with a header line, or from NDJSON with one object per line. Columns and
+ * keys are matched to the PII fields by name, ignoring case and underscores, so both {@code email_address} and
+ * {@code emailAddress} work; anything else is ignored. Quoted CSV fields may contain commas, doubled quotes and
+ * line breaks.
+ */
+class ProfileImportReader implements Closeable {
+
+    static final String CSV = "csv";
+    static final String NDJSON = "ndjson";
+
+    private static final List<String> FIELD_KEYS = PiiProfile.LEGACY_COLUMNS.stream().map(ProfileImportReader::key).toList();
+
+    private final BufferedReader reader;
+    private final boolean ndjson;
+    private final ObjectMapper objectMapper;
+    private int[] csvPositions;
+    private long lineNumber;
+
+    ProfileImportReader(Path path, String format, ObjectMapper objectMapper) throws IOException {
+        this.reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        this.ndjson = NDJSON.equalsIgnoreCase(format);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Picks the format from the file extension: {@code .ndjson}, {@code .jsonl} and {@code .json} are NDJSON,
+     * anything else CSV.
+     */
+    static String formatOf(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json") ? NDJSON : CSV;
+    }
+
+    /**
+     * Returns the next record's PII fields in {@link PiiProfile} field order, missing ones as null, or null at the
+     * end of the input. Blank lines are skipped.
+     */
+    String[] next() throws IOException {
+        return ndjson ? nextJson() : nextCsv();
+    }
+
+    long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String[] nextJson() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node = objectMapper.readTree(line);
+            if (!node.isObject()) {
+                throw new IOException("Line " + lineNumber + " is not a JSON object");
+            }
+            String[] values = new String[PiiProfile.PII_FIELD_COUNT];
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                int index = FIELD_KEYS.indexOf(key(field.getKey()));
+                if (index >= 0 && !field.getValue().isNull()) {
+                    values[index] = field.getValue().asText();
+                }
+            }
+            return values;
+        }
+        return null;
+    }
+
+    private String[] nextCsv() throws IOException {
+        if (csvPositions == null) {
+            List<String> header = readCsvLine();
+            if (header == null) {
+                return null;
+            }
+            csvPositions = new int[header.size()];
+            for (int i = 0; i < header.size(); i++) {
+                csvPositions[i] = FIELD_KEYS.indexOf(key(header.get(i)));
+            }
+            // Name and email are mandatory on every profile; the other columns may be left out
+            if (IntStream.of(csvPositions).noneMatch(position -> position == PiiProfile.NAME)
+                    || IntStream.of(csvPositions).noneMatch(position -> position == PiiProfile.EMAIL_ADDRESS)) {
+                throw new IOException("CSV header must name at least the name and email_address columns, got " + header);
+            }
+        }
+        List<String> line;
+        while ((line = readCsvLine()) != null) {
+            if (line.size() == 1 && line.get(0).isBlank()) {
+                continue;
+            }
+            String[] values = new String[PiiProfile.PII_FIELD_COUNT];
+            for (int i = 0; i < line.size() && i < csvPositions.length; i++) {
+                if (csvPositions[i] >= 0 && !line.get(i).isEmpty()) {
+                    values[csvPositions[i]] = line.get(i);
+                }
+            }
+            return values;
+        }
+        return null;
+    }
+
+    private List<String> readCsvLine() throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        lineNumber++;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c >= 0) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        if (quoted) {
+            throw new IOException("Unterminated quoted field at line " + lineNumber);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String key(String name) {
+        // Spreadsheet exports often start with a byte order mark, which would stick to the first header name
+        return name.replace("\uFEFF", "").replace("_", "").trim().toLowerCase(Locale.ROOT);
+    }
+}
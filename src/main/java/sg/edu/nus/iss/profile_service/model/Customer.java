@@ -2,55 +2,40 @@ package sg.edu.nus.iss.profile_service.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 import lombok.Data;
+import lombok.ToString;
 import org.hibernate.annotations.UuidGenerator;
-import sg.edu.nus.iss.profile_service.util.StringEncryptionConverter;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 
 @Data
+// Encrypted values print masked instead of being decrypted through the getters
+@ToString(callSuper = true, doNotUseGetters = true)
 @Entity
-public class Customer implements Profile {
+// Id first, then the PII properties inherited from PiiProfileEntity, as exports and responses have listed them
+@JsonPropertyOrder("customerId")
+public class Customer extends PiiProfileEntity implements Geolocated {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     @UuidGenerator
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private UUID customerId;
 
-    @NotBlank(message = "Customer name is mandatory")
-    @Convert(converter = StringEncryptionConverter.class)
-    private String name;
-
-    @NotBlank(message = "Customer email is mandatory")
-    @Email(message = "Email should be valid")
-    @Convert(converter = StringEncryptionConverter.class)
-    private String emailAddress;
-
-    @Convert(converter = StringEncryptionConverter.class)
-    private String addressLine1;
-
-    @Convert(converter = StringEncryptionConverter.class)
-    private String addressLine2;
-
-    @Pattern(regexp = "^\\+?[0-9. ()-]{7,25}$", message = "Phone number is invalid")
-    @Convert(converter = StringEncryptionConverter.class)
-    private String phoneNumber;
-
-    @Pattern(regexp = "^[0-9]{6}$", message = "Pincode must be a 6-digit number")
-    @Convert(converter = StringEncryptionConverter.class)
-    private String pincode;
-
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private Double latitude;
 
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private Double longitude;
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private GeocodingStatus geocodingStatus;
+
     @JsonIgnore
     private boolean deleted = false;
 
@@ -58,6 +43,18 @@ public class Customer implements Profile {
     // TODO: This field is set to null in database , but to be set 0 in code , need to update db columns to put default values
     private BigDecimal rewardPoints = BigDecimal.ZERO;
 
+    @Override
+    @NotBlank(message = "Customer name is mandatory")
+    public String getName() {
+        return super.getName();
+    }
+
+    @Override
+    @NotBlank(message = "Customer email is mandatory")
+    public String getEmailAddress() {
+        return super.getEmailAddress();
+    }
+
     @Override
     public void createProfile() {
         // Implementation remains unchanged
@@ -72,4 +69,22 @@ public class Customer implements Profile {
     public void deleteProfile() {
         // Implementation remains unchanged
     }
-}
\ No newline at end of file
+
+    // Identity is the id alone, so comparing profiles never decrypts their PII; unsaved profiles equal only themselves
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Customer)) {
+            return false;
+        }
+        return customerId != null && customerId.equals(((Customer) o).customerId);
+    }
+
+    // Constant, as the id is only assigned on persist
+    @Override
+    public int hashCode() {
+        return Customer.class.hashCode();
+    }
+}
@@ -2,49 +2,36 @@ package sg.edu.nus.iss.profile_service.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 import lombok.Data;
+import lombok.ToString;
 import org.hibernate.annotations.UuidGenerator;
-import sg.edu.nus.iss.profile_service.util.StringEncryptionConverter;
 
 import java.util.UUID;
 
 @Data
+// Encrypted values print masked instead of being decrypted through the getters
+@ToString(callSuper = true, doNotUseGetters = true)
 @Entity
-public class DeliveryPartner implements Profile {
+// Id first, then the PII properties inherited from PiiProfileEntity, as exports and responses have listed them
+@JsonPropertyOrder("deliveryPartnerId")
+public class DeliveryPartner extends PiiProfileEntity implements Geolocated {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     @UuidGenerator
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private UUID deliveryPartnerId;
 
-    @NotBlank(message = "Delivery Partner name is mandatory")
-    @Convert(converter = StringEncryptionConverter.class)
-    private String name;
-    @NotBlank(message = "Delivery Partner email is mandatory")
-    @Email(message = "Email should be valid")
-    @Convert(converter = StringEncryptionConverter.class)
-    private String emailAddress;
-    @Convert(converter = StringEncryptionConverter.class)
-    private String addressLine1;
-    @Convert(converter = StringEncryptionConverter.class)
-    private String addressLine2;
-
-    @Pattern(regexp = "^\\+?[0-9. ()-]{7,25}$", message = "Phone number is invalid")
-    @Convert(converter = StringEncryptionConverter.class)
-    private String phoneNumber;
-
-    @Pattern(regexp = "^[0-9]{6}$", message = "Pincode must be a 6-digit number")
-    @Convert(converter = StringEncryptionConverter.class)
-    private String pincode;
-
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private Double latitude;
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private Double longitude;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private GeocodingStatus geocodingStatus;
 
     @JsonIgnore
     private boolean deleted = false;
@@ -52,6 +39,18 @@ public class DeliveryPartner implements Profile {
     @Column(columnDefinition = "boolean default false")
     // TODO: This field is set to null in database , but to be set false in code , need to update db columns to put default values
     private boolean blacklisted = false;
+    @Override
+    @NotBlank(message = "Delivery Partner name is mandatory")
+    public String getName() {
+        return super.getName();
+    }
+
+    @Override
+    @NotBlank(message = "Delivery Partner email is mandatory")
+    public String getEmailAddress() {
+        return super.getEmailAddress();
+    }
+
     @Override
     public void createProfile() {
 
@@ -66,4 +65,22 @@ public class DeliveryPartner implements Profile {
     public void deleteProfile() {
 
     }
-}
\ No newline at end of file
+
+    // Identity is the id alone, so comparing profiles never decrypts their PII; unsaved profiles equal only themselves
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DeliveryPartner)) {
+            return false;
+        }
+        return deliveryPartnerId != null && deliveryPartnerId.equals(((DeliveryPartner) o).deliveryPartnerId);
+    }
+
+    // Constant, as the id is only assigned on persist
+    @Override
+    public int hashCode() {
+        return DeliveryPartner.class.hashCode();
+    }
+}
@@ -0,0 +1,15 @@
+package sg.edu.nus.iss.profile_service.model;
+
+/**
+ * Where a profile's coordinates stand. Rows written before the status existed have none and hold resolved
+ * coordinates.
+ */
+public enum GeocodingStatus {
+    RESOLVED,
+    // Saved without coordinates, the lookup is queued on the geocoding worker
+    PENDING,
+    // Postal sector centroid assigned while the location service was down; the exact lookup is queued
+    APPROXIMATE,
+    // The pincode could not be geocoded; the next update that sets the pincode tries again
+    FAILED
+}
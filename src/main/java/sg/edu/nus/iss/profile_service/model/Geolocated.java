@@ -0,0 +1,21 @@
+package sg.edu.nus.iss.profile_service.model;
+
+/**
+ * A profile positioned by its pincode.
+ */
+public interface Geolocated {
+
+    String getPincode();
+
+    Double getLatitude();
+
+    void setLatitude(Double latitude);
+
+    Double getLongitude();
+
+    void setLongitude(Double longitude);
+
+    GeocodingStatus getGeocodingStatus();
+
+    void setGeocodingStatus(GeocodingStatus geocodingStatus);
+}
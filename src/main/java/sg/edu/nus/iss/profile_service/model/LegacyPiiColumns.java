@@ -0,0 +1,58 @@
+package sg.edu.nus.iss.profile_service.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.Data;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The original varchar PII columns, holding Base64 ciphertext. Only rows written before the binary columns were
+ * introduced still have values here; any write through JPA clears them, and BinaryCiphertextMigrationJob moves
+ * the remaining rows over in the background.
+ */
+@Data
+@Embeddable
+public class LegacyPiiColumns {
+
+    // Any of the columns can be the only one set, so a row is on the legacy layout while one of them holds text
+    public static final String PRESENT_CONDITION = "COALESCE(" + String.join(", ", PiiProfile.LEGACY_COLUMNS) + ") IS NOT NULL";
+
+    private String name;
+    private String emailAddress;
+    private String addressLine1;
+    private String addressLine2;
+    private String phoneNumber;
+    private String pincode;
+
+    /**
+     * Values in PiiProfile field order.
+     */
+    public String[] values() {
+        return new String[] {name, emailAddress, addressLine1, addressLine2, phoneNumber, pincode};
+    }
+
+    /**
+     * True when the row still holds Base64 text in any of the legacy columns.
+     */
+    public boolean hasValues() {
+        for (String value : values()) {
+            if (value != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@link #hasValues()} for a JDBC row that selected the legacy columns by name.
+     */
+    public static boolean present(ResultSet rs) throws SQLException {
+        for (String column : PiiProfile.LEGACY_COLUMNS) {
+            if (rs.getString(column) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,51 +1,38 @@
 package sg.edu.nus.iss.profile_service.model;
 
 import jakarta.persistence.*;
-import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 import lombok.Data;
+import lombok.ToString;
 import org.hibernate.annotations.UuidGenerator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import sg.edu.nus.iss.profile_service.util.StringEncryptionConverter;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 
 @Data
+// Encrypted values print masked instead of being decrypted through the getters
+@ToString(callSuper = true, doNotUseGetters = true)
 @Entity
-public class Merchant implements Profile {
+// Id first, then the PII properties inherited from PiiProfileEntity, as exports and responses have listed them
+@JsonPropertyOrder("merchantId")
+public class Merchant extends PiiProfileEntity implements Geolocated {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     @UuidGenerator
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private UUID merchantId;
 
-    @NotBlank(message = "Merchant name is mandatory")
-    @Convert(converter = StringEncryptionConverter.class)
-    private String name;
-    @NotBlank(message = "Merchant email is mandatory")
-    @Email(message = "Email should be valid")
-    @Convert(converter = StringEncryptionConverter.class)
-    private String emailAddress;
-    @Convert(converter = StringEncryptionConverter.class)
-    private String addressLine1;
-    @Convert(converter = StringEncryptionConverter.class)
-    private String addressLine2;
-
-    @Pattern(regexp = "^\\+?[0-9. ()-]{7,25}$", message = "Phone number is invalid")
-    @Convert(converter = StringEncryptionConverter.class)
-    private String phoneNumber;
-
-    @Pattern(regexp = "^[0-9]{6}$", message = "Pincode must be a 6-digit number")
-    @Convert(converter = StringEncryptionConverter.class)
-    private String pincode;
-
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private Double latitude;
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private Double longitude;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private GeocodingStatus geocodingStatus;
 
     @JsonIgnore
     private boolean deleted = false;
@@ -57,6 +44,18 @@ public class Merchant implements Profile {
     // TODO: This field is set to null in database , but to be set 0 in code , need to update db columns to put default values
     private BigDecimal earnings= BigDecimal.ZERO;
 
+    @Override
+    @NotBlank(message = "Merchant name is mandatory")
+    public String getName() {
+        return super.getName();
+    }
+
+    @Override
+    @NotBlank(message = "Merchant email is mandatory")
+    public String getEmailAddress() {
+        return super.getEmailAddress();
+    }
+
     @Override
     public void createProfile() {
 
@@ -71,4 +70,22 @@ public class Merchant implements Profile {
     public void deleteProfile() {
 
     }
-}
\ No newline at end of file
+
+    // Identity is the id alone, so comparing profiles never decrypts their PII; unsaved profiles equal only themselves
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Merchant)) {
+            return false;
+        }
+        return merchantId != null && merchantId.equals(((Merchant) o).merchantId);
+    }
+
+    // Constant, as the id is only assigned on persist
+    @Override
+    public int hashCode() {
+        return Merchant.class.hashCode();
+    }
+}
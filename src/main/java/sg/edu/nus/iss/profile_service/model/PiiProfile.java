@@ -0,0 +1,76 @@
+package sg.edu.nus.iss.profile_service.model;
+
+import sg.edu.nus.iss.profile_service.util.EncryptedString;
+
+import java.util.List;
+
+/**
+ * A profile whose PII attributes are stored encrypted, either one binary column per field or sealed together
+ * into a single row-level record. Field order is name, email, address line 1, address line 2, phone number, pincode.
+ */
+public interface PiiProfile extends Profile {
+
+    int PII_FIELD_COUNT = 6;
+
+    // Positions of the fields in encryptedPii(), the storage column lists and every per-row value array
+    int NAME = 0;
+    int EMAIL_ADDRESS = 1;
+    int ADDRESS_LINE1 = 2;
+    int ADDRESS_LINE2 = 3;
+    int PHONE_NUMBER = 4;
+    int PINCODE = 5;
+
+    // Storage columns in field order: the binary ciphertext columns and the Base64 text columns they replaced
+    List<String> BINARY_COLUMNS = List.of(
+            "name_bin", "email_address_bin", "address_line1_bin", "address_line2_bin", "phone_number_bin", "pincode_bin");
+    List<String> LEGACY_COLUMNS = List.of(
+            "name", "email_address", "address_line1", "address_line2", "phone_number", "pincode");
+
+    String getEmailAddress();
+
+    String getPhoneNumber();
+
+    // Keyed HMAC of the normalised email, the only way to look a profile up by email
+    String getEmailBlindIndex();
+
+    void setEmailBlindIndex(String emailBlindIndex);
+
+    void setPhoneBlindIndex(String phoneBlindIndex);
+
+    /**
+     * True when the blind indexes no longer match the email and phone number and have to be computed again.
+     */
+    boolean isBlindIndexStale();
+
+    EncryptedString[] encryptedPii();
+
+    /**
+     * Replaces the PII attributes, e.g. with values decrypted outside of JPA or before a write.
+     */
+    void restoreEncryptedPii(EncryptedString[] values);
+
+    /**
+     * Supplies the PII values of a just loaded row whose mapped fields are empty because its PII lives in the
+     * row-level record or the legacy text columns. The getters read them without the mapped fields changing, so
+     * loading the row does not make it dirty.
+     */
+    void openStoredPii(EncryptedString[] values);
+
+    /**
+     * Remembers the current PII attributes as the ones held in the row-level record.
+     */
+    void markPiiSealed();
+
+    /**
+     * True when none of the PII attributes were replaced since they were loaded or last sealed.
+     */
+    boolean piiSealed();
+
+    byte[] getPiiRecord();
+
+    void setPiiRecord(byte[] piiRecord);
+
+    LegacyPiiColumns getLegacyPii();
+
+    void setLegacyPii(LegacyPiiColumns legacyPii);
+}
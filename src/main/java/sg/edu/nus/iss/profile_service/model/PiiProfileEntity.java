@@ -0,0 +1,223 @@
+package sg.edu.nus.iss.profile_service.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import sg.edu.nus.iss.profile_service.util.BinaryEncryptionConverter;
+import sg.edu.nus.iss.profile_service.util.BlindIndexListener;
+import sg.edu.nus.iss.profile_service.util.EncryptedString;
+import sg.edu.nus.iss.profile_service.util.PiiStorageListener;
+
+/**
+ * The encrypted PII columns, blind indexes and storage state every profile table shares, kept in step by
+ * {@link BlindIndexListener} and {@link PiiStorageListener}. Entities add their id and own columns, and the
+ * name and email constraints whose messages name the profile type.
+ */
+@Getter
+@Setter
+// Encrypted values print masked instead of being decrypted through the getters
+@ToString(doNotUseGetters = true)
+@MappedSuperclass
+@EntityListeners({BlindIndexListener.class, PiiStorageListener.class})
+public abstract class PiiProfileEntity implements PiiProfile {
+
+    @Convert(converter = BinaryEncryptionConverter.class)
+    @Column(name = "name_bin")
+    private EncryptedString name;
+
+    @Convert(converter = BinaryEncryptionConverter.class)
+    @Column(name = "email_address_bin")
+    private EncryptedString emailAddress;
+
+    @Convert(converter = BinaryEncryptionConverter.class)
+    @Column(name = "address_line1_bin")
+    private EncryptedString addressLine1;
+
+    @Convert(converter = BinaryEncryptionConverter.class)
+    @Column(name = "address_line2_bin")
+    private EncryptedString addressLine2;
+
+    @Convert(converter = BinaryEncryptionConverter.class)
+    @Column(name = "phone_number_bin")
+    private EncryptedString phoneNumber;
+
+    @Convert(converter = BinaryEncryptionConverter.class)
+    @Column(name = "pincode_bin")
+    private EncryptedString pincode;
+
+    // Keyed HMAC of the normalised email/phone, maintained by BlindIndexListener for equality lookups
+    @JsonIgnore
+    @Column(length = 43)
+    private String emailBlindIndex;
+
+    @JsonIgnore
+    @Column(length = 43)
+    private String phoneBlindIndex;
+
+    // Base64 text columns of rows not yet moved to the binary columns, see PiiStorageListener
+    @JsonIgnore
+    @Embedded
+    private LegacyPiiColumns legacyPii;
+
+    // All PII fields sealed into one AEAD record when encryption.storage-mode=row, see PiiStorageListener
+    @JsonIgnore
+    private byte[] piiRecord;
+
+    // PII values as last opened from or sealed into piiRecord
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient EncryptedString[] sealedPii;
+
+    // PII values opened on load from piiRecord or the legacy text columns. They stand in for the mapped fields,
+    // which keep their loaded values so Hibernate sees no change, until a setter replaces them.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient EncryptedString[] storedPii;
+
+    public String getName() {
+        return EncryptedString.plaintextOf(piiValue(NAME, name));
+    }
+
+    public void setName(String name) {
+        this.name = EncryptedString.ofPlaintext(name);
+        replaceStoredPii(NAME);
+    }
+
+    @Override
+    @Email(message = "Email should be valid")
+    public String getEmailAddress() {
+        return EncryptedString.plaintextOf(piiValue(EMAIL_ADDRESS, emailAddress));
+    }
+
+    public void setEmailAddress(String emailAddress) {
+        this.emailAddress = EncryptedString.ofPlaintext(emailAddress);
+        replaceStoredPii(EMAIL_ADDRESS);
+    }
+
+    public String getAddressLine1() {
+        return EncryptedString.plaintextOf(piiValue(ADDRESS_LINE1, addressLine1));
+    }
+
+    public void setAddressLine1(String addressLine1) {
+        this.addressLine1 = EncryptedString.ofPlaintext(addressLine1);
+        replaceStoredPii(ADDRESS_LINE1);
+    }
+
+    public String getAddressLine2() {
+        return EncryptedString.plaintextOf(piiValue(ADDRESS_LINE2, addressLine2));
+    }
+
+    public void setAddressLine2(String addressLine2) {
+        this.addressLine2 = EncryptedString.ofPlaintext(addressLine2);
+        replaceStoredPii(ADDRESS_LINE2);
+    }
+
+    @Override
+    @Pattern(regexp = "^\\+?[0-9. ()-]{7,25}$", message = "Phone number is invalid")
+    public String getPhoneNumber() {
+        return EncryptedString.plaintextOf(piiValue(PHONE_NUMBER, phoneNumber));
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = EncryptedString.ofPlaintext(phoneNumber);
+        replaceStoredPii(PHONE_NUMBER);
+    }
+
+    @Pattern(regexp = "^[0-9]{6}$", message = "Pincode must be a 6-digit number")
+    public String getPincode() {
+        return EncryptedString.plaintextOf(piiValue(PINCODE, pincode));
+    }
+
+    public void setPincode(String pincode) {
+        this.pincode = EncryptedString.ofPlaintext(pincode);
+        replaceStoredPii(PINCODE);
+    }
+
+    /**
+     * True when the blind indexes no longer match email/phone, so BlindIndexListener has to recompute them.
+     * Loaded, unchanged values report false without being decrypted.
+     */
+    @Override
+    @JsonIgnore
+    public boolean isBlindIndexStale() {
+        return emailBlindIndex == null
+                || EncryptedString.isChanged(emailAddress)
+                || EncryptedString.isChanged(phoneNumber)
+                || (piiValue(PHONE_NUMBER, phoneNumber) == null && phoneBlindIndex != null);
+    }
+
+    @Override
+    public EncryptedString[] encryptedPii() {
+        return new EncryptedString[] {piiValue(NAME, name), piiValue(EMAIL_ADDRESS, emailAddress),
+                piiValue(ADDRESS_LINE1, addressLine1), piiValue(ADDRESS_LINE2, addressLine2),
+                piiValue(PHONE_NUMBER, phoneNumber), piiValue(PINCODE, pincode)};
+    }
+
+    @Override
+    public void restoreEncryptedPii(EncryptedString[] values) {
+        name = values[NAME];
+        emailAddress = values[EMAIL_ADDRESS];
+        addressLine1 = values[ADDRESS_LINE1];
+        addressLine2 = values[ADDRESS_LINE2];
+        phoneNumber = values[PHONE_NUMBER];
+        pincode = values[PINCODE];
+        storedPii = null;
+    }
+
+    /**
+     * Sets every PII attribute from plaintext in field order, as decrypted outside of JPA.
+     */
+    public void replacePii(String[] values) {
+        setName(values[NAME]);
+        setEmailAddress(values[EMAIL_ADDRESS]);
+        setAddressLine1(values[ADDRESS_LINE1]);
+        setAddressLine2(values[ADDRESS_LINE2]);
+        setPhoneNumber(values[PHONE_NUMBER]);
+        setPincode(values[PINCODE]);
+    }
+
+    @Override
+    public void openStoredPii(EncryptedString[] values) {
+        storedPii = values;
+    }
+
+    private EncryptedString piiValue(int field, EncryptedString mapped) {
+        EncryptedString[] stored = storedPii;
+        return stored != null && stored[field] != null ? stored[field] : mapped;
+    }
+
+    private void replaceStoredPii(int field) {
+        if (storedPii != null && storedPii[field] != null) {
+            storedPii[field] = null;
+            // The mapped field may be set to the null it was loaded with, so the stored form is dropped to have the
+            // row written; the listener seals or writes the columns again from the remaining values
+            piiRecord = null;
+            legacyPii = null;
+        }
+    }
+
+    @Override
+    public void markPiiSealed() {
+        sealedPii = encryptedPii();
+    }
+
+    @Override
+    public boolean piiSealed() {
+        if (sealedPii == null) {
+            return false;
+        }
+        EncryptedString[] current = encryptedPii();
+        for (int i = 0; i < current.length; i++) {
+            // Identity, not equality: any setter call replaces the holder
+            if (current[i] != sealedPii[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
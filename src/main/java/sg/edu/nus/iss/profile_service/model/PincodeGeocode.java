@@ -0,0 +1,35 @@
+package sg.edu.nus.iss.profile_service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Coordinates of a pincode as last fetched by any replica, shared through the database so a restarted or new
+ * replica does not have to ask the location service again.
+ */
+@Data
+@Entity
+@Table(name = "pincode_geocode")
+public class PincodeGeocode {
+    @Id
+    @Column(length = 6)
+    private String pincode;
+
+    private Double latitude;
+    private Double longitude;
+
+    // Where the coordinates came from, e.g. location-service
+    @Column(length = 32)
+    private String source;
+
+    private Instant fetchedAt;
+
+    // Reads served from this row, used to pick the rows replicas warm their cache with
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long lookups;
+}
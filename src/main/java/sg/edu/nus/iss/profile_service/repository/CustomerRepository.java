@@ -1,17 +1,21 @@
 package sg.edu.nus.iss.profile_service.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import sg.edu.nus.iss.profile_service.model.Customer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface CustomerRepository extends JpaRepository<Customer, UUID> {
-    Optional<Customer> findByEmailAddressAndDeletedFalse(String email);
+    Optional<Customer> findByEmailBlindIndexAndDeletedFalse(String emailBlindIndex);
+    List<Customer> findByEmailBlindIndexInAndDeletedFalse(Collection<String> emailBlindIndexes);
     List<Customer> findAllByDeletedFalse();
     Page<Customer> findAllByDeletedFalse(Pageable pageable);
     Optional<Customer> findByCustomerIdAndDeletedFalse(UUID id);
+    List<Customer> findByEmailBlindIndexIsNullAndCustomerIdGreaterThanOrderByCustomerId(UUID after, Limit limit);
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package sg.edu.nus.iss.profile_service.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import sg.edu.nus.iss.profile_service.model.PincodeGeocode;
+
+import java.util.List;
+
+public interface PincodeGeocodeRepository extends JpaRepository<PincodeGeocode, String> {
+
+    List<PincodeGeocode> findAllByOrderByLookupsDesc(Limit limit);
+
+    // Several replicas may fetch the same pincode at once; the last answer wins and the lookup count is kept
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO pincode_geocode (pincode, latitude, longitude, source, fetched_at, lookups)"
+            + " VALUES (:pincode, :latitude, :longitude, :source, now(), 0) ON CONFLICT (pincode) DO UPDATE SET"
+            + " latitude = EXCLUDED.latitude, longitude = EXCLUDED.longitude, source = EXCLUDED.source,"
+            + " fetched_at = EXCLUDED.fetched_at", nativeQuery = true)
+    int upsert(@Param("pincode") String pincode, @Param("latitude") double latitude,
+               @Param("longitude") double longitude, @Param("source") String source);
+
+    // Lookups are counted in memory and added here in batches, not written on every hit
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE pincode_geocode SET lookups = lookups + :lookups WHERE pincode = :pincode", nativeQuery = true)
+    int addLookups(@Param("pincode") String pincode, @Param("lookups") long lookups);
+}
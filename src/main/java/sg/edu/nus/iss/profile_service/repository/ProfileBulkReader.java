@@ -0,0 +1,292 @@
+package sg.edu.nus.iss.profile_service.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+import sg.edu.nus.iss.profile_service.model.Customer;
+import sg.edu.nus.iss.profile_service.model.DeliveryPartner;
+import sg.edu.nus.iss.profile_service.model.GeocodingStatus;
+import sg.edu.nus.iss.profile_service.model.LegacyPiiColumns;
+import sg.edu.nus.iss.profile_service.model.Merchant;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+import sg.edu.nus.iss.profile_service.model.PiiProfileEntity;
+import sg.edu.nus.iss.profile_service.util.EncryptedPii;
+import sg.edu.nus.iss.profile_service.util.EncryptionUtility;
+import sg.edu.nus.iss.profile_service.util.ParallelDecryptor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Bulk read path for the list endpoints. Rows are fetched with their ciphertext untouched and handed to
+ * {@link ParallelDecryptor} as one batch, instead of Hibernate decrypting field by field on the request thread.
+ * Queries use the same predicate as the {@code findAllByDeletedFalse} repository methods and keep their order.
+ */
+@Repository
+@Profile("!zapscan")
+public class ProfileBulkReader {
+
+    // Binary and legacy Base64 columns, each in PiiProfile field order, plus the sealed record used in row storage mode
+    private static final String PII_COLUMNS = String.join(", ", PiiProfile.BINARY_COLUMNS) + ", "
+            + String.join(", ", PiiProfile.LEGACY_COLUMNS) + ", pii_record";
+
+    private static final String CUSTOMER_SELECT = "SELECT customer_id, " + PII_COLUMNS
+            + ", latitude, longitude, geocoding_status, reward_points, email_blind_index, phone_blind_index FROM customer WHERE deleted = false";
+    private static final String MERCHANT_SELECT = "SELECT merchant_id, " + PII_COLUMNS
+            + ", latitude, longitude, geocoding_status, blacklisted, earnings, email_blind_index, phone_blind_index FROM merchant WHERE deleted = false";
+    private static final String DELIVERY_PARTNER_SELECT = "SELECT delivery_partner_id, " + PII_COLUMNS
+            + ", latitude, longitude, geocoding_status, blacklisted, email_blind_index, phone_blind_index FROM delivery_partner WHERE deleted = false";
+
+    private static final UUID LOWEST_UUID = new UUID(0L, 0L);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ParallelDecryptor parallelDecryptor;
+    // Read-only, so with read replicas configured these queries run on a replica
+    private final TransactionTemplate readOnlyTransactions;
+
+    // Rows held in memory at once by the streaming reads: one JDBC fetch, decrypted together
+    @Value("${profile.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    @Autowired
+    public ProfileBulkReader(JdbcTemplate jdbcTemplate, ParallelDecryptor parallelDecryptor,
+                             TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.parallelDecryptor = parallelDecryptor;
+        this.readOnlyTransactions = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactions.setReadOnly(true);
+    }
+
+    public List<Customer> findAllCustomers() {
+        return decrypt(query(CUSTOMER_SELECT, customerMapper()), PiiProfileEntity::replacePii);
+    }
+
+    public List<Merchant> findAllMerchants() {
+        return decrypt(query(MERCHANT_SELECT, merchantMapper()), PiiProfileEntity::replacePii);
+    }
+
+    public List<DeliveryPartner> findAllDeliveryPartners() {
+        return decrypt(query(DELIVERY_PARTNER_SELECT, deliveryPartnerMapper()), PiiProfileEntity::replacePii);
+    }
+
+    /**
+     * Hands every customer to the sink, in the same order as {@link #findAllCustomers()}, without materialising the
+     * table: rows are fetched from a server-side cursor and decrypted one fetch at a time.
+     */
+    public void streamAllCustomers(Consumer<? super Customer> sink) {
+        stream(CUSTOMER_SELECT, customerMapper(), PiiProfileEntity::replacePii, sink);
+    }
+
+    public void streamAllMerchants(Consumer<? super Merchant> sink) {
+        stream(MERCHANT_SELECT, merchantMapper(), PiiProfileEntity::replacePii, sink);
+    }
+
+    public void streamAllDeliveryPartners(Consumer<? super DeliveryPartner> sink) {
+        stream(DELIVERY_PARTNER_SELECT, deliveryPartnerMapper(), PiiProfileEntity::replacePii, sink);
+    }
+
+    /**
+     * Streams customers like {@link #streamAllCustomers(Consumer)}, but in id order and starting after
+     * {@code after}, so a long-running read can resume from the last id it handled.
+     */
+    public void streamCustomersAfter(UUID after, Consumer<? super Customer> sink) {
+        stream(CUSTOMER_SELECT + " AND customer_id > ? ORDER BY customer_id", customerMapper(),
+                PiiProfileEntity::replacePii, sink, seekFrom(after));
+    }
+
+    public void streamMerchantsAfter(UUID after, Consumer<? super Merchant> sink) {
+        stream(MERCHANT_SELECT + " AND merchant_id > ? ORDER BY merchant_id", merchantMapper(),
+                PiiProfileEntity::replacePii, sink, seekFrom(after));
+    }
+
+    public void streamDeliveryPartnersAfter(UUID after, Consumer<? super DeliveryPartner> sink) {
+        stream(DELIVERY_PARTNER_SELECT + " AND delivery_partner_id > ? ORDER BY delivery_partner_id", deliveryPartnerMapper(),
+                PiiProfileEntity::replacePii, sink, seekFrom(after));
+    }
+
+    /**
+     * Page of customers in id order. Without the order PostgreSQL may return rows in any order per query, and
+     * consecutive pages could repeat or skip rows.
+     */
+    public Page<Customer> findCustomers(Pageable pageable) {
+        List<Customer> content = decrypt(query(CUSTOMER_SELECT + " ORDER BY customer_id LIMIT ? OFFSET ?", customerMapper(),
+                pageable.getPageSize(), pageable.getOffset()), PiiProfileEntity::replacePii);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count("customer"));
+    }
+
+    public Page<Merchant> findMerchants(Pageable pageable) {
+        List<Merchant> content = decrypt(query(MERCHANT_SELECT + " ORDER BY merchant_id LIMIT ? OFFSET ?", merchantMapper(),
+                pageable.getPageSize(), pageable.getOffset()), PiiProfileEntity::replacePii);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count("merchant"));
+    }
+
+    public Page<DeliveryPartner> findDeliveryPartners(Pageable pageable) {
+        List<DeliveryPartner> content = decrypt(query(DELIVERY_PARTNER_SELECT + " ORDER BY delivery_partner_id LIMIT ? OFFSET ?", deliveryPartnerMapper(),
+                pageable.getPageSize(), pageable.getOffset()), PiiProfileEntity::replacePii);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count("delivery_partner"));
+    }
+
+    /**
+     * Keyset slice for the cursor-paginated list endpoints: up to {@code limit} customers with an id after
+     * {@code after}, in id order. Seeks through the primary key index and runs no count query.
+     */
+    public List<Customer> findCustomersAfter(UUID after, int limit) {
+        return decrypt(query(CUSTOMER_SELECT + " AND customer_id > ? ORDER BY customer_id LIMIT ?",
+                customerMapper(), seekFrom(after), limit), PiiProfileEntity::replacePii);
+    }
+
+    public List<Merchant> findMerchantsAfter(UUID after, int limit) {
+        return decrypt(query(MERCHANT_SELECT + " AND merchant_id > ? ORDER BY merchant_id LIMIT ?",
+                merchantMapper(), seekFrom(after), limit), PiiProfileEntity::replacePii);
+    }
+
+    public List<DeliveryPartner> findDeliveryPartnersAfter(UUID after, int limit) {
+        return decrypt(query(DELIVERY_PARTNER_SELECT + " AND delivery_partner_id > ? ORDER BY delivery_partner_id LIMIT ?",
+                deliveryPartnerMapper(), seekFrom(after), limit), PiiProfileEntity::replacePii);
+    }
+
+    // PostgreSQL orders uuids bytewise, so the all-zero uuid sorts before every stored id
+    private static UUID seekFrom(UUID after) {
+        return after != null ? after : LOWEST_UUID;
+    }
+
+    private long count(String table) {
+        Long count = readOnlyTransactions.execute(status ->
+                jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + " WHERE deleted = false", Long.class));
+        return count != null ? count : 0L;
+    }
+
+    private <T> List<T> query(String sql, RowMapper<T> mapper, Object... args) {
+        return readOnlyTransactions.execute(status -> jdbcTemplate.query(sql, mapper, args));
+    }
+
+    private <T> void stream(String sql, RowMapper<EncryptedRow<T>> mapper, BiConsumer<T, String[]> applyPii,
+                            Consumer<? super T> sink, Object... params) {
+        int fetchSize = Math.max(1, streamFetchSize);
+        // The PostgreSQL driver only honours the fetch size with autocommit off, so the cursor lives in a transaction
+        readOnlyTransactions.executeWithoutResult(status -> {
+            List<EncryptedRow<T>> fetched = new ArrayList<>(fetchSize);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]);
+                }
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                fetched.add(mapper.mapRow(rs, fetched.size()));
+                if (fetched.size() == fetchSize) {
+                    decrypt(fetched, applyPii).forEach(sink);
+                    fetched.clear();
+                }
+            });
+            decrypt(fetched, applyPii).forEach(sink);
+        });
+    }
+
+    private <T> List<T> decrypt(List<EncryptedRow<T>> rows, BiConsumer<T, String[]> applyPii) {
+        List<EncryptedPii> ciphertexts = new ArrayList<>(rows.size());
+        rows.forEach(row -> ciphertexts.add(row.pii()));
+        parallelDecryptor.decryptAll(ciphertexts);
+
+        List<T> profiles = new ArrayList<>(rows.size());
+        for (EncryptedRow<T> row : rows) {
+            applyPii.accept(row.profile(), row.pii().getValues());
+            profiles.add(row.profile());
+        }
+        return profiles;
+    }
+
+    private static RowMapper<EncryptedRow<Customer>> customerMapper() {
+        return (rs, rowNum) -> {
+            Customer customer = new Customer();
+            customer.setCustomerId(rs.getObject("customer_id", UUID.class));
+            customer.setLatitude(rs.getObject("latitude", Double.class));
+            customer.setLongitude(rs.getObject("longitude", Double.class));
+            customer.setGeocodingStatus(geocodingStatus(rs));
+            customer.setRewardPoints(rs.getBigDecimal("reward_points"));
+            customer.setEmailBlindIndex(rs.getString("email_blind_index"));
+            customer.setPhoneBlindIndex(rs.getString("phone_blind_index"));
+            return new EncryptedRow<>(customer, readPii(rs));
+        };
+    }
+
+    private static RowMapper<EncryptedRow<Merchant>> merchantMapper() {
+        return (rs, rowNum) -> {
+            Merchant merchant = new Merchant();
+            merchant.setMerchantId(rs.getObject("merchant_id", UUID.class));
+            merchant.setLatitude(rs.getObject("latitude", Double.class));
+            merchant.setLongitude(rs.getObject("longitude", Double.class));
+            merchant.setGeocodingStatus(geocodingStatus(rs));
+            merchant.setBlacklisted(rs.getBoolean("blacklisted"));
+            merchant.setEarnings(rs.getBigDecimal("earnings"));
+            merchant.setEmailBlindIndex(rs.getString("email_blind_index"));
+            merchant.setPhoneBlindIndex(rs.getString("phone_blind_index"));
+            return new EncryptedRow<>(merchant, readPii(rs));
+        };
+    }
+
+    private static RowMapper<EncryptedRow<DeliveryPartner>> deliveryPartnerMapper() {
+        return (rs, rowNum) -> {
+            DeliveryPartner deliveryPartner = new DeliveryPartner();
+            deliveryPartner.setDeliveryPartnerId(rs.getObject("delivery_partner_id", UUID.class));
+            deliveryPartner.setLatitude(rs.getObject("latitude", Double.class));
+            deliveryPartner.setLongitude(rs.getObject("longitude", Double.class));
+            deliveryPartner.setGeocodingStatus(geocodingStatus(rs));
+            deliveryPartner.setBlacklisted(rs.getBoolean("blacklisted"));
+            deliveryPartner.setEmailBlindIndex(rs.getString("email_blind_index"));
+            deliveryPartner.setPhoneBlindIndex(rs.getString("phone_blind_index"));
+            return new EncryptedRow<>(deliveryPartner, readPii(rs));
+        };
+    }
+
+    // Null on rows written before the status existed, as the entity reads them
+    private static GeocodingStatus geocodingStatus(ResultSet rs) throws SQLException {
+        String status = rs.getString("geocoding_status");
+        return status != null ? GeocodingStatus.valueOf(status) : null;
+    }
+
+    private static EncryptedPii readPii(ResultSet rs) throws SQLException {
+        byte[][] columns = new byte[PiiProfile.PII_FIELD_COUNT][];
+        // Same rule as PiiStorageListener: a row not yet moved to the binary columns still has text in a legacy column
+        boolean legacy = LegacyPiiColumns.present(rs);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = legacy
+                    ? EncryptionUtility.binaryFromBase64(rs.getString(PiiProfile.LEGACY_COLUMNS.get(i)))
+                    : rs.getBytes(PiiProfile.BINARY_COLUMNS.get(i));
+        }
+        return new EncryptedPii(columns, rs.getBytes("pii_record"));
+    }
+
+    private static final class EncryptedRow<T> {
+        private final T profile;
+        private final EncryptedPii pii;
+
+        private EncryptedRow(T profile, EncryptedPii pii) {
+            this.profile = profile;
+            this.pii = pii;
+        }
+
+        T profile() {
+            return profile;
+        }
+
+        EncryptedPii pii() {
+            return pii;
+        }
+    }
+}
@@ -2,14 +2,19 @@ package sg.edu.nus.iss.profile_service.service;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import sg.edu.nus.iss.profile_service.dto.BatchItemResultDTO;
+import sg.edu.nus.iss.profile_service.dto.ProfileSliceDTO;
 import sg.edu.nus.iss.profile_service.model.Profile;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface ProfileService {
     Profile createProfile(Profile profile);
+
+    List<BatchItemResultDTO> createProfiles(String type, List<? extends Profile> profiles);
     void updateProfile(Profile profile);
     void deleteProfile(UUID id);
     void blacklistProfile(UUID id);
@@ -19,8 +24,12 @@ public interface ProfileService {
 
     List<Profile> getProfilesByType(String type);
 
+    void streamProfilesByType(String type, Consumer<? super Profile> sink);
+
     Page<Profile> getProfilesWithPagination(String type, Pageable pageable);
 
+    ProfileSliceDTO getProfilesAfter(String type, UUID after, int size);
+
     Optional<Profile> getProfileByEmailAddress(String email, String type);
 
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.hibernate.annotations.Immutable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores an encrypted attribute as raw binary in a {@code bytea} column: a format byte followed by IV, ciphertext
+ * and tag, about a quarter smaller than the Base64 text the columns held before and with no encoding pass.
+ */
+@Converter
+@Component
+@Immutable
+public class BinaryEncryptionConverter implements AttributeConverter<EncryptedString, byte[]> {
+
+    public static final String ROW_MODE = "row";
+
+    private final EncryptionUtility encryptionService;
+    private final boolean rowMode;
+
+    @Autowired
+    public BinaryEncryptionConverter(EncryptionUtility encryptionService, @Value("${encryption.storage-mode:column}") String storageMode) {
+        this.encryptionService = encryptionService;
+        this.rowMode = ROW_MODE.equalsIgnoreCase(storageMode);
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(EncryptedString attribute) {
+        // In row mode the values live in the sealed PII record written by PiiStorageListener
+        if (attribute == null || rowMode) {
+            return null;
+        }
+        return attribute.toCiphertext(encryptionService);
+    }
+
+    @Override
+    public EncryptedString convertToEntityAttribute(byte[] dbData) {
+        // Decryption is deferred until the entity getter asks for the plaintext
+        return EncryptedString.ofCiphertext(dbData, encryptionService);
+    }
+}
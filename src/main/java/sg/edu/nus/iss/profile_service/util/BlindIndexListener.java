@@ -0,0 +1,37 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+
+/**
+ * Keeps the email and phone blind-index columns in step with the plaintext values before every insert and update.
+ * Rows whose email and phone were loaded and not changed are skipped, so updates such as reward points or
+ * blacklisting don't decrypt anything.
+ */
+@Component
+public class BlindIndexListener {
+
+    private final BlindIndexUtility blindIndexUtility;
+
+    @Autowired
+    public BlindIndexListener(BlindIndexUtility blindIndexUtility) {
+        this.blindIndexUtility = blindIndexUtility;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void updateBlindIndexes(Object entity) {
+        if (!(entity instanceof PiiProfile)) {
+            return;
+        }
+        PiiProfile profile = (PiiProfile) entity;
+        if (!profile.isBlindIndexStale()) {
+            return;
+        }
+        profile.setEmailBlindIndex(blindIndexUtility.emailIndex(profile.getEmailAddress()));
+        profile.setPhoneBlindIndex(blindIndexUtility.phoneIndex(profile.getPhoneNumber()));
+    }
+}
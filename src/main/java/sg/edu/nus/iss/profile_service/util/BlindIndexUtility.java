@@ -0,0 +1,87 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Computes keyed HMAC-SHA256 blind indexes so encrypted columns can be matched with plain equality.
+ * The HMAC key is derived from the configured key with a fixed label, so it never equals the AES key.
+ */
+@Service
+public class BlindIndexUtility {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte[] KEY_LABEL = "profile-service/blind-index/v1".getBytes(StandardCharsets.UTF_8);
+
+    private final SecretKeySpec indexKey;
+
+    // Mac instances are not thread-safe, so each index borrows one from a bounded pool, like the ciphers in
+    // EncryptionUtility; doFinal leaves it reset for the next caller
+    static final int MAC_POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+    private final BlockingQueue<Mac> macs = new ArrayBlockingQueue<>(MAC_POOL_SIZE);
+
+    public BlindIndexUtility(@Value("${encryption.blind-index-key:${encryption.key}}") String blindIndexKey) {
+        this.indexKey = blindIndexKey == null || blindIndexKey.isEmpty() ? null : deriveKey(blindIndexKey);
+    }
+
+    public String emailIndex(String email) {
+        if (email == null) {
+            return null;
+        }
+        return index(email.trim().toLowerCase(Locale.ROOT));
+    }
+
+    public String phoneIndex(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        // Keep digits only so "+65 6123-4567" and "+6561234567" share an index
+        String digits = phoneNumber.replaceAll("[^0-9]", "");
+        return digits.isEmpty() ? null : index(digits);
+    }
+
+    private String index(String normalized) {
+        Mac mac = macs.poll();
+        if (mac == null) {
+            mac = newMac();
+        }
+        byte[] digest;
+        try {
+            digest = mac.doFinal(normalized.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            macs.offer(mac);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    private Mac newMac() {
+        if (indexKey == null) {
+            throw new IllegalStateException("Blind index key is not configured");
+        }
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(indexKey);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error initialising blind index MAC", e);
+        }
+    }
+
+    private static SecretKeySpec deriveKey(String configuredKey) {
+        try {
+            Mac kdf = Mac.getInstance(ALGORITHM);
+            kdf.init(new SecretKeySpec(configuredKey.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            return new SecretKeySpec(kdf.doFinal(KEY_LABEL), ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error deriving blind index key", e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many threads hold a database connection at once. With virtual threads every request gets its own
+ * thread, so thousands of them can be waiting for a pool of a few dozen connections; here they queue in arrival
+ * order on a fair semaphore sized to the pool instead of contending inside it, and give up with a
+ * {@link SQLTransientConnectionException} after {@code acquireTimeout}. A permit is held from
+ * {@link #getConnection()} until the connection is closed. Wraps a single pool: the {@code db.concurrency.*}
+ * gauges are tagged with its {@code name}.
+ */
+public class BoundedDataSource extends DelegatingDataSource implements MeterBinder {
+
+    private final String name;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutNanos;
+
+    public BoundedDataSource(DataSource targetDataSource, String name, int maxConcurrency, Duration acquireTimeout) {
+        super(targetDataSource);
+        this.name = name;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.permits = new Semaphore(this.maxConcurrency, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        return bound(this::obtainTargetConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        return bound(() -> obtainTargetDataSource().getConnection(username, password));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("db.concurrency.active", this, BoundedDataSource::getActive)
+                .description("Threads holding a database connection slot")
+                .tag("pool", name)
+                .register(registry);
+        Gauge.builder("db.concurrency.waiting", this, BoundedDataSource::getWaiting)
+                .description("Threads queued for a database connection slot")
+                .tag("pool", name)
+                .register(registry);
+        Gauge.builder("db.concurrency.max", this, BoundedDataSource::getMaxConcurrency)
+                .description("Database connection slots")
+                .tag("pool", name)
+                .register(registry);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getActive() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    private Connection obtainTargetConnection() throws SQLException {
+        return obtainTargetDataSource().getConnection();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("No " + name + " connection slot free within "
+                        + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + " ms (" + getWaiting() + " waiting)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a database connection slot", e);
+        }
+    }
+
+    private Connection bound(ConnectionSupplier supplier) throws SQLException {
+        Connection target;
+        try {
+            target = supplier.get();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return (Connection) Proxy.newProxyInstance(BoundedDataSource.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new ReleasingHandler(target));
+    }
+
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    /**
+     * Hands every call to the pooled connection and gives the permit back on the first close.
+     */
+    private final class ReleasingHandler implements InvocationHandler {
+        private final Connection target;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReleasingHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            } finally {
+                if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+}
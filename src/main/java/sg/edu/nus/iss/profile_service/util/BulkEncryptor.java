@@ -0,0 +1,76 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Encrypts the PII of new profiles ahead of a batched insert, splitting them into chunks that run on a bounded
+ * fork-join pool. Column values keep their ciphertext for {@link BinaryEncryptionConverter}, and in row mode the
+ * sealed record is set for {@link PiiStorageListener}, so the flush itself encrypts nothing. The write-side
+ * counterpart of {@link ParallelDecryptor}.
+ */
+@Component
+public class BulkEncryptor {
+
+    private final EncryptionUtility encryptionUtility;
+    private final PiiRecordCodec piiRecordCodec;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final boolean rowMode;
+
+    @Autowired
+    public BulkEncryptor(EncryptionUtility encryptionUtility, PiiRecordCodec piiRecordCodec,
+                         @Value("${encryption.bulk.parallelism:0}") int parallelism,
+                         @Value("${encryption.bulk.chunk-size:64}") int chunkSize,
+                         @Value("${encryption.storage-mode:column}") String storageMode) {
+        this.encryptionUtility = encryptionUtility;
+        this.piiRecordCodec = piiRecordCodec;
+        this.rowMode = BinaryEncryptionConverter.ROW_MODE.equalsIgnoreCase(storageMode);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public void encryptAll(List<? extends PiiProfile> profiles) {
+        if (profiles.size() <= chunkSize) {
+            profiles.forEach(this::encrypt);
+            return;
+        }
+        List<ForkJoinTask<?>> chunks = new ArrayList<>();
+        for (int from = 0; from < profiles.size(); from += chunkSize) {
+            List<? extends PiiProfile> chunk = profiles.subList(from, Math.min(from + chunkSize, profiles.size()));
+            chunks.add(pool.submit(() -> chunk.forEach(this::encrypt)));
+        }
+        chunks.forEach(ForkJoinTask::join);
+    }
+
+    private void encrypt(PiiProfile profile) {
+        EncryptedString[] values = profile.encryptedPii();
+        if (rowMode) {
+            String[] plaintext = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                plaintext[i] = EncryptedString.plaintextOf(values[i]);
+            }
+            profile.setPiiRecord(piiRecordCodec.seal(plaintext));
+            profile.markPiiSealed();
+            return;
+        }
+        for (EncryptedString value : values) {
+            if (value != null) {
+                value.toCiphertext(encryptionUtility);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,137 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Count-based circuit breaker. While closed it records the outcome of the last {@code windowSize} calls and opens
+ * once at least {@code minimumCalls} were recorded and the failure rate reaches the threshold. While open every call
+ * is refused until {@code openDuration} has passed; it then lets {@code halfOpenCalls} trial calls through, closing
+ * again when all of them succeed and reopening on the first failure.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    // Ring buffer of the last outcomes while closed, true for a failure
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final Counter notPermitted;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold, Duration openDuration,
+                          int halfOpenCalls, MeterRegistry meterRegistry) {
+        this.outcomes = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, outcomes.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        for (State each : State.values()) {
+            Gauge.builder("circuit.breaker.state", this, breaker -> breaker.getState() == each ? 1 : 0)
+                    .description("1 for the state the circuit breaker is in, 0 for the others")
+                    .tag("name", name)
+                    .tag("state", each.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        this.notPermitted = Counter.builder("circuit.breaker.not.permitted")
+                .description("Calls refused because the circuit breaker was open")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns whether a call may go ahead; every permitted call must report back through {@link #onSuccess()} or
+     * {@link #onFailure()}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                notPermitted.increment();
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                notPermitted.increment();
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                state = State.CLOSED;
+                clearWindow();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+        // Calls that were let through before the circuit opened report late and are ignored
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        clearWindow();
+    }
+
+    private void clearWindow() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
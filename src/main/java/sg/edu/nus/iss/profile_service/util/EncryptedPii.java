@@ -0,0 +1,34 @@
+package sg.edu.nus.iss.profile_service.util;
+
+/**
+ * The encrypted PII of one row as read by the bulk path: either per-column binary ciphertexts or a sealed row
+ * record.
+ * {@link ParallelDecryptor} fills in the plaintext values.
+ */
+public class EncryptedPii {
+
+    private final byte[][] columns;
+    private final byte[] record;
+    private String[] values;
+
+    public EncryptedPii(byte[][] columns, byte[] record) {
+        this.columns = columns;
+        this.record = record;
+    }
+
+    public byte[][] getColumns() {
+        return columns;
+    }
+
+    public byte[] getRecord() {
+        return record;
+    }
+
+    public String[] getValues() {
+        return values;
+    }
+
+    void setValues(String[] values) {
+        this.values = values;
+    }
+}
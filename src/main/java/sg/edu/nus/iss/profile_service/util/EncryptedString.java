@@ -0,0 +1,125 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import org.hibernate.annotations.Immutable;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Value held by an encrypted entity attribute. A value loaded from the database keeps its ciphertext (or a handle
+ * on its row's PII record) and is only decrypted the first time its plaintext is read; the plaintext is then
+ * memoized for the life of the entity. A value set by application code starts from plaintext and is encrypted
+ * once, when it is first written. Equality is by plaintext, so Hibernate only sees a change when the actual
+ * value changes; equal ciphertexts and already decrypted values are compared without decrypting, and only
+ * {@link #hashCode()} always needs the plaintext, which is why the entities leave these values out of their own
+ * equals and hashCode.
+ */
+@Immutable
+public final class EncryptedString {
+
+    private final Supplier<String> source;
+    private final boolean loaded;
+    private volatile byte[] ciphertext;
+    private volatile String plaintext;
+    private volatile boolean decrypted;
+
+    private EncryptedString(byte[] ciphertext, String plaintext, Supplier<String> source, boolean loaded) {
+        this.ciphertext = ciphertext;
+        this.plaintext = plaintext;
+        this.source = source;
+        this.loaded = loaded;
+        this.decrypted = source == null;
+    }
+
+    /**
+     * A value loaded from a binary ciphertext column, see {@link EncryptionUtility#encryptBinary(String)}.
+     */
+    public static EncryptedString ofCiphertext(byte[] ciphertext, EncryptionUtility encryptionUtility) {
+        return ciphertext == null ? null
+                : new EncryptedString(ciphertext, null, () -> encryptionUtility.decryptBinary(ciphertext), true);
+    }
+
+    /**
+     * A value loaded from a row-level PII record; {@code source} opens the shared record on first access.
+     */
+    public static EncryptedString ofRecord(Supplier<String> source) {
+        return new EncryptedString(null, null, source, true);
+    }
+
+    public static EncryptedString ofPlaintext(String plaintext) {
+        return plaintext == null ? null : new EncryptedString(null, plaintext, null, false);
+    }
+
+    /**
+     * Null-safe plaintext accessor for entity getters.
+     */
+    public static String plaintextOf(EncryptedString value) {
+        return value == null ? null : value.getPlaintext();
+    }
+
+    /**
+     * True when the value was set by application code and has not been written yet.
+     */
+    public static boolean isChanged(EncryptedString value) {
+        return value != null && !value.loaded && value.ciphertext == null;
+    }
+
+    public String getPlaintext() {
+        if (!decrypted) {
+            synchronized (this) {
+                if (!decrypted) {
+                    plaintext = source.get();
+                    decrypted = true;
+                }
+            }
+        }
+        return plaintext;
+    }
+
+    /**
+     * Returns the stored ciphertext, encrypting the plaintext on first use. Unchanged values loaded from the
+     * database are written back as-is, without another encryption, unless they are under a key that is no
+     * longer the active one.
+     */
+    public byte[] toCiphertext(EncryptionUtility encryptionUtility) {
+        byte[] current = ciphertext;
+        if (current == null || !encryptionUtility.isActiveKey(current)) {
+            current = encryptionUtility.encryptBinary(getPlaintext());
+            ciphertext = current;
+        }
+        return current;
+    }
+
+    public boolean isDecrypted() {
+        return decrypted;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EncryptedString)) {
+            return false;
+        }
+        EncryptedString other = (EncryptedString) o;
+        // Same stored ciphertext means same plaintext, without decrypting either side
+        byte[] storedCiphertext = ciphertext;
+        if (storedCiphertext != null && Arrays.equals(storedCiphertext, other.ciphertext)) {
+            return true;
+        }
+        // Ciphertexts differ for equal plaintexts (random IVs), so only the plaintexts can tell
+        return Objects.equals(getPlaintext(), other.getPlaintext());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getPlaintext());
+    }
+
+    @Override
+    public String toString() {
+        return "****";
+    }
+}
@@ -1,5 +1,6 @@
 package sg.edu.nus.iss.profile_service.util;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import javax.crypto.Cipher;
@@ -7,74 +8,266 @@ import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
+/**
+ * AES-GCM encryption with versioned keys. {@code encryption.key} is key version 1; further versions come from
+ * {@code encryption.keyring} as {@code version:key} pairs, and {@code encryption.active-key-version} picks the
+ * one new ciphertexts are written with. Every binary ciphertext names its key version in its header, so data
+ * written under any configured key stays readable while a rotation is in progress.
+ */
 @Service
 public class EncryptionUtility {
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
     private static final int GCM_IV_LENGTH = 12;
     private static final int GCM_TAG_LENGTH = 16;
-    private final String encryptionKey;
 
-    public EncryptionUtility(@Value("${encryption.key}") String encryptionKey) {
-        this.encryptionKey = encryptionKey;
+    // Leading byte of every binary ciphertext, so the stored layout can change without guessing from the bytes.
+    // V1: format byte, IV, ciphertext and tag, always under key version 1.
+    public static final byte BINARY_FORMAT_V1 = 1;
+    // V2: format byte, key version byte, IV, ciphertext and tag; the two header bytes are authenticated as AAD
+    public static final byte BINARY_FORMAT_V2 = 2;
+    private static final int V2_HEADER_LENGTH = 2;
+
+    public static final int LEGACY_KEY_VERSION = 1;
+    private static final int MAX_KEY_VERSION = 255;
+
+    // Shared IV source; NativePRNGNonBlocking reads /dev/urandom so IV generation never stalls on entropy
+    private static final SecureRandom IV_SOURCE = createIvSource();
+
+    // Indexed by key version; null where no key is configured
+    private final SecretKey[] keys = new SecretKey[MAX_KEY_VERSION + 1];
+    private final int activeKeyVersion;
+
+    // Cipher instances are not thread-safe, so each call borrows one, re-inits it and hands it back. A shared pool
+    // rather than one per thread: with a virtual thread per request, per-thread ciphers would be built for every
+    // request and never reused. Encryption is CPU-bound, so a couple per core cover the callers that can run at
+    // once; a caller finding none idle creates one, and ciphers handed back to a full pool are dropped.
+    static final int CIPHER_POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+    private final BlockingQueue<Cipher> ciphers = new ArrayBlockingQueue<>(CIPHER_POOL_SIZE);
+
+    public EncryptionUtility(String encryptionKey) {
+        this(encryptionKey, "", LEGACY_KEY_VERSION);
+    }
+
+    @Autowired
+    public EncryptionUtility(@Value("${encryption.key}") String encryptionKey,
+                             @Value("${encryption.keyring:}") String keyring,
+                             @Value("${encryption.active-key-version:1}") int activeKeyVersion) {
+        // An empty key (e.g. the zapscan profile) only fails once something is actually encrypted
+        keys[LEGACY_KEY_VERSION] = toKey(encryptionKey);
+        if (keyring != null && !keyring.isBlank()) {
+            for (String entry : keyring.split(",")) {
+                int separator = entry.indexOf(':');
+                if (separator < 0) {
+                    throw new IllegalStateException("encryption.keyring entries must look like version:key");
+                }
+                int version = Integer.parseInt(entry.substring(0, separator).trim());
+                if (version <= LEGACY_KEY_VERSION || version > MAX_KEY_VERSION) {
+                    throw new IllegalStateException("Key versions in encryption.keyring must be between 2 and " + MAX_KEY_VERSION);
+                }
+                keys[version] = toKey(entry.substring(separator + 1).trim());
+            }
+        }
+        if (activeKeyVersion < LEGACY_KEY_VERSION || activeKeyVersion > MAX_KEY_VERSION
+                || (activeKeyVersion != LEGACY_KEY_VERSION && keys[activeKeyVersion] == null)) {
+            throw new IllegalStateException("No key configured for active key version " + activeKeyVersion);
+        }
+        this.activeKeyVersion = activeKeyVersion;
     }
 
+    /**
+     * Encrypts into the legacy Base64 text layout, which carries no header and is always under key version 1.
+     */
     public String encrypt(String data) {
         if (data == null) {
             return null;
         }
+        return Base64.getEncoder().encodeToString(seal(keyFor(LEGACY_KEY_VERSION), data.getBytes(StandardCharsets.UTF_8), 0));
+    }
 
+    /**
+     * Reverses {@link #encrypt(String)}.
+     */
+    public String decrypt(String encryptedData) {
+        if (encryptedData == null) {
+            return null;
+        }
+        byte[] combined;
         try {
-            SecretKey secretKey = new SecretKeySpec(encryptionKey.getBytes(StandardCharsets.UTF_8), "AES");
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-
-            // Generate random IV for GCM mode
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            SecureRandom random = new SecureRandom();
-            random.nextBytes(iv);
-
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
-
-            byte[] encryptedBytes = cipher.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            combined = Base64.getDecoder().decode(encryptedData);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Error decrypting data", e);
+        }
+        return new String(open(keyFor(LEGACY_KEY_VERSION), combined, 0), StandardCharsets.UTF_8);
+    }
 
-            // Combine IV and encrypted data
-            byte[] combined = new byte[iv.length + encryptedBytes.length];
-            System.arraycopy(iv, 0, combined, 0, iv.length);
-            System.arraycopy(encryptedBytes, 0, combined, iv.length, encryptedBytes.length);
+    /**
+     * Encrypts a string into the binary column format under the active key.
+     */
+    public byte[] encryptBinary(String data) {
+        if (data == null) {
+            return null;
+        }
+        return encryptBytes(data.getBytes(StandardCharsets.UTF_8));
+    }
 
-            return Base64.getEncoder().encodeToString(combined);
-        } catch (Exception e) {
-            throw new RuntimeException("Error encrypting data", e);
+    /**
+     * Reverses {@link #encryptBinary(String)}, whichever configured key the value was written under.
+     */
+    public String decryptBinary(byte[] binary) {
+        if (binary == null) {
+            return null;
         }
+        return new String(decryptBytes(binary), StandardCharsets.UTF_8);
     }
 
-    public String decrypt(String encryptedData) {
+    /**
+     * Re-frames a Base64 value produced by {@link #encrypt(String)} in the binary column format. Nothing is
+     * decrypted; the IV, ciphertext and tag are carried over unchanged.
+     */
+    public static byte[] binaryFromBase64(String encryptedData) {
         if (encryptedData == null) {
             return null;
         }
-
+        byte[] combined;
         try {
-            SecretKey secretKey = new SecretKeySpec(encryptionKey.getBytes(StandardCharsets.UTF_8), "AES");
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            combined = Base64.getDecoder().decode(encryptedData);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Error decrypting data", e);
+        }
+        byte[] binary = new byte[combined.length + 1];
+        binary[0] = BINARY_FORMAT_V1;
+        System.arraycopy(combined, 0, binary, 1, combined.length);
+        return binary;
+    }
 
-            // Decode from Base64
-            byte[] combined = Base64.getDecoder().decode(encryptedData);
+    /**
+     * Encrypts raw bytes under the active key and returns the V2 header followed by IV, ciphertext and tag.
+     */
+    public byte[] encryptBytes(byte[] plaintext) {
+        byte[] binary = seal(keyFor(activeKeyVersion), plaintext, V2_HEADER_LENGTH);
+        binary[0] = BINARY_FORMAT_V2;
+        binary[1] = (byte) activeKeyVersion;
+        return binary;
+    }
 
-            // Extract IV and ciphertext
+    /**
+     * Reverses {@link #encryptBytes(byte[])}, selecting the key from the header and reading it all in place.
+     */
+    public byte[] decryptBytes(byte[] binary) {
+        int format = binary.length == 0 ? 0 : binary[0];
+        if (format == BINARY_FORMAT_V1) {
+            return open(keyFor(LEGACY_KEY_VERSION), binary, 1);
+        }
+        if (format == BINARY_FORMAT_V2 && binary.length > V2_HEADER_LENGTH) {
+            return open(keyFor(binary[1] & 0xFF), binary, V2_HEADER_LENGTH);
+        }
+        throw new RuntimeException("Error decrypting data", new IllegalArgumentException("Unsupported ciphertext format"));
+    }
+
+    /**
+     * True when the ciphertext is already under the active key and does not need rewriting.
+     */
+    public boolean isActiveKey(byte[] binary) {
+        return binary.length > V2_HEADER_LENGTH && binary[0] == BINARY_FORMAT_V2 && (binary[1] & 0xFF) == activeKeyVersion;
+    }
+
+    /**
+     * Returns the ciphertext under the active key, re-encrypting it only when it was written under another one.
+     */
+    public byte[] reEncrypt(byte[] binary) {
+        if (binary == null || isActiveKey(binary)) {
+            return binary;
+        }
+        return encryptBytes(decryptBytes(binary));
+    }
+
+    public int getActiveKeyVersion() {
+        return activeKeyVersion;
+    }
+
+    // Encrypts into a buffer that leaves headerLength bytes free at the front for the caller. A V2 header is
+    // bound to the ciphertext as additional authenticated data, so a tampered key version fails decryption.
+    private byte[] seal(SecretKey key, byte[] plaintext, int headerLength) {
+        Cipher cipher = borrowCipher();
+        try {
+            // Generate random IV for GCM mode
             byte[] iv = new byte[GCM_IV_LENGTH];
-            byte[] ciphertext = new byte[combined.length - GCM_IV_LENGTH];
-            System.arraycopy(combined, 0, iv, 0, iv.length);
-            System.arraycopy(combined, iv.length, ciphertext, 0, ciphertext.length);
+            IV_SOURCE.nextBytes(iv);
 
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
+            if (headerLength == V2_HEADER_LENGTH) {
+                cipher.updateAAD(new byte[] {BINARY_FORMAT_V2, (byte) activeKeyVersion});
+            }
+
+            // Write IV and ciphertext into one buffer instead of concatenating afterwards
+            int offset = headerLength + GCM_IV_LENGTH;
+            byte[] combined = new byte[offset + cipher.getOutputSize(plaintext.length)];
+            System.arraycopy(iv, 0, combined, headerLength, GCM_IV_LENGTH);
+            cipher.doFinal(plaintext, 0, plaintext.length, combined, offset);
+            return combined;
+        } catch (Exception e) {
+            throw new RuntimeException("Error encrypting data", e);
+        } finally {
+            ciphers.offer(cipher);
+        }
+    }
 
-            byte[] decryptedBytes = cipher.doFinal(ciphertext);
-            return new String(decryptedBytes, StandardCharsets.UTF_8);
+    private byte[] open(SecretKey key, byte[] combined, int headerLength) {
+        Cipher cipher = borrowCipher();
+        try {
+            int offset = headerLength + GCM_IV_LENGTH;
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH * 8, combined, headerLength, GCM_IV_LENGTH));
+            if (headerLength == V2_HEADER_LENGTH) {
+                cipher.updateAAD(combined, 0, V2_HEADER_LENGTH);
+            }
+            return cipher.doFinal(combined, offset, combined.length - offset);
         } catch (Exception e) {
             throw new RuntimeException("Error decrypting data", e);
+        } finally {
+            ciphers.offer(cipher);
+        }
+    }
+
+    private SecretKey keyFor(int version) {
+        SecretKey key = keys[version];
+        if (key == null) {
+            throw new IllegalStateException("No encryption key configured for key version " + version);
+        }
+        return key;
+    }
+
+    private static SecretKey toKey(String encryptionKey) {
+        return encryptionKey == null || encryptionKey.isEmpty()
+                ? null
+                : new SecretKeySpec(encryptionKey.getBytes(StandardCharsets.UTF_8), "AES");
+    }
+
+    private Cipher borrowCipher() {
+        Cipher cipher = ciphers.poll();
+        return cipher != null ? cipher : newCipher();
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/GCM cipher is not available", e);
+        }
+    }
+
+    private static SecureRandom createIvSource() {
+        try {
+            return SecureRandom.getInstance("NativePRNGNonBlocking");
+        } catch (NoSuchAlgorithmException e) {
+            // Non-Unix platforms don't ship NativePRNG; the default provider is non-blocking there too
+            return new SecureRandom();
         }
     }
-}
\ No newline at end of file
+}
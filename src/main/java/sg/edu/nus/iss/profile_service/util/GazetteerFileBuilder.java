@@ -0,0 +1,94 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds the binary gazetteer file read by {@code OfflineGazetteer} from a {@code pincode,lat,lng} CSV.
+ * Run through the {@code gazetteer} Maven profile, or directly with the CSV and output paths as arguments.
+ *
+ * <p>File layout, big-endian: the magic bytes {@code PGAZ}, a format version int, an entry count int, then the
+ * sorted pincodes, the latitudes and the longitudes as three int sections of that length. Coordinates are stored
+ * in microdegrees, which is well under a metre of precision.
+ */
+public final class GazetteerFileBuilder {
+
+    public static final byte[] MAGIC = {'P', 'G', 'A', 'Z'};
+    public static final int FORMAT_VERSION = 1;
+    public static final double MICRODEGREES = 1_000_000d;
+
+    private GazetteerFileBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: GazetteerFileBuilder <pincodes.csv> <output.bin>");
+        }
+        Path output = Path.of(args[1]);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        int count = build(Path.of(args[0]), output);
+        System.out.printf("Wrote %d pincodes to %s%n", count, output);
+    }
+
+    /**
+     * Reads the CSV, sorts it by pincode and writes the binary file. A header line and blank lines are skipped;
+     * when a pincode appears twice the first row wins.
+     */
+    public static int build(Path csv, Path output) throws IOException {
+        Map<Integer, double[]> entries = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] fields = line.trim().split(",");
+                if (fields.length < 3 || !fields[0].trim().matches("[0-9]{6}")) {
+                    if (lineNumber == 1 || line.isBlank()) {
+                        continue;
+                    }
+                    throw new IllegalArgumentException("Malformed gazetteer line " + lineNumber + ": " + line);
+                }
+                entries.putIfAbsent(Integer.parseInt(fields[0].trim()),
+                        new double[] {Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[2].trim())});
+            }
+        }
+
+        int[] pincodes = new int[entries.size()];
+        int[] latitudes = new int[entries.size()];
+        int[] longitudes = new int[entries.size()];
+        int i = 0;
+        for (Map.Entry<Integer, double[]> entry : entries.entrySet()) {
+            pincodes[i] = entry.getKey();
+            latitudes[i] = (int) Math.round(entry.getValue()[0] * MICRODEGREES);
+            longitudes[i] = (int) Math.round(entry.getValue()[1] * MICRODEGREES);
+            i++;
+        }
+        write(output, pincodes, latitudes, longitudes);
+        return pincodes.length;
+    }
+
+    private static void write(Path output, int[] pincodes, int[] latitudes, int[] longitudes) throws IOException {
+        try (OutputStream file = Files.newOutputStream(output);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.write(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(pincodes.length);
+            for (int[] section : Arrays.asList(pincodes, latitudes, longitudes)) {
+                for (int value : section) {
+                    out.writeInt(value);
+                }
+            }
+        }
+    }
+}
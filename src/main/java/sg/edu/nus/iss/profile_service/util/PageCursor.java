@@ -0,0 +1,40 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque cursor of the keyset-paginated list endpoints. It carries the sort key and the last id of the previous
+ * slice, Base64url-encoded so clients treat it as a token rather than something to build themselves.
+ */
+public final class PageCursor {
+
+    // Slices are ordered by primary key only; a different key would need its value carried next to the id
+    private static final String SORT_KEY = "id";
+    private static final String SEPARATOR = ":";
+
+    private PageCursor() {
+    }
+
+    public static String encode(UUID lastId) {
+        String cursor = SORT_KEY + SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the last id carried by the cursor, or null for a blank cursor, which starts at the first slice.
+     *
+     * @throws IllegalArgumentException when the cursor was not produced by {@link #encode(UUID)}
+     */
+    public static UUID decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (!decoded.startsWith(SORT_KEY + SEPARATOR)) {
+            throw new IllegalArgumentException("Unsupported page cursor");
+        }
+        return UUID.fromString(decoded.substring(SORT_KEY.length() + SEPARATOR.length()));
+    }
+}
@@ -0,0 +1,104 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Decrypts the encrypted columns of many rows at once, splitting the rows into chunks that run on a bounded
+ * fork-join pool. Each row's plaintext is attached to its own {@link EncryptedPii}, so callers keep the order
+ * they fetched the rows in. Bulk registrations encrypt the other way round with {@link BulkEncryptor}.
+ */
+@Component
+public class ParallelDecryptor {
+
+    private final EncryptionUtility encryptionUtility;
+    private final PiiRecordCodec piiRecordCodec;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    private final Counter rowsDecrypted;
+    private final Counter bytesDecrypted;
+    private final Timer batchTimer;
+
+    @Autowired
+    public ParallelDecryptor(EncryptionUtility encryptionUtility, PiiRecordCodec piiRecordCodec, MeterRegistry meterRegistry,
+                             @Value("${decryption.parallelism:0}") int parallelism,
+                             @Value("${decryption.chunk-size:128}") int chunkSize) {
+        this.encryptionUtility = encryptionUtility;
+        this.piiRecordCodec = piiRecordCodec;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.chunkSize = Math.max(1, chunkSize);
+        this.rowsDecrypted = Counter.builder("profile.decryption.rows")
+                .description("Rows decrypted by the bulk read path")
+                .register(meterRegistry);
+        this.bytesDecrypted = Counter.builder("profile.decryption.bytes")
+                .description("Stored ciphertext bytes decrypted by the bulk read path")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("profile.decryption.batch")
+                .description("Time spent decrypting one bulk read")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Decrypts every row, opening its sealed record when it has one and its per-column ciphertexts otherwise.
+     * Null cells stay null.
+     */
+    public void decryptAll(List<EncryptedPii> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        batchTimer.record(() -> {
+            if (rows.size() <= chunkSize) {
+                decryptRange(rows, 0, rows.size());
+                return;
+            }
+            List<ForkJoinTask<?>> chunks = new ArrayList<>();
+            for (int from = 0; from < rows.size(); from += chunkSize) {
+                int start = from;
+                int end = Math.min(from + chunkSize, rows.size());
+                chunks.add(pool.submit(() -> decryptRange(rows, start, end)));
+            }
+            chunks.forEach(ForkJoinTask::join);
+        });
+    }
+
+    private void decryptRange(List<EncryptedPii> rows, int from, int to) {
+        long bytes = 0;
+        for (int i = from; i < to; i++) {
+            EncryptedPii row = rows.get(i);
+            byte[] record = row.getRecord();
+            if (record != null) {
+                bytes += record.length;
+                row.setValues(piiRecordCodec.open(record, row.getColumns().length));
+                continue;
+            }
+            byte[][] columns = row.getColumns();
+            String[] values = new String[columns.length];
+            for (int column = 0; column < columns.length; column++) {
+                if (columns[column] != null) {
+                    bytes += columns[column].length;
+                    values[column] = encryptionUtility.decryptBinary(columns[column]);
+                }
+            }
+            row.setValues(values);
+        }
+        rowsDecrypted.increment(to - from);
+        bytesDecrypted.increment(bytes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,79 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Packs all PII fields of a profile into one compact binary record and seals it with a single AES-GCM operation,
+ * so a row carries one IV and one tag instead of one per column.
+ *
+ * <p>Record layout before encryption: a format byte, then per field a varint of {@code length + 1}
+ * ({@code 0} for null) followed by the UTF-8 bytes.
+ */
+@Component
+public class PiiRecordCodec {
+
+    private static final byte FORMAT_V1 = 1;
+
+    private final EncryptionUtility encryptionUtility;
+
+    @Autowired
+    public PiiRecordCodec(EncryptionUtility encryptionUtility) {
+        this.encryptionUtility = encryptionUtility;
+    }
+
+    public byte[] seal(String[] values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        out.write(FORMAT_V1);
+        for (String value : values) {
+            if (value == null) {
+                writeVarint(out, 0);
+                continue;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, bytes.length + 1);
+            out.write(bytes, 0, bytes.length);
+        }
+        return encryptionUtility.encryptBytes(out.toByteArray());
+    }
+
+    public String[] open(byte[] record, int fieldCount) {
+        byte[] plain = encryptionUtility.decryptBytes(record);
+        if (plain.length == 0 || plain[0] != FORMAT_V1) {
+            throw new IllegalStateException("Unsupported PII record format");
+        }
+        String[] values = new String[fieldCount];
+        int[] position = {1};
+        for (int i = 0; i < fieldCount; i++) {
+            int length = readVarint(plain, position) - 1;
+            if (length >= 0) {
+                values[i] = new String(plain, position[0], length, StandardCharsets.UTF_8);
+                position[0] += length;
+            }
+        }
+        return values;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] buffer, int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer[position[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,119 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sg.edu.nus.iss.profile_service.model.LegacyPiiColumns;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+
+/**
+ * Keeps the PII storage layout of a row consistent. With {@code encryption.storage-mode=row} every write seals
+ * all PII fields into {@code pii_record} and {@link BinaryEncryptionConverter} leaves the per-column fields empty.
+ * Rows that carry a record are opened lazily on load whatever the mode, so both layouts can be read during a
+ * migration. Rows still holding Base64 text in the legacy columns are read from there and move to the binary
+ * columns on their next write. Values opened on load are handed to {@link PiiProfile#openStoredPii} rather than
+ * set on the mapped fields, which would differ from Hibernate's snapshot and make every loaded row dirty.
+ */
+@Component
+public class PiiStorageListener {
+
+    private final PiiRecordCodec piiRecordCodec;
+    private final EncryptionUtility encryptionUtility;
+    private final boolean rowMode;
+
+    @Autowired
+    public PiiStorageListener(PiiRecordCodec piiRecordCodec, EncryptionUtility encryptionUtility,
+                              @Value("${encryption.storage-mode:column}") String storageMode) {
+        this.piiRecordCodec = piiRecordCodec;
+        this.encryptionUtility = encryptionUtility;
+        this.rowMode = BinaryEncryptionConverter.ROW_MODE.equalsIgnoreCase(storageMode);
+    }
+
+    @PostLoad
+    public void openStoredPii(Object entity) {
+        if (!(entity instanceof PiiProfile)) {
+            return;
+        }
+        PiiProfile profile = (PiiProfile) entity;
+        byte[] record = profile.getPiiRecord();
+        if (record != null) {
+            OpenedRecord opened = new OpenedRecord(record);
+            EncryptedString[] values = new EncryptedString[PiiProfile.PII_FIELD_COUNT];
+            for (int i = 0; i < values.length; i++) {
+                int field = i;
+                values[i] = EncryptedString.ofRecord(() -> opened.values()[field]);
+            }
+            profile.openStoredPii(values);
+            profile.markPiiSealed();
+            return;
+        }
+        LegacyPiiColumns legacy = profile.getLegacyPii();
+        if (legacy != null && legacy.hasValues()) {
+            // Re-framed, not decrypted; being V1 ciphertext, it is re-encrypted under the active key when written
+            String[] columns = legacy.values();
+            EncryptedString[] values = new EncryptedString[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                values[i] = EncryptedString.ofCiphertext(EncryptionUtility.binaryFromBase64(columns[i]), encryptionUtility);
+            }
+            profile.openStoredPii(values);
+        }
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void sealRecord(Object entity) {
+        if (!(entity instanceof PiiProfile)) {
+            return;
+        }
+        PiiProfile profile = (PiiProfile) entity;
+        // The current values are always written to the binary columns or the record, never back to the text ones
+        profile.setLegacyPii(null);
+        if (!rowMode) {
+            // Back on per-column storage: the converter rewrites the columns from the mapped fields, which take
+            // over any values opened from the record or the legacy columns, and the record is dropped
+            profile.restoreEncryptedPii(profile.encryptedPii());
+            profile.setPiiRecord(null);
+            return;
+        }
+        byte[] record = profile.getPiiRecord();
+        if (record != null && profile.piiSealed() && encryptionUtility.isActiveKey(record)) {
+            return;
+        }
+        EncryptedString[] values = profile.encryptedPii();
+        String[] plaintext = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            plaintext[i] = EncryptedString.plaintextOf(values[i]);
+        }
+        profile.setPiiRecord(piiRecordCodec.seal(plaintext));
+        profile.markPiiSealed();
+    }
+
+    /**
+     * Decrypts a row's record once, on the first field access, and shares the result across its fields.
+     */
+    private final class OpenedRecord {
+        private final byte[] record;
+        private volatile String[] values;
+
+        private OpenedRecord(byte[] record) {
+            this.record = record;
+        }
+
+        private String[] values() {
+            String[] opened = values;
+            if (opened == null) {
+                synchronized (this) {
+                    opened = values;
+                    if (opened == null) {
+                        opened = piiRecordCodec.open(record, PiiProfile.PII_FIELD_COUNT);
+                        values = opened;
+                    }
+                }
+            }
+            return opened;
+        }
+    }
+}
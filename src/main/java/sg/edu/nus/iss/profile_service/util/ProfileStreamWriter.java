@@ -0,0 +1,67 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import sg.edu.nus.iss.profile_service.model.Profile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes the profiles of the unpaginated list endpoints to the response as they are read, either as one JSON
+ * array or, when the client accepts {@code application/x-ndjson}, as one JSON document per line. Only the profile
+ * being serialised is held in memory, however many there are.
+ */
+public final class ProfileStreamWriter {
+
+    private ProfileStreamWriter() {
+    }
+
+    public static boolean acceptsNdjson(String accept) {
+        return accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+    }
+
+    /**
+     * Returns a body that runs {@code source} with a sink serialising each profile straight to the response.
+     * Called by the controller on the request thread; the body runs later on an async thread, so a request pinned
+     * to the primary by {@link ReadYourWritesInterceptor} stays pinned while it streams.
+     */
+    public static StreamingResponseBody write(ObjectMapper mapper, boolean ndjson, Consumer<Consumer<Profile>> source) {
+        // The container decides when to flush, not every single profile
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        boolean pinnedToPrimary = ReadReplicaRouter.isPinnedToPrimary();
+        return out -> {
+            ReadReplicaRouter.pinToPrimary(pinnedToPrimary);
+            try (JsonGenerator generator = writer.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                if (!ndjson) {
+                    generator.writeStartArray();
+                }
+                source.accept(profile -> {
+                    try {
+                        writer.writeValue(generator, profile);
+                        if (ndjson) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                ReadReplicaRouter.pinToPrimary(false);
+            }
+        };
+    }
+}
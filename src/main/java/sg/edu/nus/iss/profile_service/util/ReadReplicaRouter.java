@@ -0,0 +1,193 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Picks the connection pool for read-only work: the replicas in turn, skipping any whose replay lag was above
+ * {@code maxLag} at the last check, and the primary when none qualifies or the current thread was pinned to the
+ * primary with {@link #pinToPrimary(boolean)}. Lag is measured in the background every {@code checkInterval}; a
+ * replica counts as lagging until its first successful check. Connections are taken through the data source
+ * {@code connections} gives for each pool, such as a {@link BoundedDataSource} per pool. Owns all the pools and
+ * closes them with itself.
+ */
+public class ReadReplicaRouter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaRouter.class);
+
+    // Zero when the replica has replayed everything it received, otherwise the age of the last replayed commit
+    private static final String LAG_QUERY = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final DataSource primaryConnections;
+    private final List<DataSource> replicaConnections;
+    private final double maxLagSeconds;
+    // Replaced whole by the lag check, so routing reads it without locking
+    private volatile double[] lagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker;
+    private final DataSource readOnlyDataSource;
+
+    private final Counter replicaReads;
+    private final Counter pinnedReads;
+    private final Counter laggingReads;
+
+    public ReadReplicaRouter(HikariDataSource primary, List<HikariDataSource> replicas,
+                             Function<HikariDataSource, DataSource> connections, Duration maxLag, Duration checkInterval,
+                             MeterRegistry meterRegistry) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is needed to route reads");
+        }
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.primaryConnections = connections.apply(primary);
+        this.replicaConnections = this.replicas.stream().map(connections).toList();
+        this.maxLagSeconds = maxLag.toMillis() / 1000d;
+        this.lagSeconds = new double[replicas.size()];
+        Arrays.fill(lagSeconds, Double.NaN);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            int replica = i;
+            Gauge.builder("datasource.replica.lag", this, router -> router.lagOf(replica))
+                    .description("Replay lag of the replica at the last check, NaN when it could not be checked")
+                    .baseUnit("seconds")
+                    .tag("pool", this.replicas.get(i).getPoolName())
+                    .register(meterRegistry);
+        }
+        this.replicaReads = route(meterRegistry, "replica", "healthy");
+        this.pinnedReads = route(meterRegistry, "primary", "read_your_writes");
+        this.laggingReads = route(meterRegistry, "primary", "replica_lag");
+        this.readOnlyDataSource = new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return select().getConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return select().getConnection(username, password);
+            }
+        };
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkLag, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static Counter route(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("datasource.read.route")
+                .description("Read-only transactions by the pool they ran on and why")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends the current thread's read-only work to the primary until called again with false.
+     */
+    public static void pinToPrimary(boolean pinned) {
+        if (pinned) {
+            PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        } else {
+            PINNED_TO_PRIMARY.remove();
+        }
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get() != null;
+    }
+
+    /**
+     * The data source read-only transactions take their connections from.
+     */
+    public DataSource readOnlyDataSource() {
+        return readOnlyDataSource;
+    }
+
+    /**
+     * The data source everything but read-only transactions takes its connections from.
+     */
+    public DataSource primaryDataSource() {
+        return primaryConnections;
+    }
+
+    private DataSource select() {
+        if (isPinnedToPrimary()) {
+            pinnedReads.increment();
+            return primaryConnections;
+        }
+        double[] lags = lagSeconds;
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = (start + i) % replicas.size();
+            if (lags[replica] <= maxLagSeconds) {
+                replicaReads.increment();
+                return replicaConnections.get(replica);
+            }
+        }
+        laggingReads.increment();
+        return primaryConnections;
+    }
+
+    private double lagOf(int replica) {
+        return lagSeconds[replica];
+    }
+
+    // Straight from the pool: a single background connection needs no slot
+    void checkLag() {
+        double[] checked = new double[replicas.size()];
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariDataSource replica = replicas.get(i);
+            double lag;
+            try (Connection connection = replica.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                lag = rs.getDouble(1);
+            } catch (SQLException | RuntimeException e) {
+                log.warn("{\"message\": \"Could not check replication lag of {}\"}", replica.getPoolName(), e);
+                lag = Double.NaN;
+            }
+            checked[i] = lag;
+            // NaN compares false either way, so an unreachable replica is never taken for a healthy one
+            boolean wasHealthy = lagSeconds[i] <= maxLagSeconds;
+            boolean healthy = lag <= maxLagSeconds;
+            if (wasHealthy != healthy) {
+                log.warn("{\"message\": \"Replica {} {} read traffic, lag {}s\"}", replica.getPoolName(),
+                        healthy ? "back in" : "taken out of", lag);
+            }
+        }
+        lagSeconds = checked;
+    }
+
+    @Override
+    public void close() {
+        lagChecker.shutdownNow();
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
@@ -0,0 +1,66 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Pins requests to the primary database where a replica could serve stale data: every write request, so the reads
+ * it makes before writing see current rows, and every request from a client that wrote within the last
+ * {@code window}, so it reads its own writes while the replicas catch up. Clients are told apart by the
+ * {@code clientHeader} header, or by remote address when it is absent.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    private static final int MAX_TRACKED_CLIENTS = 100_000;
+
+    private final String clientHeader;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesInterceptor(String clientHeader, Duration window) {
+        this.clientHeader = clientHeader;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(MAX_TRACKED_CLIENTS)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (isWrite(request) || recentWriters.getIfPresent(clientOf(request)) != null) {
+            ReadReplicaRouter.pinToPrimary(true);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // The window starts when the write has committed, not when the request arrived
+        if (isWrite(request)) {
+            recentWriters.put(clientOf(request), Boolean.TRUE);
+        }
+        ReadReplicaRouter.pinToPrimary(false);
+    }
+
+    // Streamed responses finish on another thread, which ProfileStreamWriter pins as the request was; the request
+    // thread goes back to the pool unpinned
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReadReplicaRouter.pinToPrimary(false);
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method) && !HttpMethod.OPTIONS.matches(method);
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String client = request.getHeader(clientHeader);
+        return client != null && !client.isBlank() ? client : request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,161 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Runs an idempotent remote call and, when it has not answered within the recent latency percentile, starts a
+ * second copy and takes whichever succeeds first. Only the slowest few percent of calls are ever duplicated, which
+ * trims the tail at the cost of that much extra load. Until enough latencies were seen, calls are not hedged.
+ */
+public class RequestHedger {
+
+    private static final int LATENCY_WINDOW = 512;
+    private static final int MIN_SAMPLES = 50;
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final ThreadPoolExecutor executor;
+    private final double percentile;
+    private final long minDelayNanos;
+
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int next;
+    private long samples;
+    private volatile long hedgeDelayNanos = -1;
+
+    private final Counter hedged;
+    private final Counter hedgeWon;
+    private final Counter primaryWon;
+
+    public RequestHedger(String name, int maxThreads, double percentile, Duration minDelay, boolean virtualThreads,
+                         MeterRegistry meterRegistry) {
+        this.executor = new ThreadPoolExecutor(0, Math.max(2, maxThreads), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                WorkerThreads.factory(name + "-hedge", virtualThreads));
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.hedged = outcome(meterRegistry, name, "hedged");
+        this.hedgeWon = outcome(meterRegistry, name, "hedge_won");
+        this.primaryWon = outcome(meterRegistry, name, "primary_won");
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String name, String outcome) {
+        return Counter.builder("request.hedging")
+                .description("Calls that started a hedge and which attempt answered first")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public <T> T call(Supplier<T> call) {
+        long delay = hedgeDelayNanos;
+        if (delay < 0) {
+            return timed(call);
+        }
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        // Attempts started and not yet failed; whoever takes it to zero completes the call with the last failure
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        if (!start(call, winner, pending, failure, false)) {
+            // No thread to spare: run it here, without a hedge
+            return timed(call);
+        }
+        try {
+            return winner.get(delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            pending.incrementAndGet();
+            if (start(call, winner, pending, failure, true)) {
+                hedged.increment();
+            } else if (pending.decrementAndGet() == 0) {
+                // The primary failed while the hedge was being refused, and left the outcome to this thread
+                winner.completeExceptionally(failure.get());
+            }
+            return await(winner);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a remote call", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> boolean start(Supplier<T> call, CompletableFuture<T> winner, AtomicInteger pending,
+                              AtomicReference<Throwable> failure, boolean hedge) {
+        try {
+            executor.execute(() -> {
+                try {
+                    T result = timed(call);
+                    if (!winner.isDone()) {
+                        if (pending.get() > 1) {
+                            (hedge ? hedgeWon : primaryWon).increment();
+                        }
+                        winner.complete(result);
+                    }
+                } catch (Throwable e) {
+                    // The other attempt may still succeed; only the last one to fail decides the outcome. Errors
+                    // too, or the caller would wait on an attempt that is gone
+                    failure.set(e);
+                    if (pending.decrementAndGet() == 0) {
+                        winner.completeExceptionally(e);
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private <T> T timed(Supplier<T> call) {
+        long start = System.nanoTime();
+        T result = call.get();
+        record(System.nanoTime() - start);
+        return result;
+    }
+
+    private synchronized void record(long latencyNanos) {
+        latencies[next] = latencyNanos;
+        next = (next + 1) % LATENCY_WINDOW;
+        samples++;
+        if (samples >= MIN_SAMPLES && samples % RECOMPUTE_INTERVAL == 0) {
+            long[] window = Arrays.copyOf(latencies, (int) Math.min(samples, LATENCY_WINDOW));
+            Arrays.sort(window);
+            long quantile = window[(int) Math.min(window.length - 1, Math.ceil(percentile * window.length) - 1)];
+            hedgeDelayNanos = Math.max(minDelayNanos, quantile);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> winner) {
+        try {
+            return winner.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a remote call", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+        }
+        return e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    }
+}
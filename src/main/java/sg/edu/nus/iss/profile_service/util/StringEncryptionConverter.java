@@ -1,28 +0,0 @@
-package sg.edu.nus.iss.profile_service.util;
-
-import jakarta.persistence.AttributeConverter;
-import jakarta.persistence.Converter;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
-
-@Converter
-@Component
-public class StringEncryptionConverter implements AttributeConverter<String, String> {
-
-    private final EncryptionUtility encryptionService;
-
-    @Autowired
-    public StringEncryptionConverter(EncryptionUtility encryptionService) {
-        this.encryptionService = encryptionService;
-    }
-
-    @Override
-    public String convertToDatabaseColumn(String attribute) {
-        return attribute != null ? encryptionService.encrypt(attribute) : null;
-    }
-
-    @Override
-    public String convertToEntityAttribute(String dbData) {
-        return dbData != null ? encryptionService.decrypt(dbData) : null;
-    }
-}
\ No newline at end of file
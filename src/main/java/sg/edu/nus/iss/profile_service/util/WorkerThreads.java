@@ -0,0 +1,34 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the service's own background threads. With {@code spring.threads.virtual.enabled} on they are virtual
+ * threads, like the request threads, so waiting on JDBC or the location service does not hold an OS thread;
+ * otherwise they are named daemon platform threads as before.
+ */
+public final class WorkerThreads {
+
+    public static final String VIRTUAL_THREADS = "${spring.threads.virtual.enabled:false}";
+
+    private WorkerThreads() {
+    }
+
+    /**
+     * Thread factory for a pool, naming threads {@code prefix-1}, {@code prefix-2} and so on.
+     */
+    public static ThreadFactory factory(String prefix, boolean virtual) {
+        return virtual
+                ? Thread.ofVirtual().name(prefix + "-", 1).factory()
+                : Thread.ofPlatform().name(prefix + "-", 1).daemon(true).factory();
+    }
+
+    /**
+     * Starts a single long-running worker thread.
+     */
+    public static Thread start(String name, boolean virtual, Runnable task) {
+        return virtual
+                ? Thread.ofVirtual().name(name).start(task)
+                : Thread.ofPlatform().name(name).daemon(true).start(task);
+    }
+}
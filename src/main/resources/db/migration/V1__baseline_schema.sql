@@ -0,0 +1,46 @@
+-- Profile tables as the service first created them through Hibernate, with PII as Base64 ciphertext text columns.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate), so this script only ever
+-- runs against an empty schema; everything added since lives in later versions.
+
+CREATE TABLE customer (
+    customer_id         uuid NOT NULL PRIMARY KEY,
+    name                varchar(255),
+    email_address       varchar(255),
+    address_line1       varchar(255),
+    address_line2       varchar(255),
+    phone_number        varchar(255),
+    pincode             varchar(255),
+    latitude            float(53),
+    longitude           float(53),
+    deleted             boolean NOT NULL,
+    reward_points       numeric(38, 2)
+);
+
+CREATE TABLE merchant (
+    merchant_id         uuid NOT NULL PRIMARY KEY,
+    name                varchar(255),
+    email_address       varchar(255),
+    address_line1       varchar(255),
+    address_line2       varchar(255),
+    phone_number        varchar(255),
+    pincode             varchar(255),
+    latitude            float(53),
+    longitude           float(53),
+    deleted             boolean NOT NULL,
+    blacklisted         boolean DEFAULT false NOT NULL,
+    earnings            numeric(38, 2)
+);
+
+CREATE TABLE delivery_partner (
+    delivery_partner_id uuid NOT NULL PRIMARY KEY,
+    name                varchar(255),
+    email_address       varchar(255),
+    address_line1       varchar(255),
+    address_line2       varchar(255),
+    phone_number        varchar(255),
+    pincode             varchar(255),
+    latitude            float(53),
+    longitude           float(53),
+    deleted             boolean NOT NULL,
+    blacklisted         boolean DEFAULT false NOT NULL
+);
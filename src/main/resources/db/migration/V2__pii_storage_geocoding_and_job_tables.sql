@@ -0,0 +1,56 @@
+-- Columns and tables added after the baseline, previously created by Hibernate schema diffing or by the jobs at
+-- startup. Every statement is IF NOT EXISTS, so it also applies cleanly to baselined databases that already have
+-- some of them.
+
+ALTER TABLE customer
+    ADD COLUMN IF NOT EXISTS name_bin bytea,
+    ADD COLUMN IF NOT EXISTS email_address_bin bytea,
+    ADD COLUMN IF NOT EXISTS address_line1_bin bytea,
+    ADD COLUMN IF NOT EXISTS address_line2_bin bytea,
+    ADD COLUMN IF NOT EXISTS phone_number_bin bytea,
+    ADD COLUMN IF NOT EXISTS pincode_bin bytea,
+    ADD COLUMN IF NOT EXISTS pii_record bytea,
+    ADD COLUMN IF NOT EXISTS email_blind_index varchar(43),
+    ADD COLUMN IF NOT EXISTS phone_blind_index varchar(43),
+    ADD COLUMN IF NOT EXISTS geocoding_status varchar(16);
+
+ALTER TABLE merchant
+    ADD COLUMN IF NOT EXISTS name_bin bytea,
+    ADD COLUMN IF NOT EXISTS email_address_bin bytea,
+    ADD COLUMN IF NOT EXISTS address_line1_bin bytea,
+    ADD COLUMN IF NOT EXISTS address_line2_bin bytea,
+    ADD COLUMN IF NOT EXISTS phone_number_bin bytea,
+    ADD COLUMN IF NOT EXISTS pincode_bin bytea,
+    ADD COLUMN IF NOT EXISTS pii_record bytea,
+    ADD COLUMN IF NOT EXISTS email_blind_index varchar(43),
+    ADD COLUMN IF NOT EXISTS phone_blind_index varchar(43),
+    ADD COLUMN IF NOT EXISTS geocoding_status varchar(16);
+
+ALTER TABLE delivery_partner
+    ADD COLUMN IF NOT EXISTS name_bin bytea,
+    ADD COLUMN IF NOT EXISTS email_address_bin bytea,
+    ADD COLUMN IF NOT EXISTS address_line1_bin bytea,
+    ADD COLUMN IF NOT EXISTS address_line2_bin bytea,
+    ADD COLUMN IF NOT EXISTS phone_number_bin bytea,
+    ADD COLUMN IF NOT EXISTS pincode_bin bytea,
+    ADD COLUMN IF NOT EXISTS pii_record bytea,
+    ADD COLUMN IF NOT EXISTS email_blind_index varchar(43),
+    ADD COLUMN IF NOT EXISTS phone_blind_index varchar(43),
+    ADD COLUMN IF NOT EXISTS geocoding_status varchar(16);
+
+CREATE TABLE IF NOT EXISTS pincode_geocode (
+    pincode     varchar(6) NOT NULL PRIMARY KEY,
+    latitude    float(53),
+    longitude   float(53),
+    source      varchar(32),
+    fetched_at  timestamp(6) with time zone,
+    lookups     bigint DEFAULT 0 NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS key_rotation_checkpoint (
+    table_name  varchar(64) NOT NULL PRIMARY KEY,
+    key_version integer NOT NULL,
+    last_id     uuid NOT NULL,
+    completed   boolean NOT NULL,
+    updated_at  timestamp with time zone NOT NULL
+);
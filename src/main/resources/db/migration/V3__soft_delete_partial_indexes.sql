@@ -0,0 +1,40 @@
+-- Every repository query filters on deleted = false, so the indexes only cover live rows: the id index serves the
+-- keyset slices and list reads, the phone index the blind-index lookups. The unique email index follows in V5.
+-- Built CONCURRENTLY so live traffic keeps writing; see the .conf file next to this script.
+
+-- Outside a transaction a failure leaves the index being built behind as INVALID, which IF NOT EXISTS would then
+-- skip for good. Dropping those first lets the script be rerun after flyway repair.
+DO $$
+DECLARE
+    invalid record;
+BEGIN
+    FOR invalid IN
+        SELECT index_class.relname
+        FROM pg_index
+        JOIN pg_class index_class ON index_class.oid = pg_index.indexrelid
+        WHERE NOT pg_index.indisvalid
+          AND index_class.relnamespace = current_schema()::regnamespace
+          AND index_class.relname IN ('ix_customer_live_id', 'ix_merchant_live_id', 'ix_delivery_partner_live_id',
+                                      'ix_customer_phone_blind_index', 'ix_merchant_phone_blind_index',
+                                      'ix_delivery_partner_phone_blind_index')
+    LOOP
+        EXECUTE format('DROP INDEX %I', invalid.relname);
+    END LOOP;
+END
+$$;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_customer_live_id ON customer (customer_id) WHERE deleted = false;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_merchant_live_id ON merchant (merchant_id) WHERE deleted = false;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_delivery_partner_live_id ON delivery_partner (delivery_partner_id) WHERE deleted = false;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_customer_phone_blind_index ON customer (phone_blind_index) WHERE deleted = false;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_merchant_phone_blind_index ON merchant (phone_blind_index) WHERE deleted = false;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_delivery_partner_phone_blind_index ON delivery_partner (phone_blind_index) WHERE deleted = false;
+
+-- Profiles are rewritten in place by rewards, earnings, geocoding backfill and the re-encryption jobs, and
+-- pincode_geocode bumps its lookup counter on every hit. Free space on each page keeps those updates HOT.
+-- Only pages written from now on use the new fillfactor.
+ALTER TABLE customer SET (fillfactor = 85);
+ALTER TABLE merchant SET (fillfactor = 85);
+ALTER TABLE delivery_partner SET (fillfactor = 85);
+ALTER TABLE pincode_geocode SET (fillfactor = 80);
@@ -0,0 +1,11 @@
+-- Progress of the offline profile loader: records of a source file already committed into a table, written in
+-- the same transaction as each COPY chunk so a rerun resumes exactly after the last one.
+
+CREATE TABLE IF NOT EXISTS profile_import_checkpoint (
+    source      varchar(1024) NOT NULL,
+    table_name  varchar(64) NOT NULL,
+    records     bigint NOT NULL,
+    completed   boolean NOT NULL,
+    updated_at  timestamp with time zone NOT NULL,
+    PRIMARY KEY (source, table_name)
+);
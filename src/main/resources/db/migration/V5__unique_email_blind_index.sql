@@ -0,0 +1,28 @@
+-- Email lookups expect at most one live profile of a type per email, and concurrent registrations of the same
+-- email are only stopped here. Soft-deleted rows are left out so an email can be registered again. Rows still
+-- waiting for BlindIndexBackfillJob have a null index and never conflict; if two live profiles already share an
+-- email the build fails, and the duplicates have to be resolved before flyway repair and a restart.
+-- Previously created by BlindIndexBackfillJob under the same names, hence IF NOT EXISTS.
+
+-- See V3 for why invalid leftovers of a failed run are dropped first
+DO $$
+DECLARE
+    invalid record;
+BEGIN
+    FOR invalid IN
+        SELECT index_class.relname
+        FROM pg_index
+        JOIN pg_class index_class ON index_class.oid = pg_index.indexrelid
+        WHERE NOT pg_index.indisvalid
+          AND index_class.relnamespace = current_schema()::regnamespace
+          AND index_class.relname IN ('ux_customer_email_blind_index', 'ux_merchant_email_blind_index',
+                                      'ux_delivery_partner_email_blind_index')
+    LOOP
+        EXECUTE format('DROP INDEX %I', invalid.relname);
+    END LOOP;
+END
+$$;
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_customer_email_blind_index ON customer (email_blind_index) WHERE deleted = false;
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_merchant_email_blind_index ON merchant (email_blind_index) WHERE deleted = false;
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_delivery_partner_email_blind_index ON delivery_partner (email_blind_index) WHERE deleted = false;
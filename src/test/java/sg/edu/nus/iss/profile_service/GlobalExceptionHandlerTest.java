@@ -0,0 +1,83 @@
+package sg.edu.nus.iss.profile_service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import sg.edu.nus.iss.profile_service.controller.CustomerController;
+import sg.edu.nus.iss.profile_service.factory.ProfileServiceFactory;
+import sg.edu.nus.iss.profile_service.util.LogMasker;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GlobalExceptionHandlerTest {
+
+    private static final String DUPLICATE_EMAIL =
+            "ERROR: duplicate key value violates unique constraint \"ux_customer_email_blind_index\"";
+
+    // Both requests pass the email check; the unique blind index rejects the second insert
+    @Test
+    public void testConcurrentRegistrationOfSameEmailIsConflict() throws Exception {
+        SQLException duplicate = new SQLException(DUPLICATE_EMAIL, "23505");
+        DataIntegrityViolationException ex = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", duplicate, "insert", "ux_customer_email_blind_index"));
+
+        register(ex)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Conflict"))
+                .andExpect(jsonPath("$.message").value("The profile conflicts with an existing one"));
+    }
+
+    // Translated by JdbcTemplate, with only the driver's exception as cause
+    @Test
+    public void testUniqueViolationOfEmailIndexFromJdbcIsConflict() throws Exception {
+        register(new DataIntegrityViolationException("batch failed", new SQLException(DUPLICATE_EMAIL, "23505")))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void testNotNullViolationIsNoConflict() throws Exception {
+        SQLException notNull = new SQLException("ERROR: null value in column \"deleted\" violates not-null constraint", "23502");
+
+        register(new DataIntegrityViolationException("could not execute statement", notNull))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.error").value("Internal Server Error"));
+    }
+
+    @Test
+    public void testOtherUniqueConstraintIsNoConflict() throws Exception {
+        SQLException duplicate = new SQLException("ERROR: duplicate key value violates unique constraint \"customer_pkey\"", "23505");
+        DataIntegrityViolationException ex = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", duplicate, "insert", "customer_pkey"));
+
+        register(ex).andExpect(status().isInternalServerError());
+    }
+
+    private static ResultActions register(DataIntegrityViolationException failure) throws Exception {
+        ProfileServiceFactory profileServiceFactory = mock(ProfileServiceFactory.class);
+        when(profileServiceFactory.getProfileByEmailAddress(anyString(), anyString())).thenReturn(Optional.empty());
+        when(profileServiceFactory.createProfile(any())).thenThrow(failure);
+        CustomerController controller = new CustomerController(profileServiceFactory, new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "logMasker", new LogMasker());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        return mockMvc.perform(post("/customers").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Jane\",\"emailAddress\":\"jane@example.com\",\"pincode\":\"123456\"}"));
+    }
+}
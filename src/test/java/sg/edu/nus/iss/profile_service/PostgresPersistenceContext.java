@@ -0,0 +1,113 @@
+package sg.edu.nus.iss.profile_service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.dao.support.PersistenceExceptionTranslationInterceptor;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionTemplate;
+import sg.edu.nus.iss.profile_service.util.BlindIndexUtility;
+import sg.edu.nus.iss.profile_service.util.EncryptionUtility;
+import sg.edu.nus.iss.profile_service.util.PiiRecordCodec;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Hibernate over a migrated {@link PostgresTestDatabase} schema, with the entity listeners and converter built by
+ * Spring as in the application, for tests that need real loading, dirty checking and flushing of the entities.
+ */
+public final class PostgresPersistenceContext implements AutoCloseable {
+
+    public static final String ENCRYPTION_KEY = "0123456789abcdef";
+
+    private final DataSource dataSource;
+    private final EncryptionUtility encryptionUtility;
+    private final AnnotationConfigApplicationContext beans;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public PostgresPersistenceContext(String storageMode) {
+        this.dataSource = PostgresTestDatabase.migratedSchema();
+        this.encryptionUtility = new EncryptionUtility(ENCRYPTION_KEY);
+
+        // Hibernate has the converter and listeners created by Spring, which injects these and the storage mode
+        beans = new AnnotationConfigApplicationContext();
+        beans.getEnvironment().getPropertySources().addFirst(
+                new MapPropertySource("test", Map.of("encryption.storage-mode", storageMode)));
+        beans.registerBean(EncryptionUtility.class, () -> encryptionUtility);
+        beans.registerBean(PiiRecordCodec.class, () -> new PiiRecordCodec(encryptionUtility));
+        beans.registerBean(BlindIndexUtility.class, () -> new BlindIndexUtility(ENCRYPTION_KEY));
+        beans.refresh();
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("sg.edu.nus.iss.profile_service.model");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beans.getBeanFactory()),
+                // Spring Boot's column naming, which the Flyway schema follows
+                AvailableSettings.PHYSICAL_NAMING_STRATEGY, new CamelCaseToUnderscoresNamingStrategy(),
+                AvailableSettings.IMPLICIT_NAMING_STRATEGY, new SpringImplicitNamingStrategy(),
+                AvailableSettings.GENERATE_STATISTICS, true));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public EncryptionUtility getEncryptionUtility() {
+        return encryptionUtility;
+    }
+
+    public EntityManagerFactory getEntityManagerFactory() {
+        return entityManagerFactory;
+    }
+
+    public TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+    }
+
+    /**
+     * A Spring Data repository over this context whose calls run in their own transactions and translate their
+     * exceptions, as the application's repositories do.
+     */
+    public <R> R repository(Class<R> repositoryInterface) {
+        JpaRepositoryFactory factory = new JpaRepositoryFactory(
+                SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+        factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+            proxyFactory.addAdvice(new PersistenceExceptionTranslationInterceptor(new HibernateJpaDialect()));
+            TransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+            proxyFactory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        });
+        return factory.getRepository(repositoryInterface);
+    }
+
+    /**
+     * Insert, update and load counts since the factory was built or the statistics were last cleared.
+     */
+    public Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void close() {
+        entityManagerFactory.close();
+        beans.close();
+    }
+}
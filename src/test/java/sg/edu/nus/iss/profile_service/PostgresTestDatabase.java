@@ -0,0 +1,78 @@
+package sg.edu.nus.iss.profile_service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Assumptions;
+import org.postgresql.Driver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * PostgreSQL for tests that need the real database: migrations, partial indexes, COPY, Hibernate against the
+ * production dialect. Uses the server at the {@code test.postgres.url} system property when set (with
+ * {@code test.postgres.username} and {@code test.postgres.password}), otherwise one Testcontainers container shared
+ * by the whole run; tests calling this are skipped when neither is available. Every call gets its own empty schema.
+ */
+public final class PostgresTestDatabase {
+
+    private static PostgreSQLContainer<?> container;
+
+    private PostgresTestDatabase() {
+    }
+
+    /**
+     * A data source whose connections use a new, empty schema.
+     */
+    public static DataSource freshSchema() {
+        String schema = "test_" + UUID.randomUUID().toString().replace("-", "");
+        new JdbcTemplate(connect(url(), username(), password())).execute("CREATE SCHEMA " + schema);
+        return connect(url() + (url().contains("?") ? "&" : "?") + "currentSchema=" + schema, username(), password());
+    }
+
+    /**
+     * A fresh schema with every Flyway migration applied, as the service would find it.
+     */
+    public static DataSource migratedSchema() {
+        DataSource dataSource = freshSchema();
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration")
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        return dataSource;
+    }
+
+    private static SimpleDriverDataSource connect(String url, String username, String password) {
+        return new SimpleDriverDataSource(new Driver(), url, username, password);
+    }
+
+    private static String url() {
+        String url = System.getProperty("test.postgres.url");
+        return url != null ? url : container().getJdbcUrl();
+    }
+
+    private static String username() {
+        return System.getProperty("test.postgres.url") != null
+                ? System.getProperty("test.postgres.username", "postgres") : container().getUsername();
+    }
+
+    private static String password() {
+        return System.getProperty("test.postgres.url") != null
+                ? System.getProperty("test.postgres.password", "") : container().getPassword();
+    }
+
+    private static synchronized PostgreSQLContainer<?> container() {
+        if (container == null) {
+            Assumptions.assumeTrue(DockerClientFactory.instance().isDockerAvailable(),
+                    "Needs Docker or -Dtest.postgres.url");
+            PostgreSQLContainer<?> started = new PostgreSQLContainer<>("postgres:16-alpine");
+            started.start();
+            container = started;
+        }
+        return container;
+    }
+}
@@ -0,0 +1,101 @@
+package sg.edu.nus.iss.profile_service;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the Flyway scripts against PostgreSQL, as a fresh install and as an upgrade of a database Hibernate created.
+ */
+// CREATE INDEX CONCURRENTLY blocks rather than fails when something holds a transaction open
+@Timeout(value = 2, unit = TimeUnit.MINUTES)
+class SchemaMigrationTest {
+
+    private static final String INVALID_INDEXES = "SELECT index_class.relname FROM pg_index"
+            + " JOIN pg_class index_class ON index_class.oid = pg_index.indexrelid"
+            + " WHERE NOT pg_index.indisvalid AND index_class.relnamespace = current_schema()::regnamespace";
+
+    @Test
+    void migratesEmptySchemaAndValidates() {
+        DataSource dataSource = PostgresTestDatabase.freshSchema();
+        Flyway flyway = flyway(dataSource).load();
+
+        assertTrue(flyway.migrate().success);
+        flyway.validate();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertEquals(List.of(), jdbcTemplate.queryForList(INVALID_INDEXES, String.class));
+        assertEquals("(deleted = false)", predicateOf(jdbcTemplate, "ix_customer_live_id"));
+        assertEquals("(deleted = false)", predicateOf(jdbcTemplate, "ix_delivery_partner_phone_blind_index"));
+    }
+
+    @Test
+    void uniqueEmailIndexRejectsSecondLiveProfileOnly() {
+        DataSource dataSource = PostgresTestDatabase.freshSchema();
+        assertTrue(flyway(dataSource).load().migrate().success);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String insert = "INSERT INTO customer (customer_id, deleted, email_blind_index) VALUES (gen_random_uuid(), ?, ?)";
+
+        jdbcTemplate.update(insert, true, "same-index");
+        jdbcTemplate.update(insert, false, "same-index");
+        jdbcTemplate.update(insert, false, null);
+        jdbcTemplate.update(insert, false, null);
+
+        assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update(insert, false, "same-index"));
+    }
+
+    @Test
+    void upgradesBaselinedHibernateSchema() {
+        DataSource dataSource = PostgresTestDatabase.freshSchema();
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline_schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // A column Hibernate had already added before the migrations existed
+        jdbcTemplate.execute("ALTER TABLE customer ADD COLUMN email_blind_index varchar(43)");
+
+        Flyway flyway = flyway(dataSource).baselineOnMigrate(true).baselineVersion("1").load();
+
+        assertTrue(flyway.migrate().success);
+        flyway.validate();
+        assertEquals(List.of(), jdbcTemplate.queryForList(INVALID_INDEXES, String.class));
+    }
+
+    @Test
+    void rebuildsIndexLeftInvalidByFailedRun() {
+        DataSource dataSource = PostgresTestDatabase.freshSchema();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertTrue(flyway(dataSource).target("2").load().migrate().success);
+        // What an interrupted CREATE INDEX CONCURRENTLY leaves behind
+        jdbcTemplate.execute("CREATE INDEX ix_merchant_live_id ON merchant (merchant_id)");
+        jdbcTemplate.update("UPDATE pg_index SET indisvalid = false WHERE indexrelid = 'ix_merchant_live_id'::regclass");
+
+        assertTrue(flyway(dataSource).load().migrate().success);
+
+        assertEquals(List.of(), jdbcTemplate.queryForList(INVALID_INDEXES, String.class));
+        assertEquals("(deleted = false)", predicateOf(jdbcTemplate, "ix_merchant_live_id"));
+    }
+
+    private static FluentConfiguration flyway(DataSource dataSource) {
+        // As spring.flyway.postgresql.transactional-lock=false in application.properties
+        return Flyway.configure().dataSource(dataSource).locations("classpath:db/migration")
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"));
+    }
+
+    private static String predicateOf(JdbcTemplate jdbcTemplate, String index) {
+        return jdbcTemplate.queryForObject("SELECT pg_get_expr(indpred, indrelid) FROM pg_index WHERE indexrelid = ?::regclass",
+                String.class, index);
+    }
+}
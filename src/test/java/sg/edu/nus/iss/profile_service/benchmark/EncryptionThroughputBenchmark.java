@@ -0,0 +1,101 @@
+package sg.edu.nus.iss.profile_service.benchmark;
+
+import sg.edu.nus.iss.profile_service.util.EncryptionUtility;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.function.UnaryOperator;
+
+/**
+ * Throughput comparison between {@link EncryptionUtility} and the previous implementation, which built the key,
+ * the cipher and a {@link SecureRandom} on every call.
+ * Not picked up by surefire; run the main method from the IDE or with
+ * {@code java -cp target/classes:target/test-classes sg.edu.nus.iss.profile_service.benchmark.EncryptionThroughputBenchmark}.
+ */
+public class EncryptionThroughputBenchmark {
+
+    private static final String KEY = "0123456789abcdef";
+    private static final String SAMPLE = "Blk 123 Ang Mo Kio Avenue 6 #08-1234";
+    private static final int WARMUP_ROUNDS = 200_000;
+    private static final int MEASURED_ROUNDS = 1_000_000;
+
+    public static void main(String[] args) {
+        EncryptionUtility current = new EncryptionUtility(KEY);
+        LegacyEncryption legacy = new LegacyEncryption(KEY);
+
+        String currentCiphertext = current.encrypt(SAMPLE);
+        String legacyCiphertext = legacy.encrypt(SAMPLE);
+
+        report("legacy  encrypt", legacy::encrypt, SAMPLE);
+        report("current encrypt", current::encrypt, SAMPLE);
+        report("legacy  decrypt", legacy::decrypt, legacyCiphertext);
+        report("current decrypt", current::decrypt, currentCiphertext);
+    }
+
+    private static void report(String label, UnaryOperator<String> operation, String input) {
+        run(operation, input, WARMUP_ROUNDS);
+        long start = System.nanoTime();
+        run(operation, input, MEASURED_ROUNDS);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("%s: %,.0f ops/s%n", label, MEASURED_ROUNDS / seconds);
+    }
+
+    private static void run(UnaryOperator<String> operation, String input, int rounds) {
+        int sink = 0;
+        for (int i = 0; i < rounds; i++) {
+            sink += operation.apply(input).length();
+        }
+        if (sink == 0) {
+            throw new IllegalStateException("Benchmark produced no output");
+        }
+    }
+
+    /**
+     * Copy of the original per-call implementation, kept only as the baseline for this benchmark.
+     */
+    static class LegacyEncryption {
+        private final String encryptionKey;
+
+        LegacyEncryption(String encryptionKey) {
+            this.encryptionKey = encryptionKey;
+        }
+
+        String encrypt(String data) {
+            try {
+                SecretKey secretKey = new SecretKeySpec(encryptionKey.getBytes(StandardCharsets.UTF_8), "AES");
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                byte[] iv = new byte[12];
+                new SecureRandom().nextBytes(iv);
+                cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+                byte[] encryptedBytes = cipher.doFinal(data.getBytes(StandardCharsets.UTF_8));
+                byte[] combined = new byte[iv.length + encryptedBytes.length];
+                System.arraycopy(iv, 0, combined, 0, iv.length);
+                System.arraycopy(encryptedBytes, 0, combined, iv.length, encryptedBytes.length);
+                return Base64.getEncoder().encodeToString(combined);
+            } catch (Exception e) {
+                throw new RuntimeException("Error encrypting data", e);
+            }
+        }
+
+        String decrypt(String encryptedData) {
+            try {
+                SecretKey secretKey = new SecretKeySpec(encryptionKey.getBytes(StandardCharsets.UTF_8), "AES");
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                byte[] combined = Base64.getDecoder().decode(encryptedData);
+                byte[] iv = new byte[12];
+                byte[] ciphertext = new byte[combined.length - 12];
+                System.arraycopy(combined, 0, iv, 0, iv.length);
+                System.arraycopy(combined, iv.length, ciphertext, 0, ciphertext.length);
+                cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+                return new String(cipher.doFinal(ciphertext), StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                throw new RuntimeException("Error decrypting data", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package sg.edu.nus.iss.profile_service.benchmark;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import sg.edu.nus.iss.profile_service.config.AppConfig;
+import sg.edu.nus.iss.profile_service.factory.ExternalLocationService;
+import sg.edu.nus.iss.profile_service.factory.GeocodingWorker;
+import sg.edu.nus.iss.profile_service.factory.OfflineGazetteer;
+import sg.edu.nus.iss.profile_service.factory.PostalSectorCentroids;
+import sg.edu.nus.iss.profile_service.factory.ProfileServiceFactory;
+import sg.edu.nus.iss.profile_service.model.Customer;
+import sg.edu.nus.iss.profile_service.model.GeocodingStatus;
+import sg.edu.nus.iss.profile_service.repository.CustomerRepository;
+import sg.edu.nus.iss.profile_service.repository.DeliveryPartnerRepository;
+import sg.edu.nus.iss.profile_service.repository.MerchantRepository;
+import sg.edu.nus.iss.profile_service.repository.PincodeGeocodeRepository;
+import sg.edu.nus.iss.profile_service.repository.ProfileBulkReader;
+import sg.edu.nus.iss.profile_service.util.BlindIndexUtility;
+import sg.edu.nus.iss.profile_service.util.BulkEncryptor;
+import sg.edu.nus.iss.profile_service.util.CircuitBreaker;
+import sg.edu.nus.iss.profile_service.util.LogMasker;
+import sg.edu.nus.iss.profile_service.util.RequestHedger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Drives customer create and update traffic through {@link ProfileServiceFactory} against a
+ * {@link LocationServiceStub} over real HTTP, once per geocoding strategy, and reports throughput and latency
+ * percentiles of the profile writes. Repositories are in-memory, so the numbers isolate the geocoding path.
+ * Not picked up by surefire; run the main method from the IDE, optionally with the stub settings as system
+ * properties (see {@link LocationServiceStub}).
+ */
+public class GeocodingLoadTest {
+
+    private static final int THREADS = 32;
+    private static final int OPERATIONS_PER_THREAD = 250;
+    private static final int PINCODE_POOL = 3000;
+    private static final double UPDATE_SHARE = 0.4;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.OFF);
+        LocationServiceStub.Settings settings = new LocationServiceStub.Settings()
+                .latency(Long.getLong("stub.median-ms", 30), Long.getLong("stub.p99-ms", 300))
+                .errorRate(Double.parseDouble(System.getProperty("stub.error-rate", "0.02")))
+                .timeoutRate(Double.parseDouble(System.getProperty("stub.timeout-rate", "0.005")), Long.getLong("stub.hang-ms", 5000))
+                .unknownRate(Double.parseDouble(System.getProperty("stub.unknown-rate", "0")));
+        String[] pincodes = new String[PINCODE_POOL];
+        for (int i = 0; i < pincodes.length; i++) {
+            // Sectors 01 to 82, as in Singapore postal codes
+            pincodes[i] = String.format("%02d%04d", 1 + ThreadLocalRandom.current().nextInt(82), ThreadLocalRandom.current().nextInt(10_000));
+        }
+
+        System.out.printf("Upstream: %s; %d threads x %d writes, %.0f%% updates%n", settings, THREADS,
+                OPERATIONS_PER_THREAD, UPDATE_SHARE * 100);
+        System.out.printf("%-16s %10s %9s %9s %9s %9s %8s %10s %12s%n",
+                "strategy", "writes/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors", "upstream", "drained in");
+        run("sync", "sync", false, settings, pincodes);
+        run("sync + batching", "sync", true, settings, pincodes);
+        run("async", "async", false, settings, pincodes);
+    }
+
+    private static void run(String label, String geocodingMode, boolean batching, LocationServiceStub.Settings settings,
+                            String[] pincodes) throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AppConfig appConfig = new AppConfig();
+        Map<UUID, Customer> customers = new ConcurrentHashMap<>();
+        try (LocationServiceStub stub = new LocationServiceStub(0, settings);
+             PoolingHttpClientConnectionManager connectionManager = appConfig.httpConnectionManager(100, 50,
+                     Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofMinutes(5), meterRegistry);
+             CloseableHttpClient httpClient = appConfig.httpClient(connectionManager, Duration.ofMillis(500),
+                     Duration.ofSeconds(2), Duration.ofSeconds(30))) {
+            OfflineGazetteer offlineGazetteer = new OfflineGazetteer("");
+            PostalSectorCentroids postalSectorCentroids = new PostalSectorCentroids(offlineGazetteer);
+            RequestHedger requestHedger = appConfig.locationRequestHedger(100, 0.95, Duration.ofMillis(20), false, meterRegistry);
+            CircuitBreaker circuitBreaker = appConfig.locationCircuitBreaker(50, 20, 50, Duration.ofSeconds(10), 5, meterRegistry);
+            ExternalLocationService externalLocationService = new ExternalLocationService(appConfig.restTemplate(httpClient),
+                    meterRegistry, 150_000, Duration.ofDays(7), Duration.ofMinutes(5), circuitBreaker, requestHedger,
+                    mock(PincodeGeocodeRepository.class), postalSectorCentroids);
+            ReflectionTestUtils.setField(externalLocationService, "locationServiceUrl", stub.getBaseUrl());
+            ReflectionTestUtils.setField(externalLocationService, "batchEnabled", batching);
+            ReflectionTestUtils.setField(externalLocationService, "batchWindow", Duration.ofMillis(5));
+            ReflectionTestUtils.setField(externalLocationService, "batchMaxSize", 50);
+            ReflectionTestUtils.setField(externalLocationService, "batchPath", "/location/coordinates/batch");
+            ReflectionTestUtils.setField(externalLocationService, "retryAttempts", 2);
+            ReflectionTestUtils.setField(externalLocationService, "retryBackoff", Duration.ofMillis(50));
+            GeocodingWorker geocodingWorker = new GeocodingWorker(8, 10_000, 6, Duration.ofMillis(200), Duration.ofSeconds(5), false, meterRegistry);
+            ProfileServiceFactory factory = new ProfileServiceFactory(mock(MerchantRepository.class), inMemory(customers),
+                    mock(DeliveryPartnerRepository.class), externalLocationService, offlineGazetteer,
+                    new BlindIndexUtility("0123456789abcdef"), mock(ProfileBulkReader.class), geocodingWorker,
+                    postalSectorCentroids, mock(BulkEncryptor.class), meterRegistry);
+            ReflectionTestUtils.setField(factory, "logMasker", new LogMasker());
+            ReflectionTestUtils.setField(factory, "geocodingMode", geocodingMode);
+
+            try {
+                List<UUID> ids = new CopyOnWriteArrayList<>();
+                AtomicInteger errors = new AtomicInteger();
+                ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+                List<Future<long[]>> threads = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int t = 0; t < THREADS; t++) {
+                    threads.add(clients.submit(() -> drive(factory, customers, ids, pincodes, errors)));
+                }
+                long[] latencies = new long[0];
+                for (Future<long[]> thread : threads) {
+                    long[] own = thread.get();
+                    long[] merged = Arrays.copyOf(latencies, latencies.length + own.length);
+                    System.arraycopy(own, 0, merged, latencies.length, own.length);
+                    latencies = merged;
+                }
+                long elapsed = System.nanoTime() - start;
+                clients.shutdown();
+                long drained = drain(customers) - start;
+                Arrays.sort(latencies);
+                System.out.printf("%-16s %,10.0f %9.1f %9.1f %9.1f %9.1f %8d %10d %11.1fs%n", label,
+                        latencies.length / (elapsed / 1e9), millis(latencies, 0.50), millis(latencies, 0.95),
+                        millis(latencies, 0.99), latencies[latencies.length - 1] / 1e6, errors.get(),
+                        stub.getRequestCount(), drained / 1e9);
+            } finally {
+                geocodingWorker.shutdown();
+                requestHedger.shutdown();
+            }
+        }
+    }
+
+    private static long[] drive(ProfileServiceFactory factory, Map<UUID, Customer> customers, List<UUID> ids,
+                                String[] pincodes, AtomicInteger errors) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[OPERATIONS_PER_THREAD];
+        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+            long start = System.nanoTime();
+            try {
+                if (!ids.isEmpty() && random.nextDouble() < UPDATE_SHARE) {
+                    // A full update as the controllers build it from a DTO: same pincode half the time
+                    Customer stored = customers.get(ids.get(random.nextInt(ids.size())));
+                    Customer update = new Customer();
+                    update.setCustomerId(stored.getCustomerId());
+                    update.setName(stored.getName());
+                    update.setEmailAddress(stored.getEmailAddress());
+                    update.setPincode(random.nextBoolean() ? stored.getPincode() : pincodes[random.nextInt(pincodes.length)]);
+                    factory.updateProfile(update);
+                } else {
+                    Customer customer = new Customer();
+                    customer.setName("Load Test " + i);
+                    customer.setEmailAddress("load" + random.nextLong(Long.MAX_VALUE) + "@example.com");
+                    customer.setPincode(pincodes[random.nextInt(pincodes.length)]);
+                    ids.add(((Customer) factory.createProfile(customer)).getCustomerId());
+                }
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+            }
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    // Waits until no profile is waiting for an exact lookup any more and returns that time
+    private static long drain(Map<UUID, Customer> customers) throws InterruptedException {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline && customers.values().stream().anyMatch(customer ->
+                customer.getGeocodingStatus() == GeocodingStatus.PENDING || customer.getGeocodingStatus() == GeocodingStatus.APPROXIMATE)) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        return System.nanoTime();
+    }
+
+    private static CustomerRepository inMemory(Map<UUID, Customer> customers) {
+        CustomerRepository repository = mock(CustomerRepository.class, withSettings().stubOnly());
+        when(repository.save(any(Customer.class))).thenAnswer(invocation -> {
+            Customer customer = invocation.getArgument(0);
+            if (customer.getCustomerId() == null) {
+                customer.setCustomerId(UUID.randomUUID());
+            }
+            customers.put(customer.getCustomerId(), customer);
+            return customer;
+        });
+        when(repository.findById(any())).thenAnswer(invocation -> Optional.ofNullable(customers.get(invocation.<UUID>getArgument(0))));
+        return repository;
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+}
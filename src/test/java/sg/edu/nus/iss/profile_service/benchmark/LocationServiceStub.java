@@ -0,0 +1,190 @@
+package sg.edu.nus.iss.profile_service.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the utility service's location API, for load tests. Serves {@code GET /location/coordinates?pincode=}
+ * and {@code POST /location/coordinates/batch} with deterministic coordinates per pincode, after a log-normal
+ * latency with the configured median and p99. A share of requests can be failed with a 503, answered with a 404 as
+ * an unknown pincode, or left hanging for {@code hangMillis} to trip client timeouts; a batch request is delayed and
+ * faulted as a whole.
+ *
+ * <p>Start it from a test with {@code new LocationServiceStub(0, settings)}, or standalone with
+ * {@code java -cp target/classes:target/test-classes:<dependencies> sg.edu.nus.iss.profile_service.benchmark.LocationServiceStub [port]}
+ * and the settings as system properties: {@code stub.median-ms}, {@code stub.p99-ms}, {@code stub.error-rate},
+ * {@code stub.timeout-rate}, {@code stub.unknown-rate} and {@code stub.hang-ms}.
+ */
+public class LocationServiceStub implements AutoCloseable {
+
+    // z-score of the 99th percentile of a standard normal distribution
+    private static final double P99_Z = 2.326;
+    private static final int DEFAULT_PORT = 9090;
+
+    public static final class Settings {
+        private long medianMillis = 30;
+        private long p99Millis = 300;
+        private double errorRate;
+        private double timeoutRate;
+        private double unknownRate;
+        private long hangMillis = 10_000;
+
+        public Settings latency(long medianMillis, long p99Millis) {
+            this.medianMillis = medianMillis;
+            this.p99Millis = Math.max(medianMillis, p99Millis);
+            return this;
+        }
+
+        public Settings errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public Settings timeoutRate(double timeoutRate, long hangMillis) {
+            this.timeoutRate = timeoutRate;
+            this.hangMillis = hangMillis;
+            return this;
+        }
+
+        public Settings unknownRate(double unknownRate) {
+            this.unknownRate = unknownRate;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("median %d ms, p99 %d ms, %.1f%% errors, %.1f%% hangs of %d ms, %.1f%% unknown",
+                    medianMillis, p99Millis, errorRate * 100, timeoutRate * 100, hangMillis, unknownRate * 100);
+        }
+    }
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong requests = new AtomicLong();
+
+    public LocationServiceStub(int port, Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+        server.createContext("/location/coordinates/batch", this::handleBatch);
+        server.createContext("/location/coordinates", this::handleSingle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Settings settings = new Settings()
+                .latency(Long.getLong("stub.median-ms", 30), Long.getLong("stub.p99-ms", 300))
+                .errorRate(Double.parseDouble(System.getProperty("stub.error-rate", "0")))
+                .timeoutRate(Double.parseDouble(System.getProperty("stub.timeout-rate", "0")), Long.getLong("stub.hang-ms", 10_000))
+                .unknownRate(Double.parseDouble(System.getProperty("stub.unknown-rate", "0")));
+        LocationServiceStub stub = new LocationServiceStub(port, settings);
+        System.out.printf("Location service stub on %s (%s)%n", stub.getBaseUrl(), settings);
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleSingle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!delayOrFault(exchange)) {
+                return;
+            }
+            String query = exchange.getRequestURI().getQuery();
+            String pincode = query == null || !query.startsWith("pincode=") ? "" : query.substring("pincode=".length());
+            if (!pincode.matches("[0-9]{6}") || ThreadLocalRandom.current().nextDouble() < settings.unknownRate) {
+                respond(exchange, 404, "{\"error\":\"Not Found\"}");
+                return;
+            }
+            respond(exchange, 200, objectMapper.writeValueAsString(coordinatesOf(pincode)));
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            List<String> pincodes;
+            try (InputStream body = exchange.getRequestBody()) {
+                pincodes = objectMapper.readValue(body, new TypeReference<List<String>>() {
+                });
+            }
+            if (!delayOrFault(exchange)) {
+                return;
+            }
+            Map<String, Map<String, Double>> found = new LinkedHashMap<>();
+            for (String pincode : pincodes) {
+                if (pincode.matches("[0-9]{6}") && ThreadLocalRandom.current().nextDouble() >= settings.unknownRate) {
+                    found.put(pincode, coordinatesOf(pincode));
+                }
+            }
+            respond(exchange, 200, objectMapper.writeValueAsString(found));
+        }
+    }
+
+    // Sleeps for one sampled latency; returns false when the request was faulted instead of answered
+    private boolean delayOrFault(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            if (random.nextDouble() < settings.timeoutRate) {
+                Thread.sleep(settings.hangMillis);
+                return false;
+            }
+            double sigma = Math.log((double) settings.p99Millis / Math.max(1, settings.medianMillis)) / P99_Z;
+            Thread.sleep((long) (settings.medianMillis * Math.exp(sigma * random.nextGaussian())));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (random.nextDouble() < settings.errorRate) {
+            respond(exchange, 503, "{\"error\":\"Service Unavailable\"}");
+            return false;
+        }
+        return true;
+    }
+
+    // Spreads pincodes over Singapore's bounding box so nearby pincodes land nearby
+    private static Map<String, Double> coordinatesOf(String pincode) {
+        int value = Integer.parseInt(pincode);
+        Map<String, Double> coordinates = new LinkedHashMap<>();
+        coordinates.put("lat", 1.22 + (value % 10_000) / 10_000.0 * 0.25);
+        coordinates.put("lng", 103.6 + (value / 10_000) / 100.0 * 0.4);
+        return coordinates;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
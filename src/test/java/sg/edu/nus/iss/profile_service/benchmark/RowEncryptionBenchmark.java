@@ -0,0 +1,93 @@
+package sg.edu.nus.iss.profile_service.benchmark;
+
+import sg.edu.nus.iss.profile_service.util.EncryptionUtility;
+import sg.edu.nus.iss.profile_service.util.PiiRecordCodec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the PII storage layouts: per-column Base64 text, per-column binary and the sealed row record.
+ * Reports stored bytes per row and the time to get all six plaintext fields of a row back.
+ * Not picked up by surefire; run the main method from the IDE or with
+ * {@code java -cp target/classes:target/test-classes sg.edu.nus.iss.profile_service.benchmark.RowEncryptionBenchmark}.
+ */
+public class RowEncryptionBenchmark {
+
+    private static final String KEY = "0123456789abcdef";
+    private static final String[] SAMPLE_ROW = {
+            "Tan Wei Ming",
+            "weiming.tan@example.com",
+            "Blk 123 Ang Mo Kio Avenue 6",
+            "#08-1234",
+            "91234567",
+            "560123"
+    };
+    private static final int WARMUP_ROUNDS = 100_000;
+    private static final int MEASURED_ROUNDS = 500_000;
+
+    public static void main(String[] args) {
+        EncryptionUtility encryptionUtility = new EncryptionUtility(KEY);
+        PiiRecordCodec codec = new PiiRecordCodec(encryptionUtility);
+
+        String[] base64Columns = new String[SAMPLE_ROW.length];
+        byte[][] binaryColumns = new byte[SAMPLE_ROW.length][];
+        int base64Bytes = 0;
+        int binaryBytes = 0;
+        for (int i = 0; i < SAMPLE_ROW.length; i++) {
+            base64Columns[i] = encryptionUtility.encrypt(SAMPLE_ROW[i]);
+            base64Bytes += base64Columns[i].getBytes(StandardCharsets.US_ASCII).length;
+            binaryColumns[i] = encryptionUtility.encryptBinary(SAMPLE_ROW[i]);
+            binaryBytes += binaryColumns[i].length;
+        }
+        byte[] record = codec.seal(SAMPLE_ROW);
+
+        System.out.printf("base64 column mode: %d bytes per row%n", base64Bytes);
+        System.out.printf("binary column mode: %d bytes per row%n", binaryBytes);
+        System.out.printf("row mode:           %d bytes per row%n", record.length);
+
+        report("base64 column mode load", () -> {
+            int length = 0;
+            for (String column : base64Columns) {
+                length += encryptionUtility.decrypt(column).length();
+            }
+            return length;
+        });
+        report("binary column mode load", () -> {
+            int length = 0;
+            for (byte[] column : binaryColumns) {
+                length += encryptionUtility.decryptBinary(column).length();
+            }
+            return length;
+        });
+        report("row mode load          ", () -> {
+            int length = 0;
+            for (String value : codec.open(record, SAMPLE_ROW.length)) {
+                length += value.length();
+            }
+            return length;
+        });
+    }
+
+    private static void report(String label, RowLoad load) {
+        run(load, WARMUP_ROUNDS);
+        long start = System.nanoTime();
+        run(load, MEASURED_ROUNDS);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%s: %,.0f rows/s, %.2f us/row%n", label,
+                MEASURED_ROUNDS / (elapsed / 1_000_000_000.0), elapsed / 1000.0 / MEASURED_ROUNDS);
+    }
+
+    private static void run(RowLoad load, int rounds) {
+        long sink = 0;
+        for (int i = 0; i < rounds; i++) {
+            sink += load.load();
+        }
+        if (sink == 0) {
+            throw new IllegalStateException("Benchmark produced no output");
+        }
+    }
+
+    private interface RowLoad {
+        int load();
+    }
+}
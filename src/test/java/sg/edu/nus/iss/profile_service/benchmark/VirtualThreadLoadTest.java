@@ -0,0 +1,198 @@
+package sg.edu.nus.iss.profile_service.benchmark;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import sg.edu.nus.iss.profile_service.config.AppConfig;
+import sg.edu.nus.iss.profile_service.factory.ExternalLocationService;
+import sg.edu.nus.iss.profile_service.factory.GeocodingWorker;
+import sg.edu.nus.iss.profile_service.factory.OfflineGazetteer;
+import sg.edu.nus.iss.profile_service.factory.PostalSectorCentroids;
+import sg.edu.nus.iss.profile_service.factory.ProfileServiceFactory;
+import sg.edu.nus.iss.profile_service.model.Customer;
+import sg.edu.nus.iss.profile_service.repository.CustomerRepository;
+import sg.edu.nus.iss.profile_service.repository.DeliveryPartnerRepository;
+import sg.edu.nus.iss.profile_service.repository.MerchantRepository;
+import sg.edu.nus.iss.profile_service.repository.PincodeGeocodeRepository;
+import sg.edu.nus.iss.profile_service.repository.ProfileBulkReader;
+import sg.edu.nus.iss.profile_service.util.BlindIndexUtility;
+import sg.edu.nus.iss.profile_service.util.BoundedDataSource;
+import sg.edu.nus.iss.profile_service.util.BulkEncryptor;
+import sg.edu.nus.iss.profile_service.util.CircuitBreaker;
+import sg.edu.nus.iss.profile_service.util.LogMasker;
+import sg.edu.nus.iss.profile_service.util.RequestHedger;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Compares request handling on a Tomcat-sized pool of platform threads with a virtual thread per request, as
+ * {@code spring.threads.virtual.enabled} switches it. {@link #CONCURRENCY} requests are kept in flight, each creating
+ * a customer through {@link ProfileServiceFactory} in sync geocoding mode against a slow {@link LocationServiceStub}
+ * and then saving it through a {@link BoundedDataSource} of {@link #DB_CONNECTIONS} slots, holding a connection for
+ * {@link #QUERY_MILLIS}. Pincodes are drawn from a pool far larger than the run so most lookups miss the cache.
+ * Latency is measured from submission, so time queued for a platform thread counts. Not picked up by surefire; run
+ * the main method from the IDE, optionally with the stub settings as system properties (see
+ * {@link LocationServiceStub}).
+ */
+public class VirtualThreadLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 2000);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 40_000);
+    // Spring Boot's default server.tomcat.threads.max
+    private static final int PLATFORM_THREADS = 200;
+    private static final int DB_CONNECTIONS = 10;
+    private static final long QUERY_MILLIS = 2;
+    private static final int PINCODE_POOL = 500_000;
+
+    public static void main(String[] args) throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.OFF);
+        // The stub's HttpServer closes keep-alive connections beyond 200 idle ones, which the client pool would
+        // only find out about on its next request
+        System.setProperty("sun.net.httpserver.maxIdleConnections", Integer.toString(CONCURRENCY * 2));
+        LocationServiceStub.Settings settings = new LocationServiceStub.Settings()
+                .latency(Long.getLong("stub.median-ms", 100), Long.getLong("stub.p99-ms", 400))
+                .errorRate(Double.parseDouble(System.getProperty("stub.error-rate", "0")))
+                .timeoutRate(Double.parseDouble(System.getProperty("stub.timeout-rate", "0")), Long.getLong("stub.hang-ms", 5000))
+                .unknownRate(Double.parseDouble(System.getProperty("stub.unknown-rate", "0")));
+        String[] pincodes = new String[PINCODE_POOL];
+        for (int i = 0; i < pincodes.length; i++) {
+            // Sectors 01 to 82, as in Singapore postal codes
+            pincodes[i] = String.format("%02d%04d", 1 + ThreadLocalRandom.current().nextInt(82), ThreadLocalRandom.current().nextInt(10_000));
+        }
+
+        System.out.printf("Upstream: %s; %d requests, %d in flight, %d database connections held %d ms%n", settings,
+                REQUESTS, CONCURRENCY, DB_CONNECTIONS, QUERY_MILLIS);
+        System.out.printf("%-20s %10s %9s %9s %9s %9s %8s %10s%n",
+                "threads", "writes/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors", "db wait");
+        run("platform (" + PLATFORM_THREADS + ")", false, settings, pincodes);
+        run("virtual", true, settings, pincodes);
+    }
+
+    private static void run(String label, boolean virtualThreads, LocationServiceStub.Settings settings,
+                            String[] pincodes) throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AppConfig appConfig = new AppConfig();
+        BoundedDataSource dataSource = new BoundedDataSource(stubDataSource(), "stub", DB_CONNECTIONS, Duration.ofSeconds(30));
+        AtomicInteger maxWaiting = new AtomicInteger();
+        try (LocationServiceStub stub = new LocationServiceStub(0, settings);
+             // Sized so the HTTP pool is never the limit; only the request threads differ between runs
+             PoolingHttpClientConnectionManager connectionManager = appConfig.httpConnectionManager(CONCURRENCY,
+                     CONCURRENCY, Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofMinutes(5), meterRegistry);
+             CloseableHttpClient httpClient = appConfig.httpClient(connectionManager, Duration.ofSeconds(5),
+                     Duration.ofSeconds(5), Duration.ofSeconds(30))) {
+            OfflineGazetteer offlineGazetteer = new OfflineGazetteer("");
+            PostalSectorCentroids postalSectorCentroids = new PostalSectorCentroids(offlineGazetteer);
+            RequestHedger requestHedger = appConfig.locationRequestHedger(CONCURRENCY, 0.95, Duration.ofMillis(20),
+                    virtualThreads, meterRegistry);
+            CircuitBreaker circuitBreaker = appConfig.locationCircuitBreaker(50, 20, 50, Duration.ofSeconds(10), 5, meterRegistry);
+            ExternalLocationService externalLocationService = new ExternalLocationService(appConfig.restTemplate(httpClient),
+                    meterRegistry, 150_000, Duration.ofDays(7), Duration.ofMinutes(5), circuitBreaker, requestHedger,
+                    mock(PincodeGeocodeRepository.class), postalSectorCentroids);
+            ReflectionTestUtils.setField(externalLocationService, "locationServiceUrl", stub.getBaseUrl());
+            ReflectionTestUtils.setField(externalLocationService, "retryAttempts", 1);
+            ReflectionTestUtils.setField(externalLocationService, "retryBackoff", Duration.ofMillis(50));
+            GeocodingWorker geocodingWorker = new GeocodingWorker(8, 10_000, 6, Duration.ofMillis(200),
+                    Duration.ofSeconds(5), virtualThreads, meterRegistry);
+            ProfileServiceFactory factory = new ProfileServiceFactory(mock(MerchantRepository.class),
+                    inMemory(new ConcurrentHashMap<>(), dataSource, maxWaiting), mock(DeliveryPartnerRepository.class),
+                    externalLocationService, offlineGazetteer, new BlindIndexUtility("0123456789abcdef"),
+                    mock(ProfileBulkReader.class), geocodingWorker, postalSectorCentroids,
+                    mock(BulkEncryptor.class), meterRegistry);
+            ReflectionTestUtils.setField(factory, "logMasker", new LogMasker());
+            ReflectionTestUtils.setField(factory, "geocodingMode", "sync");
+
+            ExecutorService server = virtualThreads
+                    ? Executors.newVirtualThreadPerTaskExecutor()
+                    : Executors.newFixedThreadPool(PLATFORM_THREADS);
+            try {
+                long[] latencies = new long[REQUESTS];
+                AtomicInteger errors = new AtomicInteger();
+                Semaphore inFlight = new Semaphore(CONCURRENCY);
+                long start = System.nanoTime();
+                for (int i = 0; i < REQUESTS; i++) {
+                    int request = i;
+                    inFlight.acquire();
+                    long submitted = System.nanoTime();
+                    server.execute(() -> {
+                        try {
+                            Customer customer = new Customer();
+                            customer.setName("Load Test " + request);
+                            customer.setEmailAddress("load" + request + "@example.com");
+                            customer.setPincode(pincodes[ThreadLocalRandom.current().nextInt(pincodes.length)]);
+                            factory.createProfile(customer);
+                        } catch (RuntimeException e) {
+                            errors.incrementAndGet();
+                        } finally {
+                            latencies[request] = System.nanoTime() - submitted;
+                            inFlight.release();
+                        }
+                    });
+                }
+                inFlight.acquire(CONCURRENCY);
+                long elapsed = System.nanoTime() - start;
+                Arrays.sort(latencies);
+                System.out.printf("%-20s %,10.0f %9.1f %9.1f %9.1f %9.1f %8d %10s%n", label,
+                        REQUESTS / (elapsed / 1e9), millis(latencies, 0.50), millis(latencies, 0.95),
+                        millis(latencies, 0.99), latencies[latencies.length - 1] / 1e6, errors.get(),
+                        "<= " + maxWaiting.get());
+            } finally {
+                server.shutdownNow();
+                geocodingWorker.shutdown();
+                requestHedger.shutdown();
+            }
+        }
+    }
+
+    // Stands in for Hikari: connections are free, the time goes into the simulated query while one is held
+    private static DataSource stubDataSource() throws SQLException {
+        DataSource target = mock(DataSource.class, withSettings().stubOnly());
+        Connection connection = mock(Connection.class, withSettings().stubOnly());
+        when(target.getConnection()).thenReturn(connection);
+        return target;
+    }
+
+    private static CustomerRepository inMemory(Map<UUID, Customer> customers, BoundedDataSource dataSource,
+                                               AtomicInteger maxWaiting) {
+        CustomerRepository repository = mock(CustomerRepository.class, withSettings().stubOnly());
+        when(repository.save(any(Customer.class))).thenAnswer(invocation -> {
+            Customer customer = invocation.getArgument(0);
+            maxWaiting.accumulateAndGet(dataSource.getWaiting(), Math::max);
+            try (Connection ignored = dataSource.getConnection()) {
+                TimeUnit.MILLISECONDS.sleep(QUERY_MILLIS);
+            }
+            if (customer.getCustomerId() == null) {
+                customer.setCustomerId(UUID.randomUUID());
+            }
+            customers.put(customer.getCustomerId(), customer);
+            return customer;
+        });
+        when(repository.findById(any())).thenAnswer(invocation -> Optional.ofNullable(customers.get(invocation.<UUID>getArgument(0))));
+        return repository;
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+}
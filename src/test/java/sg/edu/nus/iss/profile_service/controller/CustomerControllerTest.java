@@ -3,6 +3,7 @@ package sg.edu.nus.iss.profile_service.controller;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,19 +11,27 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import sg.edu.nus.iss.profile_service.dto.BatchItemResultDTO;
 import sg.edu.nus.iss.profile_service.dto.CustomerDTO;
+import sg.edu.nus.iss.profile_service.dto.ProfileSliceDTO;
 import sg.edu.nus.iss.profile_service.factory.ProfileServiceFactory;
 import sg.edu.nus.iss.profile_service.model.Customer;
 import sg.edu.nus.iss.profile_service.model.Profile;
 import sg.edu.nus.iss.profile_service.model.Rewards;
 import sg.edu.nus.iss.profile_service.util.LogMasker;
+import sg.edu.nus.iss.profile_service.util.PageCursor;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class CustomerControllerTest {
 
@@ -45,15 +54,140 @@ public class CustomerControllerTest {
 
     // Test getAllCustomers without pagination
     @Test
-    public void testGetAllCustomersWithoutPagination() {
-        List<Profile> customers = List.of(new Customer());
-        when(profileServiceFactory.getProfilesByType("customer")).thenReturn(customers);
+    public void testGetAllCustomersWithoutPagination() throws Exception {
+        Customer first = new Customer();
+        first.setName("First");
+        Customer second = new Customer();
+        second.setName("Second");
+        doAnswer(invocation -> {
+            Consumer<Profile> sink = invocation.getArgument(1);
+            sink.accept(first);
+            sink.accept(second);
+            return null;
+        }).when(profileServiceFactory).streamProfilesByType(eq("customer"), any());
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        CustomerController streamingController = new CustomerController(profileServiceFactory, objectMapper);
+
+        ResponseEntity<?> response = streamingController.getAllCustomers(null, null, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
 
-        ResponseEntity<?> response = customerController.getAllCustomers(null, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        JsonNode customers = objectMapper.readTree(out.toByteArray());
+        assertEquals(2, customers.size());
+        assertEquals("Second", customers.get(1).get("name").asText());
+        verify(profileServiceFactory, never()).getProfilesByType(anyString());
+    }
+
+    // Test getAllCustomers without pagination as NDJSON - one document per line
+    @Test
+    public void testGetAllCustomersWithoutPagination_Ndjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Profile> sink = invocation.getArgument(1);
+            sink.accept(new Customer());
+            sink.accept(new Customer());
+            return null;
+        }).when(profileServiceFactory).streamProfilesByType(eq("customer"), any());
+        CustomerController streamingController = new CustomerController(profileServiceFactory, new ObjectMapper().findAndRegisterModules());
+
+        ResponseEntity<?> response = streamingController.getAllCustomers(null, null, null, "application/x-ndjson");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{"));
+    }
+
+    // Test getAllCustomers with a cursor - keyset pagination
+    @Test
+    public void testGetAllCustomersWithCursor() {
+        UUID lastId = UUID.randomUUID();
+        ProfileSliceDTO slice = new ProfileSliceDTO();
+        when(profileServiceFactory.getProfilesAfter("customer", lastId, 50)).thenReturn(slice);
+
+        ResponseEntity<?> response = customerController.getAllCustomers(null, 50, PageCursor.encode(lastId), null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(slice, response.getBody());
+    }
+
+    // Test getAllCustomers with an empty cursor - first keyset slice
+    @Test
+    public void testGetAllCustomersWithEmptyCursor() {
+        ProfileSliceDTO slice = new ProfileSliceDTO();
+        when(profileServiceFactory.getProfilesAfter("customer", null, 50)).thenReturn(slice);
+
+        ResponseEntity<?> response = customerController.getAllCustomers(null, 50, "", null);
+
+        assertEquals(slice, response.getBody());
+        verify(profileServiceFactory, never()).getProfilesWithPagination(anyString(), any());
+    }
+
+    // Test getAllCustomers with only a size - every customer, as before cursors existed
+    @Test
+    public void testGetAllCustomersWithSizeOnly() {
+        CustomerController streamingController = new CustomerController(profileServiceFactory, new ObjectMapper().findAndRegisterModules());
+
+        ResponseEntity<?> response = streamingController.getAllCustomers(null, 50, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(customers, response.getBody());
-        verify(profileServiceFactory, times(1)).getProfilesByType("customer");
+        assertTrue(response.getBody() instanceof StreamingResponseBody);
+        verify(profileServiceFactory, never()).getProfilesAfter(anyString(), any(), anyInt());
+        verify(profileServiceFactory, never()).getProfilesWithPagination(anyString(), any());
+    }
+
+    // Test getAllCustomers with a malformed cursor
+    @Test
+    public void testGetAllCustomersWithInvalidCursor() {
+        ResponseEntity<?> response = customerController.getAllCustomers(null, null, "bm90LWEtY3Vyc29y", null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(profileServiceFactory, never()).getProfilesAfter(anyString(), any(), anyInt());
+    }
+
+    // Test registerCustomers - every item created
+    @Test
+    public void testRegisterCustomersInBulk_AllCreated() {
+        List<Customer> customers = List.of(new Customer(), new Customer());
+        BatchItemResultDTO created = new BatchItemResultDTO();
+        created.setStatus(BatchItemResultDTO.CREATED);
+        when(profileServiceFactory.getMaxBatchSize()).thenReturn(500);
+        when(profileServiceFactory.createProfiles("customer", customers)).thenReturn(List.of(created, created));
+
+        ResponseEntity<?> response = customerController.registerCustomers(customers);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+    }
+
+    // Test registerCustomers - some items rejected
+    @Test
+    public void testRegisterCustomersInBulk_PartlyRejected() {
+        List<Customer> customers = List.of(new Customer(), new Customer());
+        BatchItemResultDTO created = new BatchItemResultDTO();
+        created.setStatus(BatchItemResultDTO.CREATED);
+        BatchItemResultDTO rejected = new BatchItemResultDTO();
+        rejected.setStatus(BatchItemResultDTO.REJECTED);
+        when(profileServiceFactory.getMaxBatchSize()).thenReturn(500);
+        when(profileServiceFactory.createProfiles("customer", customers)).thenReturn(List.of(created, rejected));
+
+        ResponseEntity<?> response = customerController.registerCustomers(customers);
+
+        assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+        assertEquals(List.of(created, rejected), response.getBody());
+    }
+
+    // Test registerCustomers - batch over the limit
+    @Test
+    public void testRegisterCustomersInBulk_TooLarge() {
+        when(profileServiceFactory.getMaxBatchSize()).thenReturn(1);
+
+        ResponseEntity<?> response = customerController.registerCustomers(List.of(new Customer(), new Customer()));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(profileServiceFactory, never()).createProfiles(anyString(), anyList());
     }
 
     // Test getCustomerById - customer found
@@ -1,5 +1,6 @@
 package sg.edu.nus.iss.profile_service.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,22 +8,28 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import sg.edu.nus.iss.profile_service.dto.DeliveryPartnerDTO;
 import sg.edu.nus.iss.profile_service.factory.ProfileServiceFactory;
 import sg.edu.nus.iss.profile_service.model.DeliveryPartner;
 import sg.edu.nus.iss.profile_service.model.Profile;
 import sg.edu.nus.iss.profile_service.util.LogMasker;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class DeliveryPartnerControllerTest {
@@ -46,15 +53,51 @@ public class DeliveryPartnerControllerTest {
 
     // Test getAlldeliveryPartners without pagination
     @Test
-    public void testGetAlldeliveryPartnersWithoutPagination() {
-        List<Profile> deliveryPartners = List.of(new DeliveryPartner());
-        when(profileServiceFactory.getProfilesByType("deliveryPartner")).thenReturn(deliveryPartners);
-
-        ResponseEntity<?> response = deliveryPartnerController.getAllDeliveryPartners(null, null);
+    public void testGetAlldeliveryPartnersWithoutPagination() throws Exception {
+        DeliveryPartner first = new DeliveryPartner();
+        first.setName("First");
+        DeliveryPartner second = new DeliveryPartner();
+        second.setName("Second");
+        doAnswer(invocation -> {
+            Consumer<Profile> sink = invocation.getArgument(1);
+            sink.accept(first);
+            sink.accept(second);
+            return null;
+        }).when(profileServiceFactory).streamProfilesByType(eq("deliveryPartner"), any());
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        DeliveryPartnerController streamingController = new DeliveryPartnerController(profileServiceFactory, objectMapper);
+
+        ResponseEntity<?> response = streamingController.getAllDeliveryPartners(null, null, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(deliveryPartners, response.getBody());
-        verify(profileServiceFactory, times(1)).getProfilesByType("deliveryPartner");
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        JsonNode deliveryPartners = objectMapper.readTree(out.toByteArray());
+        assertEquals(2, deliveryPartners.size());
+        assertEquals("Second", deliveryPartners.get(1).get("name").asText());
+        verify(profileServiceFactory, never()).getProfilesByType(anyString());
+    }
+
+    // Test getAllDeliveryPartners without pagination as NDJSON - one document per line
+    @Test
+    public void testGetAlldeliveryPartnersWithoutPagination_Ndjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Profile> sink = invocation.getArgument(1);
+            sink.accept(new DeliveryPartner());
+            sink.accept(new DeliveryPartner());
+            return null;
+        }).when(profileServiceFactory).streamProfilesByType(eq("deliveryPartner"), any());
+        DeliveryPartnerController streamingController = new DeliveryPartnerController(profileServiceFactory, new ObjectMapper().findAndRegisterModules());
+
+        ResponseEntity<?> response = streamingController.getAllDeliveryPartners(null, null, null, "application/x-ndjson");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{"));
     }
 
     // Test getdeliveryPartnerById - deliveryPartner found
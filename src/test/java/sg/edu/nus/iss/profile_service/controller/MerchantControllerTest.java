@@ -3,6 +3,7 @@ package sg.edu.nus.iss.profile_service.controller;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,18 +11,23 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import sg.edu.nus.iss.profile_service.dto.MerchantDTO;
 import sg.edu.nus.iss.profile_service.factory.ProfileServiceFactory;
 import sg.edu.nus.iss.profile_service.model.Merchant;
 import sg.edu.nus.iss.profile_service.model.Profile;
 import sg.edu.nus.iss.profile_service.util.LogMasker;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class MerchantControllerTest {
 
@@ -44,15 +50,51 @@ public class MerchantControllerTest {
 
     // Test getAllmerchants without pagination
     @Test
-    public void testGetAllMerchantsWithoutPagination() {
-        List<Profile> merchants = List.of(new Merchant());
-        when(profileServiceFactory.getProfilesByType("merchant")).thenReturn(merchants);
-
-        ResponseEntity<?> response = merchantController.getAllMerchants(null, null);
+    public void testGetAllMerchantsWithoutPagination() throws Exception {
+        Merchant first = new Merchant();
+        first.setName("First");
+        Merchant second = new Merchant();
+        second.setName("Second");
+        doAnswer(invocation -> {
+            Consumer<Profile> sink = invocation.getArgument(1);
+            sink.accept(first);
+            sink.accept(second);
+            return null;
+        }).when(profileServiceFactory).streamProfilesByType(eq("merchant"), any());
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        MerchantController streamingController = new MerchantController(profileServiceFactory, objectMapper);
+
+        ResponseEntity<?> response = streamingController.getAllMerchants(null, null, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(merchants, response.getBody());
-        verify(profileServiceFactory, times(1)).getProfilesByType("merchant");
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        JsonNode merchants = objectMapper.readTree(out.toByteArray());
+        assertEquals(2, merchants.size());
+        assertEquals("Second", merchants.get(1).get("name").asText());
+        verify(profileServiceFactory, never()).getProfilesByType(anyString());
+    }
+
+    // Test getAllMerchants without pagination as NDJSON - one document per line
+    @Test
+    public void testGetAllMerchantsWithoutPagination_Ndjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Profile> sink = invocation.getArgument(1);
+            sink.accept(new Merchant());
+            sink.accept(new Merchant());
+            return null;
+        }).when(profileServiceFactory).streamProfilesByType(eq("merchant"), any());
+        MerchantController streamingController = new MerchantController(profileServiceFactory, new ObjectMapper().findAndRegisterModules());
+
+        ResponseEntity<?> response = streamingController.getAllMerchants(null, null, null, "application/x-ndjson");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{"));
     }
 
     // Test getmerchantById - merchant found
@@ -3,29 +3,80 @@ package sg.edu.nus.iss.profile_service.factory;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import sg.edu.nus.iss.profile_service.model.LatLng;
+import sg.edu.nus.iss.profile_service.model.PincodeGeocode;
+import sg.edu.nus.iss.profile_service.repository.PincodeGeocodeRepository;
+import sg.edu.nus.iss.profile_service.util.CircuitBreaker;
+import sg.edu.nus.iss.profile_service.util.RequestHedger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ExternalLocationServiceTest {
 
     @Mock
     private RestTemplate restTemplate;
 
-    @InjectMocks
+    @Mock
+    private PincodeGeocodeRepository pincodeGeocodeRepository;
+
+    @Mock
+    private PostalSectorCentroids postalSectorCentroids;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private ExternalLocationService externalLocationService;
 
+    private CircuitBreaker circuitBreaker;
+
+    private RequestHedger requestHedger;
+
     @Value("${location.service.url}")
     private String locationServiceUrl;
 
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        requestHedger = new RequestHedger("location-service", 4, 0.95, Duration.ofMillis(20), false, meterRegistry);
+        circuitBreaker = new CircuitBreaker("location-service", 10, 4, 50, Duration.ofMinutes(1), 1, meterRegistry);
+        externalLocationService = new ExternalLocationService(restTemplate, meterRegistry, 100,
+                Duration.ofDays(1), Duration.ofMinutes(5), circuitBreaker, requestHedger,
+                pincodeGeocodeRepository, postalSectorCentroids);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        requestHedger.shutdown();
     }
 
     // Test successful coordinate fetching
@@ -66,4 +117,419 @@ public class ExternalLocationServiceTest {
         assertTrue(exception.getMessage().contains("Error fetching coordinates from external service"));
         verify(restTemplate, times(1)).getForObject(url, LatLng.class);
     }
-}
\ No newline at end of file
+
+    // Test repeated lookups of the same pincode are served from the cache
+    @Test
+    public void testGetCoordinates_CachedAfterFirstCall() {
+        String pincode = "228714";
+        LatLng latLng = new LatLng(1.3521, 103.8198);
+        String url = locationServiceUrl+"/location/coordinates?pincode=" + pincode;
+
+        when(restTemplate.getForObject(url, LatLng.class)).thenReturn(latLng);
+
+        assertEquals(latLng, externalLocationService.getCoordinates(pincode));
+        assertEquals(latLng, externalLocationService.getCoordinates(pincode));
+
+        verify(restTemplate, times(1)).getForObject(url, LatLng.class);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    // Test unknown pincodes are cached as misses and return null
+    @Test
+    public void testGetCoordinates_UnknownPincodeCached() {
+        String pincode = "999999";
+        String url = locationServiceUrl+"/location/coordinates?pincode=" + pincode;
+
+        when(restTemplate.getForObject(url, LatLng.class))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        assertNull(externalLocationService.getCoordinates(pincode));
+        assertNull(externalLocationService.getCoordinates(pincode));
+
+        verify(restTemplate, times(1)).getForObject(url, LatLng.class);
+    }
+
+    // Test a malformed pincode the service rejects is unresolved rather than unavailable, and is asked once
+    @Test
+    public void testGetCoordinates_RejectedPincodeIsNotUnavailable() {
+        String pincode = "12AB";
+        String url = locationServiceUrl+"/location/coordinates?pincode=" + pincode;
+
+        when(restTemplate.getForObject(url, LatLng.class))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null));
+
+        assertNull(externalLocationService.getCoordinates(pincode));
+        assertNull(externalLocationService.getCoordinates(pincode));
+
+        verify(restTemplate, times(1)).getForObject(url, LatLng.class);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    // Test failed lookups are not cached
+    @Test
+    public void testGetCoordinates_FailureNotCached() {
+        String pincode = "228714";
+        LatLng latLng = new LatLng(1.3521, 103.8198);
+        String url = locationServiceUrl+"/location/coordinates?pincode=" + pincode;
+
+        when(restTemplate.getForObject(url, LatLng.class))
+                .thenThrow(new RuntimeException("Service unavailable"))
+                .thenReturn(latLng);
+
+        assertThrows(RuntimeException.class, () -> externalLocationService.getCoordinates(pincode));
+        assertEquals(latLng, externalLocationService.getCoordinates(pincode));
+
+        verify(restTemplate, times(2)).getForObject(url, LatLng.class);
+    }
+
+    // Test concurrent misses for one pincode share a single remote call
+    @Test
+    public void testGetCoordinates_ConcurrentMissesShareOneCall() throws Exception {
+        String pincode = "228714";
+        LatLng latLng = new LatLng(1.3521, 103.8198);
+        String url = locationServiceUrl+"/location/coordinates?pincode=" + pincode;
+        CountDownLatch callersWaiting = new CountDownLatch(1);
+
+        when(restTemplate.getForObject(url, LatLng.class)).thenAnswer(invocation -> {
+            callersWaiting.await(1, TimeUnit.SECONDS);
+            return latLng;
+        });
+
+        List<LatLng> results = getConcurrently(List.of(pincode, pincode, pincode, pincode), callersWaiting);
+
+        results.forEach(result -> assertEquals(latLng, result));
+        verify(restTemplate, times(1)).getForObject(url, LatLng.class);
+    }
+
+    // Test distinct pincodes missed within one window go upstream as one batch call
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetCoordinates_BatchedWithinWindow() throws Exception {
+        ReflectionTestUtils.setField(externalLocationService, "batchEnabled", true);
+        ReflectionTestUtils.setField(externalLocationService, "batchWindow", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(externalLocationService, "batchMaxSize", 50);
+        ReflectionTestUtils.setField(externalLocationService, "batchPath", "/location/coordinates/batch");
+        LatLng first = new LatLng(1.3521, 103.8198);
+        LatLng second = new LatLng(1.2806, 103.8503);
+
+        when(restTemplate.exchange(eq(locationServiceUrl + "/location/coordinates/batch"), eq(HttpMethod.POST),
+                any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(Map.of("228714", first, "018956", second)));
+
+        List<LatLng> results = getConcurrently(List.of("228714", "018956", "999999"), new CountDownLatch(0));
+
+        assertEquals(first, results.get(0));
+        assertEquals(second, results.get(1));
+        assertNull(results.get(2));
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class),
+                any(ParameterizedTypeReference.class));
+        verify(restTemplate, never()).getForObject(anyString(), eq(LatLng.class));
+    }
+
+    // Test a batch the service rejects is asked again pincode by pincode, leaving only the bad one unresolved
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetCoordinates_RejectedBatchFallsBackToSingleLookups() throws Exception {
+        ReflectionTestUtils.setField(externalLocationService, "batchEnabled", true);
+        ReflectionTestUtils.setField(externalLocationService, "batchWindow", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(externalLocationService, "batchMaxSize", 50);
+        ReflectionTestUtils.setField(externalLocationService, "batchPath", "/location/coordinates/batch");
+        LatLng first = new LatLng(1.3521, 103.8198);
+        when(restTemplate.exchange(eq(locationServiceUrl + "/location/coordinates/batch"), eq(HttpMethod.POST),
+                any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.UNPROCESSABLE_ENTITY, "Unprocessable Entity",
+                        null, null, null));
+        when(restTemplate.getForObject(locationServiceUrl + "/location/coordinates?pincode=228714", LatLng.class))
+                .thenReturn(first);
+        when(restTemplate.getForObject(locationServiceUrl + "/location/coordinates?pincode=12AB", LatLng.class))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null));
+
+        List<LatLng> results = getConcurrently(List.of("228714", "12AB"), new CountDownLatch(0));
+
+        assertEquals(first, results.get(0));
+        assertNull(results.get(1));
+        verify(restTemplate, times(2)).getForObject(anyString(), eq(LatLng.class));
+    }
+
+    // Test a failing write to the shared table still answers every pincode of the batch
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetCoordinates_BatchAnsweredWhenStoreFails() throws Exception {
+        ReflectionTestUtils.setField(externalLocationService, "batchEnabled", true);
+        ReflectionTestUtils.setField(externalLocationService, "batchWindow", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(externalLocationService, "batchMaxSize", 50);
+        ReflectionTestUtils.setField(externalLocationService, "batchPath", "/location/coordinates/batch");
+        LatLng first = new LatLng(1.3521, 103.8198);
+        LatLng second = new LatLng(1.2806, 103.8503);
+        when(restTemplate.exchange(eq(locationServiceUrl + "/location/coordinates/batch"), eq(HttpMethod.POST),
+                any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(Map.of("228714", first, "018956", second)));
+        when(pincodeGeocodeRepository.upsert(anyString(), anyDouble(), anyDouble(), anyString()))
+                .thenThrow(new IllegalStateException("no connection"));
+
+        List<String> pincodes = List.of("228714", "018956", "999999");
+        ExecutorService executor = Executors.newFixedThreadPool(pincodes.size());
+        try {
+            List<Future<LatLng>> futures = new ArrayList<>();
+            for (String pincode : pincodes) {
+                futures.add(executor.submit(() -> externalLocationService.getCoordinates(pincode)));
+            }
+            // The failed write is logged and skipped; every caller, the one that sent the batch included, is answered
+            assertEquals(first, futures.get(0).get(5, TimeUnit.SECONDS));
+            assertEquals(second, futures.get(1).get(5, TimeUnit.SECONDS));
+            assertNull(futures.get(2).get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Test the circuit opens after repeated upstream failures and then fails fast without calling upstream
+    @Test
+    public void testGetCoordinates_CircuitOpensAfterFailures() {
+        when(restTemplate.getForObject(anyString(), eq(LatLng.class))).thenThrow(new RuntimeException("Service unavailable"));
+
+        for (int i = 0; i < 4; i++) {
+            String pincode = "22871" + i;
+            assertThrows(LocationServiceUnavailableException.class, () -> externalLocationService.getCoordinates(pincode));
+        }
+        LocationServiceUnavailableException exception = assertThrows(LocationServiceUnavailableException.class,
+                () -> externalLocationService.getCoordinates("228719"));
+
+        assertEquals("Location service circuit breaker is open", exception.getMessage());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        verify(restTemplate, times(4)).getForObject(anyString(), eq(LatLng.class));
+        assertEquals(1.0, meterRegistry.get("circuit.breaker.state").tag("state", "open").gauge().value());
+    }
+
+    // Test a failed attempt is retried after a backoff
+    @Test
+    public void testGetCoordinates_RetriedAfterFailure() {
+        ReflectionTestUtils.setField(externalLocationService, "retryAttempts", 2);
+        ReflectionTestUtils.setField(externalLocationService, "retryBackoff", Duration.ofMillis(1));
+        String pincode = "228714";
+        LatLng latLng = new LatLng(1.3521, 103.8198);
+        String url = locationServiceUrl+"/location/coordinates?pincode=" + pincode;
+
+        when(restTemplate.getForObject(url, LatLng.class))
+                .thenThrow(new RuntimeException("Connection reset"))
+                .thenReturn(latLng);
+
+        assertEquals(latLng, externalLocationService.getCoordinates(pincode));
+        verify(restTemplate, times(2)).getForObject(url, LatLng.class);
+    }
+
+    // Test a call slower than the recent p95 is hedged and the faster second attempt wins
+    @Test
+    public void testGetCoordinates_SlowCallHedged() {
+        AtomicInteger slowCalls = new AtomicInteger();
+        LatLng latLng = new LatLng(1.3521, 103.8198);
+        when(restTemplate.getForObject(anyString(), eq(LatLng.class))).thenAnswer(invocation -> {
+            String url = invocation.getArgument(0);
+            if (url.endsWith("999000") && slowCalls.incrementAndGet() == 1) {
+                Thread.sleep(2000);
+            }
+            return latLng;
+        });
+        // Enough fast lookups for the hedger to learn a latency percentile
+        for (int i = 0; i < 64; i++) {
+            externalLocationService.getCoordinates(String.valueOf(100000 + i));
+        }
+
+        long start = System.nanoTime();
+        assertEquals(latLng, externalLocationService.getCoordinates("999000"));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+        assertEquals(1.0, meterRegistry.get("request.hedging").tag("outcome", "hedge_won").counter().count());
+    }
+
+    private List<LatLng> getConcurrently(List<String> pincodes, CountDownLatch callersWaiting) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(pincodes.size());
+        try {
+            List<Future<LatLng>> futures = new ArrayList<>();
+            for (String pincode : pincodes) {
+                futures.add(executor.submit(() -> externalLocationService.getCoordinates(pincode)));
+            }
+            // Give every caller time to join the lookup before the first one completes
+            Thread.sleep(100);
+            callersWaiting.countDown();
+            List<LatLng> results = new ArrayList<>();
+            for (Future<LatLng> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static PincodeGeocode storedRow(String pincode, Instant fetchedAt) {
+        PincodeGeocode row = new PincodeGeocode();
+        row.setPincode(pincode);
+        row.setLatitude(1.3521);
+        row.setLongitude(103.8198);
+        row.setSource("location-service");
+        row.setFetchedAt(fetchedAt);
+        return row;
+    }
+
+    @Test
+    public void testGetCoordinates_SharedTableHitSkipsLocationService() {
+        when(pincodeGeocodeRepository.findById("228714")).thenReturn(Optional.of(storedRow("228714", Instant.now())));
+
+        LatLng result = externalLocationService.getCoordinates("228714");
+
+        assertEquals(1.3521, result.getLat());
+        assertEquals(103.8198, result.getLng());
+        verify(pincodeGeocodeRepository, never()).addLookups(anyString(), anyLong());
+        verifyNoInteractions(restTemplate);
+        assertEquals(1.0, meterRegistry.get("pincode.geocode.store").tag("result", "hit").counter().count());
+
+        externalLocationService.flushLookupCounts();
+
+        verify(pincodeGeocodeRepository).addLookups("228714", 1L);
+    }
+
+    @Test
+    public void testFlushLookupCounts_AddsHitsCountedSinceLastFlush() {
+        when(pincodeGeocodeRepository.findById("228714")).thenReturn(Optional.of(storedRow("228714", Instant.now())));
+        externalLocationService.getCoordinates("228714");
+        // Evicted from the cache, so the next lookup reads the shared table again
+        ((AsyncCache<String, ?>) ReflectionTestUtils.getField(externalLocationService, "coordinatesCache")).synchronous()
+                .invalidate("228714");
+        externalLocationService.getCoordinates("228714");
+
+        externalLocationService.flushLookupCounts();
+        externalLocationService.flushLookupCounts();
+
+        verify(pincodeGeocodeRepository, times(1)).addLookups("228714", 2L);
+    }
+
+    @Test
+    public void testFlushLookupCounts_KeepsCountsThatCouldNotBeWritten() {
+        when(pincodeGeocodeRepository.findById("228714")).thenReturn(Optional.of(storedRow("228714", Instant.now())));
+        when(pincodeGeocodeRepository.addLookups(anyString(), anyLong()))
+                .thenThrow(new IllegalStateException("no connection"))
+                .thenReturn(1);
+        externalLocationService.getCoordinates("228714");
+
+        externalLocationService.flushLookupCounts();
+        externalLocationService.flushLookupCounts();
+
+        verify(pincodeGeocodeRepository, times(2)).addLookups("228714", 1L);
+    }
+
+    @Test
+    public void testGetCoordinates_TransactionErrorsOnSharedTableFallBackToLocationService() {
+        when(pincodeGeocodeRepository.findById("228714")).thenThrow(new CannotCreateTransactionException("no connection"));
+        when(pincodeGeocodeRepository.upsert(anyString(), anyDouble(), anyDouble(), anyString()))
+                .thenThrow(new CannotCreateTransactionException("no connection"));
+        String url = locationServiceUrl + "/location/coordinates?pincode=228714";
+        when(restTemplate.getForObject(url, LatLng.class)).thenReturn(new LatLng(1.3521, 103.8198));
+
+        LatLng result = externalLocationService.getCoordinates("228714");
+
+        assertEquals(1.3521, result.getLat());
+    }
+
+    // An error escaping the lookup must not leave its future in the cache unanswered for the next caller
+    @Test
+    public void testGetCoordinates_ErrorInLookupDoesNotStrandLaterCallers() {
+        String url = locationServiceUrl + "/location/coordinates?pincode=228714";
+        when(restTemplate.getForObject(url, LatLng.class))
+                .thenThrow(new AssertionError("broken"))
+                .thenReturn(new LatLng(1.3521, 103.8198));
+
+        assertThrows(AssertionError.class, () -> externalLocationService.getCoordinates("228714"));
+        LatLng result = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> externalLocationService.getCoordinates("228714"));
+
+        assertEquals(1.3521, result.getLat());
+    }
+
+    @Test
+    public void testGetCoordinates_RemoteResultIsStoredInSharedTable() {
+        String url = locationServiceUrl + "/location/coordinates?pincode=228714";
+        when(restTemplate.getForObject(url, LatLng.class)).thenReturn(new LatLng(1.3521, 103.8198));
+
+        externalLocationService.getCoordinates("228714");
+
+        verify(pincodeGeocodeRepository).upsert("228714", 1.3521, 103.8198, "location-service");
+    }
+
+    @Test
+    public void testGetCoordinates_FetchedCoordinatesRecordedInCentroidsOnce() {
+        String url = locationServiceUrl + "/location/coordinates?pincode=228714";
+        LatLng coordinates = new LatLng(1.3521, 103.8198);
+        when(restTemplate.getForObject(url, LatLng.class)).thenReturn(coordinates);
+        when(pincodeGeocodeRepository.findById("018956")).thenReturn(Optional.of(storedRow("018956", Instant.now())));
+
+        for (int i = 0; i < 3; i++) {
+            externalLocationService.getCoordinates("228714");
+            externalLocationService.getCoordinates("018956");
+        }
+
+        // Cache hits and rows of the shared table were recorded when they were first fetched
+        verify(postalSectorCentroids, times(1)).record("228714", coordinates);
+        verify(postalSectorCentroids, never()).record(eq("018956"), any(LatLng.class));
+    }
+
+    @Test
+    public void testGetCoordinates_UnknownPincodeIsNotStored() {
+        externalLocationService.getCoordinates("999999");
+
+        verify(pincodeGeocodeRepository, never()).upsert(anyString(), anyDouble(), anyDouble(), anyString());
+    }
+
+    @Test
+    public void testGetCoordinates_StaleRowIsFetchedAgain() {
+        ReflectionTestUtils.setField(externalLocationService, "storeTtl", Duration.ofDays(30));
+        when(pincodeGeocodeRepository.findById("228714"))
+                .thenReturn(Optional.of(storedRow("228714", Instant.now().minus(Duration.ofDays(31)))));
+        String url = locationServiceUrl + "/location/coordinates?pincode=228714";
+        when(restTemplate.getForObject(url, LatLng.class)).thenReturn(new LatLng(1.36, 103.82));
+
+        LatLng result = externalLocationService.getCoordinates("228714");
+
+        assertEquals(1.36, result.getLat());
+        externalLocationService.flushLookupCounts();
+        verify(pincodeGeocodeRepository, never()).addLookups(anyString(), anyLong());
+        verify(pincodeGeocodeRepository).upsert("228714", 1.36, 103.82, "location-service");
+    }
+
+    @Test
+    public void testGetCoordinates_SharedTableErrorsFallBackToLocationService() {
+        when(pincodeGeocodeRepository.findById("228714")).thenThrow(new DataAccessResourceFailureException("down"));
+        when(pincodeGeocodeRepository.upsert(anyString(), anyDouble(), anyDouble(), anyString()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        String url = locationServiceUrl + "/location/coordinates?pincode=228714";
+        when(restTemplate.getForObject(url, LatLng.class)).thenReturn(new LatLng(1.3521, 103.8198));
+
+        LatLng result = externalLocationService.getCoordinates("228714");
+
+        assertEquals(1.3521, result.getLat());
+    }
+
+    @Test
+    public void testWarmUp_LoadsMostLookedUpPincodesIntoCache() {
+        ReflectionTestUtils.setField(externalLocationService, "warmUpSize", 2);
+        when(pincodeGeocodeRepository.findAllByOrderByLookupsDesc(Limit.of(2)))
+                .thenReturn(List.of(storedRow("228714", Instant.now()), storedRow("018956", Instant.now())));
+
+        externalLocationService.warmUp();
+        LatLng result = externalLocationService.getCoordinates("018956");
+
+        assertEquals(1.3521, result.getLat());
+        verify(pincodeGeocodeRepository, never()).findById(anyString());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    public void testWarmUp_DatabaseErrorIsIgnored() {
+        ReflectionTestUtils.setField(externalLocationService, "warmUpSize", 2);
+        when(pincodeGeocodeRepository.findAllByOrderByLookupsDesc(any()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertDoesNotThrow(() -> externalLocationService.warmUp());
+    }
+}
@@ -0,0 +1,102 @@
+package sg.edu.nus.iss.profile_service.factory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.iss.profile_service.model.LatLng;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeocodingWorkerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private GeocodingWorker geocodingWorker;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        geocodingWorker = new GeocodingWorker(2, 2, 3, Duration.ofMillis(10), Duration.ofMillis(50), false, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        geocodingWorker.shutdown();
+    }
+
+    @Test
+    public void testSubmit_RetriesUntilResolved() throws Exception {
+        LatLng latLng = new LatLng(1.3521, 103.8198);
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<LatLng> result = new CompletableFuture<>();
+
+        assertTrue(geocodingWorker.submit("228714", pincode -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new RuntimeException("Service unavailable");
+            }
+            return latLng;
+        }, result::complete, () -> result.complete(null)));
+
+        assertEquals(latLng, result.get(5, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, meterRegistry.get("profile.geocode.async").tag("outcome", "retried").counter().count());
+    }
+
+    @Test
+    public void testSubmit_UnresolvedAfterLastAttempt() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch unresolved = new CountDownLatch(1);
+
+        geocodingWorker.submit("228714", pincode -> {
+            attempts.incrementAndGet();
+            throw new RuntimeException("Service unavailable");
+        }, coordinates -> fail("Not expected to resolve"), unresolved::countDown);
+
+        assertTrue(unresolved.await(5, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testSubmit_UnknownPincodeNotRetried() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch unresolved = new CountDownLatch(1);
+
+        geocodingWorker.submit("999999", pincode -> {
+            attempts.incrementAndGet();
+            return null;
+        }, coordinates -> fail("Not expected to resolve"), unresolved::countDown);
+
+        assertTrue(unresolved.await(5, TimeUnit.SECONDS));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testSubmit_RejectedWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(geocodingWorker.submit("228714", pincode -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new LatLng(1.3521, 103.8198);
+            }, coordinates -> done.countDown(), done::countDown));
+        }
+
+        assertFalse(geocodingWorker.submit("228714", pincode -> null, coordinates -> { }, () -> { }));
+        assertEquals(1.0, meterRegistry.get("profile.geocode.async").tag("outcome", "rejected").counter().count());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,80 @@
+package sg.edu.nus.iss.profile_service.factory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sg.edu.nus.iss.profile_service.model.LatLng;
+import sg.edu.nus.iss.profile_service.util.GazetteerFileBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OfflineGazetteerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private OfflineGazetteer offlineGazetteer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path csv = tempDir.resolve("pincodes.csv");
+        Files.writeString(csv, "pincode,latitude,longitude\n"
+                + "560001,12.9716,77.5946\n"
+                + "228714,1.3521,103.8198\n"
+                + "\n"
+                + "018956,1.2806,103.8503\n"
+                + "228714,0.0,0.0\n");
+        Path output = tempDir.resolve("pincodes.bin");
+        assertEquals(3, GazetteerFileBuilder.build(csv, output));
+        offlineGazetteer = new OfflineGazetteer(output.toString());
+    }
+
+    @Test
+    public void testGetCoordinates_KnownPincode() {
+        LatLng coordinates = offlineGazetteer.getCoordinates("228714");
+
+        assertEquals(1.3521, coordinates.getLat(), 1e-6);
+        assertEquals(103.8198, coordinates.getLng(), 1e-6);
+        assertEquals(1.2806, offlineGazetteer.getCoordinates("018956").getLat(), 1e-6);
+    }
+
+    @Test
+    public void testGetCoordinates_UnknownOrInvalidPincode_ReturnsNull() {
+        assertNull(offlineGazetteer.getCoordinates("999999"));
+        assertNull(offlineGazetteer.getCoordinates("12345"));
+        assertNull(offlineGazetteer.getCoordinates("ABCDEF"));
+        assertNull(offlineGazetteer.getCoordinates(null));
+    }
+
+    @Test
+    public void testForEachEntry_VisitsEveryPincodeInOrder() {
+        List<Integer> pincodes = new ArrayList<>();
+        offlineGazetteer.forEachEntry((pincode, latitude, longitude) -> pincodes.add(pincode));
+
+        assertEquals(List.of(18956, 228714, 560001), pincodes);
+    }
+
+    @Test
+    public void testGetCoordinates_NoPathConfigured_ReturnsNull() {
+        assertNull(new OfflineGazetteer("").getCoordinates("228714"));
+    }
+
+    @Test
+    public void testLoad_MissingFile_FallsBack() {
+        assertNull(new OfflineGazetteer(tempDir.resolve("missing.bin").toString()).getCoordinates("228714"));
+    }
+
+    @Test
+    public void testLoad_NotAGazetteerFile_Throws() throws IOException {
+        Path bogus = tempDir.resolve("bogus.bin");
+        Files.writeString(bogus, "not a gazetteer file");
+
+        assertThrows(IllegalStateException.class, () -> new OfflineGazetteer(bogus.toString()));
+    }
+}
@@ -0,0 +1,60 @@
+package sg.edu.nus.iss.profile_service.factory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import sg.edu.nus.iss.profile_service.model.LatLng;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+public class PostalSectorCentroidsTest {
+
+    @Mock
+    private OfflineGazetteer offlineGazetteer;
+
+    private PostalSectorCentroids postalSectorCentroids;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        doAnswer(invocation -> {
+            OfflineGazetteer.EntryVisitor visitor = invocation.getArgument(0);
+            visitor.visit(228714, 1.30, 103.80);
+            visitor.visit(229000, 1.40, 103.90);
+            return null;
+        }).when(offlineGazetteer).forEachEntry(any());
+        postalSectorCentroids = new PostalSectorCentroids(offlineGazetteer);
+    }
+
+    @Test
+    public void testApproximate_SeededFromGazetteer() {
+        LatLng centroid = postalSectorCentroids.approximate("221234");
+
+        assertEquals(1.35, centroid.getLat(), 1e-9);
+        assertEquals(103.85, centroid.getLng(), 1e-9);
+    }
+
+    @Test
+    public void testApproximate_LearnsFromExactLookups() {
+        assertNull(postalSectorCentroids.approximate("018956"));
+
+        postalSectorCentroids.record("018956", new LatLng(1.2806, 103.8503));
+        postalSectorCentroids.record("019000", new LatLng(1.2800, 103.8500));
+
+        assertEquals(1.2803, postalSectorCentroids.approximate("010000").getLat(), 1e-9);
+    }
+
+    @Test
+    public void testApproximate_InvalidPincode_ReturnsNull() {
+        postalSectorCentroids.record("AB1234", new LatLng(1.0, 103.0));
+        postalSectorCentroids.record("228714", null);
+
+        assertNull(postalSectorCentroids.approximate("AB1234"));
+        assertNull(postalSectorCentroids.approximate("2287"));
+        assertNull(postalSectorCentroids.approximate(null));
+        assertEquals(1.35, postalSectorCentroids.approximate("228714").getLat(), 1e-9);
+    }
+}
@@ -0,0 +1,104 @@
+package sg.edu.nus.iss.profile_service.factory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import sg.edu.nus.iss.profile_service.PostgresPersistenceContext;
+import sg.edu.nus.iss.profile_service.dto.BatchItemResultDTO;
+import sg.edu.nus.iss.profile_service.model.Customer;
+import sg.edu.nus.iss.profile_service.repository.CustomerRepository;
+import sg.edu.nus.iss.profile_service.repository.DeliveryPartnerRepository;
+import sg.edu.nus.iss.profile_service.repository.MerchantRepository;
+import sg.edu.nus.iss.profile_service.repository.ProfileBulkReader;
+import sg.edu.nus.iss.profile_service.util.BlindIndexUtility;
+import sg.edu.nus.iss.profile_service.util.BulkEncryptor;
+import sg.edu.nus.iss.profile_service.util.LogMasker;
+import sg.edu.nus.iss.profile_service.util.PiiRecordCodec;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Bulk registration against Hibernate on PostgreSQL, where a failed batched insert has already assigned ids to the
+ * profiles it rolled back.
+ */
+public class ProfileServiceFactoryBatchInsertTest {
+
+    private PostgresPersistenceContext context;
+    private CustomerRepository customerRepository;
+    private BulkEncryptor bulkEncryptor;
+    private ProfileServiceFactory profileServiceFactory;
+
+    @BeforeEach
+    public void setup() {
+        context = new PostgresPersistenceContext("column");
+        // The real repository, except that the email check misses a registration that raced the batch
+        customerRepository = mock(CustomerRepository.class, delegatesTo(context.repository(CustomerRepository.class)));
+        doReturn(List.of()).when(customerRepository).findByEmailBlindIndexInAndDeletedFalse(any());
+        bulkEncryptor = new BulkEncryptor(context.getEncryptionUtility(),
+                new PiiRecordCodec(context.getEncryptionUtility()), 2, 64, "column");
+        OfflineGazetteer offlineGazetteer = new OfflineGazetteer("");
+        profileServiceFactory = new ProfileServiceFactory(mock(MerchantRepository.class), customerRepository,
+                mock(DeliveryPartnerRepository.class), mock(ExternalLocationService.class), offlineGazetteer,
+                new BlindIndexUtility(PostgresPersistenceContext.ENCRYPTION_KEY), mock(ProfileBulkReader.class),
+                mock(GeocodingWorker.class), new PostalSectorCentroids(offlineGazetteer), bulkEncryptor,
+                new SimpleMeterRegistry());
+        profileServiceFactory.logMasker = new LogMasker();
+        profileServiceFactory.validator = Validation.buildDefaultValidatorFactory().getValidator();
+        profileServiceFactory.geocodingMode = "async";
+    }
+
+    @AfterEach
+    public void close() {
+        // Null when no PostgreSQL was available and setup was skipped
+        if (bulkEncryptor != null) {
+            bulkEncryptor.shutdown();
+        }
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    public void testFailedBatchInsertStoresTheOtherProfilesOneByOne() {
+        context.repository(CustomerRepository.class).save(customer("Taken", "taken@example.com"));
+        Customer first = customer("First", "first@example.com");
+        Customer clash = customer("Clash", "taken@example.com");
+        Customer second = customer("Second", "second@example.com");
+
+        List<BatchItemResultDTO> results = profileServiceFactory.createProfiles("customer", List.of(first, clash, second));
+
+        assertEquals(List.of("CREATED", "REJECTED", "CREATED"), results.stream().map(BatchItemResultDTO::getStatus).toList());
+        assertNull(results.get(1).getId());
+        // Inserted as the instances submitted, not merged into copies under new ids
+        assertEquals(first.getCustomerId(), results.get(0).getId());
+        assertEquals(second.getCustomerId(), results.get(2).getId());
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getDataSource());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT count(*) FROM customer", Integer.class));
+        for (int i : new int[] {0, 2}) {
+            UUID id = results.get(i).getId();
+            Map<String, Object> row = jdbcTemplate.queryForMap("SELECT name_bin FROM customer WHERE customer_id = ?", id);
+            assertEquals(i == 0 ? "First" : "Second",
+                    context.getEncryptionUtility().decryptBinary((byte[]) row.get("name_bin")));
+        }
+    }
+
+    private static Customer customer(String name, String email) {
+        Customer customer = new Customer();
+        customer.setName(name);
+        customer.setEmailAddress(email);
+        customer.setPincode("228714");
+        return customer;
+    }
+}
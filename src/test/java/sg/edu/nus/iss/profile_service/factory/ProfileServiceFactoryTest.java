@@ -3,24 +3,41 @@ package sg.edu.nus.iss.profile_service.factory;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import sg.edu.nus.iss.profile_service.dto.BatchItemResultDTO;
+import sg.edu.nus.iss.profile_service.dto.ProfileSliceDTO;
 import sg.edu.nus.iss.profile_service.model.*;
 import sg.edu.nus.iss.profile_service.repository.DeliveryPartnerRepository;
 import sg.edu.nus.iss.profile_service.repository.MerchantRepository;
 import sg.edu.nus.iss.profile_service.repository.CustomerRepository;
+import sg.edu.nus.iss.profile_service.repository.ProfileBulkReader;
+import sg.edu.nus.iss.profile_service.util.BlindIndexUtility;
+import sg.edu.nus.iss.profile_service.util.BulkEncryptor;
+import sg.edu.nus.iss.profile_service.util.EncryptedString;
 import sg.edu.nus.iss.profile_service.util.LogMasker;
+import sg.edu.nus.iss.profile_service.util.PageCursor;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class ProfileServiceFactoryTest {
 
@@ -38,6 +55,27 @@ public class ProfileServiceFactoryTest {
     @Mock
     private ExternalLocationService externalLocationService;
 
+    @Mock
+    private OfflineGazetteer offlineGazetteer;
+
+    @Mock
+    private BlindIndexUtility blindIndexUtility;
+
+    @Mock
+    private ProfileBulkReader profileBulkReader;
+
+    @Mock
+    private GeocodingWorker geocodingWorker;
+
+    @Mock
+    private PostalSectorCentroids postalSectorCentroids;
+
+    @Mock
+    private BulkEncryptor bulkEncryptor;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private ProfileServiceFactory profileServiceFactory;
 
@@ -52,13 +90,13 @@ public class ProfileServiceFactoryTest {
         List<Merchant> merchants = List.of(new Merchant());
         Page<Merchant> merchantPage = new PageImpl<>(merchants, pageable, merchants.size());
 
-        when(merchantRepository.findAllByDeletedFalse(pageable)).thenReturn(merchantPage);
+        when(profileBulkReader.findMerchants(pageable)).thenReturn(merchantPage);
 
         Page<Profile> result = profileServiceFactory.getProfilesWithPagination("merchant", pageable);
 
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
-        verify(merchantRepository, times(1)).findAllByDeletedFalse(pageable);
+        verify(profileBulkReader, times(1)).findMerchants(pageable);
     }
 
     @Test
@@ -67,13 +105,13 @@ public class ProfileServiceFactoryTest {
         List<DeliveryPartner> deliveryPartners = List.of(new DeliveryPartner());
         Page<DeliveryPartner> deliveryPartnerPage = new PageImpl<>(deliveryPartners, pageable, deliveryPartners.size());
 
-        when(deliveryPartnerRepository.findAllByDeletedFalse(pageable)).thenReturn(deliveryPartnerPage);
+        when(profileBulkReader.findDeliveryPartners(pageable)).thenReturn(deliveryPartnerPage);
 
         Page<Profile> result = profileServiceFactory.getProfilesWithPagination("deliveryPartner", pageable);
 
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
-        verify(deliveryPartnerRepository, times(1)).findAllByDeletedFalse(pageable);
+        verify(profileBulkReader, times(1)).findDeliveryPartners(pageable);
     }
 
     @Test
@@ -82,13 +120,28 @@ public class ProfileServiceFactoryTest {
         List<Customer> customers = List.of(new Customer());
         Page<Customer> customerPage = new PageImpl<>(customers, pageable, customers.size());
 
-        when(customerRepository.findAllByDeletedFalse(pageable)).thenReturn(customerPage);
+        when(profileBulkReader.findCustomers(pageable)).thenReturn(customerPage);
 
         Page<Profile> result = profileServiceFactory.getProfilesWithPagination("customer", pageable);
 
         assertNotNull(result);
+        assertEquals(1, result.getTotalElements());
+        verify(profileBulkReader, times(1)).findCustomers(pageable);
+    }
+
+    @Test
+    public void testGetProfilesWithPagination_Sorted_UsesRepository() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("customerId"));
+        List<Customer> customers = List.of(new Customer());
+        Page<Customer> customerPage = new PageImpl<>(customers, pageable, customers.size());
+
+        when(customerRepository.findAllByDeletedFalse(pageable)).thenReturn(customerPage);
+
+        Page<Profile> result = profileServiceFactory.getProfilesWithPagination("customer", pageable);
+
         assertEquals(1, result.getTotalElements());
         verify(customerRepository, times(1)).findAllByDeletedFalse(pageable);
+        verifyNoInteractions(profileBulkReader);
     }
 
     @Test
@@ -102,6 +155,195 @@ public class ProfileServiceFactoryTest {
         assertEquals("Invalid profile type", exception.getMessage());
     }
 
+    @Test
+    public void testGetProfilesWithPagination_OversizedPageIsCapped() {
+        List<Customer> customers = List.of(new Customer());
+        when(profileBulkReader.findCustomers(any())).thenReturn(new PageImpl<>(customers));
+
+        profileServiceFactory.getProfilesWithPagination("customer", PageRequest.of(2, 5000));
+
+        verify(profileBulkReader).findCustomers(PageRequest.of(2, 100));
+    }
+
+    @Test
+    public void testGetProfilesAfter_FullSliceHasNextCursor() {
+        UUID after = UUID.randomUUID();
+        Customer first = new Customer();
+        first.setCustomerId(UUID.randomUUID());
+        Customer second = new Customer();
+        second.setCustomerId(UUID.randomUUID());
+        Customer third = new Customer();
+        third.setCustomerId(UUID.randomUUID());
+        when(profileBulkReader.findCustomersAfter(after, 3)).thenReturn(List.of(first, second, third));
+
+        ProfileSliceDTO slice = profileServiceFactory.getProfilesAfter("customer", after, 2);
+
+        assertEquals(List.of(first, second), slice.getContent());
+        assertTrue(slice.isHasNext());
+        assertEquals(second.getCustomerId(), PageCursor.decode(slice.getNextCursor()));
+    }
+
+    @Test
+    public void testGetProfilesAfter_LastSliceHasNoCursor() {
+        Merchant merchant = new Merchant();
+        merchant.setMerchantId(UUID.randomUUID());
+        when(profileBulkReader.findMerchantsAfter(null, 11)).thenReturn(List.of(merchant));
+
+        ProfileSliceDTO slice = profileServiceFactory.getProfilesAfter("merchant", null, 10);
+
+        assertEquals(1, slice.getContent().size());
+        assertFalse(slice.isHasNext());
+        assertNull(slice.getNextCursor());
+    }
+
+    @Test
+    public void testGetProfilesAfter_SizeIsClampedToMaximum() {
+        when(profileBulkReader.findDeliveryPartnersAfter(null, 101)).thenReturn(List.of());
+
+        ProfileSliceDTO slice = profileServiceFactory.getProfilesAfter("deliveryPartner", null, 5000);
+
+        assertEquals(100, slice.getSize());
+        verify(profileBulkReader).findDeliveryPartnersAfter(null, 101);
+    }
+
+    @Test
+    public void testStreamProfilesByType_UsesStreamingReads() {
+        Consumer<Profile> sink = profile -> { };
+
+        profileServiceFactory.streamProfilesByType("customer", sink);
+        profileServiceFactory.streamProfilesByType("merchant", sink);
+        profileServiceFactory.streamProfilesByType("deliveryPartner", sink);
+
+        verify(profileBulkReader).streamAllCustomers(sink);
+        verify(profileBulkReader).streamAllMerchants(sink);
+        verify(profileBulkReader).streamAllDeliveryPartners(sink);
+        verify(profileBulkReader, never()).findAllCustomers();
+        assertThrows(IllegalArgumentException.class, () -> profileServiceFactory.streamProfilesByType("invalidType", sink));
+    }
+
+    @Test
+    public void testGetProfilesAfter_InvalidType_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> profileServiceFactory.getProfilesAfter("invalidType", null, 10));
+    }
+
+    private static Customer batchCustomer(String name, String email, String pincode) {
+        Customer customer = new Customer();
+        customer.setName(name);
+        customer.setEmailAddress(email);
+        customer.setPincode(pincode);
+        return customer;
+    }
+
+    private void prepareBatch() {
+        profileServiceFactory.logMasker = masker;
+        profileServiceFactory.validator = Validation.buildDefaultValidatorFactory().getValidator();
+        when(blindIndexUtility.emailIndex(anyString())).thenAnswer(invocation -> "index:" + invocation.getArgument(0));
+        when(customerRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            customers.forEach(customer -> customer.setCustomerId(UUID.randomUUID()));
+            return customers;
+        });
+    }
+
+    @Test
+    public void testCreateProfiles_AcceptsAndRejectsPerItem() {
+        prepareBatch();
+        Customer first = batchCustomer("First", "first@example.com", "228714");
+        Customer second = batchCustomer("Second", "second@example.com", "228714");
+        Customer invalid = batchCustomer("", "not-an-email", "228714");
+        Customer duplicate = batchCustomer("Again", "first@example.com", "228714");
+        Customer registered = batchCustomer("Known", "known@example.com", "228714");
+        Customer existing = batchCustomer("Known", "known@example.com", "228714");
+        existing.setEmailBlindIndex("index:known@example.com");
+        when(customerRepository.findByEmailBlindIndexInAndDeletedFalse(any())).thenReturn(List.of(existing));
+        when(externalLocationService.getCoordinates("228714")).thenReturn(new LatLng(1.3521, 103.8198));
+
+        List<BatchItemResultDTO> results = profileServiceFactory.createProfiles("customer",
+                List.of(first, second, invalid, duplicate, registered));
+
+        assertEquals(List.of("CREATED", "CREATED", "REJECTED", "REJECTED", "REJECTED"),
+                results.stream().map(BatchItemResultDTO::getStatus).toList());
+        assertEquals(first.getCustomerId(), results.get(0).getId());
+        assertTrue(results.get(2).getError().contains("emailAddress"));
+        assertEquals("Email appears more than once in the batch", results.get(3).getError());
+        assertEquals("Email already registered", results.get(4).getError());
+        assertEquals(GeocodingStatus.RESOLVED, second.getGeocodingStatus());
+        // One lookup per distinct pincode, one insert batch, one parallel encryption pass
+        verify(externalLocationService, times(1)).getCoordinates("228714");
+        verify(customerRepository, times(1)).saveAll(List.of(first, second));
+        verify(bulkEncryptor).encryptAll(List.of(first, second));
+        verify(customerRepository, never()).save(any());
+    }
+
+    @Test
+    public void testCreateProfiles_UnknownPincodeRejectsOnlyThoseItems() {
+        prepareBatch();
+        Customer known = batchCustomer("Known", "known@example.com", "228714");
+        Customer unknown = batchCustomer("Unknown", "unknown@example.com", "999999");
+        when(externalLocationService.getCoordinates("228714")).thenReturn(new LatLng(1.3521, 103.8198));
+
+        List<BatchItemResultDTO> results = profileServiceFactory.createProfiles("customer", List.of(known, unknown));
+
+        assertEquals("CREATED", results.get(0).getStatus());
+        assertEquals("Invalid pincode: 999999", results.get(1).getError());
+        verify(customerRepository).saveAll(List.of(known));
+    }
+
+    @Test
+    public void testCreateProfiles_LocationServiceDownUsesCentroidAndQueuesLookup() {
+        prepareBatch();
+        Customer customer = batchCustomer("First", "first@example.com", "228714");
+        when(externalLocationService.getCoordinates("228714"))
+                .thenThrow(new LocationServiceUnavailableException("down", new RuntimeException()));
+        when(postalSectorCentroids.approximate("228714")).thenReturn(new LatLng(1.35, 103.82));
+
+        List<BatchItemResultDTO> results = profileServiceFactory.createProfiles("customer", List.of(customer));
+
+        assertEquals("CREATED", results.get(0).getStatus());
+        assertEquals(GeocodingStatus.APPROXIMATE, customer.getGeocodingStatus());
+        verify(geocodingWorker).submit(eq("228714"), any(), any(), any());
+    }
+
+    @Test
+    public void testCreateProfiles_FailedBatchInsertFallsBackToSingleInserts() {
+        prepareBatch();
+        Customer first = batchCustomer("First", "first@example.com", "228714");
+        Customer second = batchCustomer("Second", "second@example.com", "228714");
+        when(externalLocationService.getCoordinates("228714")).thenReturn(new LatLng(1.3521, 103.8198));
+        doThrow(new DataIntegrityViolationException("duplicate")).when(customerRepository).saveAll(any());
+        when(customerRepository.save(first)).thenReturn(first);
+        when(customerRepository.save(second)).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        List<BatchItemResultDTO> results = profileServiceFactory.createProfiles("customer", List.of(first, second));
+
+        assertEquals("CREATED", results.get(0).getStatus());
+        assertEquals("Profile could not be stored", results.get(1).getError());
+    }
+
+    @Test
+    public void testCreateProfiles_AsyncModeQueuesEveryProfile() {
+        prepareBatch();
+        profileServiceFactory.geocodingMode = "async";
+        Customer first = batchCustomer("First", "first@example.com", "228714");
+        Customer second = batchCustomer("Second", "second@example.com", "018956");
+
+        List<BatchItemResultDTO> results = profileServiceFactory.createProfiles("customer", List.of(first, second));
+
+        assertTrue(results.stream().allMatch(result -> "CREATED".equals(result.getStatus())));
+        assertEquals(GeocodingStatus.PENDING, first.getGeocodingStatus());
+        verify(geocodingWorker, times(2)).submit(anyString(), any(), any(), any());
+        verifyNoInteractions(externalLocationService);
+    }
+
+    @Test
+    public void testCreateProfiles_RejectsOversizedBatchAndUnknownType() {
+        profileServiceFactory.maxBatchSize = 1;
+        List<Customer> customers = List.of(new Customer(), new Customer());
+
+        assertThrows(IllegalArgumentException.class, () -> profileServiceFactory.createProfiles("customer", customers));
+        assertThrows(IllegalArgumentException.class, () -> profileServiceFactory.createProfiles("invalidType", List.of(new Customer())));
+    }
+
     @Test
     public void testCreateMerchantProfile_Success() {
         Merchant merchant = new Merchant();
@@ -161,6 +403,92 @@ public class ProfileServiceFactoryTest {
     }
 
     // Test for invalid profile creation
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateMerchantProfile_AsyncGeocoding_SavesPendingAndQueuesLookup() {
+        profileServiceFactory.logMasker = masker;
+        profileServiceFactory.geocodingMode = "async";
+        UUID merchantId = UUID.randomUUID();
+        Merchant merchant = new Merchant();
+        merchant.setPincode("228714");
+        Merchant saved = new Merchant();
+        saved.setMerchantId(merchantId);
+        saved.setPincode("228714");
+        saved.setGeocodingStatus(GeocodingStatus.PENDING);
+
+        when(merchantRepository.save(merchant)).thenReturn(saved);
+        when(merchantRepository.findById(merchantId)).thenReturn(Optional.of(saved));
+
+        assertEquals(saved, profileServiceFactory.createProfile(merchant));
+        assertEquals(GeocodingStatus.PENDING, merchant.getGeocodingStatus());
+        verify(externalLocationService, never()).getCoordinates(anyString());
+
+        ArgumentCaptor<Function<String, LatLng>> lookup = ArgumentCaptor.forClass(Function.class);
+        ArgumentCaptor<Consumer<LatLng>> onResolved = ArgumentCaptor.forClass(Consumer.class);
+        verify(geocodingWorker).submit(eq("228714"), lookup.capture(), onResolved.capture(), any(Runnable.class));
+
+        when(externalLocationService.getCoordinates("228714")).thenReturn(new LatLng(1.3521, 103.8198));
+        onResolved.getValue().accept(lookup.getValue().apply("228714"));
+
+        assertEquals(1.3521, saved.getLatitude());
+        assertEquals(103.8198, saved.getLongitude());
+        assertEquals(GeocodingStatus.RESOLVED, saved.getGeocodingStatus());
+        verify(merchantRepository, times(1)).save(saved);
+    }
+
+    @Test
+    public void testUpdateCustomerProfile_AsyncGeocoding_UnknownPincodeMarkedFailed() {
+        profileServiceFactory.logMasker = masker;
+        profileServiceFactory.geocodingMode = "async";
+        UUID customerId = UUID.randomUUID();
+        Customer customer = new Customer();
+        customer.setCustomerId(customerId);
+        customer.setPincode("999999");
+        customer.setLatitude(1.3521);
+        customer.setLongitude(103.8198);
+
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+
+        profileServiceFactory.updateProfile(customer);
+
+        assertNull(customer.getLatitude());
+        assertEquals(GeocodingStatus.PENDING, customer.getGeocodingStatus());
+        ArgumentCaptor<Runnable> onUnresolved = ArgumentCaptor.forClass(Runnable.class);
+        verify(geocodingWorker).submit(eq("999999"), any(), any(), onUnresolved.capture());
+
+        onUnresolved.getValue().run();
+
+        assertEquals(GeocodingStatus.FAILED, customer.getGeocodingStatus());
+        verify(customerRepository, times(2)).save(customer);
+    }
+
+    @Test
+    public void testStoreGeocodingResult_PincodeChangedMeanwhile_Ignored() {
+        profileServiceFactory.logMasker = masker;
+        profileServiceFactory.geocodingMode = "async";
+        UUID deliveryPartnerId = UUID.randomUUID();
+        DeliveryPartner deliveryPartner = new DeliveryPartner();
+        deliveryPartner.setPincode("228714");
+        DeliveryPartner saved = new DeliveryPartner();
+        saved.setDeliveryPartnerId(deliveryPartnerId);
+        saved.setPincode("228714");
+        DeliveryPartner readdressed = new DeliveryPartner();
+        readdressed.setPincode("560001");
+        readdressed.setGeocodingStatus(GeocodingStatus.PENDING);
+
+        when(deliveryPartnerRepository.save(deliveryPartner)).thenReturn(saved);
+        when(deliveryPartnerRepository.findById(deliveryPartnerId)).thenReturn(Optional.of(readdressed));
+
+        profileServiceFactory.createProfile(deliveryPartner);
+        ArgumentCaptor<Consumer<LatLng>> onResolved = ArgumentCaptor.forClass(Consumer.class);
+        verify(geocodingWorker).submit(eq("228714"), any(), onResolved.capture(), any());
+        onResolved.getValue().accept(new LatLng(1.3521, 103.8198));
+
+        assertNull(readdressed.getLatitude());
+        assertEquals(GeocodingStatus.PENDING, readdressed.getGeocodingStatus());
+        verify(deliveryPartnerRepository, never()).save(readdressed);
+    }
+
     @Test
     public void testCreateInvalidProfile_ThrowsException() {
         Profile invalidProfile = mock(Profile.class); // Create a mock profile
@@ -223,6 +551,68 @@ public class ProfileServiceFactoryTest {
         verify(externalLocationService, times(1)).getCoordinates("228714");
     }
 
+    @Test
+    public void testUpdateCustomerProfile_LoadedAddressUntouched_SkipsLookup() {
+        Customer customer = new Customer();
+        customer.setCustomerId(UUID.randomUUID());
+        customer.restoreEncryptedPii(new EncryptedString[] {null, null, null, null, null, EncryptedString.ofRecord(() -> "228714")});
+        customer.setLatitude(1.3521);
+        customer.setLongitude(103.8198);
+        customer.setRewardPoints(BigDecimal.TEN);
+
+        profileServiceFactory.logMasker = masker;
+        profileServiceFactory.updateProfile(customer);
+
+        verify(customerRepository, times(1)).save(customer);
+        verify(customerRepository, never()).findById(any());
+        verify(externalLocationService, never()).getCoordinates(anyString());
+        assertEquals(1.0, meterRegistry.get("profile.geocode.skipped").tag("reason", "address_untouched").counter().count());
+    }
+
+    @Test
+    public void testUpdateMerchantProfile_SamePincode_ReusesStoredCoordinates() {
+        UUID merchantId = UUID.randomUUID();
+        Merchant stored = new Merchant();
+        stored.setMerchantId(merchantId);
+        stored.setPincode("228714");
+        stored.setLatitude(1.3521);
+        stored.setLongitude(103.8198);
+        Merchant merchant = new Merchant();
+        merchant.setMerchantId(merchantId);
+        merchant.setPincode("228714");
+
+        when(merchantRepository.findById(merchantId)).thenReturn(Optional.of(stored));
+        profileServiceFactory.logMasker = masker;
+        profileServiceFactory.updateProfile(merchant);
+
+        assertEquals(1.3521, merchant.getLatitude());
+        assertEquals(103.8198, merchant.getLongitude());
+        verify(merchantRepository, times(1)).save(merchant);
+        verify(externalLocationService, never()).getCoordinates(anyString());
+        assertEquals(1.0, meterRegistry.get("profile.geocode.skipped").tag("reason", "pincode_unchanged").counter().count());
+    }
+
+    @Test
+    public void testUpdateDeliveryProfile_PincodeChanged_LooksUpCoordinates() {
+        UUID deliveryPartnerId = UUID.randomUUID();
+        DeliveryPartner stored = new DeliveryPartner();
+        stored.setDeliveryPartnerId(deliveryPartnerId);
+        stored.setPincode("560001");
+        stored.setLatitude(12.9716);
+        stored.setLongitude(77.5946);
+        DeliveryPartner deliveryPartner = new DeliveryPartner();
+        deliveryPartner.setDeliveryPartnerId(deliveryPartnerId);
+        deliveryPartner.setPincode("228714");
+
+        when(deliveryPartnerRepository.findById(deliveryPartnerId)).thenReturn(Optional.of(stored));
+        when(externalLocationService.getCoordinates("228714")).thenReturn(new LatLng(1.3521, 103.8198));
+        profileServiceFactory.logMasker = masker;
+        profileServiceFactory.updateProfile(deliveryPartner);
+
+        assertEquals(1.3521, deliveryPartner.getLatitude());
+        verify(externalLocationService, times(1)).getCoordinates("228714");
+    }
+
     @Test
     public void testUpdateInvalidProfile_ThrowsException() {
         Profile invalidProfile = mock(Profile.class); // Simulate invalid profile type
@@ -360,6 +750,92 @@ public class ProfileServiceFactoryTest {
         verify(externalLocationService, times(1)).getCoordinates(merchant.getPincode());
     }
 
+    @Test
+    public void testSetMerchantCoordinates_GazetteerHit_SkipsLocationService() {
+        profileServiceFactory.logMasker = masker;
+        Merchant merchant = new Merchant();
+        merchant.setPincode("228714");
+
+        when(offlineGazetteer.getCoordinates("228714")).thenReturn(new LatLng(1.3521, 103.8198));
+
+        profileServiceFactory.setProfileCoordinates(merchant);
+
+        assertEquals(1.3521, merchant.getLatitude());
+        assertEquals(103.8198, merchant.getLongitude());
+        verify(externalLocationService, never()).getCoordinates(anyString());
+    }
+
+    @Test
+    public void testSetCustomerCoordinates_LocationServiceUnavailable_NotWrapped() {
+        Customer customer = new Customer();
+        customer.setPincode("228714");
+        LocationServiceUnavailableException unavailable = new LocationServiceUnavailableException("Location service circuit breaker is open");
+
+        when(externalLocationService.getCoordinates("228714")).thenThrow(unavailable);
+
+        assertSame(unavailable, assertThrows(LocationServiceUnavailableException.class,
+                () -> profileServiceFactory.setProfileCoordinates(customer)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateCustomerProfile_LocationServiceUnavailable_ApproximatedThenUpgraded() {
+        profileServiceFactory.logMasker = masker;
+        UUID customerId = UUID.randomUUID();
+        Customer customer = new Customer();
+        customer.setPincode("228714");
+        Customer saved = new Customer();
+        saved.setCustomerId(customerId);
+        saved.setPincode("228714");
+
+        when(externalLocationService.getCoordinates("228714"))
+                .thenThrow(new LocationServiceUnavailableException("Location service circuit breaker is open"))
+                .thenReturn(new LatLng(1.3521, 103.8198));
+        when(postalSectorCentroids.approximate("228714")).thenReturn(new LatLng(1.35, 103.82));
+        when(customerRepository.save(customer)).thenReturn(saved);
+
+        assertEquals(saved, profileServiceFactory.createProfile(customer));
+        assertEquals(1.35, customer.getLatitude());
+        assertEquals(GeocodingStatus.APPROXIMATE, customer.getGeocodingStatus());
+        assertEquals(1.0, meterRegistry.get("profile.geocode.approximated").counter().count());
+
+        ArgumentCaptor<Function<String, LatLng>> lookup = ArgumentCaptor.forClass(Function.class);
+        ArgumentCaptor<Consumer<LatLng>> onResolved = ArgumentCaptor.forClass(Consumer.class);
+        verify(geocodingWorker).submit(eq("228714"), lookup.capture(), onResolved.capture(), any(Runnable.class));
+        saved.setGeocodingStatus(GeocodingStatus.APPROXIMATE);
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(saved));
+        onResolved.getValue().accept(lookup.getValue().apply("228714"));
+
+        assertEquals(1.3521, saved.getLatitude());
+        assertEquals(GeocodingStatus.RESOLVED, saved.getGeocodingStatus());
+        // The location service folds what it fetches into the centroids; the factory leaves them alone
+        verify(postalSectorCentroids, never()).record(anyString(), any(LatLng.class));
+    }
+
+    @Test
+    public void testUpdateMerchantProfile_ApproximateStillUnreachable_KeepsCentroid() {
+        profileServiceFactory.logMasker = masker;
+        UUID merchantId = UUID.randomUUID();
+        Merchant merchant = new Merchant();
+        merchant.setMerchantId(merchantId);
+        merchant.setPincode("228714");
+
+        when(externalLocationService.getCoordinates("228714"))
+                .thenThrow(new LocationServiceUnavailableException("Location service circuit breaker is open"));
+        when(postalSectorCentroids.approximate("228714")).thenReturn(new LatLng(1.35, 103.82));
+        when(merchantRepository.findById(merchantId)).thenReturn(Optional.of(merchant));
+
+        profileServiceFactory.updateProfile(merchant);
+
+        ArgumentCaptor<Runnable> onUnresolved = ArgumentCaptor.forClass(Runnable.class);
+        verify(geocodingWorker).submit(eq("228714"), any(), any(), onUnresolved.capture());
+        onUnresolved.getValue().run();
+
+        assertEquals(1.35, merchant.getLatitude());
+        assertEquals(GeocodingStatus.APPROXIMATE, merchant.getGeocodingStatus());
+        verify(merchantRepository, times(1)).save(merchant);
+    }
+
     @Test
     public void testSetDeliveryPartnerCoordinates_Success() {
         DeliveryPartner deliveryPartner = new DeliveryPartner();
@@ -435,33 +911,33 @@ public class ProfileServiceFactoryTest {
     @Test
     public void testGetProfilesByType_Merchant_Success() {
         List<Merchant> merchants = List.of(new Merchant());
-        when(merchantRepository.findAllByDeletedFalse()).thenReturn(merchants);
+        when(profileBulkReader.findAllMerchants()).thenReturn(merchants);
 
         List<Profile> result = profileServiceFactory.getProfilesByType("merchant");
 
         assertEquals(1, result.size());
-        verify(merchantRepository, times(1)).findAllByDeletedFalse();
+        verify(profileBulkReader, times(1)).findAllMerchants();
     }
 
     @Test void testGetProfilesByType_DeliveryPartner_Success() {
         List<DeliveryPartner> deliveryPartners = List.of(new DeliveryPartner());
-        when(deliveryPartnerRepository.findAllByDeletedFalse()).thenReturn(deliveryPartners);
+        when(profileBulkReader.findAllDeliveryPartners()).thenReturn(deliveryPartners);
 
         List<Profile> result = profileServiceFactory.getProfilesByType("deliveryPartner");
 
         assertEquals(1, result.size());
-        verify(deliveryPartnerRepository, times(1)).findAllByDeletedFalse();
+        verify(profileBulkReader, times(1)).findAllDeliveryPartners();
     }
 
     @Test
     public void testGetProfilesByType_Customer_Success() {
         List<Customer> customers = List.of(new Customer());
-        when(customerRepository.findAllByDeletedFalse()).thenReturn(customers);
+        when(profileBulkReader.findAllCustomers()).thenReturn(customers);
 
         List<Profile> result = profileServiceFactory.getProfilesByType("customer");
 
         assertEquals(1, result.size());
-        verify(customerRepository, times(1)).findAllByDeletedFalse();
+        verify(profileBulkReader, times(1)).findAllCustomers();
     }
 
     @Test
@@ -477,37 +953,40 @@ public class ProfileServiceFactoryTest {
     public void testGetProfileByEmailAddress_Merchant_Success() {
         profileServiceFactory.logMasker = masker;
         Merchant merchant = new Merchant();
-        when(merchantRepository.findByEmailAddressAndDeletedFalse("test@merchant.com")).thenReturn(Optional.of(merchant));
+        when(blindIndexUtility.emailIndex("test@merchant.com")).thenReturn("merchant-index");
+        when(merchantRepository.findByEmailBlindIndexAndDeletedFalse("merchant-index")).thenReturn(Optional.of(merchant));
 
         Optional<Profile> result = profileServiceFactory.getProfileByEmailAddress("test@merchant.com", "merchant");
 
         assertTrue(result.isPresent());
         assertEquals(merchant, result.get());
-        verify(merchantRepository, times(1)).findByEmailAddressAndDeletedFalse("test@merchant.com");
+        verify(merchantRepository, times(1)).findByEmailBlindIndexAndDeletedFalse("merchant-index");
     }
     @Test
     public void testGetProfileByEmailAddress_DeliveryPartner_Success() {
         DeliveryPartner deliveryPartner = new DeliveryPartner();
         profileServiceFactory.logMasker = masker;
-        when(deliveryPartnerRepository.findByEmailAddressAndDeletedFalse("test@partner.com")).thenReturn(Optional.of(deliveryPartner));
+        when(blindIndexUtility.emailIndex("test@partner.com")).thenReturn("partner-index");
+        when(deliveryPartnerRepository.findByEmailBlindIndexAndDeletedFalse("partner-index")).thenReturn(Optional.of(deliveryPartner));
         Optional<Profile> result = profileServiceFactory.getProfileByEmailAddress("test@partner.com", "deliveryPartner");
 
         assertTrue(result.isPresent());
         assertEquals(deliveryPartner, result.get());
-        verify(deliveryPartnerRepository, times(1)).findByEmailAddressAndDeletedFalse("test@partner.com");
+        verify(deliveryPartnerRepository, times(1)).findByEmailBlindIndexAndDeletedFalse("partner-index");
     }
 
     @Test
     public void testGetProfileByEmailAddress_Customer_Success() {
         profileServiceFactory.logMasker = masker;
         Customer customer = new Customer();
-        when(customerRepository.findByEmailAddressAndDeletedFalse("test@customer.com")).thenReturn(Optional.of(customer));
+        when(blindIndexUtility.emailIndex("test@customer.com")).thenReturn("customer-index");
+        when(customerRepository.findByEmailBlindIndexAndDeletedFalse("customer-index")).thenReturn(Optional.of(customer));
 
         Optional<Profile> result = profileServiceFactory.getProfileByEmailAddress("test@customer.com", "customer");
 
         assertTrue(result.isPresent());
         assertEquals(customer, result.get());
-        verify(customerRepository, times(1)).findByEmailAddressAndDeletedFalse("test@customer.com");
+        verify(customerRepository, times(1)).findByEmailBlindIndexAndDeletedFalse("customer-index");
     }
 
     @Test
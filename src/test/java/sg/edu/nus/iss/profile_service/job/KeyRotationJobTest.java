@@ -0,0 +1,134 @@
+package sg.edu.nus.iss.profile_service.job;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import sg.edu.nus.iss.profile_service.PostgresTestDatabase;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+import sg.edu.nus.iss.profile_service.util.EncryptionUtility;
+import sg.edu.nus.iss.profile_service.util.PiiRecordCodec;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rotates rows written under key version 1 to version 2 on PostgreSQL, in batches smaller than the table.
+ */
+public class KeyRotationJobTest {
+
+    private static final int CUSTOMERS = 10;
+
+    private final EncryptionUtility keyOne = new EncryptionUtility("0123456789abcdef");
+    private final EncryptionUtility keyTwo = new EncryptionUtility("0123456789abcdef", "2:fedcba9876543210", 2);
+    private JdbcTemplate jdbcTemplate;
+    private KeyRotationJob keyRotationJob;
+    // Customer ids in the order the job walks them, as PostgreSQL sorts uuids
+    private final List<UUID> ids = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        DataSource dataSource = PostgresTestDatabase.migratedSchema();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        keyRotationJob = new KeyRotationJob(keyTwo, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                jdbcTemplate);
+        ReflectionTestUtils.setField(keyRotationJob, "batchSize", 3);
+        ReflectionTestUtils.setField(keyRotationJob, "rowsPerSecond", 1_000_000);
+
+        for (int i = 0; i < CUSTOMERS; i++) {
+            UUID id = UUID.randomUUID();
+            jdbcTemplate.update("INSERT INTO customer (customer_id, deleted, name_bin, email_address_bin) VALUES (?, false, ?, ?)",
+                    id, keyOne.encryptBinary("Customer " + i), keyOne.encryptBinary("customer" + i + "@example.com"));
+            ids.add(id);
+        }
+        ids.sort(Comparator.comparing(UUID::toString));
+    }
+
+    @Test
+    public void testRotatesEveryRowAndMarksTablesComplete() {
+        keyRotationJob.run();
+
+        for (UUID id : ids) {
+            assertTrue(keyTwo.isActiveKey(nameOf(id)), "customer " + id);
+        }
+        assertEquals(List.of(true, true, true), jdbcTemplate.queryForList(
+                "SELECT completed FROM key_rotation_checkpoint WHERE key_version = 2 ORDER BY table_name", Boolean.class));
+    }
+
+    @Test
+    public void testResumesAfterCheckpoint() {
+        UUID checkpoint = ids.get(4);
+        jdbcTemplate.update("INSERT INTO key_rotation_checkpoint (table_name, key_version, last_id, completed, updated_at)"
+                + " VALUES ('customer', 2, ?, false, now())", checkpoint);
+
+        keyRotationJob.run();
+
+        for (int i = 0; i < ids.size(); i++) {
+            // Rows up to and including the checkpoint were done by the earlier run, so they are not touched again
+            assertEquals(i > 4, keyTwo.isActiveKey(nameOf(ids.get(i))), "customer " + i);
+            assertEquals("Customer", keyTwo.decryptBinary(nameOf(ids.get(i))).substring(0, 8));
+        }
+    }
+
+    @Test
+    public void testCompletedCheckpointSkipsTable() {
+        jdbcTemplate.update("INSERT INTO key_rotation_checkpoint (table_name, key_version, last_id, completed, updated_at)"
+                + " VALUES ('customer', 2, ?, true, now())", ids.get(ids.size() - 1));
+
+        keyRotationJob.run();
+
+        for (UUID id : ids) {
+            assertFalse(keyTwo.isActiveKey(nameOf(id)));
+        }
+    }
+
+    @Test
+    public void testCheckpointOfOtherKeyVersionStartsOver() {
+        jdbcTemplate.update("INSERT INTO key_rotation_checkpoint (table_name, key_version, last_id, completed, updated_at)"
+                + " VALUES ('customer', 1, ?, true, now())", ids.get(ids.size() - 1));
+
+        keyRotationJob.run();
+
+        for (UUID id : ids) {
+            assertTrue(keyTwo.isActiveKey(nameOf(id)));
+        }
+    }
+
+    @Test
+    public void testLegacyAndSealedRowsAreRotated() {
+        UUID legacy = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO customer (customer_id, deleted, name, email_address) VALUES (?, false, ?, ?)",
+                legacy, keyOne.encrypt("Legacy"), keyOne.encrypt("legacy@example.com"));
+        UUID sealed = UUID.randomUUID();
+        String[] values = {"Sealed", "sealed@example.com", null, null, null, "228714"};
+        jdbcTemplate.update("INSERT INTO customer (customer_id, deleted, pii_record) VALUES (?, false, ?)",
+                sealed, new PiiRecordCodec(keyOne).seal(values));
+
+        keyRotationJob.run();
+
+        Map<String, Object> legacyRow = jdbcTemplate.queryForMap(
+                "SELECT name, email_address, name_bin FROM customer WHERE customer_id = ?", legacy);
+        assertNull(legacyRow.get("name"));
+        assertNull(legacyRow.get("email_address"));
+        assertEquals("Legacy", keyTwo.decryptBinary((byte[]) legacyRow.get("name_bin")));
+        byte[] record = jdbcTemplate.queryForObject("SELECT pii_record FROM customer WHERE customer_id = ?", byte[].class, sealed);
+        assertTrue(keyTwo.isActiveKey(record));
+        assertArrayEquals(values, new PiiRecordCodec(keyTwo).open(record, PiiProfile.PII_FIELD_COUNT));
+    }
+
+    private byte[] nameOf(UUID id) {
+        return jdbcTemplate.queryForObject("SELECT name_bin FROM customer WHERE customer_id = ?", byte[].class, id);
+    }
+}
@@ -0,0 +1,210 @@
+package sg.edu.nus.iss.profile_service.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import sg.edu.nus.iss.profile_service.model.Merchant;
+import sg.edu.nus.iss.profile_service.repository.ProfileBulkReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Exports merchants streamed by a stubbed bulk reader into parts of two rows, so every run rotates parts.
+ */
+public class ProfileExportJobTest {
+
+    private static final int MERCHANTS = 5;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private ProfileBulkReader profileBulkReader;
+    // Merchants in the order the cursor returns them, as PostgreSQL sorts uuids
+    private final List<Merchant> merchants = new ArrayList<>();
+    // The run fails after streaming this many merchants, or never when negative
+    private int failAfter = -1;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setup() {
+        for (int i = 0; i < MERCHANTS; i++) {
+            Merchant merchant = new Merchant();
+            merchant.setMerchantId(UUID.randomUUID());
+            merchant.setName("Merchant " + i);
+            merchant.setEmailAddress("merchant" + i + "@example.com");
+            merchant.setPincode("228714");
+            merchants.add(merchant);
+        }
+        merchants.sort(Comparator.comparing(merchant -> merchant.getMerchantId().toString()));
+
+        profileBulkReader = mock(ProfileBulkReader.class);
+        doAnswer(invocation -> {
+            UUID after = invocation.getArgument(0);
+            Consumer<? super Merchant> sink = invocation.getArgument(1);
+            int streamed = 0;
+            for (Merchant merchant : merchants) {
+                if (after != null && merchant.getMerchantId().toString().compareTo(after.toString()) <= 0) {
+                    continue;
+                }
+                if (streamed++ == failAfter) {
+                    throw new DataAccessResourceFailureException("connection lost");
+                }
+                sink.accept(merchant);
+            }
+            return null;
+        }).when(profileBulkReader).streamMerchantsAfter(any(), any());
+    }
+
+    @Test
+    public void testNdjsonPartsRotateEveryPartRows() throws IOException {
+        assertTrue(job("ndjson", "none").run());
+
+        assertEquals(List.of("merchant-00001.ndjson", "merchant-00002.ndjson", "merchant-00003.ndjson",
+                "merchant.export-checkpoint"), files());
+        List<String> lines = new ArrayList<>();
+        for (int part = 1; part <= 3; part++) {
+            List<String> partLines = Files.readAllLines(directory.resolve(String.format("merchant-%05d.ndjson", part)));
+            assertEquals(part < 3 ? 2 : 1, partLines.size());
+            lines.addAll(partLines);
+        }
+        for (int i = 0; i < MERCHANTS; i++) {
+            JsonNode node = objectMapper.readTree(lines.get(i));
+            assertEquals(merchants.get(i).getMerchantId().toString(), node.get("merchantId").asText());
+            assertEquals(merchants.get(i).getName(), node.get("name").asText());
+            assertNull(node.get("emailBlindIndex"));
+        }
+        Properties checkpoint = checkpoint();
+        assertEquals("true", checkpoint.getProperty("completed"));
+        assertEquals("3", checkpoint.getProperty("parts"));
+        assertEquals("5", checkpoint.getProperty("rows"));
+        assertEquals(merchants.get(MERCHANTS - 1).getMerchantId().toString(), checkpoint.getProperty("last-id"));
+    }
+
+    // Every gzip part starts with the header; values with commas, quotes or line breaks are quoted
+    @Test
+    public void testCsvPartsRepeatTheHeaderAndQuoteValues() throws IOException {
+        merchants.get(0).setName("Doe, \"Jane\"");
+        merchants.get(0).setAddressLine1("1 Orchard Road\n#02-01");
+
+        assertTrue(job("csv", "gzip").run());
+
+        String first = gunzip("merchant-00001.csv.gz");
+        String header = first.substring(0, first.indexOf('\n'));
+        assertTrue(header.startsWith("merchantId,name,emailAddress,addressLine1,addressLine2,phoneNumber,pincode,"), header);
+        assertTrue(first.contains(merchants.get(0).getMerchantId() + ",\"Doe, \"\"Jane\"\"\","
+                + merchants.get(0).getEmailAddress() + ",\"1 Orchard Road\n#02-01\",,,228714,"), first);
+        for (String part : List.of("merchant-00002.csv.gz", "merchant-00003.csv.gz")) {
+            String content = gunzip(part);
+            assertTrue(content.startsWith(header + "\n"), part);
+        }
+        assertTrue(gunzip("merchant-00003.csv.gz").contains(merchants.get(MERCHANTS - 1).getMerchantId().toString()));
+    }
+
+    // The part being written when the run fails is dropped, and the rerun writes it again
+    @Test
+    public void testRerunResumesAfterTheLastCompletePart() throws IOException {
+        failAfter = 3;
+
+        assertFalse(job("ndjson", "none").run());
+
+        assertEquals(List.of("merchant-00001.ndjson", "merchant.export-checkpoint"), files());
+        Properties checkpoint = checkpoint();
+        assertEquals("false", checkpoint.getProperty("completed"));
+        assertEquals("1", checkpoint.getProperty("parts"));
+        assertEquals("2", checkpoint.getProperty("rows"));
+        UUID lastId = merchants.get(1).getMerchantId();
+        assertEquals(lastId.toString(), checkpoint.getProperty("last-id"));
+
+        failAfter = -1;
+        assertTrue(job("ndjson", "none").run());
+
+        verify(profileBulkReader).streamMerchantsAfter(isNull(), any());
+        verify(profileBulkReader).streamMerchantsAfter(eq(lastId), any());
+        assertEquals(List.of("merchant-00001.ndjson", "merchant-00002.ndjson", "merchant-00003.ndjson",
+                "merchant.export-checkpoint"), files());
+        assertTrue(Files.readString(directory.resolve("merchant-00002.ndjson"))
+                .contains(merchants.get(2).getMerchantId().toString()));
+        assertEquals("5", checkpoint().getProperty("rows"));
+        assertEquals("true", checkpoint().getProperty("completed"));
+    }
+
+    @Test
+    public void testCompletedExportIsNotRepeated() throws IOException {
+        Files.writeString(directory.resolve("merchant.export-checkpoint"), "completed=true\nparts=3\nrows=5\n");
+
+        assertTrue(job("ndjson", "none").run());
+
+        verify(profileBulkReader, never()).streamMerchantsAfter(any(), any());
+    }
+
+    @Test
+    public void testUnknownTableIsRejected() {
+        ProfileExportJob job = job("ndjson", "none");
+        ReflectionTestUtils.setField(job, "table", "shopper");
+
+        assertFalse(job.run());
+    }
+
+    private ProfileExportJob job(String format, String compression) {
+        ProfileExportJob job = new ProfileExportJob(profileBulkReader, mock(JdbcTemplate.class), objectMapper,
+                mock(ConfigurableApplicationContext.class));
+        ReflectionTestUtils.setField(job, "dir", directory.toString());
+        ReflectionTestUtils.setField(job, "table", "merchant");
+        ReflectionTestUtils.setField(job, "format", format);
+        ReflectionTestUtils.setField(job, "compression", compression);
+        ReflectionTestUtils.setField(job, "partRows", 2L);
+        ReflectionTestUtils.setField(job, "progressInterval", 100L);
+        return job;
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private Properties checkpoint() throws IOException {
+        Properties checkpoint = new Properties();
+        try (Reader in = Files.newBufferedReader(directory.resolve("merchant.export-checkpoint"), StandardCharsets.UTF_8)) {
+            checkpoint.load(in);
+        }
+        return checkpoint;
+    }
+
+    private String gunzip(String name) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(directory.resolve(name)))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package sg.edu.nus.iss.profile_service.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import sg.edu.nus.iss.profile_service.PostgresTestDatabase;
+import sg.edu.nus.iss.profile_service.factory.OfflineGazetteer;
+import sg.edu.nus.iss.profile_service.factory.PostalSectorCentroids;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+import sg.edu.nus.iss.profile_service.util.BlindIndexUtility;
+import sg.edu.nus.iss.profile_service.util.EncryptionUtility;
+import sg.edu.nus.iss.profile_service.util.PiiRecordCodec;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Imports small files into PostgreSQL in chunks of two records, so checkpoints fall between chunks.
+ */
+public class ProfileImportJobTest {
+
+    private static final String KEY = "0123456789abcdef";
+
+    private final EncryptionUtility encryptionUtility = new EncryptionUtility(KEY);
+    private final BlindIndexUtility blindIndexUtility = new BlindIndexUtility(KEY);
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setup() {
+        dataSource = PostgresTestDatabase.migratedSchema();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    public void testCsvWithQuotedCommasAndLineBreaksIsLoaded() throws IOException {
+        Path file = write("customers.csv", "name,email_address,address_line1,phone_number,pincode\n"
+                + "\"Doe, Jane\",jane@example.com,\"1 Orchard Road\n#02-01\",+65 6123 4567,228714\n"
+                + "Raffles,raffles@example.com,1 Beach Road,,018956\n"
+                + "Third,third@example.com,,,\n");
+
+        assertTrue(job(file, "customer", "column").run());
+
+        assertEquals(List.of("Doe, Jane", "Raffles", "Third"), names("customer"));
+        Map<String, Object> jane = jdbcTemplate.queryForMap(
+                "SELECT address_line1_bin, email_blind_index, phone_blind_index, geocoding_status FROM customer"
+                        + " WHERE email_blind_index = ?", blindIndexUtility.emailIndex("jane@example.com"));
+        assertEquals("1 Orchard Road\n#02-01", encryptionUtility.decryptBinary((byte[]) jane.get("address_line1_bin")));
+        assertEquals(blindIndexUtility.phoneIndex("+65 6123 4567"), jane.get("phone_blind_index"));
+        // No gazetteer, stored geocode or centroid knows the pincode
+        assertEquals("FAILED", jane.get("geocoding_status"));
+        assertEquals(List.of(3L, 1L), checkpoint("customer"));
+    }
+
+    @Test
+    public void testNdjsonIsLoadedIntoSealedRecords() throws IOException {
+        Path file = write("merchants.ndjson", "{\"name\":\"Corner Shop\",\"emailAddress\":\"shop@example.com\",\"pincode\":\"228714\"}\n"
+                + "{\"name\":\"Kopitiam\",\"email_address\":\"kopi@example.com\",\"address_line2\":\"#01-02\"}\n");
+        jdbcTemplate.update("INSERT INTO pincode_geocode (pincode, latitude, longitude, source, fetched_at, lookups)"
+                + " VALUES ('228714', 1.3521, 103.8198, 'location-service', now(), 0)");
+
+        assertTrue(job(file, "merchant", "row").run());
+
+        Map<String, Object> shop = jdbcTemplate.queryForMap(
+                "SELECT pii_record, name_bin, latitude, geocoding_status, blacklisted FROM merchant WHERE email_blind_index = ?",
+                blindIndexUtility.emailIndex("shop@example.com"));
+        assertArrayEquals(new String[] {"Corner Shop", "shop@example.com", null, null, null, "228714"},
+                new PiiRecordCodec(encryptionUtility).open((byte[]) shop.get("pii_record"), PiiProfile.PII_FIELD_COUNT));
+        assertEquals(null, shop.get("name_bin"));
+        assertEquals(1.3521, ((Number) shop.get("latitude")).doubleValue());
+        assertEquals("RESOLVED", shop.get("geocoding_status"));
+        assertEquals(false, shop.get("blacklisted"));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT count(*) FROM merchant", Integer.class));
+    }
+
+    // Rejected records are not loaded but still count towards the checkpoint
+    @Test
+    public void testInvalidRecordsAreSkipped() throws IOException {
+        Path file = write("customers.csv", "name,email_address,pincode\n"
+                + "First,first@example.com,228714\n"
+                + "Bad Email,not-an-email,228714\n"
+                + ",noname@example.com,\n"
+                + "Bad Pincode,pincode@example.com,12AB\n"
+                + "Last,last@example.com,\n");
+
+        assertTrue(job(file, "customer", "column").run());
+
+        assertEquals(List.of("First", "Last"), names("customer"));
+        assertEquals(List.of(5L, 1L), checkpoint("customer"));
+    }
+
+    @Test
+    public void testResumesAfterCheckpointedRecords() throws IOException {
+        Path file = write("customers.csv", "name,email_address\n"
+                + "One,one@example.com\nTwo,two@example.com\nThree,three@example.com\nFour,four@example.com\nFive,five@example.com\n");
+        jdbcTemplate.update("INSERT INTO profile_import_checkpoint (source, table_name, records, completed, updated_at)"
+                + " VALUES (?, 'customer', 3, false, now())", file.toAbsolutePath().normalize().toString());
+
+        assertTrue(job(file, "customer", "column").run());
+
+        assertEquals(List.of("Five", "Four"), names("customer"));
+        assertEquals(List.of(5L, 1L), checkpoint("customer"));
+    }
+
+    @Test
+    public void testCompletedImportIsNotRepeated() throws IOException {
+        Path file = write("customers.csv", "name,email_address\nOne,one@example.com\n");
+        jdbcTemplate.update("INSERT INTO profile_import_checkpoint (source, table_name, records, completed, updated_at)"
+                + " VALUES (?, 'customer', 1, true, now())", file.toAbsolutePath().normalize().toString());
+
+        assertTrue(job(file, "customer", "column").run());
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM customer", Integer.class));
+    }
+
+    // A chunk failing on the unique email index stops the import; the rerun starts with that chunk
+    @Test
+    public void testFailedChunkIsRetriedOnRerun() throws IOException {
+        Path file = write("customers.csv", "name,email_address\n"
+                + "One,one@example.com\nTwo,two@example.com\nThree,taken@example.com\nFour,four@example.com\nFive,five@example.com\n");
+        jdbcTemplate.update("INSERT INTO customer (customer_id, deleted, email_blind_index) VALUES (gen_random_uuid(), false, ?)",
+                blindIndexUtility.emailIndex("taken@example.com"));
+
+        assertFalse(job(file, "customer", "column").run());
+
+        assertEquals(List.of("One", "Two"), names("customer"));
+        assertEquals(List.of(2L, 0L), checkpoint("customer"));
+
+        jdbcTemplate.update("DELETE FROM customer WHERE name_bin IS NULL");
+        assertTrue(job(file, "customer", "column").run());
+
+        assertEquals(List.of("Five", "Four", "One", "Three", "Two"), names("customer"));
+        assertEquals(List.of(5L, 1L), checkpoint("customer"));
+    }
+
+    private ProfileImportJob job(Path file, String table, String storageMode) {
+        OfflineGazetteer offlineGazetteer = new OfflineGazetteer("");
+        ProfileImportJob job = new ProfileImportJob(encryptionUtility, new PiiRecordCodec(encryptionUtility),
+                blindIndexUtility, offlineGazetteer, new PostalSectorCentroids(offlineGazetteer), jdbcTemplate, dataSource,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(),
+                mock(ConfigurableApplicationContext.class), storageMode);
+        ReflectionTestUtils.setField(job, "file", file.toString());
+        ReflectionTestUtils.setField(job, "table", table);
+        ReflectionTestUtils.setField(job, "format", "");
+        ReflectionTestUtils.setField(job, "chunkSize", 2);
+        ReflectionTestUtils.setField(job, "transformThreads", 2);
+        ReflectionTestUtils.setField(job, "queueCapacity", 2);
+        return job;
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    private List<String> names(String table) {
+        return jdbcTemplate.queryForList("SELECT name_bin FROM " + table + " WHERE name_bin IS NOT NULL", byte[].class).stream()
+                .map(encryptionUtility::decryptBinary)
+                .sorted()
+                .toList();
+    }
+
+    // Records consumed and whether the import completed, as 1 or 0
+    private List<Long> checkpoint(String table) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT records, completed FROM profile_import_checkpoint WHERE table_name = ?", table);
+        return List.of(((Number) row.get("records")).longValue(), Boolean.TRUE.equals(row.get("completed")) ? 1L : 0L);
+    }
+}
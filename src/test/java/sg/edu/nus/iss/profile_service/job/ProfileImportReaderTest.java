@@ -0,0 +1,112 @@
+package sg.edu.nus.iss.profile_service.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ProfileImportReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testCsvQuotedFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+        Path file = write("profiles.csv", "name,email_address,address_line1,pincode\r\n"
+                + "\"Doe, Jane\",jane@example.com,\"1 Orchard Road\n#02-01\",228714\r\n"
+                + "\"The \"\"Corner\"\" Shop\",shop@example.com,,\n");
+
+        List<String[]> records = readAll(file, ProfileImportReader.CSV);
+
+        assertEquals(2, records.size());
+        assertArrayEquals(new String[] {"Doe, Jane", "jane@example.com", "1 Orchard Road\n#02-01", null, null, "228714"},
+                records.get(0));
+        assertArrayEquals(new String[] {"The \"Corner\" Shop", "shop@example.com", null, null, null, null}, records.get(1));
+    }
+
+    // Columns in any order and spelling, unknown ones ignored, blank lines skipped
+    @Test
+    public void testCsvColumnsMatchedByNameIgnoringCaseAndUnderscores() throws IOException {
+        Path file = write("profiles.csv", "\uFEFFPincode,emailAddress,Loyalty_Tier,NAME,phone_number\n"
+                + "\n"
+                + "018956,raffles@example.com,gold,Raffles,+65 6337 1886\n");
+
+        List<String[]> records = readAll(file, ProfileImportReader.CSV);
+
+        assertEquals(1, records.size());
+        assertArrayEquals(new String[] {"Raffles", "raffles@example.com", null, null, "+65 6337 1886", "018956"},
+                records.get(0));
+    }
+
+    @Test
+    public void testCsvWithoutNameOrEmailColumnIsRejected() throws IOException {
+        Path file = write("profiles.csv", "name,pincode\nJane,228714\n");
+
+        try (ProfileImportReader reader = new ProfileImportReader(file, ProfileImportReader.CSV, new ObjectMapper())) {
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+
+    @Test
+    public void testCsvUnterminatedQuoteIsRejected() throws IOException {
+        Path file = write("profiles.csv", "name,email_address\n\"Jane,jane@example.com\n");
+
+        try (ProfileImportReader reader = new ProfileImportReader(file, ProfileImportReader.CSV, new ObjectMapper())) {
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+
+    @Test
+    public void testNdjsonRecordsByKey() throws IOException {
+        Path file = write("profiles.ndjson", "{\"name\":\"Jane\",\"email_address\":\"jane@example.com\",\"pincode\":\"228714\"}\n"
+                + "\n"
+                + "{\"emailAddress\":\"shop@example.com\",\"name\":\"Shop, \\\"Corner\\\"\",\"addressLine2\":null,\"extra\":1}\n");
+
+        List<String[]> records = readAll(file, ProfileImportReader.NDJSON);
+
+        assertEquals(2, records.size());
+        assertArrayEquals(new String[] {"Jane", "jane@example.com", null, null, null, "228714"}, records.get(0));
+        assertArrayEquals(new String[] {"Shop, \"Corner\"", "shop@example.com", null, null, null, null}, records.get(1));
+    }
+
+    @Test
+    public void testNdjsonLineThatIsNotAnObjectIsRejected() throws IOException {
+        Path file = write("profiles.ndjson", "[\"Jane\"]\n");
+
+        try (ProfileImportReader reader = new ProfileImportReader(file, ProfileImportReader.NDJSON, new ObjectMapper())) {
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+
+    @Test
+    public void testFormatTakenFromExtension() {
+        assertEquals(ProfileImportReader.NDJSON, ProfileImportReader.formatOf(Path.of("profiles.jsonl")));
+        assertEquals(ProfileImportReader.NDJSON, ProfileImportReader.formatOf(Path.of("PROFILES.NDJSON")));
+        assertEquals(ProfileImportReader.CSV, ProfileImportReader.formatOf(Path.of("profiles.txt")));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    private static List<String[]> readAll(Path file, String format) throws IOException {
+        List<String[]> records = new ArrayList<>();
+        try (ProfileImportReader reader = new ProfileImportReader(file, format, new ObjectMapper())) {
+            String[] values;
+            while ((values = reader.next()) != null) {
+                records.add(values);
+            }
+        }
+        return records;
+    }
+}
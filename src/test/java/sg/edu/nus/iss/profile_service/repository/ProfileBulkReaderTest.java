@@ -0,0 +1,183 @@
+package sg.edu.nus.iss.profile_service.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import sg.edu.nus.iss.profile_service.PostgresTestDatabase;
+import sg.edu.nus.iss.profile_service.model.Customer;
+import sg.edu.nus.iss.profile_service.model.GeocodingStatus;
+import sg.edu.nus.iss.profile_service.util.EncryptionUtility;
+import sg.edu.nus.iss.profile_service.util.ParallelDecryptor;
+import sg.edu.nus.iss.profile_service.util.PiiRecordCodec;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs the bulk read queries against PostgreSQL, where rows come back in physical order unless told otherwise.
+ */
+public class ProfileBulkReaderTest {
+
+    private static final int LIVE_CUSTOMERS = 25;
+
+    private final EncryptionUtility encryptionUtility = new EncryptionUtility("0123456789abcdef");
+    private ParallelDecryptor parallelDecryptor;
+    private JdbcTemplate jdbcTemplate;
+    private ProfileBulkReader profileBulkReader;
+    // Live customer ids in id order, as PostgreSQL sorts uuids
+    private final List<UUID> liveIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        DataSource dataSource = PostgresTestDatabase.migratedSchema();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        parallelDecryptor = new ParallelDecryptor(encryptionUtility, new PiiRecordCodec(encryptionUtility),
+                new SimpleMeterRegistry(), 2, 4);
+        profileBulkReader = new ProfileBulkReader(jdbcTemplate, parallelDecryptor,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(profileBulkReader, "streamFetchSize", 4);
+
+        for (int i = 0; i < LIVE_CUSTOMERS; i++) {
+            UUID id = UUID.randomUUID();
+            insertCustomer(id, false);
+            liveIds.add(id);
+        }
+        insertCustomer(UUID.randomUUID(), true);
+        // Rewriting some rows moves them to the end of the heap, away from both insertion and id order
+        for (int i = 0; i < LIVE_CUSTOMERS; i += 3) {
+            jdbcTemplate.update("UPDATE customer SET reward_points = 1 WHERE customer_id = ?", liveIds.get(i));
+        }
+        // Bytewise like PostgreSQL, which is the order of the hex strings; UUID.compareTo compares signed longs
+        liveIds.sort(Comparator.comparing(UUID::toString));
+    }
+
+    @AfterEach
+    public void shutdown() {
+        // Null when no PostgreSQL was available and setup was skipped
+        if (parallelDecryptor != null) {
+            parallelDecryptor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPagesFollowIdOrderWithoutRepeatsOrGaps() {
+        List<UUID> paged = new ArrayList<>();
+        Page<Customer> page;
+        int number = 0;
+        do {
+            page = profileBulkReader.findCustomers(PageRequest.of(number++, 7));
+            page.getContent().forEach(customer -> paged.add(customer.getCustomerId()));
+        } while (page.hasNext());
+
+        assertEquals(liveIds, paged);
+        assertEquals(LIVE_CUSTOMERS, page.getTotalElements());
+    }
+
+    @Test
+    public void testKeysetSliceStartsAfterCursor() {
+        List<Customer> slice = profileBulkReader.findCustomersAfter(liveIds.get(9), 5);
+
+        assertEquals(liveIds.subList(10, 15), ids(slice));
+        assertEquals(nameOf(liveIds.get(10)), slice.get(0).getName());
+    }
+
+    @Test
+    public void testStreamKeepsIdOrderAcrossFetchesAndDecryptsEachRow() {
+        List<Customer> streamed = new ArrayList<>();
+
+        profileBulkReader.streamCustomersAfter(null, streamed::add);
+
+        assertEquals(liveIds, ids(streamed));
+        for (Customer customer : streamed) {
+            assertEquals(nameOf(customer.getCustomerId()), customer.getName());
+            assertEquals(customer.getCustomerId() + "@example.com", customer.getEmailAddress());
+        }
+    }
+
+    // Every read path carries the status, which is what tells clients a profile's coordinates are pending or approximate
+    @Test
+    public void testGeocodingStatusIsRead() {
+        GeocodingStatus[] statuses = GeocodingStatus.values();
+        for (int i = 0; i < liveIds.size(); i++) {
+            jdbcTemplate.update("UPDATE customer SET geocoding_status = ? WHERE customer_id = ?",
+                    i == 0 ? null : statuses[i % statuses.length].name(), liveIds.get(i));
+        }
+        UUID merchantId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO merchant (merchant_id, deleted, blacklisted, name_bin, geocoding_status)"
+                + " VALUES (?, false, false, ?, 'APPROXIMATE')", merchantId, encryptionUtility.encryptBinary("Merchant"));
+        UUID deliveryPartnerId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO delivery_partner (delivery_partner_id, deleted, blacklisted, name_bin, geocoding_status)"
+                + " VALUES (?, false, false, ?, 'FAILED')", deliveryPartnerId, encryptionUtility.encryptBinary("Partner"));
+
+        List<Customer> streamed = new ArrayList<>();
+        profileBulkReader.streamCustomersAfter(null, streamed::add);
+        List<List<Customer>> reads = List.of(profileBulkReader.findCustomersAfter(null, LIVE_CUSTOMERS),
+                profileBulkReader.findCustomers(PageRequest.of(0, LIVE_CUSTOMERS)).getContent(), streamed);
+        for (List<Customer> customers : reads) {
+            assertEquals(liveIds, ids(customers));
+            assertNull(customers.get(0).getGeocodingStatus());
+            for (int i = 1; i < customers.size(); i++) {
+                assertEquals(statuses[i % statuses.length], customers.get(i).getGeocodingStatus());
+            }
+        }
+        assertEquals(GeocodingStatus.APPROXIMATE, profileBulkReader.findMerchantsAfter(null, 1).get(0).getGeocodingStatus());
+        assertEquals(GeocodingStatus.FAILED, profileBulkReader.findAllDeliveryPartners().get(0).getGeocodingStatus());
+    }
+
+    @Test
+    public void testLegacyBase64RowIsRead() {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO customer (customer_id, deleted, name, email_address) VALUES (?, false, ?, ?)",
+                id, encryptionUtility.encrypt("Legacy"), encryptionUtility.encrypt("legacy@example.com"));
+
+        List<Customer> customers = profileBulkReader.findCustomersAfter(null, LIVE_CUSTOMERS + 1);
+
+        Customer legacy = customers.stream().filter(customer -> customer.getCustomerId().equals(id)).findFirst().orElseThrow();
+        assertEquals("Legacy", legacy.getName());
+        assertEquals("legacy@example.com", legacy.getEmailAddress());
+    }
+
+    // Email is mandatory now, but not every legacy row has one
+    @Test
+    public void testLegacyRowWithoutEmailIsRead() {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO customer (customer_id, deleted, name) VALUES (?, false, ?)",
+                id, encryptionUtility.encrypt("Legacy"));
+
+        List<Customer> customers = profileBulkReader.findCustomersAfter(null, LIVE_CUSTOMERS + 1);
+
+        Customer legacy = customers.stream().filter(customer -> customer.getCustomerId().equals(id)).findFirst().orElseThrow();
+        assertEquals("Legacy", legacy.getName());
+        assertNull(legacy.getEmailAddress());
+    }
+
+    private void insertCustomer(UUID id, boolean deleted) {
+        jdbcTemplate.update("INSERT INTO customer (customer_id, deleted, name_bin, email_address_bin, pincode_bin)"
+                        + " VALUES (?, ?, ?, ?, ?)", id, deleted, encryptionUtility.encryptBinary(nameOf(id)),
+                encryptionUtility.encryptBinary(id + "@example.com"), encryptionUtility.encryptBinary("123456"));
+    }
+
+    private static String nameOf(UUID id) {
+        return "Customer " + id.toString().substring(0, 8);
+    }
+
+    private static List<UUID> ids(List<Customer> customers) {
+        List<UUID> ids = new ArrayList<>(customers.size());
+        customers.forEach(customer -> ids.add(customer.getCustomerId()));
+        return Collections.unmodifiableList(ids);
+    }
+}
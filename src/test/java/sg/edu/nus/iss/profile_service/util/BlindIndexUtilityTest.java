@@ -0,0 +1,118 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BlindIndexUtilityTest {
+
+    private static final String KEY = "0123456789abcdef";
+
+    private final BlindIndexUtility blindIndexUtility = new BlindIndexUtility(KEY);
+
+    @Test
+    public void testEmailIndexIgnoresCaseAndSurroundingWhitespace() {
+        String index = blindIndexUtility.emailIndex("jane.doe@example.com");
+
+        assertEquals(index, blindIndexUtility.emailIndex("  Jane.Doe@Example.COM\t"));
+        assertNotEquals(index, blindIndexUtility.emailIndex("jane.doe2@example.com"));
+    }
+
+    @Test
+    public void testPhoneIndexKeepsDigitsOnly() {
+        String index = blindIndexUtility.phoneIndex("+6561234567");
+
+        assertEquals(index, blindIndexUtility.phoneIndex("+65 6123-4567"));
+        assertEquals(index, blindIndexUtility.phoneIndex("(65) 6123.4567"));
+        assertNotEquals(index, blindIndexUtility.phoneIndex("+6561234568"));
+    }
+
+    @Test
+    public void testMissingValuesHaveNoIndex() {
+        assertNull(blindIndexUtility.emailIndex(null));
+        assertNull(blindIndexUtility.phoneIndex(null));
+        assertNull(blindIndexUtility.phoneIndex(" - "));
+    }
+
+    // 32-byte HMAC in unpadded URL-safe Base64, the width of the varchar(43) columns
+    @Test
+    public void testIndexFitsColumn() {
+        String index = blindIndexUtility.emailIndex("jane.doe@example.com");
+
+        assertEquals(43, index.length());
+        assertTrue(index.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    public void testIndexDependsOnKey() {
+        BlindIndexUtility otherKey = new BlindIndexUtility("fedcba9876543210");
+
+        assertEquals(blindIndexUtility.emailIndex("jane.doe@example.com"),
+                new BlindIndexUtility(KEY).emailIndex("jane.doe@example.com"));
+        assertNotEquals(blindIndexUtility.emailIndex("jane.doe@example.com"), otherKey.emailIndex("jane.doe@example.com"));
+    }
+
+    // The configured key only seeds the derivation; it is never used as the HMAC key itself
+    @Test
+    public void testIndexKeyIsDerivedFromConfiguredKey() throws Exception {
+        Mac kdf = Mac.getInstance("HmacSHA256");
+        kdf.init(new SecretKeySpec(KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] derivedKey = kdf.doFinal("profile-service/blind-index/v1".getBytes(StandardCharsets.UTF_8));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(derivedKey, "HmacSHA256"));
+        String expected = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.doFinal("jane.doe@example.com".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(expected, blindIndexUtility.emailIndex("Jane.Doe@example.com"));
+
+        Mac raw = Mac.getInstance("HmacSHA256");
+        raw.init(new SecretKeySpec(KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        assertNotEquals(Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.doFinal("jane.doe@example.com".getBytes(StandardCharsets.UTF_8))), expected);
+    }
+
+    @Test
+    public void testUnconfiguredKeyFailsOnUse() {
+        BlindIndexUtility unconfigured = new BlindIndexUtility("");
+
+        assertThrows(IllegalStateException.class, () -> unconfigured.emailIndex("jane.doe@example.com"));
+    }
+
+    // A virtual thread per caller shares the pooled Macs, each caller still getting the index of its own value
+    @Test
+    public void testConcurrentCallersShareABoundedMacPool() throws Exception {
+        String expected = blindIndexUtility.emailIndex("jane@example.com");
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 1000; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    assertEquals(expected, blindIndexUtility.emailIndex("jane@example.com"));
+                    assertEquals(blindIndexUtility.phoneIndex("+65 " + thread), blindIndexUtility.phoneIndex("65" + thread));
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+        BlockingQueue<?> macs = (BlockingQueue<?>) ReflectionTestUtils.getField(blindIndexUtility, "macs");
+        assertTrue(macs.size() <= BlindIndexUtility.MAC_POOL_SIZE);
+    }
+}
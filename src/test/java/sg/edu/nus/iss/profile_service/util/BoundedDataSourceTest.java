@@ -0,0 +1,122 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BoundedDataSourceTest {
+
+    private final DataSource pool = mock(DataSource.class);
+    private final Connection target = mock(Connection.class);
+
+    @Test
+    public void testClosingTheConnectionReleasesItsSlot() throws SQLException {
+        when(pool.getConnection()).thenReturn(target);
+        BoundedDataSource dataSource = new BoundedDataSource(pool, "primary", 2, Duration.ofMillis(50));
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertEquals(2, dataSource.getActive());
+
+        first.close();
+        verify(target).close();
+        assertEquals(1, dataSource.getActive());
+        second.close();
+        assertEquals(0, dataSource.getActive());
+    }
+
+    // A second close is passed on to the pool but gives back no second slot
+    @Test
+    public void testDoubleCloseReleasesOnce() throws SQLException {
+        when(pool.getConnection()).thenReturn(target);
+        BoundedDataSource dataSource = new BoundedDataSource(pool, "primary", 2, Duration.ofMillis(50));
+
+        Connection held = dataSource.getConnection();
+        Connection closedTwice = dataSource.getConnection();
+        closedTwice.close();
+        closedTwice.close();
+
+        assertEquals(1, dataSource.getActive());
+        dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        held.close();
+    }
+
+    @Test
+    public void testWaitGivesUpAfterTheAcquireTimeout() throws Exception {
+        when(pool.getConnection()).thenReturn(target);
+        BoundedDataSource dataSource = new BoundedDataSource(pool, "replica-1", 1, Duration.ofMillis(100));
+        Connection held = dataSource.getConnection();
+
+        long started = System.nanoTime();
+        SQLTransientConnectionException e = assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(e.getMessage().contains("replica-1"), e.getMessage());
+        held.close();
+    }
+
+    // A queued caller gets the slot as soon as the holder closes its connection
+    @Test
+    public void testWaiterTakesTheReleasedSlot() throws Exception {
+        when(pool.getConnection()).thenReturn(target);
+        BoundedDataSource dataSource = new BoundedDataSource(pool, "primary", 1, Duration.ofSeconds(10));
+        Connection held = dataSource.getConnection();
+
+        CompletableFuture<Connection> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (dataSource.getWaiting() == 0) {
+            Thread.sleep(5);
+        }
+        held.close();
+
+        waiter.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, dataSource.getActive());
+    }
+
+    @Test
+    public void testFailedConnectionGivesTheSlotBack() throws SQLException {
+        SQLException refused = new SQLException("connection refused");
+        when(pool.getConnection()).thenThrow(refused);
+        BoundedDataSource dataSource = new BoundedDataSource(pool, "primary", 1, Duration.ofMillis(50));
+
+        assertSame(refused, assertThrows(SQLException.class, dataSource::getConnection));
+        assertSame(refused, assertThrows(SQLException.class, dataSource::getConnection));
+        assertEquals(0, dataSource.getActive());
+    }
+
+    @Test
+    public void testGaugesAreTaggedWithThePoolName() throws SQLException {
+        when(pool.getConnection()).thenReturn(target);
+        BoundedDataSource dataSource = new BoundedDataSource(pool, "replica-2", 3, Duration.ofMillis(50));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        dataSource.bindTo(registry);
+
+        Connection held = dataSource.getConnection();
+
+        assertEquals(1.0, registry.get("db.concurrency.active").tag("pool", "replica-2").gauge().value());
+        assertEquals(3.0, registry.get("db.concurrency.max").tag("pool", "replica-2").gauge().value());
+        assertEquals(0.0, registry.get("db.concurrency.waiting").tag("pool", "replica-2").gauge().value());
+        held.close();
+    }
+}
@@ -0,0 +1,71 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.iss.profile_service.model.Customer;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BulkEncryptorTest {
+
+    private static final int CHUNK_SIZE = 4;
+
+    private final EncryptionUtility encryptionUtility = new EncryptionUtility("0123456789abcdef");
+    private final PiiRecordCodec piiRecordCodec = new PiiRecordCodec(encryptionUtility);
+
+    // Many chunks, each profile keeping its own values
+    @Test
+    public void testColumnModeLeavesEveryValueWithItsCiphertext() {
+        BulkEncryptor bulkEncryptor = new BulkEncryptor(encryptionUtility, piiRecordCodec, 4, CHUNK_SIZE, "column");
+        try {
+            List<Customer> customers = customers(30);
+
+            bulkEncryptor.encryptAll(customers);
+
+            for (int i = 0; i < customers.size(); i++) {
+                EncryptedString[] values = customers.get(i).encryptedPii();
+                assertFalse(EncryptedString.isChanged(values[PiiProfile.NAME]), "customer " + i);
+                assertEquals("Customer " + i, encryptionUtility.decryptBinary(values[PiiProfile.NAME].toCiphertext(encryptionUtility)));
+                assertNull(values[PiiProfile.ADDRESS_LINE2]);
+                assertNull(customers.get(i).getPiiRecord());
+            }
+        } finally {
+            bulkEncryptor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRowModeSealsEachProfilesRecord() {
+        BulkEncryptor bulkEncryptor = new BulkEncryptor(encryptionUtility, piiRecordCodec, 4, CHUNK_SIZE, "row");
+        try {
+            List<Customer> customers = customers(10);
+
+            bulkEncryptor.encryptAll(customers);
+
+            for (int i = 0; i < customers.size(); i++) {
+                String[] expected = {"Customer " + i, "customer" + i + "@example.com", null, null, null, "228714"};
+                assertArrayEquals(expected, piiRecordCodec.open(customers.get(i).getPiiRecord(), PiiProfile.PII_FIELD_COUNT));
+            }
+        } finally {
+            bulkEncryptor.shutdown();
+        }
+    }
+
+    private static List<Customer> customers(int count) {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Customer customer = new Customer();
+            customer.setName("Customer " + i);
+            customer.setEmailAddress("customer" + i + "@example.com");
+            customer.setPincode("228714");
+            customers.add(customer);
+        }
+        return customers;
+    }
+}
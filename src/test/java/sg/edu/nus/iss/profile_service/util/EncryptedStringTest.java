@@ -0,0 +1,133 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.iss.profile_service.model.Customer;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EncryptedStringTest {
+
+    private final EncryptionUtility encryptionUtility = new EncryptionUtility("0123456789abcdef");
+
+    @Test
+    public void testLoadedValueStaysCiphertextUntilRead() {
+        AtomicInteger opened = new AtomicInteger();
+        EncryptedString value = EncryptedString.ofRecord(() -> {
+            opened.incrementAndGet();
+            return "Jane";
+        });
+
+        assertFalse(value.isDecrypted());
+        assertEquals("****", value.toString());
+        assertEquals(0, opened.get());
+
+        assertEquals("Jane", value.getPlaintext());
+        assertTrue(value.isDecrypted());
+    }
+
+    @Test
+    public void testPlaintextIsMemoized() {
+        AtomicInteger opened = new AtomicInteger();
+        EncryptedString value = EncryptedString.ofRecord(() -> {
+            opened.incrementAndGet();
+            return "Jane";
+        });
+
+        value.getPlaintext();
+        value.getPlaintext();
+        value.hashCode();
+
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    public void testCiphertextValueDecryptsOnRead() {
+        byte[] ciphertext = encryptionUtility.encryptBinary("jane@example.com");
+
+        EncryptedString value = EncryptedString.ofCiphertext(ciphertext, encryptionUtility);
+
+        assertFalse(value.isDecrypted());
+        assertEquals("jane@example.com", value.getPlaintext());
+        assertNull(EncryptedString.ofCiphertext(null, encryptionUtility));
+    }
+
+    @Test
+    public void testEqualCiphertextsCompareWithoutDecrypting() {
+        byte[] ciphertext = encryptionUtility.encryptBinary("Jane");
+        EncryptedString first = EncryptedString.ofCiphertext(ciphertext, encryptionUtility);
+        EncryptedString second = EncryptedString.ofCiphertext(ciphertext.clone(), encryptionUtility);
+
+        assertEquals(first, second);
+        assertFalse(first.isDecrypted());
+        assertFalse(second.isDecrypted());
+    }
+
+    @Test
+    public void testDifferentCiphertextsCompareByPlaintext() {
+        EncryptedString first = EncryptedString.ofCiphertext(encryptionUtility.encryptBinary("Jane"), encryptionUtility);
+        EncryptedString second = EncryptedString.ofCiphertext(encryptionUtility.encryptBinary("Jane"), encryptionUtility);
+        EncryptedString other = EncryptedString.ofCiphertext(encryptionUtility.encryptBinary("John"), encryptionUtility);
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, other);
+        assertEquals(EncryptedString.ofPlaintext("Jane"), first);
+    }
+
+    @Test
+    public void testUnchangedLoadedValueKeepsItsCiphertext() {
+        byte[] ciphertext = encryptionUtility.encryptBinary("Jane");
+        EncryptedString loaded = EncryptedString.ofCiphertext(ciphertext, encryptionUtility);
+
+        assertSame(ciphertext, loaded.toCiphertext(encryptionUtility));
+        assertFalse(loaded.isDecrypted());
+        assertFalse(EncryptedString.isChanged(loaded));
+    }
+
+    @Test
+    public void testNewValueIsEncryptedOnce() {
+        EncryptedString value = EncryptedString.ofPlaintext("Jane");
+        assertTrue(EncryptedString.isChanged(value));
+
+        byte[] ciphertext = value.toCiphertext(encryptionUtility);
+
+        assertArrayEquals(ciphertext, value.toCiphertext(encryptionUtility));
+        assertFalse(EncryptedString.isChanged(value));
+        assertEquals("Jane", encryptionUtility.decryptBinary(ciphertext));
+    }
+
+    // Entity equality is by id, so comparing or hashing loaded profiles never opens their PII
+    @Test
+    public void testProfileEqualityDoesNotDecrypt() {
+        UUID id = UUID.randomUUID();
+        Customer first = loadedCustomer(id);
+        Customer second = loadedCustomer(id);
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, loadedCustomer(UUID.randomUUID()));
+        first.toString();
+
+        assertFalse(first.encryptedPii()[0].isDecrypted());
+        assertFalse(second.encryptedPii()[0].isDecrypted());
+    }
+
+    private Customer loadedCustomer(UUID id) {
+        Customer customer = new Customer();
+        customer.setCustomerId(id);
+        EncryptedString[] pii = new EncryptedString[PiiProfile.PII_FIELD_COUNT];
+        pii[0] = EncryptedString.ofCiphertext(encryptionUtility.encryptBinary("Jane"), encryptionUtility);
+        customer.restoreEncryptedPii(pii);
+        return customer;
+    }
+}
@@ -0,0 +1,187 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EncryptionUtilityTest {
+
+    private static final String KEY_1 = "0123456789abcdef";
+    private static final String KEYRING = "2:fedcba9876543210, 3:aaaabbbbccccdddd";
+
+    private final EncryptionUtility legacyOnly = new EncryptionUtility(KEY_1);
+    private final EncryptionUtility activeV2 = new EncryptionUtility(KEY_1, KEYRING, 2);
+    private final EncryptionUtility activeV3 = new EncryptionUtility(KEY_1, KEYRING, 3);
+
+    @Test
+    public void testBinaryRoundTripUnderEveryKeyVersion() {
+        for (EncryptionUtility writer : List.of(legacyOnly, activeV2, activeV3)) {
+            byte[] binary = writer.encryptBinary("jane@example.com");
+
+            assertEquals(EncryptionUtility.BINARY_FORMAT_V2, binary[0]);
+            assertEquals(writer.getActiveKeyVersion(), binary[1] & 0xFF);
+            // Any utility holding the writer's key reads it, whichever key it writes with itself
+            assertEquals("jane@example.com", activeV3.decryptBinary(binary));
+            assertEquals("jane@example.com", activeV2.decryptBinary(binary));
+        }
+    }
+
+    @Test
+    public void testValueUnderUnconfiguredKeyIsRejected() {
+        byte[] binary = activeV3.encryptBinary("jane@example.com");
+
+        assertThrows(IllegalStateException.class, () -> legacyOnly.decryptBinary(binary));
+    }
+
+    @Test
+    public void testLegacyBase64ReframedAsV1IsReadUnderKeyOne() {
+        String legacy = legacyOnly.encrypt("Jane Doe");
+
+        byte[] binary = EncryptionUtility.binaryFromBase64(legacy);
+
+        assertEquals(EncryptionUtility.BINARY_FORMAT_V1, binary[0]);
+        assertEquals("Jane Doe", legacyOnly.decrypt(legacy));
+        assertEquals("Jane Doe", activeV3.decryptBinary(binary));
+        assertNull(EncryptionUtility.binaryFromBase64(null));
+    }
+
+    @Test
+    public void testTamperedKeyVersionFailsAuthentication() {
+        byte[] binary = activeV2.encryptBinary("jane@example.com");
+        // Point the header at another configured key, and at the right key with the header bytes changed
+        byte[] otherVersion = binary.clone();
+        otherVersion[1] = 3;
+
+        assertThrows(RuntimeException.class, () -> activeV3.decryptBinary(otherVersion));
+
+        EncryptionUtility sameKeyAsV3 = new EncryptionUtility(KEY_1, "2:fedcba9876543210, 3:fedcba9876543210", 3);
+        assertThrows(RuntimeException.class, () -> sameKeyAsV3.decryptBinary(otherVersion));
+    }
+
+    @Test
+    public void testTamperedCiphertextFailsAuthentication() {
+        byte[] binary = activeV2.encryptBinary("jane@example.com");
+        binary[binary.length - 1] ^= 1;
+
+        assertThrows(RuntimeException.class, () -> activeV2.decryptBinary(binary));
+    }
+
+    @Test
+    public void testUnknownFormatIsRejected() {
+        assertThrows(RuntimeException.class, () -> activeV2.decryptBytes(new byte[] {9, 2, 0, 0}));
+        assertThrows(RuntimeException.class, () -> activeV2.decryptBytes(new byte[0]));
+    }
+
+    @Test
+    public void testReEncryptLeavesActiveKeyValueUntouched() {
+        byte[] binary = activeV2.encryptBinary("jane@example.com");
+
+        assertTrue(activeV2.isActiveKey(binary));
+        assertSame(binary, activeV2.reEncrypt(binary));
+        assertNull(activeV2.reEncrypt(null));
+    }
+
+    @Test
+    public void testReEncryptMovesOtherKeysToActiveKey() {
+        byte[] underV2 = activeV2.encryptBinary("jane@example.com");
+        byte[] underV1 = EncryptionUtility.binaryFromBase64(legacyOnly.encrypt("Jane Doe"));
+
+        byte[] rotated = activeV3.reEncrypt(underV2);
+        byte[] migrated = activeV3.reEncrypt(underV1);
+
+        assertFalse(activeV3.isActiveKey(underV2));
+        assertFalse(activeV3.isActiveKey(underV1));
+        assertNotSame(underV2, rotated);
+        assertTrue(activeV3.isActiveKey(rotated));
+        assertTrue(activeV3.isActiveKey(migrated));
+        assertEquals("jane@example.com", activeV3.decryptBinary(rotated));
+        assertEquals("Jane Doe", activeV3.decryptBinary(migrated));
+    }
+
+    @Test
+    public void testMisconfiguredKeyringIsRejected() {
+        assertThrows(IllegalStateException.class, () -> new EncryptionUtility(KEY_1, "2", 1));
+        assertThrows(IllegalStateException.class, () -> new EncryptionUtility(KEY_1, "1:fedcba9876543210", 1));
+        assertThrows(IllegalStateException.class, () -> new EncryptionUtility(KEY_1, "", 2));
+    }
+
+    // Pooled ciphers are re-initialised for every call, whatever the previous call on them did
+    @Test
+    public void testReusedCiphersStayUsableAcrossFormatsKeysAndFailures() {
+        byte[] tampered = activeV3.encryptBinary("tampered");
+        tampered[tampered.length - 1] ^= 1;
+
+        for (int i = 0; i < 20; i++) {
+            String value = "value " + i;
+            String legacy = activeV3.encrypt(value);
+            byte[] binary = activeV3.encryptBinary(value);
+            assertThrows(RuntimeException.class, () -> activeV3.decryptBinary(tampered));
+            assertEquals(value, activeV3.decrypt(legacy));
+            assertEquals(value, activeV3.decryptBinary(binary));
+            assertEquals(value, activeV3.decryptBinary(activeV2.encryptBinary(value)));
+        }
+    }
+
+    @Test
+    public void testConcurrentCallersEachGetTheirOwnResult() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        byte[] plaintext = ("thread " + thread + " value " + i).getBytes(StandardCharsets.UTF_8);
+                        assertArrayEquals(plaintext, activeV3.decryptBytes(activeV3.encryptBytes(plaintext)));
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // A virtual thread per caller, far more callers than pooled ciphers; the pool keeps no more than its size
+    @Test
+    public void testVirtualThreadCallersShareABoundedCipherPool() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 1000; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 5; i++) {
+                        String value = "thread " + thread + " value " + i;
+                        assertEquals(value, activeV3.decryptBinary(activeV3.encryptBinary(value)));
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+        BlockingQueue<?> ciphers = (BlockingQueue<?>) ReflectionTestUtils.getField(activeV3, "ciphers");
+        assertTrue(ciphers.size() <= EncryptionUtility.CIPHER_POOL_SIZE);
+        assertFalse(ciphers.isEmpty());
+    }
+}
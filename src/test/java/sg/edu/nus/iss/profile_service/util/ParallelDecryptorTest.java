@@ -0,0 +1,93 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ParallelDecryptorTest {
+
+    private static final int CHUNK_SIZE = 4;
+
+    private final EncryptionUtility encryptionUtility = new EncryptionUtility("0123456789abcdef");
+    private final PiiRecordCodec piiRecordCodec = new PiiRecordCodec(encryptionUtility);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ParallelDecryptor parallelDecryptor = new ParallelDecryptor(encryptionUtility, piiRecordCodec,
+            meterRegistry, 4, CHUNK_SIZE);
+
+    @AfterEach
+    public void shutdown() {
+        parallelDecryptor.shutdown();
+    }
+
+    // Many chunks finishing in any order still leave every row with its own plaintext
+    @Test
+    public void testDecryptAllKeepsEachRowsValuesAcrossChunks() {
+        List<EncryptedPii> rows = new ArrayList<>();
+        List<String[]> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String[] values = {"Name " + i, "user" + i + "@example.com", "Line " + i, i % 3 == 0 ? null : "Unit " + i,
+                    "+65 6000 " + i, String.format("%06d", i)};
+            expected.add(values);
+            if (i % 2 == 0) {
+                rows.add(new EncryptedPii(encryptColumns(values), null));
+            } else {
+                rows.add(new EncryptedPii(new byte[PiiProfile.PII_FIELD_COUNT][], piiRecordCodec.seal(values)));
+            }
+        }
+
+        parallelDecryptor.decryptAll(rows);
+
+        for (int i = 0; i < rows.size(); i++) {
+            assertArrayEquals(expected.get(i), rows.get(i).getValues(), "row " + i);
+        }
+    }
+
+    @Test
+    public void testDecryptAllLeavesNullCellsNull() {
+        EncryptedPii row = new EncryptedPii(encryptColumns(new String[] {"Name", null, null, null, null, null}), null);
+
+        parallelDecryptor.decryptAll(List.of(row));
+
+        assertEquals("Name", row.getValues()[0]);
+        assertNull(row.getValues()[1]);
+    }
+
+    @Test
+    public void testDecryptAllRecordsRowsBytesAndBatches() {
+        List<EncryptedPii> rows = new ArrayList<>();
+        long bytes = 0;
+        for (int i = 0; i < 10; i++) {
+            byte[][] columns = encryptColumns(new String[] {"Name " + i, "user" + i + "@example.com", null, null, null, "123456"});
+            for (byte[] column : columns) {
+                bytes += column != null ? column.length : 0;
+            }
+            rows.add(new EncryptedPii(columns, null));
+        }
+        byte[] record = piiRecordCodec.seal(new String[] {"Sealed", "sealed@example.com", null, null, null, null});
+        rows.add(new EncryptedPii(new byte[PiiProfile.PII_FIELD_COUNT][], record));
+        bytes += record.length;
+
+        parallelDecryptor.decryptAll(rows);
+        parallelDecryptor.decryptAll(List.of());
+
+        assertEquals(11.0, meterRegistry.get("profile.decryption.rows").counter().count());
+        assertEquals((double) bytes, meterRegistry.get("profile.decryption.bytes").counter().count());
+        assertEquals(1, meterRegistry.get("profile.decryption.batch").timer().count());
+    }
+
+    private byte[][] encryptColumns(String[] values) {
+        byte[][] columns = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            columns[i] = encryptionUtility.encryptBinary(values[i]);
+        }
+        return columns;
+    }
+}
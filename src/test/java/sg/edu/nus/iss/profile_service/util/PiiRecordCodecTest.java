@@ -0,0 +1,63 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PiiRecordCodecTest {
+
+    private final EncryptionUtility encryptionUtility = new EncryptionUtility("0123456789abcdef");
+    private final PiiRecordCodec piiRecordCodec = new PiiRecordCodec(encryptionUtility);
+
+    @Test
+    public void testRoundTripKeepsNullsApartFromEmptyStrings() {
+        String[] values = {"Jane Doe", null, "", null, "", "228714"};
+
+        assertArrayEquals(values, piiRecordCodec.open(piiRecordCodec.seal(values), PiiProfile.PII_FIELD_COUNT));
+    }
+
+    @Test
+    public void testRoundTripOfAllNullsAndAllEmpties() {
+        String[] nulls = new String[PiiProfile.PII_FIELD_COUNT];
+        String[] empties = {"", "", "", "", "", ""};
+
+        assertArrayEquals(nulls, piiRecordCodec.open(piiRecordCodec.seal(nulls), PiiProfile.PII_FIELD_COUNT));
+        assertArrayEquals(empties, piiRecordCodec.open(piiRecordCodec.seal(empties), PiiProfile.PII_FIELD_COUNT));
+    }
+
+    // Lengths of 127 bytes and more take a multi-byte varint; multi-byte characters count in bytes
+    @Test
+    public void testRoundTripOfLongAndMultiByteValues() {
+        String[] values = {"a".repeat(126), "b".repeat(127), "c".repeat(20000), "Zoë 日本", "😀", "x"};
+
+        assertArrayEquals(values, piiRecordCodec.open(piiRecordCodec.seal(values), PiiProfile.PII_FIELD_COUNT));
+    }
+
+    @Test
+    public void testRecordIsOneActiveKeyCiphertext() {
+        byte[] record = piiRecordCodec.seal(new String[] {"Jane", "jane@example.com", null, null, null, null});
+
+        assertTrue(encryptionUtility.isActiveKey(record));
+        assertEquals(1, encryptionUtility.decryptBytes(record)[0]);
+    }
+
+    @Test
+    public void testRecordUnderOlderKeyOpensAfterRotation() {
+        EncryptionUtility rotated = new EncryptionUtility("0123456789abcdef", "2:fedcba9876543210", 2);
+        String[] values = {"Jane", "jane@example.com", null, null, null, "228714"};
+        byte[] underKeyOne = piiRecordCodec.seal(values);
+
+        assertArrayEquals(values, new PiiRecordCodec(rotated).open(underKeyOne, PiiProfile.PII_FIELD_COUNT));
+    }
+
+    @Test
+    public void testUnknownRecordFormatIsRejected() {
+        byte[] record = encryptionUtility.encryptBytes(new byte[] {7, 0, 0});
+
+        assertThrows(IllegalStateException.class, () -> piiRecordCodec.open(record, PiiProfile.PII_FIELD_COUNT));
+    }
+}
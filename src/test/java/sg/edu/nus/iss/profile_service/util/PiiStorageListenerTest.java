@@ -0,0 +1,181 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import sg.edu.nus.iss.profile_service.PostgresPersistenceContext;
+import sg.edu.nus.iss.profile_service.model.Customer;
+import sg.edu.nus.iss.profile_service.model.PiiProfile;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Loads and flushes profiles through Hibernate on PostgreSQL, where a value the listener sets on load would be
+ * written back on every flush.
+ */
+public class PiiStorageListenerTest {
+
+    private PostgresPersistenceContext context;
+
+    @AfterEach
+    public void close() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    public void testLoadingSealedRowDoesNotWriteIt() {
+        context = new PostgresPersistenceContext("row");
+        UUID id = persist(customer("Jane Doe", "jane@example.com"));
+        context.statistics().clear();
+
+        Customer loaded = inTransaction(entityManager -> {
+            Customer customer = entityManager.find(Customer.class, id);
+            customer.getName();
+            customer.getEmailAddress();
+            return customer;
+        });
+
+        assertEquals(0, context.statistics().getEntityUpdateCount());
+        assertEquals("Jane Doe", loaded.getName());
+        assertEquals("jane@example.com", loaded.getEmailAddress());
+    }
+
+    @Test
+    public void testSealedRowIsOpenedOnlyWhenRead() {
+        context = new PostgresPersistenceContext("row");
+        UUID id = persist(customer("Jane Doe", "jane@example.com"));
+
+        Customer loaded = inTransaction(entityManager -> entityManager.find(Customer.class, id));
+
+        assertFalse(loaded.encryptedPii()[PiiProfile.NAME].isDecrypted());
+        assertEquals("Jane Doe", loaded.getName());
+    }
+
+    @Test
+    public void testChangingOneSealedFieldKeepsTheOthers() {
+        context = new PostgresPersistenceContext("row");
+        UUID id = persist(customer("Jane Doe", "jane@example.com"));
+        context.statistics().clear();
+
+        inTransaction(entityManager -> {
+            entityManager.find(Customer.class, id).setName("Jane Smith");
+            return null;
+        });
+        Customer reloaded = inTransaction(entityManager -> entityManager.find(Customer.class, id));
+
+        assertEquals(1, context.statistics().getEntityUpdateCount());
+        assertEquals("Jane Smith", reloaded.getName());
+        assertEquals("jane@example.com", reloaded.getEmailAddress());
+        assertEquals("228714", reloaded.getPincode());
+        assertNotNull(reloaded.getPiiRecord());
+    }
+
+    @Test
+    public void testClearingSealedFieldIsWritten() {
+        context = new PostgresPersistenceContext("row");
+        Customer customer = customer("Jane Doe", "jane@example.com");
+        customer.setAddressLine2("#02-01");
+        UUID id = persist(customer);
+
+        inTransaction(entityManager -> {
+            entityManager.find(Customer.class, id).setAddressLine2(null);
+            return null;
+        });
+        Customer reloaded = inTransaction(entityManager -> entityManager.find(Customer.class, id));
+
+        assertNull(reloaded.getAddressLine2());
+        assertEquals("Jane Doe", reloaded.getName());
+    }
+
+    @Test
+    public void testLoadingLegacyRowDoesNotWriteIt() {
+        context = new PostgresPersistenceContext("column");
+        UUID id = insertLegacy("Legacy Name", "legacy@example.com");
+        context.statistics().clear();
+
+        Customer loaded = inTransaction(entityManager -> {
+            Customer customer = entityManager.find(Customer.class, id);
+            customer.getName();
+            return customer;
+        });
+
+        assertEquals(0, context.statistics().getEntityUpdateCount());
+        assertEquals("Legacy Name", loaded.getName());
+        assertEquals("legacy@example.com", loaded.getEmailAddress());
+    }
+
+    @Test
+    public void testLegacyRowWithoutEmailIsRead() {
+        context = new PostgresPersistenceContext("column");
+        UUID id = insertLegacy("Legacy Name", null);
+
+        Customer loaded = inTransaction(entityManager -> entityManager.find(Customer.class, id));
+
+        assertEquals("Legacy Name", loaded.getName());
+        assertNull(loaded.getEmailAddress());
+    }
+
+    @Test
+    public void testWritingLegacyRowMovesItToBinaryColumnsUnderActiveKey() {
+        context = new PostgresPersistenceContext("column");
+        UUID id = insertLegacy("Legacy Name", "legacy@example.com");
+
+        inTransaction(entityManager -> {
+            entityManager.find(Customer.class, id).setRewardPoints(BigDecimal.TEN);
+            return null;
+        });
+
+        Map<String, Object> row = new JdbcTemplate(context.getDataSource())
+                .queryForMap("SELECT name, email_address, name_bin, email_address_bin FROM customer WHERE customer_id = ?", id);
+        assertNull(row.get("name"));
+        assertNull(row.get("email_address"));
+        byte[] name = (byte[]) row.get("name_bin");
+        assertTrue(context.getEncryptionUtility().isActiveKey(name));
+        assertEquals("Legacy Name", context.getEncryptionUtility().decryptBinary(name));
+        assertEquals("legacy@example.com", context.getEncryptionUtility().decryptBinary((byte[]) row.get("email_address_bin")));
+    }
+
+    private UUID insertLegacy(String name, String email) {
+        UUID id = UUID.randomUUID();
+        EncryptionUtility encryptionUtility = context.getEncryptionUtility();
+        new JdbcTemplate(context.getDataSource()).update(
+                "INSERT INTO customer (customer_id, deleted, name, email_address) VALUES (?, false, ?, ?)", id,
+                encryptionUtility.encrypt(name), email == null ? null : encryptionUtility.encrypt(email));
+        return id;
+    }
+
+    private UUID persist(Customer customer) {
+        return inTransaction(entityManager -> {
+            entityManager.persist(customer);
+            return customer.getCustomerId();
+        });
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> work) {
+        return context.transactionTemplate().execute(status -> work.apply(
+                EntityManagerFactoryUtils.getTransactionalEntityManager(context.getEntityManagerFactory())));
+    }
+
+    private static Customer customer(String name, String email) {
+        Customer customer = new Customer();
+        customer.setName(name);
+        customer.setEmailAddress(email);
+        customer.setAddressLine1("1 Orchard Road");
+        customer.setPhoneNumber("+65 6123 4567");
+        customer.setPincode("228714");
+        return customer;
+    }
+}
@@ -0,0 +1,151 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReadReplicaRouterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HikariDataSource primary = mock(HikariDataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final List<HikariDataSource> replicas = new ArrayList<>();
+    private final List<Connection> replicaConnections = new ArrayList<>();
+    private ReadReplicaRouter router;
+
+    @AfterEach
+    public void close() {
+        ReadReplicaRouter.pinToPrimary(false);
+        if (router != null) {
+            router.close();
+        }
+    }
+
+    @Test
+    public void testReadsTakeTheHealthyReplicasInTurn() throws SQLException {
+        router = router(0.0, 0.5);
+
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            connections.add(router.readOnlyDataSource().getConnection());
+        }
+
+        assertEquals(List.of(replicaConnections.get(0), replicaConnections.get(1),
+                replicaConnections.get(0), replicaConnections.get(1)), connections);
+        assertEquals(4.0, routed("replica", "healthy"));
+    }
+
+    @Test
+    public void testLaggingReplicaIsSkipped() throws SQLException {
+        router = router(10.0, 0.0);
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(replicaConnections.get(1), router.readOnlyDataSource().getConnection());
+        }
+        assertEquals(10.0, meterRegistry.get("datasource.replica.lag").tag("pool", "replica-1").gauge().value());
+    }
+
+    // Too far behind and unreachable alike leave only the primary
+    @Test
+    public void testReadsFallBackToThePrimaryWhenNoReplicaQualifies() throws SQLException {
+        router = router(10.0, Double.NaN);
+
+        assertSame(primaryConnection, router.readOnlyDataSource().getConnection());
+        assertSame(primaryConnection, router.readOnlyDataSource().getConnection());
+        assertEquals(2.0, routed("primary", "replica_lag"));
+        assertEquals(Double.NaN, meterRegistry.get("datasource.replica.lag").tag("pool", "replica-2").gauge().value());
+    }
+
+    @Test
+    public void testPinnedThreadReadsFromThePrimary() throws SQLException {
+        router = router(0.0);
+
+        ReadReplicaRouter.pinToPrimary(true);
+        assertSame(primaryConnection, router.readOnlyDataSource().getConnection());
+        ReadReplicaRouter.pinToPrimary(false);
+        assertSame(replicaConnections.get(0), router.readOnlyDataSource().getConnection());
+
+        assertEquals(1.0, routed("primary", "read_your_writes"));
+        assertEquals(1.0, routed("replica", "healthy"));
+    }
+
+    // One slot per pool: a read holding the only replica slot leaves the primary's slot to writes, and back
+    @Test
+    public void testEachPoolIsBoundedOnItsOwn() throws SQLException {
+        router = router(pool -> new BoundedDataSource(pool, pool.getPoolName(), 1, Duration.ofMillis(50)), 0.0);
+
+        Connection read = router.readOnlyDataSource().getConnection();
+        assertThrows(SQLTransientConnectionException.class, () -> router.readOnlyDataSource().getConnection());
+        Connection write = router.primaryDataSource().getConnection();
+        ReadReplicaRouter.pinToPrimary(true);
+        assertThrows(SQLTransientConnectionException.class, () -> router.readOnlyDataSource().getConnection());
+        ReadReplicaRouter.pinToPrimary(false);
+
+        read.close();
+        write.close();
+        router.readOnlyDataSource().getConnection().close();
+        router.primaryDataSource().getConnection().close();
+    }
+
+    @Test
+    public void testRouterWithoutReplicasIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> router());
+    }
+
+    private ReadReplicaRouter router(double... lags) throws SQLException {
+        return router(pool -> pool, lags);
+    }
+
+    // NaN stands for a replica whose lag query fails
+    private ReadReplicaRouter router(Function<HikariDataSource, DataSource> connections, double... lags)
+            throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(primary.getPoolName()).thenReturn("primary");
+        for (double lag : lags) {
+            HikariDataSource replica = mock(HikariDataSource.class);
+            Connection connection = mock(Connection.class);
+            when(replica.getPoolName()).thenReturn("replica-" + (replicas.size() + 1));
+            when(replica.getConnection()).thenReturn(connection);
+            Statement statement = mock(Statement.class);
+            when(connection.createStatement()).thenReturn(statement);
+            if (Double.isNaN(lag)) {
+                when(statement.executeQuery(anyString())).thenThrow(new SQLException("connection refused"));
+            } else {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.next()).thenReturn(true);
+                when(rs.getDouble(1)).thenReturn(lag);
+                when(statement.executeQuery(anyString())).thenReturn(rs);
+            }
+            replicas.add(replica);
+            replicaConnections.add(connection);
+        }
+        // The background check runs once at start; the test checks again so routing never waits on it
+        ReadReplicaRouter created = new ReadReplicaRouter(primary, replicas, connections, Duration.ofSeconds(2),
+                Duration.ofHours(1), meterRegistry);
+        created.checkLag();
+        return created;
+    }
+
+    private double routed(String target, String reason) {
+        return meterRegistry.get("datasource.read.route").tag("target", target).tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,113 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReadYourWritesInterceptorTest {
+
+    private final ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor("X-Client-Id", Duration.ofMillis(200));
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    public void unpin() {
+        ReadReplicaRouter.pinToPrimary(false);
+    }
+
+    @Test
+    public void testWriteRequestIsPinnedUntilItCompletes() {
+        MockHttpServletRequest request = request("POST", "client-a");
+
+        interceptor.preHandle(request, response, null);
+        assertTrue(ReadReplicaRouter.isPinnedToPrimary());
+        interceptor.afterCompletion(request, response, null, null);
+
+        assertFalse(ReadReplicaRouter.isPinnedToPrimary());
+    }
+
+    @Test
+    public void testReadsOfARecentWriterArePinnedUntilTheWindowEnds() throws InterruptedException {
+        write("client-a");
+
+        assertTrue(pinned(request("GET", "client-a")));
+        assertFalse(pinned(request("GET", "client-b")));
+
+        Thread.sleep(400);
+        assertFalse(pinned(request("GET", "client-a")));
+    }
+
+    // Without the client header the remote address identifies the client
+    @Test
+    public void testClientWithoutHeaderIsTrackedByRemoteAddress() {
+        MockHttpServletRequest post = request("PUT", null);
+        post.setRemoteAddr("10.0.0.7");
+        interceptor.preHandle(post, response, null);
+        interceptor.afterCompletion(post, response, null, null);
+
+        MockHttpServletRequest sameAddress = request("GET", " ");
+        sameAddress.setRemoteAddr("10.0.0.7");
+        MockHttpServletRequest otherAddress = request("GET", null);
+        otherAddress.setRemoteAddr("10.0.0.8");
+
+        assertTrue(pinned(sameAddress));
+        assertFalse(pinned(otherAddress));
+    }
+
+    // The request thread is released unpinned, and the thread writing the body reads from the primary
+    @Test
+    public void testStreamedBodyKeepsThePinOnItsOwnThread() throws Exception {
+        write("client-a");
+        MockHttpServletRequest request = request("GET", "client-a");
+        AtomicBoolean pinnedWhileStreaming = new AtomicBoolean();
+
+        interceptor.preHandle(request, response, null);
+        StreamingResponseBody body = ProfileStreamWriter.write(new ObjectMapper(), true,
+                sink -> pinnedWhileStreaming.set(ReadReplicaRouter.isPinnedToPrimary()));
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        assertFalse(ReadReplicaRouter.isPinnedToPrimary());
+
+        boolean pinnedAfterStreaming = CompletableFuture.supplyAsync(() -> {
+            try {
+                body.writeTo(new ByteArrayOutputStream());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return ReadReplicaRouter.isPinnedToPrimary();
+        }).get();
+
+        assertTrue(pinnedWhileStreaming.get());
+        assertFalse(pinnedAfterStreaming);
+    }
+
+    private void write(String client) {
+        MockHttpServletRequest request = request("POST", client);
+        interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+    }
+
+    private boolean pinned(MockHttpServletRequest request) {
+        interceptor.preHandle(request, response, null);
+        boolean pinned = ReadReplicaRouter.isPinnedToPrimary();
+        interceptor.afterCompletion(request, response, null, null);
+        return pinned;
+    }
+
+    private static MockHttpServletRequest request(String method, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/customer");
+        if (client != null) {
+            request.addHeader("X-Client-Id", client);
+        }
+        return request;
+    }
+}
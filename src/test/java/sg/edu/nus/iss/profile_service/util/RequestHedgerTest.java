@@ -0,0 +1,140 @@
+package sg.edu.nus.iss.profile_service.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class RequestHedgerTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(20);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RequestHedger requestHedger;
+
+    @BeforeEach
+    public void setup() {
+        requestHedger = new RequestHedger("test", 2, 0.95, HEDGE_DELAY, false, meterRegistry);
+        // Enough fast calls to learn a latency percentile, below the minimum delay
+        for (int i = 0; i < 64; i++) {
+            requestHedger.call(() -> "warm-up");
+        }
+    }
+
+    @AfterEach
+    public void shutdown() {
+        requestHedger.shutdown();
+    }
+
+    @Test
+    public void testSlowPrimaryIsHedged() {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        String result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> requestHedger.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                await(release);
+                return "primary";
+            }
+            return "hedge";
+        }));
+        release.countDown();
+
+        assertEquals("hedge", result);
+        assertEquals(1.0, meterRegistry.get("request.hedging").tag("outcome", "hedge_won").counter().count());
+    }
+
+    @Test
+    public void testFailedPrimaryLeavesOutcomeToHedge() {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch hedgeStarted = new CountDownLatch(1);
+
+        String result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> requestHedger.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                await(hedgeStarted);
+                throw new IllegalStateException("primary failed");
+            }
+            hedgeStarted.countDown();
+            sleep(50);
+            return "hedge";
+        }));
+
+        assertEquals("hedge", result);
+    }
+
+    @Test
+    public void testBothAttemptsFailingFailsTheCall() {
+        IllegalStateException failure = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(IllegalStateException.class, () -> requestHedger.call(() -> {
+                    sleep(50);
+                    throw new IllegalStateException("down");
+                })));
+
+        assertEquals("down", failure.getMessage());
+    }
+
+    // The primary fails after the hedge was counted in but before it was refused
+    @Test
+    public void testPrimaryFailingBeforeHedgeIsRefusedFailsTheCall() {
+        CountDownLatch release = new CountDownLatch(1);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(requestHedger, "executor");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            release.countDown();
+            try {
+                // Until the primary has failed and counted itself out
+                pool.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new RejectedExecutionException("refused");
+        });
+
+        IllegalStateException failure = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(IllegalStateException.class, () -> requestHedger.call(() -> {
+                    // Once the primary runs, nothing further is accepted
+                    executor.shutdown();
+                    await(release);
+                    throw new IllegalStateException("primary failed");
+                })));
+
+        assertEquals("primary failed", failure.getMessage());
+    }
+
+    @Test
+    public void testErrorInAttemptFailsTheCall() {
+        AssertionError error = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(AssertionError.class, () -> requestHedger.call(() -> {
+                    throw new AssertionError("broken");
+                })));
+
+        assertEquals("broken", error.getMessage());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}